@@ -5469,6 +5469,7 @@ int LIBNETXMS_EXPORTABLE nxlog_get_debug_level();
 int LIBNETXMS_EXPORTABLE nxlog_get_debug_level_tag(const TCHAR *tag);
 int LIBNETXMS_EXPORTABLE nxlog_get_debug_level_tag_object(const TCHAR *tag, UINT32 objectId);
 void LIBNETXMS_EXPORTABLE nxlog_reset_debug_level_tags();
+uint32_t LIBNETXMS_EXPORTABLE nxlog_get_debug_level_version();
 
 /**
  * Debug tag information
@@ -1204,6 +1204,7 @@ enum AggregationFunction
 #define MAP_LAYOUT_HTREE         2
 #define MAP_LAYOUT_VTREE		   3
 #define MAP_LAYOUT_SPARSE_VTREE  4
+#define MAP_LAYOUT_FORCE_DIRECTED 5
 
 
 //
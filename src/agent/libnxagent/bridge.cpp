@@ -197,6 +197,16 @@ bool LIBNXAGENT_EXPORTABLE AgentPushParameterData(const TCHAR *parameter, const
 	return s_fpPushData(parameter, value, 0, 0);
 }
 
+/**
+ * Push parameter's value with explicit timestamp (0 means current time)
+ */
+bool LIBNXAGENT_EXPORTABLE AgentPushParameterDataWithTimestamp(const TCHAR *parameter, const TCHAR *value, time_t timestamp)
+{
+   if (s_fpPushData == nullptr)
+      return false;
+   return s_fpPushData(parameter, value, 0, timestamp);
+}
+
 /**
  * Push parameter's value
  */
@@ -0,0 +1,130 @@
+package org.netxms.subagent.docker;
+
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+
+/**
+ * Cached container information (as returned by container list call) with latest resource usage statistics.
+ */
+public class ContainerInfo {
+
+    private final String id;
+    private final String name;
+    private final String image;
+    private final String command;
+    private final long created;
+    private final String state;
+    private final String status;
+    private volatile ContainerStats stats;
+
+    /**
+     * Create from container list entry.
+     *
+     * @param json container list entry
+     * @param stats last known statistics (can be null)
+     */
+    public ContainerInfo(JsonObject json, ContainerStats stats) {
+        id = json.getString("Id");
+        JsonArray names = json.getJsonArray("Names");
+        name = ((names != null) && !names.isEmpty()) ? names.getString(0) : "";
+        image = json.getString("Image", "");
+        command = json.getString("Command", "");
+        JsonNumber createdValue = json.getJsonNumber("Created");
+        created = (createdValue != null) ? createdValue.longValue() : 0;
+        state = json.getString("State", "");
+        status = json.getString("Status", "");
+        this.stats = stats;
+    }
+
+    /**
+     * Check if container matches given identifier (full ID, ID prefix of at least 12 characters, or name with or without
+     * leading slash).
+     *
+     * @param idOrName container ID or name
+     * @return true if matches
+     */
+    public boolean matches(String idOrName) {
+        if (id.equalsIgnoreCase(idOrName) || ((idOrName.length() >= 12) && id.regionMatches(true, 0, idOrName, 0, idOrName.length()))) {
+            return true;
+        }
+        return getShortName().equalsIgnoreCase(idOrName.startsWith("/") ? idOrName.substring(1) : idOrName);
+    }
+
+    /**
+     * @return container ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return container name (with leading slash, as reported by Docker)
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return container name without leading slash
+     */
+    public String getShortName() {
+        return name.startsWith("/") ? name.substring(1) : name;
+    }
+
+    /**
+     * @return image name
+     */
+    public String getImage() {
+        return image;
+    }
+
+    /**
+     * @return command
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * @return creation time (UNIX timestamp)
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return container state (running, exited, etc.)
+     */
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * @return human readable status
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true if container is running
+     */
+    public boolean isRunning() {
+        return "running".equalsIgnoreCase(state);
+    }
+
+    /**
+     * @return latest statistics or null if not collected
+     */
+    public ContainerStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @param stats new statistics
+     */
+    void setStats(ContainerStats stats) {
+        this.stats = stats;
+    }
+}
@@ -0,0 +1,319 @@
+package org.netxms.subagent.docker;
+
+import com.amihaiemil.docker.Container;
+import com.amihaiemil.docker.Docker;
+import org.netxms.bridge.LogLevel;
+import org.netxms.bridge.Platform;
+
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Container inventory cache. Container list is retrieved with single API call and kept current from Docker events stream;
+ * full reconciliation is done periodically. Resource usage statistics for running containers are collected by separate
+ * scheduled task, so slow statistics requests do not delay processing of container events.
+ */
+public class ContainerInventory {
+
+    private static final String DEBUG_TAG = "docker";
+    private static final long EVENT_REFRESH_DELAY = 1000;
+    private static final long EVENT_RECONNECT_INTERVAL = 10000;
+
+    private final Docker docker;
+    private final DockerSocket socket;
+    private final long reconciliationInterval;
+    private final boolean collectStatistics;
+    private volatile Snapshot snapshot = null;
+    private final Object refreshLock = new Object();
+    private boolean refreshRequested = false;
+    private volatile boolean running = false;
+    private Thread refreshThread = null;
+    private Thread eventThread = null;
+    private ScheduledExecutorService statisticsExecutor = null;
+
+    /**
+     * Immutable inventory snapshot
+     */
+    private static final class Snapshot {
+        final Map<String, ContainerInfo> byId;
+        final Map<String, ContainerInfo> byName;
+
+        Snapshot(Map<String, ContainerInfo> byId, Map<String, ContainerInfo> byName) {
+            this.byId = Collections.unmodifiableMap(byId);
+            this.byName = byName;
+        }
+    }
+
+    /**
+     * @param docker Docker API client
+     * @param socketFile Docker daemon socket
+     * @param reconciliationInterval full reconciliation interval in milliseconds
+     * @param collectStatistics true to collect resource usage statistics at reconciliation interval
+     */
+    public ContainerInventory(Docker docker, File socketFile, long reconciliationInterval, boolean collectStatistics) {
+        this.docker = docker;
+        this.socket = new DockerSocket(socketFile);
+        this.reconciliationInterval = reconciliationInterval;
+        this.collectStatistics = collectStatistics;
+    }
+
+    /**
+     * Start background refresh, event listener, and statistics collection threads.
+     */
+    public void start() {
+        running = true;
+        refreshThread = new Thread(this::refreshThreadMain, "Docker inventory");
+        refreshThread.setDaemon(true);
+        refreshThread.start();
+        eventThread = new Thread(this::eventThreadMain, "Docker events");
+        eventThread.setDaemon(true);
+        eventThread.start();
+        if (collectStatistics) {
+            statisticsExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "Docker statistics");
+                t.setDaemon(true);
+                return t;
+            });
+            statisticsExecutor.scheduleWithFixedDelay(this::statisticsTask, 0, reconciliationInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop background threads.
+     */
+    public void stop() {
+        running = false;
+        socket.closeStream();
+        synchronized (refreshLock) {
+            refreshLock.notifyAll();
+        }
+        if (refreshThread != null) {
+            refreshThread.interrupt();
+        }
+        if (eventThread != null) {
+            eventThread.interrupt();
+        }
+        if (statisticsExecutor != null) {
+            statisticsExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Get all known containers.
+     *
+     * @return all containers
+     * @throws IOException if inventory is not loaded yet and cannot be loaded
+     */
+    public Collection<ContainerInfo> getContainers() throws IOException {
+        return getSnapshot().byId.values();
+    }
+
+    /**
+     * Find container by ID, ID prefix, or name.
+     *
+     * @param idOrName container ID or name
+     * @return container or null if not found
+     * @throws IOException if inventory is not loaded yet and cannot be loaded
+     */
+    public ContainerInfo findContainer(String idOrName) throws IOException {
+        if ((idOrName == null) || idOrName.isEmpty()) {
+            return null;
+        }
+        Snapshot s = getSnapshot();
+        ContainerInfo container = s.byId.get(idOrName.toLowerCase());
+        if (container == null) {
+            container = s.byName.get((idOrName.startsWith("/") ? idOrName.substring(1) : idOrName).toLowerCase());
+        }
+        if (container == null) {
+            for (ContainerInfo c : s.byId.values()) {
+                if (c.matches(idOrName)) {
+                    return c;
+                }
+            }
+        }
+        return container;
+    }
+
+    /**
+     * Get current snapshot, loading it if necessary.
+     */
+    private Snapshot getSnapshot() throws IOException {
+        Snapshot s = snapshot;
+        if (s == null) {
+            s = loadContainerList();
+        }
+        return s;
+    }
+
+    /**
+     * Request inventory refresh (called on container events).
+     */
+    private void requestRefresh() {
+        synchronized (refreshLock) {
+            refreshRequested = true;
+            refreshLock.notifyAll();
+        }
+    }
+
+    /**
+     * Reload container list with single API call. Statistics from previous snapshot are carried over to containers that still
+     * exist.
+     *
+     * @return new snapshot
+     * @throws IOException on communication error
+     */
+    private synchronized Snapshot loadContainerList() throws IOException {
+        Snapshot prev = snapshot;
+        Map<String, ContainerInfo> byId = new LinkedHashMap<>();
+        Map<String, ContainerInfo> byName = new HashMap<>();
+        Iterator<Container> it = docker.containers().all();
+        while (it.hasNext()) {
+            Container c = it.next();
+            String id = c.containerId().toLowerCase();
+            ContainerInfo old = (prev != null) ? prev.byId.get(id) : null;
+            ContainerInfo container = new ContainerInfo(c, (old != null) ? old.getStats() : null);
+            byId.put(id, container);
+            byName.put(container.getShortName().toLowerCase(), container);
+        }
+        Snapshot s = new Snapshot(byId, byName);
+        snapshot = s;
+        Platform.writeDebugLog(DEBUG_TAG, 7, "Container inventory refreshed (%d containers)", byId.size());
+        return s;
+    }
+
+    /**
+     * Collect resource usage statistics for running containers.
+     *
+     * @param containers containers
+     */
+    private void collectStatistics(Collection<ContainerInfo> containers) {
+        for (ContainerInfo container : containers) {
+            if (!running) {
+                break;
+            }
+            if (!container.isRunning()) {
+                container.setStats(null);
+                continue;
+            }
+            try {
+                JsonObject json = socket.get("/containers/" + container.getId() + "/stats?stream=false&one-shot=true");
+                ContainerStats stats = new ContainerStats(json, container.getStats());
+                container.setStats(stats);
+                // Inventory could be reloaded on container event while statistics were collected
+                ContainerInfo current = snapshot.byId.get(container.getId().toLowerCase());
+                if ((current != null) && (current != container)) {
+                    current.setStats(stats);
+                }
+            } catch (Exception e) {
+                Platform.writeDebugLog(DEBUG_TAG, 6, "Cannot read statistics for container " + container.getName() + " (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    /**
+     * Statistics collection task. Uses current snapshot; containers added by later refresh get statistics on next run.
+     */
+    private void statisticsTask() {
+        try {
+            collectStatistics(getSnapshot().byId.values());
+        } catch (Exception e) {
+            Platform.writeDebugLog(DEBUG_TAG, 5, "Cannot collect container statistics (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Refresh thread. Does full reconciliation at configured interval, and quick refresh of container list when requested
+     * by event listener. Events arriving within short time are served by single refresh.
+     */
+    private void refreshThreadMain() {
+        long nextReconciliation = 0;
+        while (running) {
+            long now = System.currentTimeMillis();
+            if (now >= nextReconciliation) {
+                nextReconciliation = now + reconciliationInterval;
+            }
+            try {
+                loadContainerList();
+            } catch (Exception e) {
+                Platform.writeDebugLog(DEBUG_TAG, 5, "Cannot refresh container inventory (" + e.getMessage() + ")");
+            }
+
+            try {
+                synchronized (refreshLock) {
+                    long timeout;
+                    while (running && !refreshRequested && ((timeout = nextReconciliation - System.currentTimeMillis()) > 0)) {
+                        refreshLock.wait(timeout);
+                    }
+                    if (!refreshRequested) {
+                        continue;
+                    }
+                }
+                Thread.sleep(EVENT_REFRESH_DELAY);
+                synchronized (refreshLock) {
+                    refreshRequested = false;
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Event listener thread. Reconnects to events stream if connection is lost (for example, on daemon restart).
+     */
+    private void eventThreadMain() {
+        String path;
+        try {
+            path = "/events?filters=" + URLEncoder.encode("{\"type\":[\"container\"]}", "UTF-8");
+        } catch (IOException e) {
+            return;
+        }
+        while (running) {
+            try {
+                Platform.writeDebugLog(DEBUG_TAG, 6, "Connecting to Docker events stream");
+                requestRefresh(); // changes could be missed while not connected
+                socket.stream(path, this::processEvent);
+            } catch (Exception e) {
+                if (running) {
+                    Platform.writeLog(LogLevel.WARNING, "Docker events stream disconnected (" + e.getMessage() + ")");
+                }
+            }
+            try {
+                Thread.sleep(EVENT_RECONNECT_INTERVAL);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Process single event from events stream.
+     *
+     * @param event event object
+     */
+    private void processEvent(JsonObject event) {
+        JsonValue action = event.get("Action");
+        if (!(action instanceof JsonString)) {
+            return;
+        }
+        String a = ((JsonString) action).getString();
+        if (a.startsWith("exec_") || a.equals("attach") || a.equals("resize") || a.equals("top") || a.equals("export") || a.equals("copy")) {
+            return; // does not change container list or state
+        }
+        Platform.writeDebugLog(DEBUG_TAG, 7, "Container event: %s", a);
+        requestRefresh();
+    }
+}
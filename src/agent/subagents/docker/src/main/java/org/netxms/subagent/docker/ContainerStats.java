@@ -0,0 +1,114 @@
+package org.netxms.subagent.docker;
+
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+/**
+ * Resource usage statistics for single container. CPU usage is calculated from difference between this and previous sample,
+ * so statistics can be retrieved in "one-shot" mode without waiting for daemon to take second sample.
+ */
+public class ContainerStats {
+
+    private final long timestamp;
+    private final long cpuTotalUsage;
+    private final long systemCpuUsage;
+    private final double cpuUsage;
+    private final long memoryUsage;
+    private final long memoryLimit;
+    private final long networkRxBytes;
+    private final long networkTxBytes;
+
+    /**
+     * Create statistics from Docker API response.
+     *
+     * @param json response of /containers/{id}/stats
+     * @param previous previous sample for same container (can be null)
+     */
+    public ContainerStats(JsonObject json, ContainerStats previous) {
+        timestamp = System.currentTimeMillis();
+        cpuTotalUsage = getLong(json, "cpu_stats", "cpu_usage", "total_usage");
+        systemCpuUsage = getLong(json, "cpu_stats", "system_cpu_usage");
+        memoryUsage = getLong(json, "memory_stats", "usage");
+        memoryLimit = getLong(json, "memory_stats", "limit");
+
+        long onlineCpus = getLong(json, "cpu_stats", "online_cpus");
+        if ((previous != null) && (cpuTotalUsage >= 0) && (systemCpuUsage > previous.systemCpuUsage) && (previous.cpuTotalUsage >= 0)) {
+            cpuUsage = (double) (cpuTotalUsage - previous.cpuTotalUsage) / (double) (systemCpuUsage - previous.systemCpuUsage)
+                    * Math.max(onlineCpus, 1) * 100.0;
+        } else {
+            cpuUsage = -1;
+        }
+
+        long rx = 0, tx = 0;
+        JsonValue networks = json.get("networks");
+        if (networks instanceof JsonObject) {
+            for (JsonValue n : ((JsonObject) networks).values()) {
+                if (n instanceof JsonObject) {
+                    rx += Math.max(getLong((JsonObject) n, "rx_bytes"), 0);
+                    tx += Math.max(getLong((JsonObject) n, "tx_bytes"), 0);
+                }
+            }
+        }
+        networkRxBytes = rx;
+        networkTxBytes = tx;
+    }
+
+    /**
+     * Get numeric value at given path.
+     *
+     * @return value or -1 if not present
+     */
+    private static long getLong(JsonObject json, String... path) {
+        JsonValue v = json;
+        for (String element : path) {
+            if (!(v instanceof JsonObject)) {
+                return -1;
+            }
+            v = ((JsonObject) v).get(element);
+        }
+        return (v instanceof JsonNumber) ? ((JsonNumber) v).longValue() : -1;
+    }
+
+    /**
+     * @return time when sample was taken
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return CPU usage in percents (100% is one fully used CPU) or negative value if not known yet
+     */
+    public double getCpuUsage() {
+        return cpuUsage;
+    }
+
+    /**
+     * @return memory usage in bytes or -1 if not available
+     */
+    public long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * @return memory limit in bytes or -1 if not available
+     */
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * @return bytes received on all container networks
+     */
+    public long getNetworkRxBytes() {
+        return networkRxBytes;
+    }
+
+    /**
+     * @return bytes sent on all container networks
+     */
+    public long getNetworkTxBytes() {
+        return networkTxBytes;
+    }
+}
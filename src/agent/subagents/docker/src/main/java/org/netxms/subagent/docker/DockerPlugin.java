@@ -1,6 +1,5 @@
 package org.netxms.subagent.docker;
 
-import com.amihaiemil.docker.Container;
 import com.amihaiemil.docker.Docker;
 import com.amihaiemil.docker.LocalDocker;
 import org.netxms.agent.*;
@@ -14,10 +13,12 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.function.Function;
 
 public class DockerPlugin extends Plugin {
 
     private final Docker docker;
+    private final ContainerInventory inventory;
 
     /**
      * Constructor used by PluginManager
@@ -27,9 +28,11 @@ public class DockerPlugin extends Plugin {
     public DockerPlugin(Config config) {
         super(config);
 
-        docker = new LocalDocker(
-                new File("/var/run/docker.sock")
-        );
+        File socketFile = new File(config.getValue("/Docker/Socket", "/var/run/docker.sock"));
+        docker = new LocalDocker(socketFile);
+        inventory = new ContainerInventory(docker, socketFile,
+                config.getValueInt("/Docker/ReconciliationInterval", 60) * 1000L,
+                config.getValueBoolean("/Docker/CollectStatistics", true));
 
         try {
             boolean available = docker.ping();
@@ -51,6 +54,41 @@ public String getVersion() {
         return "1.0-SNAPSHOT";
     }
 
+    @Override
+    public void init(Config config) throws PluginInitException {
+        super.init(config);
+        inventory.start();
+    }
+
+    @Override
+    public void shutdown() {
+        inventory.stop();
+        super.shutdown();
+    }
+
+    /**
+     * Create parameter that returns value from container statistics.
+     *
+     * @param name parameter name
+     * @param description parameter description
+     * @param type parameter type
+     * @param extractor value extractor (should return null if value is not available)
+     * @return parameter
+     */
+    private Parameter createStatsParameter(String name, String description, ParameterType type, Function<ContainerStats, String> extractor) {
+        return new ParameterAdapter(name, description, type) {
+            @Override
+            public String getValue(String param) throws Exception {
+                ContainerInfo container = inventory.findContainer(SubAgent.getParameterArg(param, 1));
+                if (container == null) {
+                    return null;
+                }
+                ContainerStats stats = container.getStats();
+                return (stats != null) ? extractor.apply(stats) : null;
+            }
+        };
+    }
+
     @Override
     public Parameter[] getParameters() {
         Set<Parameter> parameters = new HashSet<>();
@@ -58,19 +96,22 @@ public Parameter[] getParameters() {
         parameters.add(new ParameterAdapter("Docker.Container.State(*)", "Docker container {instance} state", ParameterType.STRING) {
             @Override
             public String getValue(String param) throws Exception {
-                String argument = SubAgent.getParameterArg(param, 1);
-                Iterator<Container> containerIterator = docker.containers().all();
-                while (containerIterator.hasNext()) {
-                    Container container = containerIterator.next();
-                    String name = container.inspect().getString("Name");
-                    if (container.containerId().equalsIgnoreCase(argument) || name.equalsIgnoreCase(argument)) {
-                        return container.getString("State");
-                    }
-                }
-                return null;
+                ContainerInfo container = inventory.findContainer(SubAgent.getParameterArg(param, 1));
+                return (container != null) ? container.getState() : null;
             }
         });
 
+        parameters.add(createStatsParameter("Docker.Container.CPUUsage(*)", "Docker container {instance} CPU usage", ParameterType.FLOAT,
+                (s) -> (s.getCpuUsage() >= 0) ? String.format(Locale.US, "%.2f", s.getCpuUsage()) : null));
+        parameters.add(createStatsParameter("Docker.Container.MemoryUsage(*)", "Docker container {instance} memory usage", ParameterType.UINT64,
+                (s) -> (s.getMemoryUsage() >= 0) ? Long.toString(s.getMemoryUsage()) : null));
+        parameters.add(createStatsParameter("Docker.Container.MemoryLimit(*)", "Docker container {instance} memory limit", ParameterType.UINT64,
+                (s) -> (s.getMemoryLimit() >= 0) ? Long.toString(s.getMemoryLimit()) : null));
+        parameters.add(createStatsParameter("Docker.Container.NetworkRxBytes(*)", "Docker container {instance} bytes received", ParameterType.UINT64,
+                (s) -> Long.toString(s.getNetworkRxBytes())));
+        parameters.add(createStatsParameter("Docker.Container.NetworkTxBytes(*)", "Docker container {instance} bytes sent", ParameterType.UINT64,
+                (s) -> Long.toString(s.getNetworkTxBytes())));
+
         return parameters.toArray(new Parameter[]{});
     }
 
@@ -81,11 +122,9 @@ public ListParameter[] getListParameters() {
         parameters.add(new ListParameterAdapter("Docker.Containers", "List of all containers") {
             @Override
             public String[] getValue(String param) throws Exception {
-                Iterator<Container> allContainers = docker.containers().all();
                 List<String> names = new ArrayList<>();
-                while (allContainers.hasNext()) {
-                    Container container = allContainers.next();
-                    names.add(container.inspect().getString("Name"));
+                for (ContainerInfo container : inventory.getContainers()) {
+                    names.add(container.getName());
                 }
                 return names.toArray(new String[]{});
             }
@@ -95,9 +134,10 @@ public String[] getValue(String param) throws Exception {
             @Override
             public String[] getValue(String param) throws Exception {
                 List<String> names = new ArrayList<>();
-                for (Container container : docker.containers()) {
-                    names.add(container.inspect().getString("Name"));
-
+                for (ContainerInfo container : inventory.getContainers()) {
+                    if (container.isRunning()) {
+                        names.add(container.getName());
+                    }
                 }
                 return names.toArray(new String[]{});
             }
@@ -109,7 +149,7 @@ public String[] getValue(String param) throws Exception {
     @Override
     public TableParameter[] getTableParameters() {
         Set<TableParameter> parameters = new HashSet<>();
-        parameters.add(new ContainerListTableAdapter(docker));
+        parameters.add(new ContainerListTableAdapter(inventory));
 
         return parameters.toArray(new TableParameter[]{});
     }
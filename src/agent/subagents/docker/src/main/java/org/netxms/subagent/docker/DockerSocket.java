@@ -0,0 +1,128 @@
+package org.netxms.subagent.docker;
+
+import org.newsclub.net.unix.AFUNIXSocket;
+import org.newsclub.net.unix.AFUNIXSocketAddress;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Minimal HTTP client for Docker Engine API endpoints not covered by docker-java-api (events stream and container statistics).
+ * Uses HTTP/1.0 over Docker's unix socket, so responses are never chunked and streaming response ends when connection is closed.
+ */
+class DockerSocket {
+
+    private final File socketFile;
+    private volatile AFUNIXSocket streamSocket = null;
+
+    /**
+     * @param socketFile Docker daemon socket
+     */
+    DockerSocket(File socketFile) {
+        this.socketFile = socketFile;
+    }
+
+    /**
+     * Execute GET request and parse response body as JSON object.
+     *
+     * @param path request path (including query string)
+     * @return response object
+     * @throws IOException on communication error or non-200 response
+     */
+    JsonObject get(String path) throws IOException {
+        try (AFUNIXSocket socket = connect(path)) {
+            BufferedReader reader = openResponse(socket, path);
+            StringBuilder body = new StringBuilder();
+            char[] buffer = new char[8192];
+            int bytes;
+            while ((bytes = reader.read(buffer)) != -1) {
+                body.append(buffer, 0, bytes);
+            }
+            try (JsonReader jsonReader = Json.createReader(new StringReader(body.toString()))) {
+                return jsonReader.readObject();
+            }
+        }
+    }
+
+    /**
+     * Execute GET request for streaming endpoint and pass each received JSON object to consumer. Returns when connection is
+     * closed by daemon or by call to {@link #closeStream()}.
+     *
+     * @param path request path (including query string)
+     * @param consumer consumer for received objects
+     * @throws IOException on communication error or non-200 response
+     */
+    void stream(String path, Consumer<JsonObject> consumer) throws IOException {
+        try (AFUNIXSocket socket = connect(path)) {
+            streamSocket = socket;
+            BufferedReader reader = openResponse(socket, path);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try (JsonReader jsonReader = Json.createReader(new StringReader(line))) {
+                    consumer.accept(jsonReader.readObject());
+                }
+            }
+        } finally {
+            streamSocket = null;
+        }
+    }
+
+    /**
+     * Close currently open stream (if any).
+     */
+    void closeStream() {
+        AFUNIXSocket socket = streamSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Connect to daemon and send request.
+     */
+    private AFUNIXSocket connect(String path) throws IOException {
+        AFUNIXSocket socket = AFUNIXSocket.newInstance();
+        try {
+            socket.connect(new AFUNIXSocketAddress(socketFile));
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + path + " HTTP/1.0\r\nHost: docker\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        return socket;
+    }
+
+    /**
+     * Read response status and headers, and return reader positioned at response body.
+     */
+    private static BufferedReader openResponse(AFUNIXSocket socket, String path) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        String status = reader.readLine();
+        if ((status == null) || !status.matches("HTTP/1\\.[01] 200.*")) {
+            throw new IOException("Unexpected response for " + path + ": " + status);
+        }
+        String header;
+        while (((header = reader.readLine()) != null) && !header.isEmpty()) {
+            // skip headers
+        }
+        return reader;
+    }
+}
@@ -1,23 +1,22 @@
 package org.netxms.subagent.docker.adapters;
 
-import com.amihaiemil.docker.Container;
-import com.amihaiemil.docker.Docker;
 import org.netxms.agent.ParameterType;
 import org.netxms.agent.TableColumn;
 import org.netxms.agent.TableParameter;
-import org.netxms.agent.adapters.TableAdapter;
+import org.netxms.subagent.docker.ContainerInfo;
+import org.netxms.subagent.docker.ContainerInventory;
+import org.netxms.subagent.docker.ContainerStats;
 
-import javax.json.JsonObject;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 
 public class ContainerListTableAdapter implements TableParameter {
 
-    private final Docker docker;
+    private final ContainerInventory inventory;
 
-    public ContainerListTableAdapter(Docker docker) {
-        this.docker = docker;
+    public ContainerListTableAdapter(ContainerInventory inventory) {
+        this.inventory = inventory;
     }
 
     @Override
@@ -29,22 +28,25 @@ public TableColumn[] getColumns() {
         columns.add(new TableColumn("created", "Created", ParameterType.INT, false));
         columns.add(new TableColumn("state", "State", ParameterType.STRING, false));
         columns.add(new TableColumn("name", "Name", ParameterType.STRING, false));
+        columns.add(new TableColumn("cpu_usage", "CPU Usage", ParameterType.FLOAT, false));
+        columns.add(new TableColumn("memory_usage", "Memory Usage", ParameterType.UINT64, false));
         return columns.toArray(new TableColumn[]{});
     }
 
     @Override
     public String[][] getValue(String param) throws Exception {
         List<String[]> rows = new ArrayList<>();
-        Iterator<Container> containers = docker.containers().all();
-        while (containers.hasNext()) {
-            Container container = containers.next();
+        for (ContainerInfo container : inventory.getContainers()) {
+            ContainerStats stats = container.getStats();
             List<String> row = new ArrayList<>();
-            row.add(container.containerId());
-            row.add(container.getString("Image"));
-            row.add(container.getString("Command"));
-            row.add(String.valueOf(container.getInt("Created")));
-            row.add(container.getString("State"));
-            row.add(container.getJsonArray("Names").getString(0));
+            row.add(container.getId());
+            row.add(container.getImage());
+            row.add(container.getCommand());
+            row.add(String.valueOf(container.getCreated()));
+            row.add(container.getState());
+            row.add(container.getName());
+            row.add(((stats != null) && (stats.getCpuUsage() >= 0)) ? String.format(Locale.US, "%.2f", stats.getCpuUsage()) : "");
+            row.add(((stats != null) && (stats.getMemoryUsage() >= 0)) ? Long.toString(stats.getMemoryUsage()) : "");
 
             rows.add(row.toArray(new String[]{}));
         }
@@ -127,6 +127,51 @@ static jboolean JNICALL J_pushParameterData(JNIEnv *jenv, jclass jcls, jstring j
    return res;
 }
 
+/**
+ * Class:     org.netxms.agent.SubAgent
+ * Method:    pushParameterDataBatch
+ * Signature: ([Ljava/lang/String;[Ljava/lang/String;[J)I
+ */
+static jint JNICALL J_pushParameterDataBatch(JNIEnv *jenv, jclass jcls, jobjectArray jnames, jobjectArray jvalues, jlongArray jtimestamps)
+{
+   if ((jnames == NULL) || (jvalues == NULL))
+      return 0;
+
+   jsize count = std::min(jenv->GetArrayLength(jnames), jenv->GetArrayLength(jvalues));
+   jlong *timestamps = nullptr;
+   if (jtimestamps != NULL)
+   {
+      if (jenv->GetArrayLength(jtimestamps) < count)
+         return 0;
+      timestamps = jenv->GetLongArrayElements(jtimestamps, nullptr);
+   }
+
+   jint pushed = 0;
+   for(jsize i = 0; i < count; i++)
+   {
+      jstring jname = static_cast<jstring>(jenv->GetObjectArrayElement(jnames, i));
+      jstring jvalue = static_cast<jstring>(jenv->GetObjectArrayElement(jvalues, i));
+      if ((jname != NULL) && (jvalue != NULL))
+      {
+         TCHAR *name = CStringFromJavaString(jenv, jname);
+         TCHAR *value = CStringFromJavaString(jenv, jvalue);
+         time_t timestamp = (timestamps != nullptr) ? static_cast<time_t>(timestamps[i] / 1000) : 0;
+         if (AgentPushParameterDataWithTimestamp(name, value, timestamp))
+            pushed++;
+         MemFree(name);
+         MemFree(value);
+      }
+      if (jname != NULL)
+         jenv->DeleteLocalRef(jname);
+      if (jvalue != NULL)
+         jenv->DeleteLocalRef(jvalue);
+   }
+
+   if (timestamps != nullptr)
+      jenv->ReleaseLongArrayElements(jtimestamps, timestamps, JNI_ABORT);
+   return pushed;
+}
+
 /**
  * Native methods
  */
@@ -134,7 +179,8 @@ static JNINativeMethod s_jniNativeMethods[] =
 {
    { (char *)"getParameterArg", (char *)"(Ljava/lang/String;I)Ljava/lang/String;", (void *)J_getParameterArg },
    { (char *)"postEvent", (char *)"(ILjava/lang/String;J[Ljava/lang/String;)V", (void *)J_postEvent },
-   { (char *)"pushParameterData", (char *)"(Ljava/lang/String;Ljava/lang/String;)Z", (void *)J_pushParameterData }
+   { (char *)"pushParameterData", (char *)"(Ljava/lang/String;Ljava/lang/String;)Z", (void *)J_pushParameterData },
+   { (char *)"pushParameterDataBatch", (char *)"([Ljava/lang/String;[Ljava/lang/String;[J)I", (void *)J_pushParameterDataBatch }
 };
 
 /**
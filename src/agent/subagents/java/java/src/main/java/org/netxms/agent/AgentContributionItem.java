@@ -19,4 +19,28 @@
     */
    public String getDescription();
 
+   /**
+    * Get time for which collected value should be cached by the bridge (applicable to parameters, lists, and tables).
+    * Cache is keyed by full parameter name, so each argument combination is cached separately. Default implementation
+    * returns 0 (no caching).
+    * 
+    * @return cache time to live in milliseconds or 0 to disable caching
+    */
+   public default long getCacheTTL()
+   {
+      return 0;
+   }
+
+   /**
+    * Check if value should be collected asynchronously on bridge's worker pool (applicable to parameters, lists, and
+    * tables). In asynchronous mode caller is not blocked while refresh is running if there is last known value - that
+    * value is returned instead. If there is no value yet, caller waits for refresh up to configured timeout. Default
+    * implementation returns false.
+    * 
+    * @return true if value should be collected asynchronously
+    */
+   public default boolean isAsynchronous()
+   {
+      return false;
+   }
 }
@@ -0,0 +1,226 @@
+/**
+ * Java-Bridge NetXMS subagent
+ * Copyright (C) 2026 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.agent;
+
+import org.netxms.bridge.LogLevel;
+import org.netxms.bridge.Platform;
+
+/**
+ * Queue for pushed values. Values are collected into parallel arrays and passed to native side in single call by background
+ * flusher, either at configured interval or as soon as batch size is reached.
+ */
+class PushDataQueue
+{
+   private final long flushInterval;
+   private final int batchSize;
+   private final int capacity;
+   private final Object lock = new Object();
+   private String[] names;
+   private String[] values;
+   private long[] timestamps;
+   private int size = 0;
+   private long dropped = 0;
+   private boolean running = false;
+   private Thread flusherThread = null;
+
+   /**
+    * Create queue.
+    *
+    * @param flushInterval flush interval in milliseconds
+    * @param batchSize number of queued values that triggers immediate flush
+    * @param capacity maximum number of queued values (new values are dropped when queue is full)
+    */
+   PushDataQueue(long flushInterval, int batchSize, int capacity)
+   {
+      this.flushInterval = flushInterval;
+      this.capacity = Math.max(capacity, 1);
+      this.batchSize = Math.max(Math.min(batchSize, this.capacity), 1);
+      allocate(this.batchSize);
+   }
+
+   /**
+    * Allocate new arrays.
+    */
+   private void allocate(int length)
+   {
+      names = new String[length];
+      values = new String[length];
+      timestamps = new long[length];
+   }
+
+   /**
+    * Start background flusher.
+    */
+   void start()
+   {
+      synchronized(lock)
+      {
+         if (running)
+            return;
+         running = true;
+      }
+      flusherThread = new Thread(this::flusherMain, "JavaBridge-PushData");
+      flusherThread.setDaemon(true);
+      flusherThread.start();
+   }
+
+   /**
+    * Stop background flusher and send remaining values.
+    */
+   void stop()
+   {
+      synchronized(lock)
+      {
+         running = false;
+         lock.notifyAll();
+      }
+      if (flusherThread != null)
+      {
+         try
+         {
+            flusherThread.join(flushInterval + 1000);
+         }
+         catch(InterruptedException e)
+         {
+         }
+         flusherThread = null;
+      }
+      flush();
+   }
+
+   /**
+    * Add value to queue.
+    *
+    * @param name parameter name
+    * @param value value
+    * @param timestamp value timestamp (milliseconds since epoch) or 0 to use time of sending
+    * @return true if value was queued
+    */
+   boolean add(String name, String value, long timestamp)
+   {
+      synchronized(lock)
+      {
+         if (size == capacity)
+         {
+            dropped++;
+            return false;
+         }
+         if (size == names.length)
+         {
+            int length = Math.min(names.length * 2, capacity);
+            String[] n = new String[length];
+            String[] v = new String[length];
+            long[] t = new long[length];
+            System.arraycopy(names, 0, n, 0, size);
+            System.arraycopy(values, 0, v, 0, size);
+            System.arraycopy(timestamps, 0, t, 0, size);
+            names = n;
+            values = v;
+            timestamps = t;
+         }
+         names[size] = name;
+         values[size] = value;
+         timestamps[size] = (timestamp != 0) ? timestamp : System.currentTimeMillis();
+         size++;
+         if (size == batchSize)
+            lock.notifyAll();
+         return true;
+      }
+   }
+
+   /**
+    * Send all queued values to native side.
+    */
+   void flush()
+   {
+      String[] n, v;
+      long[] t;
+      int count;
+      long droppedCount;
+      synchronized(lock)
+      {
+         if (size == 0)
+            return;
+         n = names;
+         v = values;
+         t = timestamps;
+         count = size;
+         droppedCount = dropped;
+         allocate(batchSize);
+         size = 0;
+         dropped = 0;
+      }
+
+      if (droppedCount > 0)
+         Platform.writeLog(SubAgent.DEBUG_TAG, LogLevel.WARNING, "Push data queue is full, " + droppedCount + " values dropped");
+
+      if (count < n.length)
+      {
+         // Native side expects arrays of exact size
+         String[] cn = new String[count];
+         String[] cv = new String[count];
+         long[] ct = new long[count];
+         System.arraycopy(n, 0, cn, 0, count);
+         System.arraycopy(v, 0, cv, 0, count);
+         System.arraycopy(t, 0, ct, 0, count);
+         n = cn;
+         v = cv;
+         t = ct;
+      }
+
+      try
+      {
+         int pushed = SubAgent.pushParameterDataBatch(n, v, t);
+         Platform.writeDebugLog(SubAgent.DEBUG_TAG, 7, "PushDataQueue: %d of %d values sent", pushed, count);
+      }
+      catch(Throwable e)
+      {
+         Platform.writeDebugLog(SubAgent.DEBUG_TAG, 5, "Exception while sending pushed values: " + e.getClass().getCanonicalName() + ": " + e.getMessage());
+      }
+   }
+
+   /**
+    * Flusher thread
+    */
+   private void flusherMain()
+   {
+      while(true)
+      {
+         synchronized(lock)
+         {
+            long deadline = System.currentTimeMillis() + flushInterval;
+            long timeout;
+            while(running && (size < batchSize) && ((timeout = deadline - System.currentTimeMillis()) > 0))
+            {
+               try
+               {
+                  lock.wait(timeout);
+               }
+               catch(InterruptedException e)
+               {
+                  running = false;
+               }
+            }
+            if (!running)
+               break;
+         }
+         flush();
+      }
+   }
+}
@@ -0,0 +1,233 @@
+/**
+ * Java-Bridge NetXMS subagent
+ * Copyright (C) 2026 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.agent;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.netxms.bridge.Platform;
+
+/**
+ * Cache for values provided by plugins, with optional asynchronous execution on bounded worker pool. Used only for
+ * contribution items that declare non-zero cache TTL or asynchronous mode; all other requests are passed to plugin directly.
+ */
+class ResultCache
+{
+   private static final long ENTRY_EXPIRATION_TIME = 600000;
+   private static final long SWEEP_INTERVAL = 60000;
+
+   /**
+    * Value provider
+    */
+   interface ValueProvider<T>
+   {
+      T get() throws Exception;
+   }
+
+   /**
+    * Cache entry
+    */
+   private static class Entry
+   {
+      Object value = null;
+      boolean hasValue = false;
+      long timestamp = 0;
+      long lastAccess = 0;
+      Future<Object> pending = null;
+   }
+
+   private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+   private final ThreadPoolExecutor executor;
+   private final long timeout;
+   private volatile long lastSweep = System.currentTimeMillis();
+
+   /**
+    * Create cache.
+    *
+    * @param workers number of worker threads for asynchronous execution
+    * @param queueSize maximum number of queued asynchronous requests
+    * @param timeout time to wait for asynchronous request when there is no last known value (milliseconds)
+    */
+   ResultCache(int workers, int queueSize, long timeout)
+   {
+      this.timeout = timeout;
+      final AtomicInteger threadNumber = new AtomicInteger(1);
+      executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r)
+         {
+            Thread t = new Thread(r, "JavaBridge-Worker-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      executor.allowCoreThreadTimeOut(true);
+   }
+
+   /**
+    * Get value for given contribution item.
+    *
+    * @param id contribution item ID
+    * @param param full parameter name (with arguments)
+    * @param item contribution item
+    * @param provider value provider
+    * @return value
+    * @throws Exception if value cannot be retrieved
+    */
+   @SuppressWarnings("unchecked")
+   <T> T get(final String id, final String param, AgentContributionItem item, final ValueProvider<T> provider) throws Exception
+   {
+      long ttl = item.getCacheTTL();
+      boolean async = item.isAsynchronous();
+      if ((ttl <= 0) && !async)
+         return provider.get();
+
+      long now = System.currentTimeMillis();
+      if (now - lastSweep > SWEEP_INTERVAL)
+         sweep(now);
+
+      final Entry entry = entries.computeIfAbsent(id + '\u0000' + param, k -> new Entry());
+      Future<Object> future;
+      synchronized(entry)
+      {
+         entry.lastAccess = now;
+         if (entry.hasValue && (now - entry.timestamp < ttl))
+            return (T)entry.value;
+
+         if (!async)
+         {
+            future = null;
+         }
+         else
+         {
+            if (entry.pending == null)
+            {
+               try
+               {
+                  entry.pending = executor.submit(() -> refresh(id, param, entry, provider));
+               }
+               catch(RejectedExecutionException e)
+               {
+                  Platform.writeDebugLog(SubAgent.DEBUG_TAG, 5, "Asynchronous execution queue is full, cannot refresh " + param + " (item " + id + ")");
+                  if (entry.hasValue)
+                     return (T)entry.value;
+                  throw new Exception("Asynchronous execution queue is full");
+               }
+            }
+            if (entry.hasValue)
+               return (T)entry.value; // last known value while refresh is in progress
+            future = entry.pending;
+         }
+      }
+
+      if (future == null)
+      {
+         T value = provider.get();
+         synchronized(entry)
+         {
+            entry.value = value;
+            entry.hasValue = true;
+            entry.timestamp = System.currentTimeMillis();
+         }
+         return value;
+      }
+
+      try
+      {
+         return (T)future.get(timeout, TimeUnit.MILLISECONDS);
+      }
+      catch(TimeoutException e)
+      {
+         throw new TimeoutException("Timeout waiting for value of " + param + " (item " + id + ")");
+      }
+      catch(ExecutionException e)
+      {
+         Throwable cause = e.getCause();
+         if (cause instanceof Exception)
+            throw (Exception)cause;
+         throw e;
+      }
+   }
+
+   /**
+    * Refresh entry (called on worker thread). If refresh fails, last known value is discarded so that error is reported on
+    * next request.
+    */
+   private Object refresh(String id, String param, Entry entry, ValueProvider<?> provider) throws Exception
+   {
+      try
+      {
+         Object value = provider.get();
+         synchronized(entry)
+         {
+            entry.value = value;
+            entry.hasValue = true;
+            entry.timestamp = System.currentTimeMillis();
+            entry.pending = null;
+         }
+         return value;
+      }
+      catch(Exception e)
+      {
+         Platform.writeDebugLog(SubAgent.DEBUG_TAG, 6, "Asynchronous refresh of " + param + " (item " + id + ") failed: " + e.getClass().getCanonicalName() + ": " + e.getMessage());
+         synchronized(entry)
+         {
+            entry.value = null;
+            entry.hasValue = false;
+            entry.pending = null;
+         }
+         throw e;
+      }
+   }
+
+   /**
+    * Remove entries that were not accessed for long time.
+    */
+   private void sweep(long now)
+   {
+      lastSweep = now;
+      Iterator<Entry> it = entries.values().iterator();
+      while(it.hasNext())
+      {
+         Entry e = it.next();
+         synchronized(e)
+         {
+            if ((e.pending == null) && (now - e.lastAccess > ENTRY_EXPIRATION_TIME))
+               it.remove();
+         }
+      }
+   }
+
+   /**
+    * Stop worker pool and clear cache.
+    */
+   void shutdown()
+   {
+      executor.shutdownNow();
+      entries.clear();
+   }
+}
@@ -57,6 +57,9 @@
    protected Map<String, TableParameter> tables;
 
    private Config config = null;
+   private ResultCache resultCache;
+
+   private static PushDataQueue pushDataQueue = null;
 
    /**
     * Private constructor. Will be invoked by native wrapper only.
@@ -73,6 +76,10 @@ private SubAgent(Config config)
       tables = new HashMap<String, TableParameter>();
 
       this.config = config;
+      resultCache = new ResultCache(config.getValueInt("/Java/AsyncWorkers", 8), config.getValueInt("/Java/AsyncQueueSize", 256),
+            config.getValueLong("/Java/AsyncTimeout", 2000));
+      pushDataQueue = new PushDataQueue(config.getValueLong("/Java/PushFlushInterval", 1000), config.getValueInt("/Java/PushBatchSize", 1000),
+            config.getValueInt("/Java/PushQueueSize", 65536));
       Platform.writeDebugLog(DEBUG_TAG, 1, "Java SubAgent created");
 
       // load all Plugins
@@ -137,6 +144,16 @@ protected Config getConfig()
 
    protected static native boolean pushParameterData(String name, String value);
 
+   /**
+    * Push multiple values in single call. All arrays should have same length.
+    * 
+    * @param names parameter names
+    * @param values values
+    * @param timestamps value timestamps in milliseconds since epoch (0 to use current time), can be null
+    * @return number of successfully pushed values
+    */
+   protected static native int pushParameterDataBatch(String[] names, String[] values, long[] timestamps);
+
    /*===== end of native methods exposed by agent =====*/
    
    /**
@@ -152,6 +169,45 @@ public static void postEvent(int eventCode, String eventName, Date timestamp, St
       postEvent(eventCode, eventName, (timestamp != null) ? timestamp.getTime() / 1000 : System.currentTimeMillis() / 1000, parameters);
    }
 
+   /**
+    * Queue value of push parameter for delivery to NetXMS server. Queued values are sent in batches by background thread
+    * at interval set by /Java/PushFlushInterval (or earlier when /Java/PushBatchSize values are queued).
+    * 
+    * @param name parameter name
+    * @param value parameter value
+    * @return true if value was queued
+    */
+   public static boolean pushData(String name, String value)
+   {
+      return pushData(name, value, 0);
+   }
+
+   /**
+    * Queue value of push parameter with explicit timestamp for delivery to NetXMS server.
+    * 
+    * @param name parameter name
+    * @param value parameter value
+    * @param timestamp value timestamp in milliseconds since epoch (0 to use current time)
+    * @return true if value was queued
+    */
+   public static boolean pushData(String name, String value, long timestamp)
+   {
+      PushDataQueue queue = pushDataQueue;
+      if ((queue == null) || (name == null) || (value == null))
+         return false;
+      return queue.add(name, value, timestamp);
+   }
+
+   /**
+    * Send all queued push values immediately.
+    */
+   public static void flushPushData()
+   {
+      PushDataQueue queue = pushDataQueue;
+      if (queue != null)
+         queue.flush();
+   }
+
    /**
     * Initialize (to be called from native subagent)
     * 
@@ -160,6 +216,7 @@ public static void postEvent(int eventCode, String eventName, Date timestamp, St
    public boolean init()
    {
       Platform.writeDebugLog(DEBUG_TAG, 2, "Java subagent initialization started");
+      pushDataQueue.start();
       for(Map.Entry<String, Plugin> entry : plugins.entrySet())
       {
          try
@@ -183,6 +240,7 @@ public boolean init()
    public void shutdown()
    {
       Platform.writeDebugLog(DEBUG_TAG, 2, "Java subagent shutdown initiated");
+      resultCache.shutdown();
       for(Map.Entry<String, Plugin> entry : plugins.entrySet())
       {
          try
@@ -196,6 +254,7 @@ public void shutdown()
             Platform.writeDebugLog(DEBUG_TAG, 6, "   ", e);
          }
       }
+      pushDataQueue.stop();
       Platform.writeDebugLog(DEBUG_TAG, 2, "Java subagent shutdown completed");
    }
 
@@ -243,11 +302,11 @@ protected boolean loadPlugin(String path)
          for(int i = 0; i < _tableParameters.length; i++)
             tables.put(createContributionItemId(p, _tableParameters[i]), _tableParameters[i]);
       
-         Platform.writeDebugLog(DEBUG_TAG, 8, "SubAgent.loadPlugin actions=" + actions);
-         Platform.writeDebugLog(DEBUG_TAG, 8, "SubAgent.loadPlugin parameters=" + parameters);
-         Platform.writeDebugLog(DEBUG_TAG, 8, "SubAgent.loadPlugin listParameters=" + lists);
-         Platform.writeDebugLog(DEBUG_TAG, 8, "SubAgent.loadPlugin pushParameters=" + pushParameters);
-         Platform.writeDebugLog(DEBUG_TAG, 8, "SubAgent.loadPlugin tableParameters=" + tables);
+         Platform.writeDebugLog(DEBUG_TAG, 8, () -> "SubAgent.loadPlugin actions=" + actions);
+         Platform.writeDebugLog(DEBUG_TAG, 8, () -> "SubAgent.loadPlugin parameters=" + parameters);
+         Platform.writeDebugLog(DEBUG_TAG, 8, () -> "SubAgent.loadPlugin listParameters=" + lists);
+         Platform.writeDebugLog(DEBUG_TAG, 8, () -> "SubAgent.loadPlugin pushParameters=" + pushParameters);
+         Platform.writeDebugLog(DEBUG_TAG, 8, () -> "SubAgent.loadPlugin tableParameters=" + tables);
       }
       return true;
    }
@@ -391,10 +450,10 @@ public String parameterHandler(final String param, final String id) throws Throw
    {
       try
       {
-         Parameter parameter = parameters.get(id);
+         final Parameter parameter = parameters.get(id);
          if (parameter != null)
          {
-            return parameter.getValue(param);
+            return resultCache.get(id, param, parameter, () -> parameter.getValue(param));
          }
          return null;
       }
@@ -418,10 +477,10 @@ public String[] listHandler(final String param, final String id) throws Throwabl
    {
       try
       {
-         ListParameter listParameter = lists.get(id);
+         final ListParameter listParameter = lists.get(id);
          if (listParameter != null)
          {
-            return listParameter.getValue(param);
+            return resultCache.get(id, param, listParameter, () -> listParameter.getValue(param));
          }
          return null;
       }
@@ -445,11 +504,12 @@ public String[][] tableHandler(final String name, final String id) throws Throwa
    {
       try
       {
-         TableParameter tableParameter = tables.get(id);
+         final TableParameter tableParameter = tables.get(id);
          if (tableParameter != null)
          {
-            Platform.writeDebugLog(DEBUG_TAG, 7, "SubAgent.tableParameterHandler(name=" + name + ", id=" + id + ") returning " + tableParameter.getValue(name));
-            return tableParameter.getValue(name);
+            String[][] value = resultCache.get(id, name, tableParameter, () -> tableParameter.getValue(name));
+            Platform.writeDebugLog(DEBUG_TAG, 7, "SubAgent.tableParameterHandler(name=%s, id=%s) returning %s", name, id, (value != null) ? value.length + " rows" : "null");
+            return value;
          }
          return null;
       }
@@ -21,6 +21,7 @@
 
 import org.netxms.agent.ParameterType;
 import org.netxms.agent.PushParameter;
+import org.netxms.agent.SubAgent;
 
 /**
  * Adapter for PushParameter interface
@@ -69,4 +70,27 @@ public ParameterType getType()
    {
       return type;
    }
+
+   /**
+    * Queue new value of this parameter for delivery to server (see SubAgent.pushData).
+    *
+    * @param value new value
+    * @return true if value was queued
+    */
+   public boolean push(String value)
+   {
+      return SubAgent.pushData(name, value, 0);
+   }
+
+   /**
+    * Queue new value of this parameter with explicit timestamp for delivery to server (see SubAgent.pushData).
+    *
+    * @param value new value
+    * @param timestamp value timestamp in milliseconds since epoch
+    * @return true if value was queued
+    */
+   public boolean push(String value, long timestamp)
+   {
+      return SubAgent.pushData(name, value, timestamp);
+   }
 }
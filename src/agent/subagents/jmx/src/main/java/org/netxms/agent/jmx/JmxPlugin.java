@@ -44,6 +44,7 @@ public class JmxPlugin extends Plugin
    private static final String OBJECT_THREADING = "java.lang:type=Threading";
 
    private Map<String, Server> servers = new HashMap<String, Server>();
+   private long cacheTTL = 2000;
 
    /**
     * Constructor
@@ -81,6 +82,9 @@ public void init(Config config) throws PluginInitException
    {
       super.init(config);
 
+      cacheTTL = config.getValueLong("/JMX/CacheTTL", 2000);
+      Platform.writeDebugLog(DEBUG_TAG, 3, "Attribute cache TTL set to " + cacheTTL + " milliseconds");
+
       ConfigEntry e = config.getEntry("/JMX/Server");
       if (e == null)
          throw new PluginInitException("JMX servers not defined");
@@ -124,11 +128,11 @@ private void addServer(String config) throws PluginInitException
             login = uparts[0];
             password = "";
          }
-         s = new Server(parts[0].trim(), uparts[1].trim(), login, password);
+         s = new Server(parts[0].trim(), uparts[1].trim(), login, password, cacheTTL);
       }
       else
       {
-         s = new Server(parts[0].trim(), parts[1].trim(), null, null);
+         s = new Server(parts[0].trim(), parts[1].trim(), null, null, cacheTTL);
       }
       servers.put(s.getName(), s);
       Platform.writeDebugLog(DEBUG_TAG, 3, "Added JMX server connection " + s.getName() + " (" + s.getUrl() + ")");
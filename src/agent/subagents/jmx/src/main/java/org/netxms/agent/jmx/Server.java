@@ -20,10 +20,16 @@
 
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
-import javax.management.AttributeNotFoundException;
+import javax.management.Attribute;
+import javax.management.AttributeList;
 import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanInfo;
 import javax.management.MBeanServerConnection;
@@ -34,30 +40,58 @@
 import org.netxms.bridge.Platform;
 
 /**
- * JMX server
+ * JMX server. Attribute values are read in batches: all recently requested attributes of an MBean are retrieved with single
+ * getAttributes() call and kept in per-MBean snapshot for configured time, so parameters referring to different attributes (or
+ * different items of same composite attribute) of same MBean within one poll are served by single remote call. Reads are not
+ * serialized, so requests for different MBeans or different servers can run in parallel.
  */
 public class Server
 {
    private static final String DEBUG_TAG = "jmx";
+   private static final long ATTRIBUTE_EXPIRATION_TIME = 600000;
 
    private String name;
    private String url;
    private String login;
    private String password;
-   JMXConnector jmxc = null;
-   MBeanServerConnection mbsc = null;
+   private long cacheTTL;
+   private JMXConnector jmxc = null;
+   private volatile MBeanServerConnection mbsc = null;
+   private final Object connectionLock = new Object();
+   private final Map<String, Snapshot> snapshots = new HashMap<String, Snapshot>();
 
    /**
-    * @param url
-    * @param login
-    * @param password
+    * Snapshot of MBean attribute values
     */
-   public Server(String name, String url, String login, String password)
+   private static class Snapshot
+   {
+      final ObjectName objectName;
+      final Map<String, Long> requestedAttributes = new HashMap<String, Long>();
+      Set<String> retrievedAttributes = new HashSet<String>();
+      Map<String, Object> values = new HashMap<String, Object>();
+      long timestamp = 0;
+      long lastAccessTime = 0; // protected by lock on snapshot map
+
+      Snapshot(ObjectName objectName)
+      {
+         this.objectName = objectName;
+      }
+   }
+
+   /**
+    * @param name server name
+    * @param url server URL
+    * @param login login name (can be null)
+    * @param password password (can be null)
+    * @param cacheTTL time to live for attribute value snapshots in milliseconds (0 to disable caching)
+    */
+   public Server(String name, String url, String login, String password, long cacheTTL)
    {
       this.name = name;
       this.url = url;
       this.login = login;
       this.password = password;
+      this.cacheTTL = cacheTTL;
    }
    
    /**
@@ -77,71 +111,93 @@ public String getUrl()
    }
 
    /**
-    * Connect to server
+    * Connect to server (if not connected yet)
     * 
+    * @return MBean server connection
     * @throws MalformedURLException
     * @throws IOException
     */
-   private void connect() throws MalformedURLException, IOException
+   private MBeanServerConnection connect() throws MalformedURLException, IOException
    {
-      if (jmxc == null)
+      MBeanServerConnection connection = mbsc;
+      if (connection != null)
+         return connection;
+
+      synchronized(connectionLock)
       {
-         try
+         if (jmxc == null)
          {
-            Map<String, Object> env = new HashMap<String, Object>();
-            if ((login != null) && (password != null))
+            try
             {
-               env.put(JMXConnector.CREDENTIALS, new String[] { login, password });
+               Map<String, Object> env = new HashMap<String, Object>();
+               if ((login != null) && (password != null))
+               {
+                  env.put(JMXConnector.CREDENTIALS, new String[] { login, password });
+               }
+               env.put(JMXConnectorFactory.PROTOCOL_PROVIDER_CLASS_LOADER, getClass().getClassLoader());
+               jmxc = JMXConnectorFactory.connect(new JMXServiceURL(url), env);
+               mbsc = null;
+            }
+            catch(Exception e)
+            {
+               Platform.writeDebugLog(DEBUG_TAG, 5, "Cannot setup JMX connection to " + url + ": " + e.getClass().getCanonicalName() + ": " + e.getMessage());
+               Platform.writeDebugLog(DEBUG_TAG, 5, "   ", e);
+               throw e;
             }
-            env.put(JMXConnectorFactory.PROTOCOL_PROVIDER_CLASS_LOADER, getClass().getClassLoader());
-            jmxc = JMXConnectorFactory.connect(new JMXServiceURL(url), env);
-            mbsc = null;
-         }
-         catch(Exception e)
-         {
-            Platform.writeDebugLog(DEBUG_TAG, 5, "Cannot setup JMX connection to " + url + ": " + e.getClass().getCanonicalName() + ": " + e.getMessage());
-            Platform.writeDebugLog(DEBUG_TAG, 5, "   ", e);
-            throw e;
          }
-      }
 
-      if (mbsc == null)
-      {
-         try
-         {
-            mbsc = jmxc.getMBeanServerConnection();
-            Platform.writeDebugLog(DEBUG_TAG, 5, "JMX connection established to " + url);
-         }
-         catch(Exception e)
+         if (mbsc == null)
          {
-            Platform.writeDebugLog(DEBUG_TAG, 5, "Cannot get MBean server connection for " + url + ": " + e.getClass().getCanonicalName() + ": " + e.getMessage());
-            Platform.writeDebugLog(DEBUG_TAG, 5, "   ", e);
-            jmxc.close();
-            jmxc = null;
-            throw e;
+            try
+            {
+               mbsc = jmxc.getMBeanServerConnection();
+               Platform.writeDebugLog(DEBUG_TAG, 5, "JMX connection established to " + url);
+            }
+            catch(Exception e)
+            {
+               Platform.writeDebugLog(DEBUG_TAG, 5, "Cannot get MBean server connection for " + url + ": " + e.getClass().getCanonicalName() + ": " + e.getMessage());
+               Platform.writeDebugLog(DEBUG_TAG, 5, "   ", e);
+               jmxc.close();
+               jmxc = null;
+               throw e;
+            }
          }
+         return mbsc;
       }
    }
 
    /**
-    * Disconnect from server 
+    * Disconnect from server. Does nothing if given connection is not current one (already replaced by another thread).
+    * 
+    * @param connection failed connection
     */
-   private void disconnect()
+   private void disconnect(MBeanServerConnection connection)
    {
-      if (jmxc != null)
+      synchronized(connectionLock)
       {
-         try
-         {
-            jmxc.close();
-         }
-         catch(Exception e)
+         if (connection != mbsc)
+            return;
+
+         if (jmxc != null)
          {
-            Platform.writeDebugLog(DEBUG_TAG, 6, "Exception in disconnect() call for " + url + ": " + e.getClass().getCanonicalName() + ": " + e.getMessage());
-            Platform.writeDebugLog(DEBUG_TAG, 6, "   ", e);
+            try
+            {
+               jmxc.close();
+            }
+            catch(Exception e)
+            {
+               Platform.writeDebugLog(DEBUG_TAG, 6, "Exception in disconnect() call for " + url + ": " + e.getClass().getCanonicalName() + ": " + e.getMessage());
+               Platform.writeDebugLog(DEBUG_TAG, 6, "   ", e);
+            }
+            jmxc = null;
          }
-         jmxc = null;
+         mbsc = null;
+      }
+
+      synchronized(snapshots)
+      {
+         snapshots.clear();
       }
-      mbsc = null;
    }
 
    /**
@@ -150,16 +206,16 @@ private void disconnect()
     * @return
     * @throws Exception
     */
-   public synchronized String[] getDomains() throws Exception
+   public String[] getDomains() throws Exception
    {
-      connect();
+      MBeanServerConnection connection = connect();
       try
       {
-         return mbsc.getDomains();
+         return connection.getDomains();
       }
       catch(IOException e)
       {
-         disconnect();
+         disconnect(connection);
          throw e;
       }
    }
@@ -171,14 +227,14 @@ public synchronized String[] getDomains() throws Exception
     * @return
     * @throws Exception
     */
-   public synchronized String[] getObjects(String domain) throws Exception
+   public String[] getObjects(String domain) throws Exception
    {
-      connect();
+      MBeanServerConnection connection = connect();
       try
       {
          if ((domain == null) || domain.isEmpty())
             domain = "*";
-         Set<ObjectName> names = mbsc.queryNames(new ObjectName(domain + ":*"), null);
+         Set<ObjectName> names = connection.queryNames(new ObjectName(domain + ":*"), null);
          String objects[] = new String[names.size()];
          int i = 0;
          for (ObjectName n : names)
@@ -189,7 +245,7 @@ public synchronized String[] getObjects(String domain) throws Exception
       }
       catch(IOException e)
       {
-         disconnect();
+         disconnect(connection);
          throw e;
       }
    }
@@ -201,12 +257,12 @@ public synchronized String[] getObjects(String domain) throws Exception
     * @return
     * @throws Exception
     */
-   public synchronized String[] getObjectAttributes(String object) throws Exception
+   public String[] getObjectAttributes(String object) throws Exception
    {
-      connect();
+      MBeanServerConnection connection = connect();
       try
       {
-         MBeanInfo info = mbsc.getMBeanInfo(new ObjectName(object));
+         MBeanInfo info = connection.getMBeanInfo(new ObjectName(object));
          MBeanAttributeInfo[] mbAttributes = info.getAttributes();
          int count = mbAttributes.length;
          String[] attributes = new String[count];
@@ -218,61 +274,113 @@ public synchronized String[] getObjectAttributes(String object) throws Exception
       }
       catch(IOException e)
       {
-         disconnect();
+         disconnect(connection);
          throw e;
       }
    }
    
    /**
-    * Get value of given attribute
+    * Get value of given attribute. Value is taken from MBean snapshot if it is fresh enough, otherwise all recently requested
+    * attributes of that MBean are retrieved with single call.
     * 
     * @param object
     * @param attribute
-    * @return
+    * @return attribute value or null if attribute is not available
     * @throws Exception
     */
-   public synchronized Object getAttributeValue(String object, String attribute) throws Exception
+   public Object getAttributeValue(String object, String attribute) throws Exception
    {
-      connect();
-      try
+      Snapshot snapshot;
+      synchronized(snapshots)
       {
-         return mbsc.getAttribute(new ObjectName(object), attribute);
+         long now = System.currentTimeMillis();
+         snapshot = snapshots.get(object);
+         if (snapshot == null)
+         {
+            pruneSnapshots(now);
+            snapshot = new Snapshot(new ObjectName(object));
+            snapshots.put(object, snapshot);
+         }
+         snapshot.lastAccessTime = now;
       }
-      catch(AttributeNotFoundException e)
+
+      synchronized(snapshot)
       {
-         return null;
+         long now = System.currentTimeMillis();
+         snapshot.requestedAttributes.put(attribute, now);
+         if ((now - snapshot.timestamp >= cacheTTL) || !snapshot.retrievedAttributes.contains(attribute))
+            readSnapshot(snapshot, now);
+         return snapshot.values.get(attribute);
       }
-      catch(IOException e)
+   }
+
+   /**
+    * Remove snapshots for MBeans that were not requested for longer than attribute expiration time (or cache TTL if it is
+    * longer). Caller must hold lock on snapshot map.
+    *
+    * @param now current time
+    */
+   private void pruneSnapshots(long now)
+   {
+      long expirationTime = Math.max(ATTRIBUTE_EXPIRATION_TIME, cacheTTL);
+      Iterator<Snapshot> it = snapshots.values().iterator();
+      while(it.hasNext())
       {
-         disconnect();
-         throw e;
+         if (now - it.next().lastAccessTime > expirationTime)
+            it.remove();
       }
    }
 
    /**
-    * Get value of given attribute as string
-    * 
-    * @param object
-    * @param attribute
-    * @return
+    * Read all recently requested attributes of snapshot's MBean. Caller must hold lock on snapshot.
+    *
+    * @param snapshot MBean snapshot
+    * @param now current time
     * @throws Exception
     */
-   public synchronized String getAttributeValueAsString(String object, String attribute) throws Exception
+   private void readSnapshot(Snapshot snapshot, long now) throws Exception
    {
-      connect();
-      try
+      List<String> attributes = new ArrayList<String>(snapshot.requestedAttributes.size());
+      Iterator<Entry<String, Long>> it = snapshot.requestedAttributes.entrySet().iterator();
+      while(it.hasNext())
       {
-         Platform.writeDebugLog(DEBUG_TAG, 6, String.format("Reading JMX object %s attribute %s", object, attribute));
-         return mbsc.getAttribute(new ObjectName(object), attribute).toString();
+         Entry<String, Long> e = it.next();
+         if (now - e.getValue() > ATTRIBUTE_EXPIRATION_TIME)
+            it.remove();
+         else
+            attributes.add(e.getKey());
       }
-      catch(AttributeNotFoundException e)
+
+      MBeanServerConnection connection = connect();
+      try
       {
-         return null;
+         Platform.writeDebugLog(DEBUG_TAG, 6, "Reading JMX object %s attributes %s", snapshot.objectName, attributes);
+         AttributeList list = connection.getAttributes(snapshot.objectName, attributes.toArray(new String[attributes.size()]));
+         Map<String, Object> values = new HashMap<String, Object>(list.size() * 2);
+         for(Attribute a : list.asList())
+            values.put(a.getName(), a.getValue());
+         snapshot.values = values;
+         snapshot.retrievedAttributes = new HashSet<String>(attributes);
+         snapshot.timestamp = now;
       }
       catch(IOException e)
       {
-         disconnect();
+         disconnect(connection);
          throw e;
       }
    }
+
+   /**
+    * Get value of given attribute as string
+    * 
+    * @param object
+    * @param attribute
+    * @return
+    * @throws Exception
+    */
+   public String getAttributeValueAsString(String object, String attribute) throws Exception
+   {
+      Object value = getAttributeValue(object, attribute);
+      return (value != null) ? value.toString() : null;
+   }
 }
@@ -36,8 +36,12 @@
  */
 public class OpcUaPlugin extends Plugin
 {
+   private static final String DEBUG_TAG = "opcua";
+
    private Map<String, ServerConnection> servers = new HashMap<String, ServerConnection>();
    private int timeout = 5000;
+   private boolean subscriptionMode = false;
+   private int publishingInterval = 1000;
 
    /**
     * Create plugin instance
@@ -76,6 +80,10 @@ public void init(Config config) throws PluginInitException
       super.init(config);
       
       timeout = config.getValueInt("/OPCUA/Timeout", 5000);
+      subscriptionMode = config.getValueBoolean("/OPCUA/SubscriptionMode", false);
+      publishingInterval = config.getValueInt("/OPCUA/PublishingInterval", 1000);
+      if (subscriptionMode)
+         Platform.writeDebugLog(DEBUG_TAG, 3, "subscription mode enabled (publishing interval %d ms)", publishingInterval);
       
       ConfigEntry e = config.getEntry("/OPCUA/Server");
       if (e == null)
@@ -120,14 +128,14 @@ private void addServer(String config) throws PluginInitException
             login = uparts[0];
             password = "";
          }
-         s = new ServerConnection(parts[0].trim(), uparts[1].trim(), login, password, timeout);
+         s = new ServerConnection(parts[0].trim(), uparts[1].trim(), login, password, timeout, subscriptionMode, publishingInterval);
       }
       else
       {
-         s = new ServerConnection(parts[0].trim(), parts[1].trim(), null, null, timeout);
+         s = new ServerConnection(parts[0].trim(), parts[1].trim(), null, null, timeout, subscriptionMode, publishingInterval);
       }
       servers.put(s.getName(), s);
-      Platform.writeDebugLog(3, "OPCUA: added server connection " + s.getName() + " (" + s.getUrl() + ")");
+      Platform.writeDebugLog(DEBUG_TAG, 3, "added server connection %s (%s)", s.getName(), s.getUrl());
    }
 
    /**
@@ -18,17 +18,27 @@
  */
 package com.radensolutions.netxms.agent.opcua;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.sdk.client.api.identity.AnonymousProvider;
 import org.eclipse.milo.opcua.sdk.client.api.identity.UsernameProvider;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscriptionManager;
 import org.eclipse.milo.opcua.sdk.client.nodes.UaVariableNode;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
 import org.eclipse.milo.opcua.stack.core.Identifiers;
 import org.eclipse.milo.opcua.stack.core.StatusCodes;
 import org.eclipse.milo.opcua.stack.core.UaRuntimeException;
@@ -40,39 +50,95 @@
 import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
 import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
 import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UByte;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.netxms.bridge.Platform;
 import com.google.common.collect.ImmutableList;
 
 /**
- * Represents OPC-UA server connection
+ * Represents OPC-UA server connection. Node values are read with multi-node read requests (concurrent requests for different
+ * nodes are merged into single read), or, in subscription mode, taken from local cache updated by monitored items.
  */
 public class ServerConnection
 {
+   private static final String DEBUG_TAG = "opcua";
+   private static final long MONITORED_ITEM_EXPIRATION_TIME = 600000;
+   private static final long EXPIRATION_CHECK_INTERVAL = 60000;
+
    private String name;
    private String url;
    private String login;
    private String password;
    private int timeout;
-   private OpcUaClient session;
-   private Map<NodeId, ExpandedNodeId> dataTypeCache = new HashMap<>();
+   private boolean subscriptionMode;
+   private double publishingInterval;
+   private volatile OpcUaClient session;
+   private UaSubscription subscription = null;
+   private volatile long subscriptionAliveTime = 0;
+   private volatile long maxValueAge = 0;
+   private Map<NodeId, ExpandedNodeId> dataTypeCache = new ConcurrentHashMap<>();
+   private Map<NodeId, UaVariableNode> nodeCache = new ConcurrentHashMap<>();
+   private Map<NodeId, MonitoredValue> monitoredValues = new ConcurrentHashMap<>();
+   private volatile long lastExpirationCheck = System.currentTimeMillis();
+   private final Object readLock = new Object();
+   private List<PendingRead> pendingReads = new ArrayList<>();
+   private boolean readInProgress = false;
+
+   /**
+    * Node value received from monitored item
+    */
+   private static class MonitoredValue
+   {
+      volatile UaMonitoredItem item = null;
+      volatile DataValue value = null;
+      volatile long updateTime = 0;
+      volatile long lastAccessTime = System.currentTimeMillis();
+      volatile boolean failed = false;
+   }
+
+   /**
+    * Pending node read request
+    */
+   private static class PendingRead
+   {
+      final NodeId nodeId;
+      final CompletableFuture<DataValue> result = new CompletableFuture<>();
+      final CompletableFuture<Void> readerRole = new CompletableFuture<>();
+
+      PendingRead(NodeId nodeId)
+      {
+         this.nodeId = nodeId;
+      }
+   }
 
    /**
-    * @param url
-    * @param login
-    * @param password
+    * @param name server name
+    * @param url server URL
+    * @param login login name (null for anonymous access)
+    * @param password password
+    * @param timeout request timeout in milliseconds
+    * @param subscriptionMode true to collect node values via subscription
+    * @param publishingInterval subscription publishing interval in milliseconds
     */
-   public ServerConnection(String name, String url, String login, String password, int timeout)
+   public ServerConnection(String name, String url, String login, String password, int timeout, boolean subscriptionMode, int publishingInterval)
    {
       this.name = name;
       this.url = url;
       this.login = login;
       this.password = password;
       this.timeout = timeout;
+      this.subscriptionMode = subscriptionMode;
+      this.publishingInterval = publishingInterval;
    }
-   
+
    /**
     * @return the name
     */
@@ -88,20 +154,20 @@ public String getUrl()
    {
       return url;
    }
-   
+
    /**
     * Connect to server
-    * 
+    *
     * @throws Exception on any error
     */
-   private void connect() throws Exception
+   private synchronized void connect() throws Exception
    {
       if (session != null)
          return;
 
       try
       {
-         session = OpcUaClient.create(url,
+         OpcUaClient client = OpcUaClient.create(url,
                endpoints ->
                   endpoints
                      .stream()
@@ -116,12 +182,13 @@ private void connect() throws Exception
                      .setIdentityProvider((login != null) ? new UsernameProvider(login, password) : new AnonymousProvider())
                      .setRequestTimeout(UInteger.valueOf(5000))
                      .build());
-         session.connect().get(timeout, TimeUnit.MILLISECONDS);
+         client.connect().get(timeout, TimeUnit.MILLISECONDS);
+         session = client;
       }
       catch(Exception e)
       {
-         Platform.writeDebugLog(5, String.format("OPCUA: cannot setup connection to %s (%s)", url, e.getMessage()));
-         Platform.writeDebugLog(5, "OPCUA:   ", e);
+         Platform.writeDebugLog(DEBUG_TAG, 5, "cannot setup connection to %s (%s)", url, e.getMessage());
+         Platform.writeDebugLog(DEBUG_TAG, 5, "   ", e);
          throw e;
       }
    }
@@ -129,19 +196,24 @@ private void connect() throws Exception
    /**
     * Disconnect from server
     */
-   private void disconnect()
+   private synchronized void disconnect()
    {
       if (session == null)
          return;
-      
+
+      subscription = null;
+      subscriptionAliveTime = 0;
+      monitoredValues.clear();
+      nodeCache.clear();
+
       try
       {
          session.disconnect().get();
       }
       catch(Exception e)
       {
-         Platform.writeDebugLog(6, "OPCUA: exception in disconnect() call for " + url);
-         Platform.writeDebugLog(6, "OPCUA:   ", e);
+         Platform.writeDebugLog(DEBUG_TAG, 6, "exception in disconnect() call for %s", url);
+         Platform.writeDebugLog(DEBUG_TAG, 6, "   ", e);
       }
       session = null;
    }
@@ -149,7 +221,7 @@ private void disconnect()
    /**
     * Handle execution exception during operation. Depending on exception cause
     * can do reconnect and execute provided action, or re-throw original exeption.
-    * 
+    *
     * @param e original exception
     * @param action action to be executed if reconnect is possible and successful
     * @return result of action execution
@@ -164,7 +236,7 @@ private <T extends Object> T handleExecutionException(ExecutionException e, Call
          long status = se.getStatusCode().getValue();
          if ((status == StatusCodes.Bad_CommunicationError) ||
              (status == StatusCodes.Bad_ConnectionClosed) ||
-             (status == StatusCodes.Bad_Disconnect) ||               
+             (status == StatusCodes.Bad_Disconnect) ||
              (status == StatusCodes.Bad_EndOfStream) ||
              (status == StatusCodes.Bad_InvalidState) ||
              (status == StatusCodes.Bad_NoCommunication) ||
@@ -177,7 +249,7 @@ private <T extends Object> T handleExecutionException(ExecutionException e, Call
              (status == StatusCodes.Bad_TcpInternalError) ||
              (status == StatusCodes.Bad_UnexpectedError))
          {
-            Platform.writeDebugLog(6, String.format("OPCUA: reconnect after error (%s)", se.getStatusCode().toString()));
+            Platform.writeDebugLog(DEBUG_TAG, 6, "reconnect after error (%s)", se.getStatusCode());
             connect();
             return action.call();
          }
@@ -186,20 +258,270 @@ private <T extends Object> T handleExecutionException(ExecutionException e, Call
    }
 
    /**
-    * Read value of given node from server
-    * 
+    * Read value of given node from server. Requests made by other threads while read is in progress are collected and sent to
+    * server as single multi-node read request. Reading thread processes only one batch and then hands reader role over to the
+    * thread that owns first request of next batch, so no thread stays reader for longer than one read request.
+    *
     * @param nodeId node ID
     * @return node value
     * @throws Exception
     */
-   private String readNodeValue(NodeId nodeId) throws Exception
+   private DataValue readNodeValue(NodeId nodeId) throws Exception
+   {
+      long deadline = System.currentTimeMillis() + timeout * 2;
+      PendingRead request = new PendingRead(nodeId);
+      boolean reader;
+      synchronized(readLock)
+      {
+         pendingReads.add(request);
+         reader = !readInProgress;
+         readInProgress = true;
+      }
+
+      if (!reader)
+      {
+         // Wait until request is completed by current reader or reader role is handed over to this thread
+         try
+         {
+            CompletableFuture.anyOf(request.result, request.readerRole).get(timeout * 2, TimeUnit.MILLISECONDS);
+         }
+         catch(ExecutionException e)
+         {
+            // Request completed exceptionally, will be handled below
+         }
+         catch(TimeoutException e)
+         {
+         }
+
+         synchronized(readLock)
+         {
+            if (!request.result.isDone())
+            {
+               if (request.readerRole.isDone())
+               {
+                  reader = true;
+               }
+               else
+               {
+                  // Request is either still pending (then drop it) or is being read by another thread
+                  pendingReads.remove(request);
+                  throw new TimeoutException("Timeout waiting for node read");
+               }
+            }
+         }
+      }
+
+      if (reader)
+         processReadBatch();
+
+      try
+      {
+         return request.result.get(Math.max(deadline - System.currentTimeMillis(), 1), TimeUnit.MILLISECONDS);
+      }
+      catch(ExecutionException e)
+      {
+         if (e.getCause() instanceof Exception)
+            throw (Exception)e.getCause();
+         throw e;
+      }
+   }
+
+   /**
+    * Read all pending requests as single batch, then either hand reader role over to owner of first request that arrived in the
+    * meantime or clear read in progress flag.
+    */
+   private void processReadBatch()
+   {
+      List<PendingRead> batch;
+      synchronized(readLock)
+      {
+         batch = pendingReads;
+         pendingReads = new ArrayList<>();
+      }
+
+      try
+      {
+         executeReadRequests(batch);
+      }
+      finally
+      {
+         synchronized(readLock)
+         {
+            if (pendingReads.isEmpty())
+               readInProgress = false;
+            else
+               pendingReads.get(0).readerRole.complete(null);
+         }
+      }
+   }
+
+   /**
+    * Execute multi-node read for given requests and complete them.
+    *
+    * @param requests read requests
+    */
+   private void executeReadRequests(List<PendingRead> requests)
+   {
+      Set<NodeId> nodes = new LinkedHashSet<>();
+      for(PendingRead r : requests)
+         nodes.add(r.nodeId);
+      List<NodeId> nodeList = new ArrayList<>(nodes);
+
+      try
+      {
+         Platform.writeDebugLog(DEBUG_TAG, 7, "reading %d nodes from %s", nodeList.size(), url);
+         List<DataValue> values = session.readValues(0.0, TimestampsToReturn.Neither, nodeList).get(timeout, TimeUnit.MILLISECONDS);
+         for(PendingRead r : requests)
+            r.result.complete(values.get(nodeList.indexOf(r.nodeId)));
+      }
+      catch(Exception e)
+      {
+         // Pass original exception (ExecutionException in case of service fault) to callers
+         for(PendingRead r : requests)
+            r.result.completeExceptionally(e);
+      }
+   }
+
+   /**
+    * Get node value from monitored item cache. If node is not monitored yet, monitored item creation is started and null is
+    * returned, so caller should read value directly. Null is also returned if cached value was not confirmed by server within
+    * last two publishing intervals.
+    *
+    * @param nodeId node ID
+    * @return cached node value or null if not available or stale
+    * @throws Exception
+    */
+   private DataValue getMonitoredValue(NodeId nodeId) throws Exception
+   {
+      long now = System.currentTimeMillis();
+      if (now - lastExpirationCheck > EXPIRATION_CHECK_INTERVAL)
+      {
+         lastExpirationCheck = now;
+         removeExpiredMonitoredItems(now);
+      }
+
+      MonitoredValue mv = monitoredValues.get(nodeId);
+      if (mv == null)
+      {
+         createMonitoredItem(nodeId);
+         return null;
+      }
+      mv.lastAccessTime = now;
+      if (mv.failed || (mv.value == null))
+         return null;
+
+      // Value is known to be current as of last notification for this item or last publish response for the subscription
+      // (server sends only changed values, but keep-alive is sent on every publishing interval without changes)
+      long age = now - Math.max(mv.updateTime, subscriptionAliveTime);
+      if (age > maxValueAge)
+      {
+         Platform.writeDebugLog(DEBUG_TAG, 7, "monitored value for node %s on %s is stale (%d ms old)", nodeId, url, age);
+         return null;
+      }
+      return mv.value;
+   }
+
+   /**
+    * Create monitored item for given node. Item creation is asynchronous; until first value is received node is read directly.
+    *
+    * @param nodeId node ID
+    * @throws Exception
+    */
+   private synchronized void createMonitoredItem(NodeId nodeId) throws Exception
    {
-      UaVariableNode node = session.getAddressSpace().getVariableNode(nodeId);
-      Object value = node.readValue().getValue().getValue();
+      if (monitoredValues.containsKey(nodeId))
+         return;
+
+      if (subscription == null)
+      {
+         // Max keep-alive count is set to 1 so that server confirms subscription state on every publishing interval, which
+         // allows detection of stale values
+         final UaSubscription s = session.getSubscriptionManager()
+               .createSubscription(publishingInterval, UInteger.valueOf(60), UInteger.valueOf(1), UInteger.valueOf(0), true, UByte.valueOf(0))
+               .get(timeout, TimeUnit.MILLISECONDS);
+         session.getSubscriptionManager().addSubscriptionListener(new UaSubscriptionManager.SubscriptionListener() {
+            @Override
+            public void onKeepAlive(UaSubscription subscription, DateTime publishTime)
+            {
+               if (subscription == s)
+                  subscriptionAliveTime = System.currentTimeMillis();
+            }
+         });
+         subscription = s;
+         // Allow one publishing interval for delivery delays
+         maxValueAge = (long)(s.getRevisedPublishingInterval() * 2);
+         Platform.writeDebugLog(DEBUG_TAG, 6, "created subscription for %s (publishing interval %d ms)", url, (long)s.getRevisedPublishingInterval());
+      }
+
+      final MonitoredValue mv = new MonitoredValue();
+      monitoredValues.put(nodeId, mv);
+
+      MonitoringParameters parameters = new MonitoringParameters(subscription.nextClientHandle(), publishingInterval, null, UInteger.valueOf(1), true);
+      MonitoredItemCreateRequest request = new MonitoredItemCreateRequest(new ReadValueId(nodeId, AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE),
+            MonitoringMode.Reporting, parameters);
+      subscription.createMonitoredItems(TimestampsToReturn.Neither, ImmutableList.of(request),
+            (item, index) -> item.setValueConsumer(v -> {
+               long now = System.currentTimeMillis();
+               mv.value = v;
+               mv.updateTime = now;
+               subscriptionAliveTime = now;
+            }))
+         .whenComplete((items, e) -> {
+            if ((e == null) && items.get(0).getStatusCode().isGood())
+            {
+               mv.item = items.get(0);
+               Platform.writeDebugLog(DEBUG_TAG, 7, "created monitored item for node %s on %s", nodeId, url);
+            }
+            else
+            {
+               // Node will be read directly on each request
+               mv.failed = true;
+               Platform.writeDebugLog(DEBUG_TAG, 6, "cannot create monitored item for node %s on %s (%s)", nodeId, url,
+                     (e != null) ? e.getMessage() : items.get(0).getStatusCode().toString());
+            }
+         });
+   }
+
+   /**
+    * Remove monitored items for nodes that were not requested for long time.
+    *
+    * @param now current time
+    */
+   private synchronized void removeExpiredMonitoredItems(long now)
+   {
+      List<UaMonitoredItem> expiredItems = new ArrayList<>();
+      Iterator<Entry<NodeId, MonitoredValue>> it = monitoredValues.entrySet().iterator();
+      while(it.hasNext())
+      {
+         MonitoredValue mv = it.next().getValue();
+         if (now - mv.lastAccessTime > MONITORED_ITEM_EXPIRATION_TIME)
+         {
+            it.remove();
+            if (mv.item != null)
+               expiredItems.add(mv.item);
+         }
+      }
+      if (!expiredItems.isEmpty() && (subscription != null))
+      {
+         Platform.writeDebugLog(DEBUG_TAG, 6, "removing %d expired monitored items for %s", expiredItems.size(), url);
+         subscription.deleteMonitoredItems(expiredItems);
+      }
+   }
+
+   /**
+    * Convert node value to string
+    *
+    * @param nodeId node ID
+    * @param dataValue node value
+    * @return node value as string
+    */
+   private String formatNodeValue(NodeId nodeId, DataValue dataValue)
+   {
+      Object value = dataValue.getValue().getValue();
       if (value == null)
          return null;
 
-      Platform.writeDebugLog(6, String.format("OPCUA: readNodeValue(%s) for %s: type %s", nodeId.toString(), url, value.getClass().getCanonicalName()));
+      Platform.writeDebugLog(DEBUG_TAG, 6, "readNodeValue(%s) for %s: type %s", nodeId, url, value.getClass().getCanonicalName());
 
       if (value instanceof String[])
       {
@@ -228,12 +550,12 @@ private String readNodeValue(NodeId nodeId) throws Exception
 
    /**
     * Get value of given node, connecting to server as necessary
-    * 
+    *
     * @param name node symbolic name
     * @return node value or null to indicate unsupported node
     * @throws Exception
     */
-   public synchronized String getNodeValue(String name) throws Exception
+   public String getNodeValue(String name) throws Exception
    {
       connect();
 
@@ -244,26 +566,47 @@ public synchronized String getNodeValue(String name) throws Exception
       }
       catch(UaRuntimeException e)
       {
-         Platform.writeDebugLog(6, String.format("OPCUA: error parsing node ID \"%s\"", name));
+         Platform.writeDebugLog(DEBUG_TAG, 6, "error parsing node ID \"%s\"", name);
          return null;
       }
 
       try
       {
-         return readNodeValue(nodeId);
+         DataValue value = subscriptionMode ? getMonitoredValue(nodeId) : null;
+         if (value == null)
+            value = readNodeValue(nodeId);
+         return formatNodeValue(nodeId, value);
       }
       catch(ExecutionException e)
       {
-         return handleExecutionException(e, () -> { return readNodeValue(nodeId); });
+         return handleExecutionException(e, () -> { return formatNodeValue(nodeId, readNodeValue(nodeId)); });
       }
       catch(Exception e)
       {
-         Platform.writeDebugLog(6, String.format("OPCUA: exception in getNodeValue(%s) call for %s (%s)", name, url, e.getMessage()));
-         Platform.writeDebugLog(6, "OPCUA:   ", e);
+         Platform.writeDebugLog(DEBUG_TAG, 6, "exception in getNodeValue(%s) call for %s (%s)", name, url, e.getMessage());
+         Platform.writeDebugLog(DEBUG_TAG, 6, "   ", e);
          return null;
       }
    }
-   
+
+   /**
+    * Get variable node object for given node ID. Resolved nodes are cached until disconnect.
+    *
+    * @param nodeId node ID
+    * @return variable node
+    * @throws Exception
+    */
+   private UaVariableNode getVariableNode(NodeId nodeId) throws Exception
+   {
+      UaVariableNode node = nodeCache.get(nodeId);
+      if (node == null)
+      {
+         node = session.getAddressSpace().getVariableNode(nodeId);
+         nodeCache.put(nodeId, node);
+      }
+      return node;
+   }
+
    /**
     * @param nodeId
     * @param value
@@ -272,20 +615,18 @@ public synchronized String getNodeValue(String name) throws Exception
     */
    private boolean writeNodeValue(NodeId nodeId, String newValue) throws Exception
    {
-      UaVariableNode node = session.getAddressSpace().getVariableNode(nodeId);
-      
       // Determine data type
       ExpandedNodeId dataType = dataTypeCache.get(nodeId);
       if (dataType == null)
       {
-         Variant value = node.readValue().getValue();
+         Variant value = getVariableNode(nodeId).readValue().getValue();
          dataType = value.getDataType().get();
          if (dataType == null)
          {
-            Platform.writeDebugLog(6, String.format("OPCUA: writeNodeValue(%s, \"%s\") for %s: cannot read data type", nodeId.toString(), value, url));
+            Platform.writeDebugLog(DEBUG_TAG, 6, "writeNodeValue(%s, \"%s\") for %s: cannot read data type", nodeId, value, url);
             return false;
          }
-         Platform.writeDebugLog(6, String.format("OPCUA: writeNodeValue(%s, \"%s\") for %s: type %s", nodeId.toString(), value, url, dataType.toString()));
+         Platform.writeDebugLog(DEBUG_TAG, 6, "writeNodeValue(%s, \"%s\") for %s: type %s", nodeId, value, url, dataType);
          dataTypeCache.put(nodeId, dataType);
       }
 
@@ -309,7 +650,7 @@ else if (Identifiers.Int64.equals(dataType) || Identifiers.UInt64.equals(dataTyp
 
       CompletableFuture<List<StatusCode>> f = session.writeValues(ImmutableList.of(nodeId), ImmutableList.of(new DataValue(v)));
       StatusCode status = f.get().get(0);
-      Platform.writeDebugLog(6, String.format("OPCUA: writeNodeValue(%s, \"%s\") for %s: status %s", nodeId.toString(), newValue, url, status.toString()));
+      Platform.writeDebugLog(DEBUG_TAG, 6, "writeNodeValue(%s, \"%s\") for %s: status %s", nodeId, newValue, url, status);
       return status.isGood();
    }
 
@@ -330,7 +671,7 @@ public boolean writeNode(String node, String value) throws Exception
       }
       catch(UaRuntimeException e)
       {
-         Platform.writeDebugLog(6, String.format("OPCUA: error parsing node ID \"%s\"", node));
+         Platform.writeDebugLog(DEBUG_TAG, 6, "error parsing node ID \"%s\"", node);
          return false;
       }
 
@@ -344,8 +685,8 @@ public boolean writeNode(String node, String value) throws Exception
       }
       catch(Exception e)
       {
-         Platform.writeDebugLog(6, String.format("OPCUA: exception in writeNode(%s,%s) call for %s (%s)", node, value, url, e.getMessage()));
-         Platform.writeDebugLog(6, "OPCUA:   ", e);
+         Platform.writeDebugLog(DEBUG_TAG, 6, "exception in writeNode(%s,%s) call for %s (%s)", node, value, url, e.getMessage());
+         Platform.writeDebugLog(DEBUG_TAG, 6, "   ", e);
          return false;
       }
    }
@@ -5,6 +5,8 @@
 
 public class Logger {
 
+    private static final String DEBUG_TAG = "ubntlw";
+
     private final Class<?> clazz;
 
     private Logger(Class<?> clazz) {
@@ -26,4 +28,14 @@ public void w(final String message) {
     public void i(final String message) {
        Platform.writeLog(LogLevel.INFO, "[" + clazz.getName() + "] " + message);
     }
+
+    /**
+     * Write debug message with "ubntlw" tag. Message is formatted only if given debug level is enabled, so callers should
+     * pass arguments instead of concatenating strings.
+     */
+    public void d(int level, final String format, Object... args) {
+       if (!Platform.isDebugEnabled(DEBUG_TAG, level))
+          return;
+       Platform.writeDebugLog(DEBUG_TAG, level, "[" + clazz.getSimpleName() + "] " + ((args.length > 0) ? String.format(format, args) : format));
+    }
 }
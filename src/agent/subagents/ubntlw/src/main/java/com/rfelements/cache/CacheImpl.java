@@ -3,6 +3,7 @@
 import java.util.concurrent.ConcurrentHashMap;
 import org.netxms.bridge.LogLevel;
 import org.netxms.bridge.Platform;
+import com.rfelements.Logger;
 import com.rfelements.model.DeviceCredentials;
 
 /**
@@ -10,6 +11,8 @@
  */
 public class CacheImpl implements Cache {
 
+    private static final Logger log = Logger.getInstance(CacheImpl.class);
+
     private final static int DEBUG_LEVEL = 5;
 
     private final ConcurrentHashMap<String, Object> cache = new ConcurrentHashMap<>();
@@ -59,13 +62,7 @@ public DeviceCredentials putDeviceCredentials(String key, DeviceCredentials devi
 
     @Override
     public Object putJsonObject(String key, Object object) {
-        // DEBUG OUTPUT
-        if (object != null)
-           Platform.writeDebugLog(DEBUG_LEVEL,
-                    "[" + this.getClass().getName() + "] Storing object into cache , key : " + key + " JSON obj : " + object.getClass().getName());
-        else {
-           Platform.writeDebugLog(DEBUG_LEVEL, "[" + this.getClass().getName() + "] Storing object into cache , key : " + key + " JSON obj : null");
-        }
+        log.d(DEBUG_LEVEL, "Storing object into cache , key : %s JSON obj : %s", key, (object != null) ? object.getClass().getName() : "null");
 
         if (!cache.containsKey(key)) {
             StorableItem store = new StorableItem();
@@ -81,18 +78,9 @@ public Object putJsonObject(String key, Object object) {
     @Override
     public Object getJsonObject(String key) {
         StorableItem store = (StorableItem) cache.get(key);
-        if (store == null) {
-           Platform.writeDebugLog(DEBUG_LEVEL, "[" + this.getClass().getName() + "] Getting object from cache, key : " + key + " JSON obj : null");
-            return null;
-        }
-        if (store.getJsonObject() == null) {
-           Platform.writeDebugLog(DEBUG_LEVEL, "[" + this.getClass().getName() + "] Getting object from cache, key : " + key + " JSON obj : null");
-            return null;
-        }
-        Platform.writeDebugLog(DEBUG_LEVEL,
-                "[" + this.getClass().getName() + "] Getting object from cache, key : " + key + " JSON obj : " + store.getJsonObject().getClass()
-                        .getName());
-        return store.getJsonObject();
+        Object object = (store != null) ? store.getJsonObject() : null;
+        log.d(DEBUG_LEVEL, "Getting object from cache, key : %s JSON obj : %s", key, (object != null) ? object.getClass().getName() : "null");
+        return object;
     }
 
     @Override
@@ -14,4 +14,10 @@ public class Settings {
     public static int LOGIN_TRIES_COUNT;
 
     public static int UPDATE_PERIOD;
+
+    public static int MAX_BACKOFF_PERIOD;
+
+    public static int WORKER_THREADS;
+
+    public static int MAX_CONNECTIONS;
 }
@@ -1,23 +1,44 @@
 package com.rfelements.gson;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-
-import java.lang.reflect.Type;
+import java.io.IOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 /**
+ * Streaming boolean adapter. Devices report flags either as JSON booleans or as single digit numbers (0/1).
+ *
  * @author Pichanič Ján
  */
-public class BooleanTypeAdapter implements JsonDeserializer<Boolean> {
+public class BooleanTypeAdapter extends TypeAdapter<Boolean> {
 
     @Override
-    public Boolean deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        if (json.toString().length() <= 1) {
-            int code = json.getAsInt();
-            return code == 0 ? false : code == 1 ? true : null;
+    public Boolean read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        switch (token) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                return in.nextBoolean();
+            case NUMBER:
+                String number = in.nextString();
+                if (number.length() <= 1) {
+                    int code = Integer.parseInt(number);
+                    return code == 0 ? false : code == 1 ? true : null;
+                }
+                return Boolean.parseBoolean(number);
+            case STRING:
+                return Boolean.parseBoolean(in.nextString());
+            default:
+                throw new JsonSyntaxException("Expected boolean but was " + token + " at " + in.getPath());
         }
-        return json.getAsBoolean();
+    }
+
+    @Override
+    public void write(JsonWriter out, Boolean value) throws IOException {
+        out.value(value);
     }
 }
@@ -1,24 +1,49 @@
 package com.rfelements.gson;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
+import java.io.IOException;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-
-import java.lang.reflect.Type;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
+ * Streaming string adapter. Ligowave devices report missing values as empty object ({}), which is mapped to null.
+ *
  * @author Pichanič Ján
  */
-public class StringTypeAdapter implements JsonDeserializer<String> {
+public class StringTypeAdapter extends TypeAdapter<String> {
 
     @Override
-    public String deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        if (json.toString().contains("{}"))
-            return null;
-        String converted = json.getAsString();
+    public String read(JsonReader in) throws IOException {
+        String converted;
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                return Boolean.toString(in.nextBoolean());
+            case STRING:
+            case NUMBER:
+                converted = in.nextString();
+                if (converted.contains("{}"))
+                    return null;
+                break;
+            default:
+                // Objects and arrays are rare, fall back to tree model for them
+                JsonElement json = JsonParser.parseReader(in);
+                if (json.toString().contains("{}"))
+                    return null;
+                converted = json.getAsString();
+                break;
+        }
         if (converted.contains("\\/8"))
             converted = converted.substring(1, converted.length() - 3);
         return converted;
     }
+
+    @Override
+    public void write(JsonWriter out, String value) throws IOException {
+        out.value(value);
+    }
 }
@@ -1,27 +1,40 @@
 package com.rfelements.rest;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
-import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.SSLSession;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.BasicCookieStore;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.util.EntityUtils;
 import org.netxms.bridge.LogLevel;
 import org.netxms.bridge.Platform;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.rfelements.Logger;
 import com.rfelements.config.Settings;
 import com.rfelements.exception.CollectorException;
 import com.rfelements.gson.BooleanTypeAdapter;
@@ -31,252 +44,239 @@
 import com.rfelements.model.json.ubiquiti.Ubiquiti;
 
 /**
+ * Non-blocking access to device web interfaces. All devices share single asynchronous HTTP client; each device has its own
+ * HTTP context with cookie store, so session cookie obtained on login is reused until device rejects it.
+ *
  * @author Pichanič Ján
  */
 public class Rest {
 
-    private static final int DEBUG_LEVEL = 8;
+    private static final Logger log = Logger.getInstance(Rest.class);
 
-    private static final int DEBUG_LEVEL_DETAILED = 9;
+    private static final int DEBUG_LEVEL = 8;
 
-    private static final ConcurrentHashMap<String, BasicCookieStore> cookiesStoreCache = new ConcurrentHashMap<>();
+    private static final Gson ubiquitiGson = new GsonBuilder().registerTypeAdapter(Boolean.class, new BooleanTypeAdapter()).create();
 
-    private static final ConcurrentHashMap<String, HttpClient> httpClientCache = new ConcurrentHashMap<>();
+    private static final Gson ligowaveGson = new GsonBuilder().registerTypeAdapter(Boolean.class, new BooleanTypeAdapter())
+            .registerTypeAdapter(String.class, new StringTypeAdapter()).create();
 
-    private static HttpClient initOrGetHttpClient(String ip) throws CollectorException {
-        HttpClient client = httpClientCache.get(ip);
-        if (client != null) {
-            return client;
-        }
+    private static final ConcurrentHashMap<String, HttpClientContext> contextCache = new ConcurrentHashMap<>();
 
-        SSLContextBuilder ctx = SSLContextBuilder.create();
-        RequestConfig.Builder request = RequestConfig.custom();
-        request = request.setConnectTimeout(Settings.CONNECTION_TIMEOUT);
-        request = request.setConnectionRequestTimeout(Settings.REQUEST_TIMEOUT);
-        request = request.setSocketTimeout(Settings.SOCKET_TIMEOUT);
+    private static CloseableHttpAsyncClient httpClient;
 
-        BasicCookieStore cs;
-        if (cookiesStoreCache.get(ip) == null) {
-            cookiesStoreCache.put(ip, new BasicCookieStore());
-            Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() +
-                    " [" + Rest.class.getName() + "][initOrGetHttpClient] ip : " + ip + " , Cookie store initialization and storing into cache ... ");
-        }
-        cs = cookiesStoreCache.get(ip);
+    /**
+     * Get shared HTTP client, creating and starting it if needed.
+     */
+    private static synchronized CloseableHttpAsyncClient getHttpClient() throws CollectorException {
+        if (httpClient != null && httpClient.isRunning())
+            return httpClient;
 
+        RequestConfig request = RequestConfig.custom().setConnectTimeout(Settings.CONNECTION_TIMEOUT)
+                .setConnectionRequestTimeout(Settings.REQUEST_TIMEOUT).setSocketTimeout(Settings.SOCKET_TIMEOUT).build();
         try {
+            SSLContextBuilder ctx = SSLContextBuilder.create();
             ctx.loadTrustMaterial(KeyStore.getInstance(KeyStore.getDefaultType()), new TrustSelfSignedStrategy());
-            client = HttpClientBuilder.create().setDefaultRequestConfig(request.build()).setSSLHostnameVerifier(new HostnameVerifier() {
-                @Override
-                public boolean verify(String s, SSLSession sslSession) {
-                    return true;
-                }
-            }).setSSLContext(ctx.build()).setDefaultCookieStore(cs).build();
+            httpClient = HttpAsyncClients.custom().setDefaultRequestConfig(request).setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+                    .setSSLContext(ctx.build()).setMaxConnTotal(Settings.MAX_CONNECTIONS).setMaxConnPerRoute(2).build();
         } catch (Exception e) {
-           Platform.writeLog(LogLevel.ERROR, e.getLocalizedMessage());
-            throw new CollectorException(e.getMessage(), e.getCause());
+            Platform.writeLog(LogLevel.ERROR, e.getLocalizedMessage());
+            throw new CollectorException(e.getMessage(), e);
         }
-        Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() + " [" + Rest.class.getName() + "][initOrGetHttpClient] ip : " + ip
-                + " , Http client is storing into cache , client hash code : " + client.hashCode());
-        httpClientCache.put(ip, client);
-        return client;
+        httpClient.start();
+        log.i("Asynchronous HTTP client started (max connections " + Settings.MAX_CONNECTIONS + ")");
+        return httpClient;
     }
 
-    public static boolean loginUbiquiti(final DeviceCredentials deviceCredentials) throws CollectorException {
-       Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() +
-                " [" + Rest.class.getName() + "] [loginUbiquiti] Performing login against (ubiquiti) " + deviceCredentials.getUrl());
-        HttpClient client = initOrGetHttpClient(deviceCredentials.getIp());
-
-        HttpPost post = new HttpPost(deviceCredentials.getUrl() + "/login.cgi");
-        MultipartEntityBuilder builder = MultipartEntityBuilder.create().addTextBody("username", deviceCredentials.getUsername())
-                .addTextBody("password", deviceCredentials.getPassword());
-        HttpResponse response = null;
-        try {
-            post.setEntity(builder.build());
-            response = client.execute(post);
-            if (200 == response.getStatusLine().getStatusCode() || 302 == response.getStatusLine().getStatusCode()) {
-                String responseStr = EntityUtils.toString(response.getEntity());
-                if (responseStr.contains("Invalid credentials.")) {
-                   Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() +
-                            " [" + Rest.class.getName() + "][loginUbiquiti] ip : " + deviceCredentials.getIp() + " , Failed to login. Invalid credentials");
-                    return false;
-                }
-                Platform.writeDebugLog(DEBUG_LEVEL_DETAILED,
-                        Thread.currentThread().getName() + " [" + Rest.class.getName() + "][loginUbiquiti][Ubiquiti] ip : " + deviceCredentials.getIp()
-                                + " , Login has been successful !");
-                return true;
+    /**
+     * Stop shared HTTP client and forget all sessions.
+     */
+    public static synchronized void shutdown() {
+        if (httpClient != null) {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                log.w("Error closing HTTP client (" + e.getLocalizedMessage() + ")");
             }
-        } catch (IOException e) {
-            Platform.writeLog(LogLevel.ERROR,
-                    "[" + Rest.class.getName() + "][loginUbiquiti] Login failed because of exception : " + e.getLocalizedMessage());
-            throw new CollectorException(e.getMessage(), e.getCause());
-        } finally {
-            if (response != null)
-                EntityUtils.consumeQuietly(response.getEntity());
+            httpClient = null;
         }
-        return false;
+        contextCache.clear();
     }
 
-    public static boolean loginLigowave(final DeviceCredentials deviceCredentials) throws CollectorException {
-        Platform.writeDebugLog(DEBUG_LEVEL,
-                Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [loginLigowave] Performing login against (ligowave): " + deviceCredentials.getUrl());
-        HttpClient client = initOrGetHttpClient(deviceCredentials.getIp());
+    /**
+     * Get HTTP context (with session cookies) for given device.
+     */
+    private static HttpClientContext getContext(String ip) {
+        return contextCache.computeIfAbsent(ip, k -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setCookieStore(new BasicCookieStore());
+            return context;
+        });
+    }
 
-        HttpPost post = new HttpPost(deviceCredentials.getUrl() + "/cgi-bin/main.cgi/login");
-        post.addHeader("Content-Type", "application/json");
-        HttpResponse response = null;
+    /**
+     * Execute request asynchronously. Returned future fails with CollectorException on communication error.
+     */
+    private static CompletableFuture<HttpResponse> execute(HttpUriRequest request, HttpClientContext context) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
         try {
-            StringEntity entity = new StringEntity(
-                    "{\"username\":\"" + deviceCredentials.getUsername() + "\",\"password\":\"" + deviceCredentials.getPassword() + "\",\"language\":\"en_US\"}");
-            entity.setContentType("application/json");
-            entity.setContentEncoding("charset=utf-8");
-            post.setEntity(entity);
-            response = client.execute(post);
-            if (200 == response.getStatusLine().getStatusCode() || 302 == response.getStatusLine().getStatusCode()) {
-                String responseStr = EntityUtils.toString(response.getEntity());
-                if (!responseStr.equals("{\"message\":\"Incorrect username or password\",\"status\":false}")) {
-                    Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() +
-                            " [" + Rest.class.getName() + "][loginLigowave] Login against : " + deviceCredentials.getUrl() + "/cgi-bin/main.cgi/login" + " has been successful");
-                    return true;
-                } else {
-                    Platform.writeDebugLog(DEBUG_LEVEL_DETAILED, Thread.currentThread().getName() + " [" + Rest.class.getName()
-                            + "][LogIn][Deliberant] Login error , incorrect username or password");
-                    return false;
+            getHttpClient().execute(request, context, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    future.complete(response);
                 }
-            }
-        } catch (IOException e) {
-            Platform.writeLog(LogLevel.ERROR,
-                    "[" + Rest.class.getName() + "][loginLigowave] Login failed because of exception : " + e.getLocalizedMessage());
-            throw new CollectorException(e.getMessage(), e.getCause());
-        } finally {
-            if (response != null)
-                EntityUtils.consumeQuietly(response.getEntity());
+
+                @Override
+                public void failed(Exception e) {
+                    future.completeExceptionally(new CollectorException(request.getURI() + ": " + e.getMessage(), e));
+                }
+
+                @Override
+                public void cancelled() {
+                    future.completeExceptionally(new CollectorException(request.getURI() + ": request cancelled"));
+                }
+            });
+        } catch (CollectorException e) {
+            future.completeExceptionally(e);
         }
-        return false;
+        return future;
     }
 
-    public static void getIndexSiteUbnt(DeviceCredentials deviceCredentials) throws CollectorException {
-        Platform.writeDebugLog(DEBUG_LEVEL,
-                Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [getIndexSiteUbnt] ip : " + deviceCredentials.getIp()
-                        + " , DeviceCredentials to website to get cookies ... ");
-        HttpClient client = initOrGetHttpClient(deviceCredentials.getIp());
-        HttpGet get = new HttpGet(deviceCredentials.getUrl() + "/login.cgi");
-        HttpResponse response = null;
+    /**
+     * Read response body as string (response content is already buffered by asynchronous client).
+     */
+    private static String readResponse(HttpResponse response) {
         try {
-            response = client.execute(get);
-            EntityUtils.consumeQuietly(response.getEntity());
+            return (response.getEntity() != null) ? EntityUtils.toString(response.getEntity()) : "";
         } catch (IOException e) {
-            Platform.writeLog(LogLevel.ERROR,
-                    " [" + Rest.class.getName() + "] [getIndexSiteUbnt] Exception occurred while executing http get, message : " + e
-                            .getLocalizedMessage());
-            throw new CollectorException(e.getMessage(), e.getCause());
-        } finally {
-            if (response != null)
-                EntityUtils.consumeQuietly(response.getEntity());
+            throw new CompletionException(new CollectorException(e.getMessage(), e));
         }
     }
 
-    public static boolean isJSONValid(String JSON_STRING) {
-        try {
-            Gson gson = new Gson();
-            gson.fromJson(JSON_STRING, Object.class);
-            return true;
-        } catch (com.google.gson.JsonSyntaxException ex) {
-            return false;
+    /**
+     * Parse response body directly into model object.
+     *
+     * @return parsed object or null if response is empty
+     * @throws JsonParseException if response is not valid JSON or does not match model
+     */
+    private static <T> T parseResponse(HttpResponse response, Gson gson, Class<T> clazz) {
+        HttpEntity entity = response.getEntity();
+        if (entity == null)
+            return null;
+        Charset charset = ContentType.getOrDefault(entity).getCharset();
+        try (Reader reader = new InputStreamReader(entity.getContent(), (charset != null) ? charset : StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, clazz);
+        } catch (IOException e) {
+            throw new CompletionException(new CollectorException(e.getMessage(), e));
         }
     }
 
-    public static Ubiquiti updateUbiquitiJsonObject(DeviceCredentials deviceCredentials, int loginTries) throws CollectorException {
-        Platform.writeDebugLog(DEBUG_LEVEL,
-                Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateUbiquitiJsonObject] ip : " + deviceCredentials.getIp()
-                        + " , Ubiquiti json object update started ...");
-        HttpClient client = initOrGetHttpClient(deviceCredentials.getIp());
-
-        if (cookiesStoreCache.get(deviceCredentials.getIp()).getCookies().isEmpty()) {
-            getIndexSiteUbnt(deviceCredentials);
-        }
+    private static boolean isSuccess(HttpResponse response) {
+        int status = response.getStatusLine().getStatusCode();
+        return status == 200 || status == 302;
+    }
 
-        HttpGet get = new HttpGet(deviceCredentials.getUrl() + "/status.cgi?_=" + new Date().getTime());
-        HttpResponse response = null;
-        String responseStr = null;
+    public static CompletableFuture<Boolean> loginUbiquiti(final DeviceCredentials deviceCredentials) {
+        log.d(DEBUG_LEVEL, "[loginUbiquiti] Performing login against %s", deviceCredentials.getUrl());
+        HttpPost post = new HttpPost(deviceCredentials.getUrl() + "/login.cgi");
         try {
-            response = client.execute(get);
-            Platform.writeDebugLog(DEBUG_LEVEL,
-                    Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateUbiquitiJsonObject] ip : " + deviceCredentials.getIp()
-                            + " Update UBNT obj response code : " + response.getStatusLine().getStatusCode());
-            responseStr = EntityUtils.toString(response.getEntity());
-            if (!isJSONValid(responseStr)) {
-                //				getIndexSiteUbnt(deviceCredentials);
-                if (loginTries <= 0)
-                    return null;
-                loginUbiquiti(deviceCredentials);
-                return updateUbiquitiJsonObject(deviceCredentials, --loginTries);
-            }
-            Platform.writeDebugLog(DEBUG_LEVEL_DETAILED,
-                    Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateUbiquitiJsonObject] ip : " + deviceCredentials.getIp()
-                            + " , response text : " + responseStr);
+            // Multipart entity does not provide content stream required by asynchronous client, so it is serialized here
+            HttpEntity multipart = MultipartEntityBuilder.create().addTextBody("username", deviceCredentials.getUsername())
+                    .addTextBody("password", deviceCredentials.getPassword()).build();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            multipart.writeTo(buffer);
+            post.setEntity(new ByteArrayEntity(buffer.toByteArray(), ContentType.parse(multipart.getContentType().getValue())));
         } catch (IOException e) {
-            Platform.writeLog(LogLevel.ERROR,
-                    Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateUbiquitiJsonObject] " + e.getLocalizedMessage());
-            throw new CollectorException(e.getMessage(), e.getCause());
-        } finally {
-            if (response != null)
-                EntityUtils.consumeQuietly(response.getEntity());
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            future.completeExceptionally(new CollectorException(e.getMessage(), e));
+            return future;
         }
+        return execute(post, getContext(deviceCredentials.getIp())).thenApply(response -> {
+            if (!isSuccess(response))
+                return false;
+            if (readResponse(response).contains("Invalid credentials.")) {
+                log.d(DEBUG_LEVEL, "[loginUbiquiti] ip : %s , Failed to login. Invalid credentials", deviceCredentials.getIp());
+                return false;
+            }
+            return true;
+        });
+    }
 
-        Gson gson = new GsonBuilder().registerTypeAdapter(Boolean.class, new BooleanTypeAdapter()).create();
-        Ubiquiti ubnt;
-        try {
-            ubnt = gson.fromJson(responseStr, Ubiquiti.class);
-        } catch (Exception e) {
-            Platform.writeLog(LogLevel.ERROR,
-                    Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateUbiquitiJsonObject] " + e.getLocalizedMessage());
-            throw new CollectorException(e.getMessage(), e.getCause());
-        }
-        return ubnt;
+    public static CompletableFuture<Boolean> loginLigowave(final DeviceCredentials deviceCredentials) {
+        log.d(DEBUG_LEVEL, "[loginLigowave] Performing login against %s", deviceCredentials.getUrl());
+        HttpPost post = new HttpPost(deviceCredentials.getUrl() + "/cgi-bin/main.cgi/login");
+        post.addHeader("Content-Type", "application/json");
+        StringEntity entity = new StringEntity(
+                "{\"username\":\"" + deviceCredentials.getUsername() + "\",\"password\":\"" + deviceCredentials.getPassword() + "\",\"language\":\"en_US\"}",
+                ContentType.APPLICATION_JSON);
+        post.setEntity(entity);
+        return execute(post, getContext(deviceCredentials.getIp())).thenApply(response -> {
+            if (!isSuccess(response))
+                return false;
+            if (readResponse(response).equals("{\"message\":\"Incorrect username or password\",\"status\":false}")) {
+                log.d(DEBUG_LEVEL, "[loginLigowave] ip : %s , Login error, incorrect username or password", deviceCredentials.getIp());
+                return false;
+            }
+            return true;
+        });
     }
 
-    public static Ligowave updateLigowaveJsonObject(DeviceCredentials deviceCredentials, int loginTries) throws CollectorException {
-        Platform.writeDebugLog(DEBUG_LEVEL,
-                Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateLigowaveJsonObject] ip : " + deviceCredentials.getIp()
-                        + " , Ligowave json object update started ...");
-        HttpClient client = initOrGetHttpClient(deviceCredentials.getIp());
+    /**
+     * Get login page to obtain initial session cookie.
+     */
+    public static CompletableFuture<Void> getIndexSiteUbnt(DeviceCredentials deviceCredentials) {
+        log.d(DEBUG_LEVEL, "[getIndexSiteUbnt] ip : %s , Requesting login page to get cookies", deviceCredentials.getIp());
+        return execute(new HttpGet(deviceCredentials.getUrl() + "/login.cgi"), getContext(deviceCredentials.getIp())).thenApply(response -> null);
+    }
 
-        HttpGet get = new HttpGet(deviceCredentials.getUrl() + "/cgi-bin/main.cgi/status");
-        HttpResponse response = null;
-        String responseStr = null;
-        try {
-            response = client.execute(get);
-            Platform.writeDebugLog(DEBUG_LEVEL,
-                    Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateLigowaveJsonObject] ip : " + deviceCredentials.getIp()
-                            + " Update ligowave obj response code : " + response.getStatusLine().getStatusCode());
-            if (response.getStatusLine().getStatusCode() != 200) {
-                EntityUtils.consumeQuietly(response.getEntity());
-                if (loginTries <= 0)
-                    return null;
-                loginLigowave(deviceCredentials);
-                return updateLigowaveJsonObject(deviceCredentials, --loginTries);
-            }
-            responseStr = EntityUtils.toString(response.getEntity());
-            Platform.writeDebugLog(DEBUG_LEVEL_DETAILED,
-                    Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateLigowaveJsonObject] ip : " + deviceCredentials.getIp()
-                            + " , response text : " + responseStr);
-        } catch (IOException e) {
-            Platform.writeLog(LogLevel.ERROR,
-                    Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateLigowaveJsonObject] " + e.getLocalizedMessage());
-            e.printStackTrace();
-        } finally {
-            if (response != null)
-                EntityUtils.consumeQuietly(response.getEntity());
-        }
-        Gson gson = new GsonBuilder().registerTypeAdapter(Boolean.class, new BooleanTypeAdapter())
-                .registerTypeAdapter(String.class, new StringTypeAdapter()).create();
-        Ligowave ligowave;
-        try {
-            ligowave = gson.fromJson(responseStr, Ligowave.class);
-        } catch (Exception e) {
-            Platform.writeLog(LogLevel.ERROR, " [" + Rest.class.getName() + "] [updateLigowaveJsonObject] " + e.getLocalizedMessage());
-            throw new CollectorException(e.getMessage(), e.getCause());
-        }
-        return ligowave;
+    /**
+     * Update status of Ubiquiti device. Login is performed when device does not return valid status (session expired).
+     *
+     * @param deviceCredentials device credentials
+     * @param loginTries number of login attempts
+     * @return future for status object (completed with null if login was not successful)
+     */
+    public static CompletableFuture<Ubiquiti> updateUbiquitiJsonObject(DeviceCredentials deviceCredentials, int loginTries) {
+        HttpClientContext context = getContext(deviceCredentials.getIp());
+        CompletableFuture<Void> ready = context.getCookieStore().getCookies().isEmpty() ? getIndexSiteUbnt(deviceCredentials)
+                : CompletableFuture.completedFuture(null);
+        return ready.thenCompose(v -> execute(new HttpGet(deviceCredentials.getUrl() + "/status.cgi?_=" + System.currentTimeMillis()), context))
+                .thenCompose(response -> {
+                    Ubiquiti ubnt;
+                    try {
+                        ubnt = parseResponse(response, ubiquitiGson, Ubiquiti.class);
+                    } catch (JsonParseException e) {
+                        ubnt = null; // login page instead of status
+                    }
+                    if (ubnt != null || loginTries <= 0)
+                        return CompletableFuture.completedFuture(ubnt);
+                    log.d(DEBUG_LEVEL, "[updateUbiquitiJsonObject] ip : %s , Invalid status response (code %d), login required",
+                            deviceCredentials.getIp(), response.getStatusLine().getStatusCode());
+                    return loginUbiquiti(deviceCredentials).thenCompose(success -> updateUbiquitiJsonObject(deviceCredentials, loginTries - 1));
+                });
+    }
+
+    /**
+     * Update status of Ligowave device. Login is performed when device rejects status request.
+     *
+     * @param deviceCredentials device credentials
+     * @param loginTries number of login attempts
+     * @return future for status object (completed with null if login was not successful)
+     */
+    public static CompletableFuture<Ligowave> updateLigowaveJsonObject(DeviceCredentials deviceCredentials, int loginTries) {
+        return execute(new HttpGet(deviceCredentials.getUrl() + "/cgi-bin/main.cgi/status"), getContext(deviceCredentials.getIp()))
+                .thenCompose(response -> {
+                    if (response.getStatusLine().getStatusCode() != 200) {
+                        if (loginTries <= 0)
+                            return CompletableFuture.completedFuture(null);
+                        log.d(DEBUG_LEVEL, "[updateLigowaveJsonObject] ip : %s , Status request failed (code %d), login required",
+                                deviceCredentials.getIp(), response.getStatusLine().getStatusCode());
+                        return loginLigowave(deviceCredentials).thenCompose(success -> updateLigowaveJsonObject(deviceCredentials, loginTries - 1));
+                    }
+                    try {
+                        return CompletableFuture.completedFuture(parseResponse(response, ligowaveGson, Ligowave.class));
+                    } catch (JsonParseException e) {
+                        throw new CompletionException(new CollectorException(e.getMessage(), e));
+                    }
+                });
     }
 }
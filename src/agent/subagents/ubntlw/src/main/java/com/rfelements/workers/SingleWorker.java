@@ -1,117 +1,133 @@
 package com.rfelements.workers;
 
-import java.util.Timer;
-import java.util.TimerTask;
-import org.netxms.bridge.Platform;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import com.rfelements.DeviceType;
+import com.rfelements.Logger;
 import com.rfelements.cache.Cache;
 import com.rfelements.cache.CacheImpl;
 import com.rfelements.config.Settings;
-import com.rfelements.exception.CollectorException;
 import com.rfelements.model.DeviceCredentials;
-import com.rfelements.model.json.ligowave.Ligowave;
-import com.rfelements.model.json.ubiquiti.Ubiquiti;
 import com.rfelements.rest.Rest;
 
 /**
+ * Periodic status update for single device. Worker does not own a thread - it is scheduled on shared executor, starts
+ * asynchronous HTTP request and schedules next run when request completes. After failed update next run is delayed with
+ * exponential backoff (limited by MAX_BACKOFF_PERIOD).
+ *
  * @author Pichanič Ján
  */
-public class SingleWorker extends Timer {
+public class SingleWorker implements Runnable {
+
+    private static final Logger log = Logger.getInstance(SingleWorker.class);
+
+    private static final int DEBUG_LEVEL = 7;
 
     private final DeviceCredentials deviceCredentials;
 
     private final DeviceType type;
 
+    private final ScheduledExecutorService scheduler;
+
     private Cache cache = CacheImpl.getInstance();
 
-    public SingleWorker(DeviceCredentials deviceCredentials, DeviceType type) {
-        super(true);
+    private volatile boolean stopped = false;
+
+    private volatile ScheduledFuture<?> task;
+
+    private int failures = 0;
+
+    public SingleWorker(DeviceCredentials deviceCredentials, DeviceType type, ScheduledExecutorService scheduler) {
         this.deviceCredentials = deviceCredentials;
         this.type = type;
-        Platform.writeDebugLog(3, Thread.currentThread().getName() + " [SingleWorker] Construction ...");
-        Platform.writeDebugLog(3,
-                Thread.currentThread().getName() + " [SingleWorker] Args - deviceCredentials : " + deviceCredentials.hashCode() + ", type : " + type.toString());
+        this.scheduler = scheduler;
     }
 
-    public void start() {
-        this.scheduleAtFixedRate(new TimerTask() {
-
-            @Override
-            public void run() {
-                Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                        " [SingleWorker] Reschedule, EntryPoint : " + type.toString() + "  URL : " + deviceCredentials.getUrl() + " , deviceCredentials : " + deviceCredentials.hashCode());
-                switch (type) {
-                    case LIGOWAVE_AP:
-                        updateLigowave();
-                        break;
-                    case UBIQUITI_AP:
-                        updateUbiquiti();
-                        break;
-                    case LIGOWAVE_CLIENT:
-                        updateLigowave();
-                        break;
-                    case UBIQUITI_CLIENT:
-                        updateUbiquiti();
-                        break;
-                    default:
-                        break;
-                }
-            }
-        }, 0, Settings.UPDATE_PERIOD);
+    /**
+     * Start worker.
+     *
+     * @param initialDelay delay before first update in milliseconds
+     */
+    public void start(long initialDelay) {
+        schedule(initialDelay);
     }
 
-    private void updateUbiquiti() {
-        Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                " [SingleWorker] Calling update ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl() + " , deviceCredentials : "
-                + deviceCredentials.hashCode());
+    private void schedule(long delay) {
+        if (stopped)
+            return;
         try {
-            Ubiquiti ubnt = Rest.updateUbiquitiJsonObject(deviceCredentials, Settings.LOGIN_TRIES_COUNT);
-            cache.putJsonObject(deviceCredentials.getIp(), ubnt);
-
-            // DEBUG OUTPUT
-            if (ubnt == null)
-                Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                        " [SingleWorker] JSON object updated ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl() + " JSON obj : null");
-            else
-                Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                        " [SingleWorker] JSON object updated ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl() + " JSON obj : " + ubnt.getClass().getName());
-        } catch (CollectorException e) {
-            Platform.writeDebugLog(3, e.getLocalizedMessage());
-            cache.putJsonObject(deviceCredentials.getIp(), null);
-            Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                    " [SingleWorker] JSON object updated as NULL ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl());
+            task = scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            stopped = true; // executor is shutting down
         }
     }
 
-    private void updateLigowave() {
-        Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                " [SingleWorker] Calling update ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl() + " , deviceCredentials : "
-                + deviceCredentials.hashCode());
+    @Override
+    public void run() {
+        if (stopped)
+            return;
+        CompletableFuture<?> update;
         try {
-            Ligowave ligowave = Rest.updateLigowaveJsonObject(deviceCredentials, Settings.LOGIN_TRIES_COUNT);
-            cache.putJsonObject(deviceCredentials.getIp(), ligowave);
-
-            // DEBUG OUTPUT
-            if (ligowave == null)
-                Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                        " [SingleWorker] JSON object updated ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl()
-                        + " JSON obj : null");
-            else
-                Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                        " [SingleWorker] JSON object updated ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl()
-                        + " JSON obj : " + ligowave.getClass().getName());
-        } catch (CollectorException e) {
-            Platform.writeDebugLog(3, e.getLocalizedMessage());
-            cache.putJsonObject(deviceCredentials.getIp(), null);
-            Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                    " [SingleWorker] JSON object updated as NULL ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl());
+            switch (type) {
+                case LIGOWAVE_AP:
+                case LIGOWAVE_CLIENT:
+                    update = Rest.updateLigowaveJsonObject(deviceCredentials, Settings.LOGIN_TRIES_COUNT);
+                    break;
+                case UBIQUITI_AP:
+                case UBIQUITI_CLIENT:
+                    update = Rest.updateUbiquitiJsonObject(deviceCredentials, Settings.LOGIN_TRIES_COUNT);
+                    break;
+                default:
+                    return;
+            }
+        } catch (Exception e) {
+            onUpdateCompleted(null, e);
+            return;
         }
+        update.whenComplete(this::onUpdateCompleted);
     }
 
-    public void stop() {
-        this.cancel();
-        this.purge();
+    /**
+     * Handle completion of status update (called on HTTP client thread).
+     */
+    private void onUpdateCompleted(Object object, Throwable exception) {
+        if (stopped)
+            return;
+        if (exception != null) {
+            Throwable cause = (exception.getCause() != null) ? exception.getCause() : exception;
+            log.d(DEBUG_LEVEL, "%s %s : update failed (%s)", type, deviceCredentials.getUrl(), cause.getLocalizedMessage());
+            object = null;
+        }
+        cache.putJsonObject(deviceCredentials.getIp(), object);
+        if (object != null) {
+            failures = 0;
+        } else {
+            failures++;
+        }
+        long delay = getNextDelay();
+        log.d(DEBUG_LEVEL, "%s %s : status %s, next update in %d ms", type, deviceCredentials.getUrl(), (object != null) ? "updated" : "unavailable", delay);
+        schedule(delay);
     }
-}
 
+    /**
+     * Calculate delay before next update. Each consecutive failure doubles update period; random jitter is added to spread
+     * retries of devices that failed at the same time (for example, because of common uplink outage).
+     */
+    private long getNextDelay() {
+        if (failures <= 1)
+            return Settings.UPDATE_PERIOD;
+        long delay = Math.min((long) Settings.UPDATE_PERIOD << Math.min(failures - 1, 16), Settings.MAX_BACKOFF_PERIOD);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 10 + 1);
+    }
 
+    public void stop() {
+        stopped = true;
+        ScheduledFuture<?> t = task;
+        if (t != null)
+            t.cancel(false);
+    }
+}
@@ -1,19 +1,32 @@
 package com.rfelements.workers;
 
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.netxms.bridge.LogLevel;
 import org.netxms.bridge.Platform;
 import com.rfelements.DeviceType;
+import com.rfelements.Logger;
+import com.rfelements.config.Settings;
 import com.rfelements.model.DeviceCredentials;
+import com.rfelements.rest.Rest;
 
 /**
+ * Workers provider. All device workers share one bounded scheduled executor; first update of each device is delayed by
+ * random time within update period, so requests to devices are spread evenly instead of being sent in bursts.
+ *
  * @author Pichanič Ján
  */
 public class WorkersProviderImpl implements WorkersProvider {
 
+    private static final Logger log = Logger.getInstance(WorkersProviderImpl.class);
+
     private static final int DEBUG_LEVEL = 7;
 
-    public static WorkersProvider getInstance() {
+    public static synchronized WorkersProvider getInstance() {
         if (instance == null)
             instance = new WorkersProviderImpl();
         return instance;
@@ -21,41 +34,63 @@ public static WorkersProvider getInstance() {
 
     private static WorkersProvider instance;
 
-    private HashMap<DeviceType, HashMap<String, SingleWorker>> workers;
+    private final ConcurrentHashMap<DeviceType, ConcurrentHashMap<String, SingleWorker>> workers;
+
+    private ScheduledThreadPoolExecutor scheduler;
 
     private WorkersProviderImpl() {
         Platform.writeLog(LogLevel.INFO,
                 Thread.currentThread().getName() + " [" + this.getClass().getName() + "] Workers provider initialized !");
-        this.workers = new HashMap<>();
+        this.workers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get shared scheduler, creating it if needed.
+     */
+    private synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            final AtomicInteger threadNumber = new AtomicInteger(1);
+            scheduler = new ScheduledThreadPoolExecutor(Math.max(Settings.WORKER_THREADS, 1), r -> {
+                Thread t = new Thread(r, "ubntlw-worker-" + threadNumber.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+            log.i("Scheduler started with " + scheduler.getCorePoolSize() + " threads");
+        }
+        return scheduler;
     }
 
     @Override
     public void startNewWorker(DeviceCredentials deviceCredentials, DeviceType type) {
-        if (!workers.containsKey(type)) {
-            SingleWorker worker = new SingleWorker(deviceCredentials, type);
-            Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() +
-                    " [" + this.getClass().getName() + "] Single worker created ! EntryPoint : " + type.toString() + "  URL : " + deviceCredentials.getUrl());
-            HashMap<String, SingleWorker> hashMap = new HashMap<>();
-            hashMap.put(deviceCredentials.getIp(), worker);
-            workers.put(type, hashMap);
-            worker.start();
-        } else {
-            HashMap<String, SingleWorker> list = workers.get(type);
-            if (!list.containsKey(deviceCredentials.getIp())) {
-                SingleWorker worker = new SingleWorker(deviceCredentials, type);
-                Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() +
-                        " [" + this.getClass().getName() + "] Single worker created ! EntryPoint : " + type.toString() + "  URL : " + deviceCredentials.getUrl());
-                list.put(deviceCredentials.getIp(), worker);
-                worker.start();
+        Map<String, SingleWorker> list = workers.get(type);
+        if (list != null && list.containsKey(deviceCredentials.getIp()))
+            return;
+
+        synchronized (this) {
+            list = workers.computeIfAbsent(type, k -> new ConcurrentHashMap<>());
+            SingleWorker worker = new SingleWorker(deviceCredentials, type, getScheduler());
+            if (list.putIfAbsent(deviceCredentials.getIp(), worker) == null) {
+                long delay = ThreadLocalRandom.current().nextLong(Math.max(Settings.UPDATE_PERIOD, 1));
+                log.d(DEBUG_LEVEL, "Worker created for %s %s, first update in %d ms", type, deviceCredentials.getUrl(), delay);
+                worker.start(delay);
             }
         }
     }
 
     @Override
-    public void stopDeviceTypeWorkers(DeviceType type) {
-        HashMap<String, SingleWorker> hashMap = workers.get(type);
-        for (String worker : hashMap.keySet()) {
-            hashMap.get(worker).stop();
+    public synchronized void stopDeviceTypeWorkers(DeviceType type) {
+        Map<String, SingleWorker> list = workers.remove(type);
+        if (list != null) {
+            for (SingleWorker worker : list.values())
+                worker.stop();
+        }
+
+        if (workers.isEmpty() && scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            Rest.shutdown();
+            log.i("All workers stopped");
         }
     }
 }
@@ -24,12 +24,12 @@
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.Writer;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
 import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -64,12 +64,13 @@
 import org.netxms.base.GeoLocation;
 import org.netxms.base.InetAddressEx;
 import org.netxms.base.MacAddress;
+import org.netxms.base.NXCPChannelReceiver;
 import org.netxms.base.NXCPCodes;
 import org.netxms.base.NXCPDataInputStream;
 import org.netxms.base.NXCPException;
 import org.netxms.base.NXCPMessage;
-import org.netxms.base.NXCPMessageReceiver;
 import org.netxms.base.NXCPMsgWaitQueue;
+import org.netxms.base.NXCPSocketWriter;
 import org.netxms.base.VersionInfo;
 import org.netxms.client.agent.config.AgentConfiguration;
 import org.netxms.client.agent.config.AgentConfigurationHandle;
@@ -181,6 +182,7 @@
 import org.netxms.client.objects.configs.PassiveRackElement;
 import org.netxms.client.objects.interfaces.NodeItemPair;
 import org.netxms.client.objects.queries.ObjectQuery;
+import org.netxms.client.objects.queries.ObjectQueryFilter;
 import org.netxms.client.objects.queries.ObjectQueryResult;
 import org.netxms.client.objecttools.ObjectContextBase;
 import org.netxms.client.objecttools.ObjectTool;
@@ -283,6 +285,7 @@
    private static final int MAX_DCI_DATA_ROWS = 200000;
    private static final int RECEIVED_FILE_TTL = 300000; // 300 seconds
    private static final int FILE_BUFFER_SIZE = 32768; // 32KB
+   private static final int QUERY_FULL_SYNC_THRESHOLD = 1000; // object query result size that triggers full object synchronization
 
    // Logger
    private static Logger logger = LoggerFactory.getLogger(NXCSession.class);
@@ -498,25 +501,15 @@ public void run()
       {
          logger.debug("Network receiver thread started");
 
-         final NXCPMessageReceiver receiver = new NXCPMessageReceiver(defaultRecvBufferSize, maxRecvBufferSize);
-         InputStream in;
-
-         try
-         {
-            in = socket.getInputStream();
-         }
-         catch(IOException e)
-         {
-            logger.debug("Cannot get socket input stream", e);
-            return; // Stop receiver thread if input stream cannot be obtained
-         }
+         final NXCPChannelReceiver receiver = new NXCPChannelReceiver(defaultRecvBufferSize, maxRecvBufferSize);
+         final Socket socket = NXCSession.this.socket;
 
          int errorCount = 0;
          while(socket.isConnected())
          {
             try
             {
-               NXCPMessage msg = receiver.receiveMessage(in, encryptionContext);
+               NXCPMessage msg = receiver.receiveMessage(socket, encryptionContext);
                errorCount = 0;
                switch(msg.getMessageCode())
                {
@@ -1843,7 +1836,6 @@ public synchronized void sendMessage(final NXCPMessage msg) throws IOException,
       {
          throw new IllegalStateException("Session is not connected");
       }
-      final OutputStream outputStream = socket.getOutputStream();
       byte[] message;
       if ((encryptionContext != null) && !msg.isEncryptionDisabled())
       {
@@ -1860,7 +1852,7 @@ public synchronized void sendMessage(final NXCPMessage msg) throws IOException,
       {
          message = msg.createNXCPMessage(allowCompression);
       }
-      outputStream.write(message);
+      NXCPSocketWriter.write(socket, message);
    }
 
    /**
@@ -2252,7 +2244,7 @@ public void connect(int[] componentVersions) throws IOException, UnknownHostExce
       logger.info("Connecting to " + connAddress + ":" + connPort);
       try
       {
-         socket = new Socket();
+         socket = SocketChannel.open().socket();
          socket.connect(new InetSocketAddress(connAddress, connPort), connectTimeout);
          msgWaitQueue = new NXCPMsgWaitQueue(commandTimeout);
          recvThread = new ReceiverThread();
@@ -2833,7 +2825,7 @@ private void reconnect()
             allowCompression = false;
 
             logger.debug("Connecting to " + connAddress + ":" + connPort);
-            socket = new Socket();
+            socket = SocketChannel.open().socket();
             socket.connect(new InetSocketAddress(connAddress, connPort), connectTimeout);
 
             recvThread = new ReceiverThread();
@@ -3496,6 +3488,75 @@ public void syncObjects(boolean syncNodeComponents) throws IOException, NXCExcep
       subscribe(CHANNEL_OBJECTS);
    }
 
+   /**
+    * Synchronizes NetXMS objects using shared object cache as source of object data. Only list of identifiers of objects
+    * accessible by this session's user is read from server; object data is taken from cache and only objects missing in
+    * cache are requested from server. After successful sync, subscribe client to object change notifications.
+    *
+    * @param cache shared object cache
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public void syncObjects(SharedObjectCache cache) throws IOException, NXCException
+   {
+      syncObjects(cache, true);
+   }
+
+   /**
+    * Synchronizes NetXMS objects using shared object cache as source of object data. Only list of identifiers of objects
+    * accessible by this session's user is read from server; object data is taken from cache and only objects missing in
+    * cache are requested from server. After successful sync, subscribe client to object change notifications.
+    *
+    * @param cache shared object cache
+    * @param syncNodeComponents defines if node components should be synced
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public void syncObjects(SharedObjectCache cache, boolean syncNodeComponents) throws IOException, NXCException
+   {
+      syncObjectCategories();
+
+      // Subscribe and enable object update notifications first, so that updates received from now on take precedence over cached objects
+      subscribe(CHANNEL_OBJECTS);
+      syncObjectSet(new long[0], OBJECT_SYNC_WAIT);
+
+      NXCPMessage msg = newMessage(NXCPCodes.CMD_QUERY_OBJECTS);
+      // Same filter as server applies on full synchronization without node components
+      msg.setField(NXCPCodes.VID_QUERY, syncNodeComponents ? "return true;" : "return ($object.type != INTERFACE) && ($object.type != VPNCONNECTOR) && ($object.type != NETWORKSERVICE);");
+      msg.setFieldUInt32(NXCPCodes.VID_ROOT, 0);
+      sendMessage(msg);
+      long[] accessibleObjects = waitForRCC(msg.getMessageId()).getFieldAsUInt32Array(NXCPCodes.VID_OBJECT_LIST);
+
+      AbstractObject[] sharedObjects = cache.getObjects(accessibleObjects);
+      List<Long> missingObjects = new ArrayList<Long>();
+      synchronized(objectList)
+      {
+         for(int i = 0; i < accessibleObjects.length; i++)
+         {
+            if (objectList.containsKey(accessibleObjects[i]))
+               continue;   // already updated from server
+            AbstractObject object = (sharedObjects[i] != null) ? sharedObjects[i].copyForSession(this) : null;
+            if (object == null)
+            {
+               missingObjects.add(accessibleObjects[i]);
+               continue;
+            }
+            objectList.put(object.getObjectId(), object);
+            objectListGUID.put(object.getGuid(), object);
+            if (object instanceof Zone)
+               zoneList.put(((Zone)object).getUIN(), (Zone)object);
+         }
+      }
+      logger.debug("Object synchronization from shared cache: " + (accessibleObjects.length - missingObjects.size()) + " objects copied, " +
+            missingObjects.size() + " objects requested from server");
+
+      if (!missingObjects.isEmpty())
+         syncObjectSet(missingObjects, 0, OBJECT_SYNC_WAIT);
+
+      objectsSynchronized = objectsSynchronized || syncNodeComponents;
+      sendNotification(new SessionNotification(SessionNotification.OBJECT_SYNC_COMPLETED));
+   }
+
    /**
     * Synchronizes selected object set with the server.
     *
@@ -4305,6 +4366,80 @@ public List<AbstractObject> queryObjects(String query, Consumer<Integer> progres
       return queryObjects(query, 0L, progressCallback);
    }
 
+   /**
+    * Query objects matching given filter on server side. Filter is evaluated by server, and only matching objects are retrieved,
+    * so full object synchronization is not required. If objects are not synchronized, matching objects are always re-read from
+    * server (because server does not send updates for them until full synchronization is done); otherwise only objects missing
+    * in local cache are requested. If filter is empty or matches large number of objects, full object synchronization is done
+    * instead (only once), so repeated calls do not transfer same objects again.
+    *
+    * @param filter object filter
+    * @return list of matching objects
+    * @throws IOException if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public List<AbstractObject> queryObjects(ObjectQueryFilter filter) throws IOException, NXCException
+   {
+      NXCPMessage request = newMessage(NXCPCodes.CMD_QUERY_OBJECTS);
+      request.setField(NXCPCodes.VID_QUERY, filter.createQuery());
+      request.setFieldUInt32(NXCPCodes.VID_ROOT, filter.getRootObjectId());
+      sendMessage(request);
+
+      NXCPMessage response = waitForRCC(request.getMessageId());
+      long[] objects = response.getFieldAsUInt32Array(NXCPCodes.VID_OBJECT_LIST);
+      if ((objects == null) || (objects.length == 0))
+         return new ArrayList<AbstractObject>(0);
+
+      if (!objectsSynchronized && (filter.isEmpty() || (objects.length > QUERY_FULL_SYNC_THRESHOLD)))
+         syncObjects();
+
+      if (objectsSynchronized)
+         syncMissingObjects(objects, OBJECT_SYNC_WAIT);
+      else
+         syncObjectSet(objects, OBJECT_SYNC_WAIT);
+      return findMultipleObjects(objects, false);
+   }
+
+   /**
+    * Query objects matching given filter on server side and read only requested object properties. Objects themselves are not
+    * retrieved from server, so <code>getObject()</code> of returned results will only return object if it is already present in
+    * local cache. Available properties are the same as in corresponding NXSL objects.
+    *
+    * @param filter object filter
+    * @param properties object properties to read
+    * @param orderBy list of properties for ordering result set (can be null)
+    * @param limit limit number of records (0 for unlimited)
+    * @return list of query results
+    * @throws IOException if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public List<ObjectQueryResult> queryObjects(ObjectQueryFilter filter, List<String> properties, List<String> orderBy, int limit) throws IOException, NXCException
+   {
+      NXCPMessage request = newMessage(NXCPCodes.CMD_QUERY_OBJECT_DETAILS);
+      request.setField(NXCPCodes.VID_QUERY, filter.createQuery());
+      request.setFieldUInt32(NXCPCodes.VID_ROOT, filter.getRootObjectId());
+      request.setFieldsFromStringCollection(properties, NXCPCodes.VID_FIELD_LIST_BASE, NXCPCodes.VID_FIELDS);
+      if (orderBy != null)
+         request.setFieldsFromStringCollection(orderBy, NXCPCodes.VID_ORDER_FIELD_LIST_BASE, NXCPCodes.VID_ORDER_FIELDS);
+      request.setFieldInt32(NXCPCodes.VID_RECORD_LIMIT, limit);
+      sendMessage(request);
+
+      NXCPMessage response = waitForRCC(request.getMessageId());
+      long[] objects = response.getFieldAsUInt32Array(NXCPCodes.VID_OBJECT_LIST);
+      if (objects == null)
+         return new ArrayList<ObjectQueryResult>(0);
+
+      List<ObjectQueryResult> results = new ArrayList<ObjectQueryResult>(objects.length);
+      long fieldId = NXCPCodes.VID_ELEMENT_LIST_BASE;
+      for(int i = 0; i < objects.length; i++)
+      {
+         Map<String, String> values = response.getStringMapFromFields(fieldId + 1, fieldId);
+         results.add(new ObjectQueryResult(objects[i], findObjectById(objects[i]), values));
+         fieldId += values.size() * 2 + 1;
+      }
+      return results;
+   }
+
    /**
     * Query objects on server side and read certain object properties. Available properties are the same as in corresponding NXSL
     * objects or computed properties set using "with" statement in query. If <code>readAllComputedProperties</code> is set to
@@ -5619,6 +5754,36 @@ public DciValue[] getLastValues(List<SingleDciConfig> dciConfig) throws IOExcept
       return doLastValuesRequest(msg);
    }
 
+   /**
+    * Get last DCI values for given Single Dci Config list using delegated read access via given object (usually dashboard).
+    * All values are retrieved with single request. DCIs not accessible to the user are silently omitted from result.
+    *
+    * @param dciConfig List with Single Dci Configs
+    * @param delegateObjectId ID of object used for delegated read access check (0 if not used)
+    * @return List of DCI values
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public DciValue[] getLastValues(List<SingleDciConfig> dciConfig, long delegateObjectId) throws IOException, NXCException
+   {
+      final NXCPMessage msg = newMessage(NXCPCodes.CMD_GET_DCI_VALUES);
+      long base = NXCPCodes.VID_DCI_VALUES_BASE;
+      msg.setFieldInt32(NXCPCodes.VID_NUM_ITEMS, dciConfig.size());
+      for(SingleDciConfig c : dciConfig)
+      {
+         msg.setFieldUInt32(base, c.nodeId);
+         msg.setFieldUInt32(base + 1, c.dciId);
+         msg.setFieldUInt32(base + 2, delegateObjectId);
+         if (c.getType() == SingleDciConfig.TABLE)
+         {
+            msg.setField(base + 3, c.getColumn());
+            msg.setField(base + 4, c.getInstance());
+         }
+         base += 10;
+      }
+      return doLastValuesRequest(msg);
+   }
+
    /**
     * Send request for last values using prepared message
     *
@@ -12486,9 +12651,26 @@ public UUID executeReport(ReportingJobConfiguration jobConfiguration) throws NXC
     * @throws NXCException if NetXMS server returns an error or operation was timed out
     */
    public List<ReportResult> getReportResults(UUID reportId) throws NXCException, IOException
+   {
+      return getReportResults(reportId, 0, 0);
+   }
+
+   /**
+    * List report results, newest first.
+    *
+    * @param reportId The report UUID
+    * @param offset number of results to skip
+    * @param limit maximum number of results to return (0 for unlimited)
+    * @return List of ReportResult objects
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public List<ReportResult> getReportResults(UUID reportId, int offset, int limit) throws NXCException, IOException
    {
       final NXCPMessage msg = newMessage(NXCPCodes.CMD_RS_LIST_RESULTS);
       msg.setField(NXCPCodes.VID_REPORT_DEFINITION, reportId);
+      msg.setFieldInt32(NXCPCodes.VID_START_ROW, offset);
+      msg.setFieldInt32(NXCPCodes.VID_MAX_RECORDS, limit);
       sendMessage(msg);
       NXCPMessage response = waitForRCC(msg.getMessageId());
 
@@ -0,0 +1,77 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Victor Kirhenshtein
+ * <p>
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import org.netxms.client.objects.AbstractObject;
+
+/**
+ * Object cache which can be shared between multiple client sessions connected to same server. Cache is maintained by single
+ * session (usually logged in as privileged user) with fully synchronized objects. Other sessions use it as source of object
+ * data during synchronization (see {@link NXCSession#syncObjects(SharedObjectCache)}) instead of reading all objects from
+ * server. Each session still gets only objects it has access to. Only objects without user specific content are shared; data
+ * collection targets (which carry DCI data filtered by user's access) are always read from server, and alarms are not cached.
+ */
+public class SharedObjectCache
+{
+   private final NXCSession session;
+
+   /**
+    * Create shared object cache backed by given session. Session should be connected and have objects synchronized.
+    *
+    * @param session session maintaining cached objects
+    */
+   public SharedObjectCache(NXCSession session)
+   {
+      this.session = session;
+   }
+
+   /**
+    * Get session maintaining cached objects.
+    *
+    * @return session maintaining cached objects
+    */
+   public NXCSession getSession()
+   {
+      return session;
+   }
+
+   /**
+    * Check if cache is usable (underlying session is connected and has objects synchronized).
+    *
+    * @return true if cache is usable
+    */
+   public boolean isValid()
+   {
+      return session.isConnected() && session.areObjectsSynchronized();
+   }
+
+   /**
+    * Get objects with given identifiers from cache.
+    *
+    * @param idList object identifiers
+    * @return array of the same size as input list, with null elements for objects not found in cache
+    */
+   AbstractObject[] getObjects(long[] idList)
+   {
+      AbstractObject[] objects = new AbstractObject[idList.length];
+      for(int i = 0; i < idList.length; i++)
+         objects[i] = session.findObjectById(idList[i]);
+      return objects;
+   }
+}
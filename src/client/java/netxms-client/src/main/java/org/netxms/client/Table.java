@@ -19,23 +19,29 @@
 package org.netxms.client;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.netxms.base.NXCPCodes;
 import org.netxms.base.NXCPMessage;
 import org.netxms.client.constants.DataOrigin;
 import org.netxms.client.constants.DataType;
 
 /**
- * Generic class for holding data in tabular format. Table has named columns. All data stored as strings.
+ * Generic class for holding data in tabular format. Table has named columns. Data is stored column by column (see
+ * TableColumnData), row and cell objects returned by this class are lightweight views into table data.
  */
 public class Table
 {
    private DataOrigin source;
 	private String title;
 	private List<TableColumnDefinition> columns;
-	private List<TableRow> data;
+   private List<TableColumnData> columnData;
+   private int rowCount;
+   private long[] rowObjectIds;
+   private int[] baseRows;
+   private AtomicInteger dataReferences; // number of tables sharing column data with this table, null if data is not shared
 	private boolean extendedFormat;
 
 	/**
@@ -46,7 +52,9 @@ public Table()
 		title = "untitled";
       source = DataOrigin.AGENT;
 		columns = new ArrayList<TableColumnDefinition>(0);
-		data = new ArrayList<TableRow>(0);
+      columnData = new ArrayList<TableColumnData>(0);
+      rowCount = 0;
+      dataReferences = null;
 		extendedFormat = false;
 	}
 
@@ -59,44 +67,23 @@ public Table(final NXCPMessage msg)
 	{
 		title = msg.getFieldAsString(NXCPCodes.VID_TABLE_TITLE);
       source = DataOrigin.getByValue(msg.getFieldAsInt32(NXCPCodes.VID_DCI_SOURCE_TYPE));
-		
+
 		final int columnCount = msg.getFieldAsInt32(NXCPCodes.VID_TABLE_NUM_COLS);
+		final int totalRowCount = msg.getFieldAsInt32(NXCPCodes.VID_TABLE_NUM_ROWS);
 		columns = new ArrayList<TableColumnDefinition>(columnCount);
+      columnData = new ArrayList<TableColumnData>(columnCount);
 		long varId = NXCPCodes.VID_TABLE_COLUMN_INFO_BASE;
 		for(int i = 0; i < columnCount; i++, varId += 10L)
 		{
-			columns.add(new TableColumnDefinition(msg, varId));
+         TableColumnDefinition c = new TableColumnDefinition(msg, varId);
+			columns.add(c);
+         columnData.add(new TableColumnData(c.getDataType(), totalRowCount));
 		}
 
-		final int totalRowCount = msg.getFieldAsInt32(NXCPCodes.VID_TABLE_NUM_ROWS);
-		data = new ArrayList<TableRow>(totalRowCount);
-
+      rowCount = 0;
+      dataReferences = null;
 		extendedFormat = msg.getFieldAsBoolean(NXCPCodes.VID_TABLE_EXTENDED_FORMAT);
-		final int rowCount = msg.getFieldAsInt32(NXCPCodes.VID_NUM_ROWS);
-		varId = NXCPCodes.VID_TABLE_DATA_BASE;
-		for(int i = 0; i < rowCount; i++)
-		{
-			final TableRow row = new TableRow(columnCount);
-			if (extendedFormat)
-			{
-			   row.setObjectId(msg.getFieldAsInt64(varId++));
-            if (msg.isFieldPresent(varId))
-               row.setBaseRow(msg.getFieldAsInt32(varId));
-			   varId += 9;
-			}
-			for(int j = 0; j < columnCount; j++)
-			{
-            row.get(j).setValue(msg.getFieldAsString(varId++));
-			   if (extendedFormat)
-			   {
-			      int status = msg.getFieldAsInt32(varId++);
-	            row.get(j).setStatus((status == 65535) ? -1 : status);
-	            row.get(j).setObjectId(msg.getFieldAsInt64(varId++));
-	            varId += 7;
-			   }
-			}
-			data.add(row);
-		}
+      readRows(msg);
 	}
 
 	/**
@@ -105,32 +92,110 @@ public Table(final NXCPMessage msg)
 	 */
 	public void addDataFromMessage(final NXCPMessage msg)
 	{
-		final int rowCount = msg.getFieldAsInt32(NXCPCodes.VID_NUM_ROWS);
+      detachSharedData();
+      readRows(msg);
+	}
+
+   /**
+    * Read rows from NXCP message directly into column storage.
+    *
+    * @param msg NXCP message
+    */
+   private void readRows(final NXCPMessage msg)
+   {
+      final int count = msg.getFieldAsInt32(NXCPCodes.VID_NUM_ROWS);
+      final int columnCount = columns.size();
+      ensureCapacity(rowCount + count);
 		long varId = NXCPCodes.VID_TABLE_DATA_BASE;
-		for(int i = 0; i < rowCount; i++)
+		for(int i = 0; i < count; i++)
 		{
-			final TableRow row = new TableRow(columns.size());
+         long objectId = 0;
+         int baseRow = -1;
          if (extendedFormat)
          {
-            row.setObjectId(msg.getFieldAsInt64(varId++));
+            objectId = msg.getFieldAsInt64(varId++);
             if (msg.isFieldPresent(varId))
-               row.setBaseRow(msg.getFieldAsInt32(varId));
+               baseRow = msg.getFieldAsInt32(varId);
             varId += 9;
          }
-         for(int j = 0; j < columns.size(); j++)
+         for(int j = 0; j < columnCount; j++)
          {
-             row.get(j).setValue(msg.getFieldAsString(varId++));
-             if (extendedFormat)
-             {
-                int status = msg.getFieldAsInt32(varId++);
-                row.get(j).setStatus((status == 65535) ? -1 : status);
-                row.get(j).setObjectId(msg.getFieldAsInt64(varId++));
-                varId += 7;
-             }
+            String value = msg.getFieldAsString(varId++);
+            if (extendedFormat)
+            {
+               int status = msg.getFieldAsInt32(varId++);
+               columnData.get(j).add(value, (status == 65535) ? -1 : status, msg.getFieldAsInt64(varId++));
+               varId += 7;
+            }
+            else
+            {
+               columnData.get(j).add(value);
+            }
          }
-			data.add(row);
+         appendRow(objectId, baseRow);
 		}
-	}
+   }
+
+   /**
+    * Ensure that row-level storage can hold given number of rows.
+    *
+    * @param required required number of rows
+    */
+   private void ensureCapacity(int required)
+   {
+      for(TableColumnData d : columnData)
+         d.ensureCapacity(required);
+      if ((rowObjectIds != null) && (rowObjectIds.length < required))
+         rowObjectIds = Arrays.copyOf(rowObjectIds, Math.max(required, rowObjectIds.length + (rowObjectIds.length >> 1)));
+      if ((baseRows != null) && (baseRows.length < required))
+      {
+         int oldLength = baseRows.length;
+         baseRows = Arrays.copyOf(baseRows, Math.max(required, oldLength + (oldLength >> 1)));
+         Arrays.fill(baseRows, oldLength, baseRows.length, -1);
+      }
+   }
+
+   /**
+    * Register new row after values for all columns were added.
+    *
+    * @param objectId row object ID
+    * @param baseRow base row index
+    */
+   private void appendRow(long objectId, int baseRow)
+   {
+      rowCount++;
+      setRowObjectId(rowCount - 1, objectId);
+      setRowBaseRow(rowCount - 1, baseRow);
+   }
+
+   /**
+    * Make private copy of data shared with another table (see getFirstRows()) before modifying it. Copy is not made if all
+    * other tables sharing the data have already detached from it.
+    */
+   private void detachSharedData()
+   {
+      if (dataReferences == null)
+         return;
+
+      if (dataReferences.decrementAndGet() == 0)
+      {
+         // Data is not shared anymore, only drop rows that belonged to other tables
+         for(TableColumnData d : columnData)
+            d.truncate(rowCount);
+         dataReferences = null;
+         return;
+      }
+
+      List<TableColumnData> copy = new ArrayList<TableColumnData>(columnData.size());
+      for(TableColumnData d : columnData)
+         copy.add(new TableColumnData(d, rowCount));
+      columnData = copy;
+      if (rowObjectIds != null)
+         rowObjectIds = Arrays.copyOf(rowObjectIds, Math.max(rowCount, 4));
+      if (baseRows != null)
+         baseRows = Arrays.copyOf(baseRows, Math.max(rowCount, 4));
+      dataReferences = null;
+   }
 
 	/**
 	 * Fill NXCP message with table's data
@@ -150,22 +215,59 @@ public void fillMessage(final NXCPMessage msg)
 			varId += 10;
 		}
 		
-		msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_ROWS, data.size());
+		msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_ROWS, rowCount);
 		varId = NXCPCodes.VID_TABLE_DATA_BASE;
-		for(int i = 0; i < data.size(); i++)
+		for(int i = 0; i < rowCount; i++)
 		{
-			varId = data.get(i).fillMessage(msg, varId, extendedFormat);
+         if (extendedFormat)
+         {
+            msg.setFieldInt32(varId++, (int)getRowObjectId(i));
+            msg.setFieldInt32(varId++, getRowBaseRow(i));
+            varId += 8;
+         }
+         for(TableColumnData d : columnData)
+         {
+            msg.setField(varId++, d.get(i));
+            if (extendedFormat)
+            {
+               msg.setFieldInt16(varId++, d.getStatus(i));
+               msg.setFieldInt32(varId++, (int)d.getObjectId(i));
+               varId += 7;
+            }
+         }
 		}
 	}
 	
 	/**
-	 * Sort table rows using provided comparator
+    * Sort table rows using provided comparator. Rows are physically reordered, so row objects obtained before sorting will refer
+    * to rows at same positions after sorting.
 	 * 
 	 * @param comparator comparator for table rows
 	 */
 	public void sort(Comparator<TableRow> comparator)
 	{
-	   Collections.sort(data, comparator);
+      detachSharedData();
+      TableRow[] rows = getAllRows();
+      Arrays.sort(rows, comparator);
+      int[] order = new int[rowCount];
+      for(int i = 0; i < rowCount; i++)
+         order[i] = rows[i].getIndex();
+      for(TableColumnData d : columnData)
+         d.reorder(order);
+      if (rowObjectIds != null)
+      {
+         long[] newObjectIds = Arrays.copyOf(rowObjectIds, rowObjectIds.length);
+         for(int i = 0; i < rowCount; i++)
+            newObjectIds[i] = rowObjectIds[order[i]];
+         rowObjectIds = newObjectIds;
+      }
+      if (baseRows != null)
+      {
+         int[] newBaseRows = Arrays.copyOf(baseRows, baseRows.length);
+         for(int i = 0; i < rowCount; i++)
+            newBaseRows[i] = baseRows[order[i]];
+         baseRows = newBaseRows;
+      }
 	}
 
 	/**
@@ -185,7 +287,7 @@ public int getColumnCount()
 	 */
 	public int getRowCount()
 	{
-		return data.size();
+		return rowCount;
 	}
 
 	/**
@@ -259,7 +361,8 @@ public TableColumnDefinition[] getColumns()
 	 */
 	public String getCellValue(final int row, final int column) throws IndexOutOfBoundsException
 	{
-		return data.get(row).get(column).getValue();
+      checkRowIndex(row);
+		return columnData.get(column).get(row);
 	}
 
    /**
@@ -272,7 +375,10 @@ public String getCellValue(final int row, final int column) throws IndexOutOfBou
     */
    public TableCell getCell(final int row, final int column) throws IndexOutOfBoundsException
    {
-      return data.get(row).get(column);
+      checkRowIndex(row);
+      if ((column < 0) || (column >= columns.size()))
+         throw new IndexOutOfBoundsException("Column index " + column + " out of range");
+      return new TableCell(this, row, column);
    }
 	
 	/**
@@ -284,7 +390,8 @@ public TableCell getCell(final int row, final int column) throws IndexOutOfBound
 	 */
 	public TableRow getRow(final int row) throws IndexOutOfBoundsException
 	{
-		return data.get(row);
+      checkRowIndex(row);
+		return new TableRow(this, row);
 	}
 	
 	/**
@@ -294,7 +401,10 @@ public TableRow getRow(final int row) throws IndexOutOfBoundsException
 	 */
 	public TableRow[] getAllRows()
 	{
-	   return data.toArray(new TableRow[data.size()]);
+      TableRow[] rows = new TableRow[rowCount];
+      for(int i = 0; i < rowCount; i++)
+         rows[i] = new TableRow(this, i);
+      return rows;
 	}
 
 	/**
@@ -322,7 +432,7 @@ public String toString()
 		final StringBuilder sb = new StringBuilder();
 		sb.append("Table");
 		sb.append("{columns=").append(columns);
-		sb.append(", data=").append(data);
+		sb.append(", data=").append(Arrays.asList(getAllRows()));
 		sb.append('}');
 		return sb.toString();
 	}
@@ -334,8 +444,17 @@ public String toString()
 	 */
 	public void addAll(Table src)
 	{
-	   for(TableRow r : src.data)
-	      data.add(new TableRow(r));
+      detachSharedData();
+      ensureCapacity(rowCount + src.rowCount);
+      for(int i = 0; i < src.rowCount; i++)
+      {
+         for(int j = 0; j < columnData.size(); j++)
+         {
+            TableColumnData d = src.columnData.get(j);
+            columnData.get(j).add(d.get(i), d.getStatus(i), d.getObjectId(i));
+         }
+         appendRow(src.getRowObjectId(i), src.getRowBaseRow(i));
+      }
 	}
 
 	/**
@@ -343,7 +462,11 @@ public void addAll(Table src)
 	 */
 	public void addRow()
 	{
-		data.add(new TableRow(columns.size()));
+      detachSharedData();
+      ensureCapacity(rowCount + 1);
+      for(TableColumnData d : columnData)
+         d.add("");
+      appendRow(0, -1);
 	}
 	
 	/**
@@ -355,8 +478,8 @@ public void addRow()
 	 */
 	public void setCell(int row, int col, String value)
 	{
-		if ((row >= 0) && (row < data.size()) && (col >= 0) && (col < columns.size()))
-			data.get(row).get(col).setValue(value);
+		if ((row >= 0) && (row < rowCount) && (col >= 0) && (col < columns.size()))
+         getColumnDataForUpdate(col).set(row, value);
 	}
 
 	/**
@@ -422,8 +545,8 @@ public void setExtendedFormat(boolean extendedFormat)
    }
    
    /**
-    * Get first N rows from table. New table is backed by data from original table, so any changes 
-    * to rows or column definitions will affect original table as well.
+    * Get first N rows from table. New table shares column data with original table until either of them is modified; table
+    * being modified makes private copy of shared data first, so changes in one table never affect the other.
     * 
     * @param count number of rows to retrieve
     * @return new table containing only requested rows 
@@ -435,11 +558,132 @@ public Table getFirstRows(int count)
       t.source = source;
       t.extendedFormat = extendedFormat;
       t.columns = new ArrayList<TableColumnDefinition>(columns);
+      t.columnData = new ArrayList<TableColumnData>(columnData);
+      t.rowCount = Math.min(count, rowCount);
+      t.rowObjectIds = rowObjectIds;
+      t.baseRows = baseRows;
+      if (dataReferences == null)
+         dataReferences = new AtomicInteger(1);
+      dataReferences.incrementAndGet();
+      t.dataReferences = dataReferences;
+      return t;
+   }
 
-      t.data = new ArrayList<TableRow>(count);
-      int realCount = Math.min(count, data.size());
-      for(int i = 0; i < realCount; i++)
-         t.data.add(data.get(i));
-      return t;      
+   /**
+    * Check row index.
+    *
+    * @param row row index
+    * @throws IndexOutOfBoundsException if row index is out of range
+    */
+   private void checkRowIndex(int row) throws IndexOutOfBoundsException
+   {
+      if ((row < 0) || (row >= rowCount))
+         throw new IndexOutOfBoundsException("Row index " + row + " out of range");
+   }
+
+   /**
+    * Get storage for given column (used by row and cell views).
+    *
+    * @param column column index
+    * @return column storage
+    */
+   TableColumnData getColumnData(int column)
+   {
+      return columnData.get(column);
+   }
+
+   /**
+    * Get storage for given column for modification (makes private copy of shared data first).
+    *
+    * @param column column index
+    * @return column storage
+    */
+   TableColumnData getColumnDataForUpdate(int column)
+   {
+      detachSharedData();
+      return columnData.get(column);
+   }
+
+   /**
+    * Get object ID associated with given row.
+    *
+    * @param row row index
+    * @return object ID associated with given row
+    */
+   long getRowObjectId(int row)
+   {
+      checkRowIndex(row);
+      return (rowObjectIds != null) ? rowObjectIds[row] : 0;
+   }
+
+   /**
+    * Set object ID associated with given row.
+    *
+    * @param row row index
+    * @param objectId new object ID
+    */
+   void setRowObjectId(int row, long objectId)
+   {
+      checkRowIndex(row);
+      detachSharedData();
+      if (rowObjectIds == null)
+      {
+         if (objectId == 0)
+            return;
+         rowObjectIds = new long[rowArrayCapacity()];
+      }
+      else if (row >= rowObjectIds.length)
+      {
+         rowObjectIds = Arrays.copyOf(rowObjectIds, rowArrayCapacity());
+      }
+      rowObjectIds[row] = objectId;
+   }
+
+   /**
+    * Get base row index for given row.
+    *
+    * @param row row index
+    * @return base row index for given row
+    */
+   int getRowBaseRow(int row)
+   {
+      checkRowIndex(row);
+      return (baseRows != null) ? baseRows[row] : -1;
+   }
+
+   /**
+    * Set base row index for given row.
+    *
+    * @param row row index
+    * @param baseRow new base row index
+    */
+   void setRowBaseRow(int row, int baseRow)
+   {
+      checkRowIndex(row);
+      detachSharedData();
+      if (baseRows == null)
+      {
+         if (baseRow == -1)
+            return;
+         baseRows = new int[rowArrayCapacity()];
+         Arrays.fill(baseRows, -1);
+      }
+      else if (row >= baseRows.length)
+      {
+         int oldLength = baseRows.length;
+         baseRows = Arrays.copyOf(baseRows, rowArrayCapacity());
+         Arrays.fill(baseRows, oldLength, baseRows.length, -1);
+      }
+      baseRows[row] = baseRow;
+   }
+
+   /**
+    * Get capacity for newly allocated or grown row-level arrays.
+    *
+    * @return capacity for row-level arrays
+    */
+   private int rowArrayCapacity()
+   {
+      return Math.max(rowCount + (rowCount >> 1), 4);
    }
 }
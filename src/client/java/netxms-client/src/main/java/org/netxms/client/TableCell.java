@@ -19,14 +19,32 @@
 package org.netxms.client;
 
 /**
- * Table cell
+ * Table cell. Cell can be either standalone object holding its own data, or view into data of specific table (cells returned by
+ * Table and TableRow methods). Changes made to table cell view are applied directly to underlying table.
  */
 public class TableCell
 {
+   private Table table;
+   private int row;
+   private int column;
    private String value;
    private int status;
    private long objectId;
-   
+
+   /**
+    * Create view for given cell of given table.
+    *
+    * @param table table
+    * @param row row index
+    * @param column column index
+    */
+   TableCell(Table table, int row, int column)
+   {
+      this.table = table;
+      this.row = row;
+      this.column = column;
+   }
+
    /**
     * @param value The cell value
     */
@@ -53,9 +71,9 @@ public TableCell(String value, int status)
     */
    public TableCell(TableCell src)
    {
-      value = src.value;
-      status = src.status;
-      objectId = src.objectId;
+      value = src.getValue();
+      status = src.getStatus();
+      objectId = src.getObjectId();
    }
 
    /**
@@ -63,7 +81,7 @@ public TableCell(TableCell src)
     */
    public String getValue()
    {
-      return value;
+      return (table != null) ? table.getColumnData(column).get(row) : value;
    }
 
    /**
@@ -73,6 +91,8 @@ public String getValue()
     */
    public long getValueAsLong()
    {
+      if (table != null)
+         return table.getColumnData(column).getAsLong(row);
       try
       {
          return Long.parseLong(value);
@@ -92,7 +112,7 @@ public int getValueAsInteger()
    {
       try
       {
-         return Integer.parseInt(value);
+         return Integer.parseInt(getValue());
       }
       catch(NumberFormatException e)
       {
@@ -109,7 +129,7 @@ public double getValueAsDouble()
    {
       try
       {
-         return Double.parseDouble(value);
+         return Double.parseDouble(getValue());
       }
       catch(NumberFormatException e)
       {
@@ -122,7 +142,10 @@ public double getValueAsDouble()
     */
    public void setValue(String value)
    {
-      this.value = value;
+      if (table != null)
+         table.getColumnDataForUpdate(column).set(row, value);
+      else
+         this.value = value;
    }
 
    /**
@@ -130,7 +153,7 @@ public void setValue(String value)
     */
    public int getStatus()
    {
-      return status;
+      return (table != null) ? table.getColumnData(column).getStatus(row) : status;
    }
 
    /**
@@ -138,7 +161,10 @@ public int getStatus()
     */
    public void setStatus(int status)
    {
-      this.status = status;
+      if (table != null)
+         table.getColumnDataForUpdate(column).setStatus(row, status);
+      else
+         this.status = status;
    }
 
    /**
@@ -146,7 +172,7 @@ public void setStatus(int status)
     */
    public long getObjectId()
    {
-      return objectId;
+      return (table != null) ? table.getColumnData(column).getObjectId(row) : objectId;
    }
 
    /**
@@ -154,7 +180,10 @@ public long getObjectId()
     */
    public void setObjectId(long objectId)
    {
-      this.objectId = objectId;
+      if (table != null)
+         table.getColumnDataForUpdate(column).setObjectId(row, objectId);
+      else
+         this.objectId = objectId;
    }
 
    /* (non-Javadoc)
@@ -163,6 +192,6 @@ public void setObjectId(long objectId)
    @Override
    public String toString()
    {
-      return "TableCell [value=\"" + value + "\", status=" + status + ", objectId=" + objectId + "]";
+      return "TableCell [value=\"" + getValue() + "\", status=" + getStatus() + ", objectId=" + getObjectId() + "]";
    }
 }
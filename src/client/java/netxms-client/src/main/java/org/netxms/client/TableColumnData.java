@@ -0,0 +1,615 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.netxms.client.constants.DataType;
+
+/**
+ * Storage for values of single table column. Depending on column data type and actual values data is stored in one of three
+ * forms:
+ * <ul>
+ * <li>integer - values are kept in primitive array, values that cannot be represented as integer are kept separately;</li>
+ * <li>dictionary - each distinct value is stored once, cells hold index in dictionary;</li>
+ * <li>string - plain array of string references.</li>
+ * </ul>
+ * Storage switches to more generic form automatically when data does not fit current one. Per-cell status and object ID used by
+ * extended table format are only allocated when set to non-default value.
+ */
+final class TableColumnData
+{
+   private static final int MODE_INTEGER = 0;
+   private static final int MODE_DICTIONARY = 1;
+   private static final int MODE_STRING = 2;
+
+   private static final int MAX_DICTIONARY_SIZE = 1024;
+   private static final int MIN_IRREGULAR_COUNT = 64;
+
+   private int mode;
+   private boolean integerRejected;
+   private int size;
+   private long[] numbers;
+   private BitSet irregularMask;
+   private Map<Integer, String> irregularValues;
+   private int[] codes;
+   private List<String> dictionary;
+   private Map<String, Integer> dictionaryIndex;
+   private String[] strings;
+   private int[] status;
+   private long[] objectIds;
+
+   /**
+    * Create empty column storage.
+    *
+    * @param dataType column data type
+    * @param capacity initial capacity
+    */
+   TableColumnData(DataType dataType, int capacity)
+   {
+      size = 0;
+      capacity = Math.max(capacity, 4);
+      if (isIntegerType(dataType))
+      {
+         mode = MODE_INTEGER;
+         numbers = new long[capacity];
+         irregularMask = new BitSet();
+         irregularValues = new HashMap<Integer, String>();
+      }
+      else
+      {
+         mode = MODE_DICTIONARY;
+         codes = new int[capacity];
+         dictionary = new ArrayList<String>();
+         dictionaryIndex = new HashMap<String, Integer>();
+      }
+   }
+
+   /**
+    * Copy constructor.
+    *
+    * @param src source column
+    * @param count number of values to copy from source column
+    */
+   TableColumnData(TableColumnData src, int count)
+   {
+      mode = src.mode;
+      integerRejected = src.integerRejected;
+      size = count;
+      int capacity = Math.max(count, 4);
+      switch(mode)
+      {
+         case MODE_INTEGER:
+            numbers = Arrays.copyOf(src.numbers, capacity);
+            irregularMask = new BitSet();
+            irregularValues = new HashMap<Integer, String>();
+            for(int i = src.irregularMask.nextSetBit(0); (i >= 0) && (i < count); i = src.irregularMask.nextSetBit(i + 1))
+            {
+               irregularMask.set(i);
+               irregularValues.put(i, src.irregularValues.get(i));
+            }
+            break;
+         case MODE_DICTIONARY:
+            codes = Arrays.copyOf(src.codes, capacity);
+            dictionary = new ArrayList<String>(src.dictionary);
+            dictionaryIndex = new HashMap<String, Integer>(src.dictionaryIndex);
+            break;
+         default:
+            strings = Arrays.copyOf(src.strings, capacity);
+            break;
+      }
+      if (src.status != null)
+         status = Arrays.copyOf(src.status, capacity);
+      if (src.objectIds != null)
+         objectIds = Arrays.copyOf(src.objectIds, capacity);
+   }
+
+   /**
+    * Check if given data type is stored as integer.
+    *
+    * @param dataType data type
+    * @return true if given data type is stored as integer
+    */
+   private static boolean isIntegerType(DataType dataType)
+   {
+      return (dataType == DataType.INT32) || (dataType == DataType.UINT32) || (dataType == DataType.INT64) || (dataType == DataType.UINT64) ||
+            (dataType == DataType.COUNTER32) || (dataType == DataType.COUNTER64);
+   }
+
+   /**
+    * Get number of values in column.
+    *
+    * @return number of values in column
+    */
+   int size()
+   {
+      return size;
+   }
+
+   /**
+    * Discard all values starting from given row.
+    *
+    * @param count number of values to keep
+    */
+   void truncate(int count)
+   {
+      if ((count < 0) || (count >= size))
+         return;
+      if (strings != null)
+         Arrays.fill(strings, count, size, null);
+      if (irregularMask != null)
+      {
+         for(int i = irregularMask.nextSetBit(count); i >= 0; i = irregularMask.nextSetBit(i + 1))
+            irregularValues.remove(i);
+         irregularMask.clear(count, size);
+      }
+      if (status != null)
+         Arrays.fill(status, count, size, -1);
+      if (objectIds != null)
+         Arrays.fill(objectIds, count, size, 0);
+      size = count;
+   }
+
+   /**
+    * Append value to the end of column.
+    *
+    * @param value value to add
+    */
+   void add(String value)
+   {
+      ensureCapacity(size + 1);
+      size++;
+      set(size - 1, value);
+   }
+
+   /**
+    * Append value with status and object ID to the end of column.
+    *
+    * @param value value to add
+    * @param status cell status
+    * @param objectId cell object ID
+    */
+   void add(String value, int status, long objectId)
+   {
+      add(value);
+      setStatus(size - 1, status);
+      setObjectId(size - 1, objectId);
+   }
+
+   /**
+    * Get value at given position.
+    *
+    * @param row row index
+    * @return value at given position
+    */
+   String get(int row)
+   {
+      checkIndex(row);
+      switch(mode)
+      {
+         case MODE_INTEGER:
+            return irregularMask.get(row) ? irregularValues.get(row) : Long.toString(numbers[row]);
+         case MODE_DICTIONARY:
+            return (codes[row] >= 0) ? dictionary.get(codes[row]) : null;
+         default:
+            return strings[row];
+      }
+   }
+
+   /**
+    * Get value at given position as long integer. Avoids creating string object when column is stored in integer form.
+    *
+    * @param row row index
+    * @return value at given position as long integer or 0 if it cannot be interpreted as such
+    */
+   long getAsLong(int row)
+   {
+      checkIndex(row);
+      if ((mode == MODE_INTEGER) && !irregularMask.get(row))
+         return numbers[row];
+      try
+      {
+         return Long.parseLong(get(row));
+      }
+      catch(NumberFormatException e)
+      {
+         return 0;
+      }
+   }
+
+   /**
+    * Set value at given position.
+    *
+    * @param row row index
+    * @param value new value
+    */
+   void set(int row, String value)
+   {
+      checkIndex(row);
+      switch(mode)
+      {
+         case MODE_INTEGER:
+            setInteger(row, value);
+            break;
+         case MODE_DICTIONARY:
+            setDictionaryCode(row, value);
+            break;
+         default:
+            strings[row] = value;
+            break;
+      }
+   }
+
+   /**
+    * Set value in integer mode.
+    *
+    * @param row row index
+    * @param value new value
+    */
+   private void setInteger(int row, String value)
+   {
+      Long n = parseCanonicalLong(value);
+      if (n != null)
+      {
+         numbers[row] = n;
+         if (irregularMask.get(row))
+         {
+            irregularMask.clear(row);
+            irregularValues.remove(row);
+         }
+         return;
+      }
+
+      irregularMask.set(row);
+      irregularValues.put(row, value);
+      if ((irregularValues.size() > MIN_IRREGULAR_COUNT) && (irregularValues.size() > size / 4))
+         convertToDictionary();
+   }
+
+   /**
+    * Set value in dictionary mode.
+    *
+    * @param row row index
+    * @param value new value
+    */
+   private void setDictionaryCode(int row, String value)
+   {
+      if (value == null)
+      {
+         codes[row] = -1;
+         return;
+      }
+
+      Integer code = dictionaryIndex.get(value);
+      if (code == null)
+      {
+         if ((dictionary.size() >= MAX_DICTIONARY_SIZE) && (dictionary.size() >= size / 2))
+         {
+            convertFromDictionary();
+            set(row, value);
+            return;
+         }
+         code = dictionary.size();
+         dictionary.add(value);
+         dictionaryIndex.put(value, code);
+      }
+      codes[row] = code;
+   }
+
+   /**
+    * Convert integer storage into dictionary storage.
+    */
+   private void convertToDictionary()
+   {
+      String[] values = new String[size];
+      for(int i = 0; i < size; i++)
+         values[i] = get(i);
+
+      mode = MODE_DICTIONARY;
+      integerRejected = true;
+      codes = new int[numbers.length];
+      dictionary = new ArrayList<String>();
+      dictionaryIndex = new HashMap<String, Integer>();
+      numbers = null;
+      irregularMask = null;
+      irregularValues = null;
+      for(int i = 0; i < size; i++)
+         set(i, values[i]);
+   }
+
+   /**
+    * Convert dictionary storage when dictionary grows too big. If all values seen so far are integers, column is converted to
+    * integer storage (typical for ID and timestamp columns), otherwise to plain string storage. Column that was already converted
+    * from integer storage is never converted back to avoid switching back and forth.
+    */
+   private void convertFromDictionary()
+   {
+      boolean integers = !integerRejected;
+      for(int i = 0; integers && (i < dictionary.size()); i++)
+      {
+         if (parseCanonicalLong(dictionary.get(i)) == null)
+            integers = false;
+      }
+
+      int capacity = codes.length;
+      if (integers)
+      {
+         numbers = new long[capacity];
+         irregularMask = new BitSet();
+         irregularValues = new HashMap<Integer, String>();
+         for(int i = 0; i < size; i++)
+         {
+            if (codes[i] >= 0)
+            {
+               numbers[i] = Long.parseLong(dictionary.get(codes[i]));
+            }
+            else
+            {
+               irregularMask.set(i);
+               irregularValues.put(i, null);
+            }
+         }
+         mode = MODE_INTEGER;
+      }
+      else
+      {
+         strings = new String[capacity];
+         for(int i = 0; i < size; i++)
+            strings[i] = (codes[i] >= 0) ? dictionary.get(codes[i]) : null;
+         mode = MODE_STRING;
+      }
+      codes = null;
+      dictionary = null;
+      dictionaryIndex = null;
+   }
+
+   /**
+    * Parse value as long integer if it is in canonical form (so that conversion back to string will produce same value).
+    *
+    * @param value value to parse
+    * @return parsed value or null if value is not a canonical long integer
+    */
+   private static Long parseCanonicalLong(String value)
+   {
+      if ((value == null) || value.isEmpty() || (value.length() > 20))
+         return null;
+
+      int start = (value.charAt(0) == '-') ? 1 : 0;
+      if ((start == value.length()) || ((value.charAt(start) == '0') && (value.length() > start + 1)) || ((start == 1) && value.equals("-0")))
+         return null;
+      for(int i = start; i < value.length(); i++)
+      {
+         char ch = value.charAt(i);
+         if ((ch < '0') || (ch > '9'))
+            return null;
+      }
+
+      try
+      {
+         return Long.parseLong(value);
+      }
+      catch(NumberFormatException e)
+      {
+         return null; // out of range
+      }
+   }
+
+   /**
+    * Get cell status.
+    *
+    * @param row row index
+    * @return cell status
+    */
+   int getStatus(int row)
+   {
+      checkIndex(row);
+      return (status != null) ? status[row] : -1;
+   }
+
+   /**
+    * Set cell status.
+    *
+    * @param row row index
+    * @param value new status
+    */
+   void setStatus(int row, int value)
+   {
+      checkIndex(row);
+      if (status == null)
+      {
+         if (value == -1)
+            return;
+         status = new int[capacity()];
+         Arrays.fill(status, -1);
+      }
+      status[row] = value;
+   }
+
+   /**
+    * Get cell object ID.
+    *
+    * @param row row index
+    * @return cell object ID
+    */
+   long getObjectId(int row)
+   {
+      checkIndex(row);
+      return (objectIds != null) ? objectIds[row] : 0;
+   }
+
+   /**
+    * Set cell object ID.
+    *
+    * @param row row index
+    * @param value new object ID
+    */
+   void setObjectId(int row, long value)
+   {
+      checkIndex(row);
+      if (objectIds == null)
+      {
+         if (value == 0)
+            return;
+         objectIds = new long[capacity()];
+      }
+      objectIds[row] = value;
+   }
+
+   /**
+    * Reorder column values.
+    *
+    * @param order new order of rows (element N contains old index of row that should be placed at position N)
+    */
+   void reorder(int[] order)
+   {
+      switch(mode)
+      {
+         case MODE_INTEGER:
+            long[] newNumbers = new long[numbers.length];
+            BitSet newMask = new BitSet();
+            Map<Integer, String> newIrregularValues = new HashMap<Integer, String>();
+            for(int i = 0; i < order.length; i++)
+            {
+               newNumbers[i] = numbers[order[i]];
+               if (irregularMask.get(order[i]))
+               {
+                  newMask.set(i);
+                  newIrregularValues.put(i, irregularValues.get(order[i]));
+               }
+            }
+            numbers = newNumbers;
+            irregularMask = newMask;
+            irregularValues = newIrregularValues;
+            break;
+         case MODE_DICTIONARY:
+            int[] newCodes = new int[codes.length];
+            for(int i = 0; i < order.length; i++)
+               newCodes[i] = codes[order[i]];
+            codes = newCodes;
+            break;
+         default:
+            String[] newStrings = new String[strings.length];
+            for(int i = 0; i < order.length; i++)
+               newStrings[i] = strings[order[i]];
+            strings = newStrings;
+            break;
+      }
+      if (status != null)
+      {
+         int[] newStatus = Arrays.copyOf(status, status.length);
+         for(int i = 0; i < order.length; i++)
+            newStatus[i] = status[order[i]];
+         status = newStatus;
+      }
+      if (objectIds != null)
+      {
+         long[] newObjectIds = Arrays.copyOf(objectIds, objectIds.length);
+         for(int i = 0; i < order.length; i++)
+            newObjectIds[i] = objectIds[order[i]];
+         objectIds = newObjectIds;
+      }
+   }
+
+   /**
+    * Get current capacity.
+    *
+    * @return current capacity
+    */
+   private int capacity()
+   {
+      switch(mode)
+      {
+         case MODE_INTEGER:
+            return numbers.length;
+         case MODE_DICTIONARY:
+            return codes.length;
+         default:
+            return strings.length;
+      }
+   }
+
+   /**
+    * Ensure that storage can hold given number of values.
+    *
+    * @param required required capacity
+    */
+   void ensureCapacity(int required)
+   {
+      int capacity = capacity();
+      if (required <= capacity)
+         return;
+
+      int newCapacity = Math.max(required, capacity + (capacity >> 1));
+      switch(mode)
+      {
+         case MODE_INTEGER:
+            numbers = Arrays.copyOf(numbers, newCapacity);
+            break;
+         case MODE_DICTIONARY:
+            codes = Arrays.copyOf(codes, newCapacity);
+            break;
+         default:
+            strings = Arrays.copyOf(strings, newCapacity);
+            break;
+      }
+      if (status != null)
+      {
+         status = Arrays.copyOf(status, newCapacity);
+         Arrays.fill(status, capacity, newCapacity, -1);
+      }
+      if (objectIds != null)
+         objectIds = Arrays.copyOf(objectIds, newCapacity);
+   }
+
+   /**
+    * Check row index.
+    *
+    * @param row row index
+    * @throws IndexOutOfBoundsException if row index is out of range
+    */
+   private void checkIndex(int row) throws IndexOutOfBoundsException
+   {
+      if ((row < 0) || (row >= size))
+         throw new IndexOutOfBoundsException("Index: " + row + ", Size: " + size);
+   }
+
+   /**
+    * Check if column is currently stored in integer form.
+    *
+    * @return true if column is currently stored in integer form
+    */
+   boolean isIntegerStorage()
+   {
+      return mode == MODE_INTEGER;
+   }
+
+   /**
+    * Check if column is currently dictionary-encoded.
+    *
+    * @return true if column is currently dictionary-encoded
+    */
+   boolean isDictionaryStorage()
+   {
+      return mode == MODE_DICTIONARY;
+   }
+}
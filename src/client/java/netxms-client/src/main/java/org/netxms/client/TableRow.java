@@ -24,10 +24,13 @@
 import java.util.List;
 
 /**
- * Table row
+ * Table row. Row can be either standalone object holding its own cells, or view into data of specific table (rows returned by
+ * Table methods). Changes made to table row view are applied directly to underlying table.
  */
 public class TableRow
 {
+   private Table table;
+   private int index;
    private List<TableCell> cells;
    private long objectId;
    private int baseRow;
@@ -39,6 +42,8 @@
     */
    public TableRow(int rowCount)
    {
+      table = null;
+      index = -1;
       objectId = 0;
       baseRow = -1;
       cells = new ArrayList<TableCell>(rowCount);
@@ -53,12 +58,37 @@ public TableRow(int rowCount)
     */
    public TableRow(TableRow src)
    {
-      objectId = src.objectId;
-      baseRow = src.baseRow;
-      cells = new ArrayList<TableCell>(src.cells.size());
-      for(int i = 0; i < src.cells.size(); i++)
+      table = null;
+      index = -1;
+      objectId = src.getObjectId();
+      baseRow = src.getBaseRow();
+      int size = src.size();
+      cells = new ArrayList<TableCell>(size);
+      for(int i = 0; i < size; i++)
          cells.add(new TableCell(src.get(i)));
    }
+
+   /**
+    * Create view for given row of given table.
+    *
+    * @param table table
+    * @param index row index
+    */
+   TableRow(Table table, int index)
+   {
+      this.table = table;
+      this.index = index;
+   }
+
+   /**
+    * Get index of this row within owning table.
+    *
+    * @return row index within owning table or -1 for standalone row
+    */
+   int getIndex()
+   {
+      return index;
+   }
    
    /**
     * Get table cell object for given column.
@@ -69,7 +99,11 @@ public TableRow(TableRow src)
     */
    public TableCell get(int column) throws IndexOutOfBoundsException
    {
-      return cells.get(column);
+      if (table == null)
+         return cells.get(column);
+      if ((column < 0) || (column >= table.getColumnCount()))
+         throw new IndexOutOfBoundsException("Column index " + column + " out of range");
+      return new TableCell(table, index, column);
    }
 
    /**
@@ -82,7 +116,7 @@ public String getValue(int column)
    {
       try
       {
-         return cells.get(column).getValue();
+         return (table != null) ? table.getColumnData(column).get(index) : cells.get(column).getValue();
       }
       catch(IndexOutOfBoundsException e)
       {
@@ -101,7 +135,7 @@ public long getValueAsLong(int column)
    {
       try
       {
-         return cells.get(column).getValueAsLong();
+         return (table != null) ? table.getColumnData(column).getAsLong(index) : cells.get(column).getValueAsLong();
       }
       catch(IndexOutOfBoundsException e)
       {
@@ -119,7 +153,7 @@ public int getValueAsInteger(int column)
    {
       try
       {
-         return cells.get(column).getValueAsInteger();
+         return get(column).getValueAsInteger();
       }
       catch(IndexOutOfBoundsException e)
       {
@@ -138,7 +172,7 @@ public double getValueAsDouble(int column)
    {
       try
       {
-         return cells.get(column).getValueAsDouble();
+         return get(column).getValueAsDouble();
       }
       catch(IndexOutOfBoundsException e)
       {
@@ -151,7 +185,7 @@ public double getValueAsDouble(int column)
     */
    public int size()
    {
-      return cells.size();
+      return (table != null) ? table.getColumnCount() : cells.size();
    }
 
    /**
@@ -165,12 +199,14 @@ public long fillMessage(final NXCPMessage msg, long baseId, boolean extendedForm
       long varId = baseId;
       if (extendedFormat)
       {
-         msg.setFieldInt32(varId++, (int)objectId);
-         msg.setFieldInt32(varId++, baseRow);
+         msg.setFieldInt32(varId++, (int)getObjectId());
+         msg.setFieldInt32(varId++, getBaseRow());
          varId += 8;
       }
-      for(TableCell c : cells)
+      int size = size();
+      for(int i = 0; i < size; i++)
       {
+         TableCell c = get(i);
          msg.setField(varId++, c.getValue());
          if (extendedFormat)
          {
@@ -189,7 +225,7 @@ public long fillMessage(final NXCPMessage msg, long baseId, boolean extendedForm
     */
    public long getObjectId()
    {
-      return objectId;
+      return (table != null) ? table.getRowObjectId(index) : objectId;
    }
 
    /**
@@ -199,7 +235,10 @@ public long getObjectId()
     */
    public void setObjectId(long objectId)
    {
-      this.objectId = objectId;
+      if (table != null)
+         table.setRowObjectId(index, objectId);
+      else
+         this.objectId = objectId;
    }
 
    /**
@@ -207,7 +246,7 @@ public void setObjectId(long objectId)
     */
    public int getBaseRow()
    {
-      return baseRow;
+      return (table != null) ? table.getRowBaseRow(index) : baseRow;
    }
 
    /**
@@ -215,7 +254,35 @@ public int getBaseRow()
     */
    public void setBaseRow(int baseRow)
    {
-      this.baseRow = baseRow;
+      if (table != null)
+         table.setRowBaseRow(index, baseRow);
+      else
+         this.baseRow = baseRow;
+   }
+
+   /**
+    * @see java.lang.Object#hashCode()
+    */
+   @Override
+   public int hashCode()
+   {
+      return (table != null) ? System.identityHashCode(table) * 31 + index : super.hashCode();
+   }
+
+   /**
+    * Row views are equal if they refer to same row of same table. Standalone rows are only equal to themselves.
+    *
+    * @see java.lang.Object#equals(java.lang.Object)
+    */
+   @Override
+   public boolean equals(Object obj)
+   {
+      if (this == obj)
+         return true;
+      if ((table == null) || !(obj instanceof TableRow))
+         return false;
+      TableRow other = (TableRow)obj;
+      return (table == other.table) && (index == other.index);
    }
 
    /**
@@ -223,10 +290,13 @@ public void setBaseRow(int baseRow)
     */
    @Override
    public String toString() {
+      List<TableCell> content = new ArrayList<TableCell>(size());
+      for(int i = 0; i < size(); i++)
+         content.add(get(i));
       return "TableRow{" +
-              "cells=" + cells +
-              ", objectId=" + objectId +
-              ", baseRow=" + baseRow +
+              "cells=" + content +
+              ", objectId=" + getObjectId() +
+              ", baseRow=" + getBaseRow() +
               '}';
    }
 }
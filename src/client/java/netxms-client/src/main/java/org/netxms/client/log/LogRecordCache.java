@@ -0,0 +1,272 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ * <p>
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.netxms.client.NXCException;
+import org.netxms.client.Table;
+import org.netxms.client.TableRow;
+
+/**
+ * Sliding window of log query result pages. Only limited number of pages is kept in memory - when new page is loaded, pages most
+ * distant from current read position are evicted. Pages are loaded from server-side query result using Log.retrieveData(), so
+ * Log.query() must be called before using the cache. All methods are thread safe; page loading is synchronous and is expected to
+ * be called from background thread.
+ */
+public class LogRecordCache
+{
+   private Log log;
+   private int pageSize;
+   private int maxPages;
+   private int prefetchDistance;
+   private Map<Integer, Table> pages = new HashMap<Integer, Table>();
+   private Set<Integer> pendingPages = new HashSet<Integer>();
+   private List<Integer> evictedPages = new ArrayList<Integer>();
+   private long currentPosition = 0;
+   private int generation = 0;
+
+   /**
+    * Create new record cache.
+    *
+    * @param log log handle (query should be already executed)
+    * @param pageSize number of records in one page
+    * @param maxPages maximum number of pages to keep in memory (at least 3)
+    */
+   public LogRecordCache(Log log, int pageSize, int maxPages)
+   {
+      this.log = log;
+      this.pageSize = pageSize;
+      this.maxPages = Math.max(maxPages, 3);
+      this.prefetchDistance = pageSize / 4;
+   }
+
+   /**
+    * Get total number of records in query result.
+    *
+    * @return total number of records in query result
+    */
+   public long getRecordCount()
+   {
+      return log.getNumRecords();
+   }
+
+   /**
+    * Get page size.
+    *
+    * @return page size
+    */
+   public int getPageSize()
+   {
+      return pageSize;
+   }
+
+   /**
+    * Get index of page containing given record.
+    *
+    * @param recordIndex record index
+    * @return page index
+    */
+   public int getPageIndex(long recordIndex)
+   {
+      return (int)(recordIndex / pageSize);
+   }
+
+   /**
+    * Get record with given index. Updates current read position used for prefetch and eviction decisions.
+    *
+    * @param recordIndex record index (zero-based)
+    * @return record or null if page containing this record is not loaded
+    */
+   public synchronized TableRow getRecord(long recordIndex)
+   {
+      currentPosition = recordIndex;
+      Table page = pages.get(getPageIndex(recordIndex));
+      if (page == null)
+         return null;
+      int offset = (int)(recordIndex % pageSize);
+      return (offset < page.getRowCount()) ? page.getRow(offset) : null;
+   }
+
+   /**
+    * Check if page with given index is loaded.
+    *
+    * @param pageIndex page index
+    * @return true if page is loaded
+    */
+   public synchronized boolean isPageLoaded(int pageIndex)
+   {
+      return pages.containsKey(pageIndex);
+   }
+
+   /**
+    * Get list of pages that should be loaded for reading given record - page containing record itself if it is not loaded, and
+    * next or previous page if record is close to page boundary. Returned pages are marked as pending, so caller must call
+    * loadPage() for each of them.
+    *
+    * @param recordIndex record index
+    * @return list of pages to load (may be empty)
+    */
+   public synchronized List<Integer> getPagesToLoad(long recordIndex)
+   {
+      List<Integer> result = new ArrayList<Integer>(2);
+      int pageIndex = getPageIndex(recordIndex);
+      addPendingPage(pageIndex, result);
+
+      long offset = recordIndex % pageSize;
+      if ((offset >= pageSize - prefetchDistance) && ((long)(pageIndex + 1) * pageSize < getRecordCount()))
+         addPendingPage(pageIndex + 1, result);
+      else if ((offset < prefetchDistance) && (pageIndex > 0))
+         addPendingPage(pageIndex - 1, result);
+      return result;
+   }
+
+   /**
+    * Add page to pending list if it is not loaded and not pending already.
+    *
+    * @param pageIndex page index
+    * @param list list of pages to load
+    */
+   private void addPendingPage(int pageIndex, List<Integer> list)
+   {
+      if (!pages.containsKey(pageIndex) && pendingPages.add(pageIndex))
+         list.add(pageIndex);
+   }
+
+   /**
+    * Load page from server. Should be called from background thread.
+    *
+    * @param pageIndex page index
+    * @param refresh if set to true, server will reload data from database instead of using cache
+    * @return loaded page
+    * @throws IOException if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public Table loadPage(int pageIndex, boolean refresh) throws IOException, NXCException
+   {
+      int requestGeneration;
+      synchronized(this)
+      {
+         pendingPages.add(pageIndex);
+         requestGeneration = generation;
+      }
+
+      Table data = null;
+      try
+      {
+         data = retrieveRecords((long)pageIndex * pageSize, pageSize, refresh);
+      }
+      finally
+      {
+         synchronized(this)
+         {
+            if (requestGeneration == generation)
+            {
+               pendingPages.remove(pageIndex);
+               if (data != null)
+               {
+                  pages.put(pageIndex, data);
+                  evictPages();
+               }
+            }
+         }
+      }
+      return data;
+   }
+
+   /**
+    * Retrieve records from server.
+    *
+    * @param startRow first row to retrieve
+    * @param rowCount number of rows to retrieve
+    * @param refresh if set to true, server will reload data from database instead of using cache
+    * @return retrieved records
+    * @throws IOException if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   protected Table retrieveRecords(long startRow, int rowCount, boolean refresh) throws IOException, NXCException
+   {
+      return log.retrieveData(startRow, rowCount, refresh);
+   }
+
+   /**
+    * Evict pages most distant from current read position until number of pages is within limit.
+    */
+   private void evictPages()
+   {
+      int currentPage = getPageIndex(currentPosition);
+      while(pages.size() > maxPages)
+      {
+         int victim = -1;
+         int maxDistance = -1;
+         for(Integer p : pages.keySet())
+         {
+            int distance = Math.abs(p - currentPage);
+            if (distance > maxDistance)
+            {
+               maxDistance = distance;
+               victim = p;
+            }
+         }
+         pages.remove(victim);
+         evictedPages.add(victim);
+      }
+   }
+
+   /**
+    * Get list of pages evicted since last call to this method. Caller is expected to drop any references to records from these
+    * pages (for example, clear corresponding table items).
+    *
+    * @return list of evicted page indexes (may be empty)
+    */
+   public synchronized List<Integer> takeEvictedPages()
+   {
+      if (evictedPages.isEmpty())
+         return new ArrayList<Integer>(0);
+      List<Integer> result = evictedPages;
+      evictedPages = new ArrayList<Integer>();
+      return result;
+   }
+
+   /**
+    * Get number of currently loaded pages.
+    *
+    * @return number of currently loaded pages
+    */
+   public synchronized int getLoadedPageCount()
+   {
+      return pages.size();
+   }
+
+   /**
+    * Drop all loaded pages. Results of page loads started before this call will be discarded.
+    */
+   public synchronized void clear()
+   {
+      pages.clear();
+      pendingPages.clear();
+      evictedPages.clear();
+      generation++;
+   }
+}
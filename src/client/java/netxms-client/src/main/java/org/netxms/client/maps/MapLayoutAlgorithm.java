@@ -28,7 +28,7 @@
  */
 public enum MapLayoutAlgorithm
 {
-	MANUAL(0x7FFF), SPRING(0), RADIAL(1), HTREE(2), VTREE(3), SPARSE_VTREE(4);
+	MANUAL(0x7FFF), SPRING(0), RADIAL(1), HTREE(2), VTREE(3), SPARSE_VTREE(4), FORCE_DIRECTED(5);
 
    private static Logger logger = LoggerFactory.getLogger(MapLayoutAlgorithm.class);
 	private static Map<Integer, MapLayoutAlgorithm> lookupTable = new HashMap<Integer, MapLayoutAlgorithm>();
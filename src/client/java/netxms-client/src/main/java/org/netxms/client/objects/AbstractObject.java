@@ -49,7 +49,7 @@
 /**
  * Abstract base class for all NetXMS objects (both built-in and provided by extensions)
  */
-public abstract class AbstractObject
+public abstract class AbstractObject implements Cloneable
 {
 	/** Entire network */
    public static final long NETWORK = 1L;
@@ -1189,6 +1189,31 @@ public final void setSession(NXCSession session)
 		this.session = session;
 	}
 
+   /**
+    * Create copy of this object bound to another session. Copy shares object data with this object (object data is not
+    * modified after object creation), so it only costs memory for object's own fields. Session specific state (like cached
+    * effective rights) is not copied. Subclasses which receive user specific data from server should return null.
+    *
+    * @param session session for new copy
+    * @return copy of this object bound to given session or null if this object cannot be shared between sessions
+    */
+   public AbstractObject copyForSession(NXCSession session)
+   {
+      AbstractObject copy;
+      try
+      {
+         copy = (AbstractObject)clone();
+      }
+      catch(CloneNotSupportedException e)
+      {
+         throw new IllegalStateException(e); // should not happen
+      }
+      copy.session = session;
+      copy.effectiveRights = 0;
+      copy.effectiveRightsCached = false;
+      return copy;
+   }
+
    /**
     * Get effective rights for this object. On first call this method
     * will do request to server, and on all subsequent calls
@@ -97,6 +97,16 @@ public DataCollectionTarget(NXCPMessage msg, NXCSession session)
       webServiceProxyId = msg.getFieldAsInt64(NXCPCodes.VID_WEB_SERVICE_PROXY);
    }
 
+   /**
+    * @see org.netxms.client.objects.AbstractObject#copyForSession(org.netxms.client.NXCSession)
+    */
+   @Override
+   public AbstractObject copyForSession(NXCSession session)
+   {
+      // Server filters overview and tooltip DCIs by user's access (and masks node credentials), so object data cannot be shared
+      return null;
+   }
+
    /**
     * @return the overviewDciData
     */
@@ -0,0 +1,485 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.objects.queries;
+
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.netxms.client.objects.AbstractObject;
+
+/**
+ * Object filter evaluated on server side. Filter is converted into object query script, so only matching objects are sent to
+ * client. All conditions set in filter should match for object to be selected. Name and attribute patterns are either glob
+ * patterns (with * and ? wildcards) or regular expressions, and are matched case-insensitively.
+ */
+public class ObjectQueryFilter
+{
+   private static final Map<String, Integer> classNames = new HashMap<String, Integer>();
+
+   static
+   {
+      classNames.put("accesspoint", AbstractObject.OBJECT_ACCESSPOINT);
+      classNames.put("asset", AbstractObject.OBJECT_ASSET);
+      classNames.put("assetgroup", AbstractObject.OBJECT_ASSETGROUP);
+      classNames.put("assetroot", AbstractObject.OBJECT_ASSETROOT);
+      classNames.put("businessservice", AbstractObject.OBJECT_BUSINESSSERVICE);
+      classNames.put("businessserviceprototype", AbstractObject.OBJECT_BUSINESSSERVICEPROTOTYPE);
+      classNames.put("businessserviceroot", AbstractObject.OBJECT_BUSINESSSERVICEROOT);
+      classNames.put("chassis", AbstractObject.OBJECT_CHASSIS);
+      classNames.put("cluster", AbstractObject.OBJECT_CLUSTER);
+      classNames.put("collector", AbstractObject.OBJECT_COLLECTOR);
+      classNames.put("condition", AbstractObject.OBJECT_CONDITION);
+      classNames.put("container", AbstractObject.OBJECT_CONTAINER);
+      classNames.put("dashboard", AbstractObject.OBJECT_DASHBOARD);
+      classNames.put("dashboardgroup", AbstractObject.OBJECT_DASHBOARDGROUP);
+      classNames.put("dashboardroot", AbstractObject.OBJECT_DASHBOARDROOT);
+      classNames.put("interface", AbstractObject.OBJECT_INTERFACE);
+      classNames.put("mobiledevice", AbstractObject.OBJECT_MOBILEDEVICE);
+      classNames.put("network", AbstractObject.OBJECT_NETWORK);
+      classNames.put("networkmap", AbstractObject.OBJECT_NETWORKMAP);
+      classNames.put("networkmapgroup", AbstractObject.OBJECT_NETWORKMAPGROUP);
+      classNames.put("networkmaproot", AbstractObject.OBJECT_NETWORKMAPROOT);
+      classNames.put("networkservice", AbstractObject.OBJECT_NETWORKSERVICE);
+      classNames.put("node", AbstractObject.OBJECT_NODE);
+      classNames.put("rack", AbstractObject.OBJECT_RACK);
+      classNames.put("sensor", AbstractObject.OBJECT_SENSOR);
+      classNames.put("serviceroot", AbstractObject.OBJECT_SERVICEROOT);
+      classNames.put("subnet", AbstractObject.OBJECT_SUBNET);
+      classNames.put("template", AbstractObject.OBJECT_TEMPLATE);
+      classNames.put("templategroup", AbstractObject.OBJECT_TEMPLATEGROUP);
+      classNames.put("templateroot", AbstractObject.OBJECT_TEMPLATEROOT);
+      classNames.put("vpnconnector", AbstractObject.OBJECT_VPNCONNECTOR);
+      classNames.put("wirelessdomain", AbstractObject.OBJECT_WIRELESSDOMAIN);
+      classNames.put("zone", AbstractObject.OBJECT_ZONE);
+   }
+
+   private Set<Integer> objectClasses = new LinkedHashSet<Integer>();
+   private String namePattern = null;
+   private String primaryNamePattern = null;
+   private boolean regularExpressions = false;
+   private Set<Integer> zones = new LinkedHashSet<Integer>();
+   private InetAddress ipRangeStart = null;
+   private InetAddress ipRangeEnd = null;
+   private long rootObjectId = 0;
+   private Map<String, String> customAttributes = new LinkedHashMap<String, String>();
+   private int stateFlags = 0;
+
+   /**
+    * Get object class code by class name (as returned by <code>AbstractObject.getObjectClassName()</code>). Name is case
+    * insensitive.
+    *
+    * @param name object class name
+    * @return object class code or -1 if name is unknown
+    */
+   public static int getObjectClassByName(String name)
+   {
+      Integer c = classNames.get(name.trim().toLowerCase());
+      return (c != null) ? c : -1;
+   }
+
+   /**
+    * Create query script from this filter. Script can be executed by object query API.
+    *
+    * @return object query script
+    */
+   public String createQuery()
+   {
+      List<String> conditions = new ArrayList<String>();
+
+      if (!objectClasses.isEmpty())
+      {
+         StringBuilder sb = new StringBuilder("(");
+         for(Integer c : objectClasses)
+         {
+            if (sb.length() > 1)
+               sb.append(" || ");
+            sb.append("$object.type == ");
+            sb.append(c);
+         }
+         sb.append(')');
+         conditions.add(sb.toString());
+      }
+
+      if ((namePattern != null) && !namePattern.isEmpty())
+         conditions.add("matchPattern($object.name, " + quote(preparePattern(namePattern)) + ")");
+
+      if ((primaryNamePattern != null) && !primaryNamePattern.isEmpty())
+         conditions.add("matchPattern($object?.primaryHostName, " + quote(preparePattern(primaryNamePattern)) + ")");
+
+      if (!zones.isEmpty())
+      {
+         StringBuilder sb = new StringBuilder("(");
+         for(Integer z : zones)
+         {
+            if (sb.length() > 1)
+               sb.append(" || ");
+            sb.append("$object?.zoneUIN == ");
+            sb.append(z);
+         }
+         sb.append(')');
+         conditions.add(sb.toString());
+      }
+
+      if ((ipRangeStart != null) && (ipRangeEnd != null))
+         conditions.add("AddrInRange($object.ipAddr, " + quote(ipRangeStart.getHostAddress()) + ", " + quote(ipRangeEnd.getHostAddress()) + ")");
+
+      if (stateFlags != 0)
+         conditions.add("(($object.state & " + stateFlags + ") != 0)");
+
+      for(Entry<String, String> e : customAttributes.entrySet())
+         conditions.add("matchPattern($object.getCustomAttribute(" + quote(e.getKey()) + "), " + quote(preparePattern(e.getValue())) + ")");
+
+      StringBuilder query = new StringBuilder();
+      query.append("function matchPattern(value, pattern)\n{\n   return (value != null) && (value ");
+      query.append(regularExpressions ? "imatch" : "ilike");
+      query.append(" pattern);\n}\n\nreturn ");
+      if (conditions.isEmpty())
+      {
+         query.append("true");
+      }
+      else
+      {
+         for(int i = 0; i < conditions.size(); i++)
+         {
+            if (i > 0)
+               query.append(" && ");
+            query.append(conditions.get(i));
+         }
+      }
+      query.append(";\n");
+      return query.toString();
+   }
+
+   /**
+    * Prepare pattern for use in query. Regular expressions are anchored to match whole value.
+    *
+    * @param pattern pattern
+    * @return prepared pattern
+    */
+   private String preparePattern(String pattern)
+   {
+      return regularExpressions ? "^(?:" + pattern + ")$" : pattern;
+   }
+
+   /**
+    * Create string literal for query script.
+    *
+    * @param s string
+    * @return string literal
+    */
+   private static String quote(String s)
+   {
+      StringBuilder sb = new StringBuilder(s.length() + 2);
+      sb.append('"');
+      for(int i = 0; i < s.length(); i++)
+      {
+         char ch = s.charAt(i);
+         switch(ch)
+         {
+            case '"':
+            case '\\':
+               sb.append('\\');
+               sb.append(ch);
+               break;
+            case '\n':
+               sb.append("\\n");
+               break;
+            case '\r':
+               sb.append("\\r");
+               break;
+            case '\t':
+               sb.append("\\t");
+               break;
+            default:
+               sb.append(ch);
+               break;
+         }
+      }
+      sb.append('"');
+      return sb.toString();
+   }
+
+   /**
+    * Check if filter has no conditions (root object is not considered as condition).
+    *
+    * @return true if filter has no conditions
+    */
+   public boolean isEmpty()
+   {
+      return objectClasses.isEmpty() && ((namePattern == null) || namePattern.isEmpty()) &&
+            ((primaryNamePattern == null) || primaryNamePattern.isEmpty()) && zones.isEmpty() && (ipRangeStart == null) &&
+            customAttributes.isEmpty() && (stateFlags == 0);
+   }
+
+   /**
+    * Get object classes to match.
+    *
+    * @return set of object classes (empty set means any class)
+    */
+   public Set<Integer> getObjectClasses()
+   {
+      return objectClasses;
+   }
+
+   /**
+    * Add object class to match.
+    *
+    * @param objectClass object class code
+    */
+   public void addObjectClass(int objectClass)
+   {
+      objectClasses.add(objectClass);
+   }
+
+   /**
+    * Add object class to match by class name.
+    *
+    * @param className object class name
+    * @return true if class name is valid
+    */
+   public boolean addObjectClass(String className)
+   {
+      int c = getObjectClassByName(className);
+      if (c == -1)
+         return false;
+      objectClasses.add(c);
+      return true;
+   }
+
+   /**
+    * @return object name pattern
+    */
+   public String getNamePattern()
+   {
+      return namePattern;
+   }
+
+   /**
+    * Set object name pattern.
+    *
+    * @param namePattern object name pattern (null or empty string to match any name)
+    */
+   public void setNamePattern(String namePattern)
+   {
+      this.namePattern = namePattern;
+   }
+
+   /**
+    * @return node primary host name pattern
+    */
+   public String getPrimaryNamePattern()
+   {
+      return primaryNamePattern;
+   }
+
+   /**
+    * Set node primary host name pattern. If set, only nodes will match.
+    *
+    * @param primaryNamePattern primary host name pattern (null or empty string to match any name)
+    */
+   public void setPrimaryNamePattern(String primaryNamePattern)
+   {
+      this.primaryNamePattern = primaryNamePattern;
+   }
+
+   /**
+    * @return true if patterns are regular expressions
+    */
+   public boolean isRegularExpressions()
+   {
+      return regularExpressions;
+   }
+
+   /**
+    * Set pattern type for name, primary name, and custom attribute patterns.
+    *
+    * @param regularExpressions true if patterns are regular expressions, false if they are glob patterns
+    */
+   public void setRegularExpressions(boolean regularExpressions)
+   {
+      this.regularExpressions = regularExpressions;
+   }
+
+   /**
+    * Get zones to match.
+    *
+    * @return set of zone UINs (empty set means any zone)
+    */
+   public Set<Integer> getZones()
+   {
+      return zones;
+   }
+
+   /**
+    * Add zone to match. If zones are set, only objects that belong to zone (nodes, subnets, interfaces, clusters) will match.
+    *
+    * @param zoneUIN zone UIN
+    */
+   public void addZone(int zoneUIN)
+   {
+      zones.add(zoneUIN);
+   }
+
+   /**
+    * @return start of IP address range or null if not set
+    */
+   public InetAddress getIpRangeStart()
+   {
+      return ipRangeStart;
+   }
+
+   /**
+    * @return end of IP address range or null if not set
+    */
+   public InetAddress getIpRangeEnd()
+   {
+      return ipRangeEnd;
+   }
+
+   /**
+    * Set IP address range for object's primary IP address (inclusive).
+    *
+    * @param start range start (null to clear range)
+    * @param end range end (null to clear range)
+    */
+   public void setIpRange(InetAddress start, InetAddress end)
+   {
+      ipRangeStart = start;
+      ipRangeEnd = end;
+   }
+
+   /**
+    * Set IP address range from subnet address and mask length.
+    *
+    * @param address any address within subnet
+    * @param maskBits mask length
+    */
+   public void setIpSubnet(InetAddress address, int maskBits)
+   {
+      byte[] bytes = address.getAddress();
+      int bits = bytes.length * 8;
+      maskBits = Math.max(0, Math.min(maskBits, bits));
+      BigInteger addr = new BigInteger(1, bytes);
+      BigInteger hostMask = BigInteger.ONE.shiftLeft(bits - maskBits).subtract(BigInteger.ONE);
+      BigInteger start = addr.andNot(hostMask);
+      ipRangeStart = toInetAddress(start, bytes.length);
+      ipRangeEnd = toInetAddress(start.or(hostMask), bytes.length);
+   }
+
+   /**
+    * Convert unsigned integer to IP address of given length.
+    *
+    * @param value address as integer
+    * @param length address length in bytes
+    * @return IP address
+    */
+   private static InetAddress toInetAddress(BigInteger value, int length)
+   {
+      byte[] raw = value.toByteArray();
+      byte[] bytes = new byte[length];
+      int copy = Math.min(raw.length, length);
+      System.arraycopy(raw, raw.length - copy, bytes, length - copy, copy);
+      try
+      {
+         return InetAddress.getByAddress(bytes);
+      }
+      catch(UnknownHostException e)
+      {
+         throw new IllegalArgumentException(e); // should not happen - address length is always valid
+      }
+   }
+
+   /**
+    * @return ID of root object (0 if not set)
+    */
+   public long getRootObjectId()
+   {
+      return rootObjectId;
+   }
+
+   /**
+    * Set root object. If set, only objects below given root object (at any level) will match.
+    *
+    * @param rootObjectId ID of root object or 0 to match objects anywhere in the tree
+    */
+   public void setRootObjectId(long rootObjectId)
+   {
+      this.rootObjectId = rootObjectId;
+   }
+
+   /**
+    * Get custom attribute patterns.
+    *
+    * @return custom attribute patterns
+    */
+   public Map<String, String> getCustomAttributes()
+   {
+      return customAttributes;
+   }
+
+   /**
+    * Add custom attribute condition. Object matches if it has custom attribute with given name and its value matches given
+    * pattern.
+    *
+    * @param name custom attribute name
+    * @param pattern value pattern
+    */
+   public void addCustomAttribute(String name, String pattern)
+   {
+      customAttributes.put(name, pattern);
+   }
+
+   /**
+    * @return state flags
+    */
+   public int getStateFlags()
+   {
+      return stateFlags;
+   }
+
+   /**
+    * Set state flags. If set, object matches if any of given state flags is set.
+    *
+    * @param stateFlags state flags (0 to match any state)
+    */
+   public void setStateFlags(int stateFlags)
+   {
+      this.stateFlags = stateFlags;
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   @Override
+   public String toString()
+   {
+      return "ObjectQueryFilter [objectClasses=" + objectClasses + ", namePattern=" + namePattern + ", primaryNamePattern=" +
+            primaryNamePattern + ", regularExpressions=" + regularExpressions + ", zones=" + zones + ", ipRangeStart=" +
+            ipRangeStart + ", ipRangeEnd=" + ipRangeEnd + ", rootObjectId=" + rootObjectId + ", customAttributes=" +
+            customAttributes + ", stateFlags=" + stateFlags + "]";
+   }
+}
@@ -27,6 +27,7 @@
  */
 public class ObjectQueryResult
 {
+   private long objectId;
    private AbstractObject object;
    private Map<String, String> properties;
 
@@ -38,14 +39,39 @@
     */
    public ObjectQueryResult(AbstractObject object, Map<String, String> properties)
    {
+      this.objectId = object.getObjectId();
       this.object = object;
       this.properties = properties;
    }
 
+   /**
+    * Create new object query result for object that may not be available locally.
+    *
+    * @param objectId object ID
+    * @param object object (can be null)
+    * @param properties retrieved properties
+    */
+   public ObjectQueryResult(long objectId, AbstractObject object, Map<String, String> properties)
+   {
+      this.objectId = objectId;
+      this.object = object;
+      this.properties = properties;
+   }
+
+   /**
+    * Get object ID
+    *
+    * @return object ID
+    */
+   public long getObjectId()
+   {
+      return objectId;
+   }
+
    /**
     * Get object
     *
-    * @return the object
+    * @return the object (can be null if result was created without object)
     */
    public AbstractObject getObject()
    {
@@ -89,6 +115,6 @@ public String getPropertyValue(String name)
    @Override
    public String toString()
    {
-      return "ObjectQueryResult [object=" + object + ", properties=" + properties + "]";
+      return "ObjectQueryResult [objectId=" + objectId + ", object=" + object + ", properties=" + properties + "]";
    }
 }
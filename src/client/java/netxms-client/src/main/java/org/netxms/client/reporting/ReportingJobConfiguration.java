@@ -51,6 +51,9 @@
    @ElementList(required = false)
    public List<String> emailRecipients = new ArrayList<String>(0);
 
+   @Element(required = false)
+   public int priority = 0;
+
    /**
     * Default constructor - for XML deserialization only
     */
@@ -0,0 +1,151 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.loadtest.FakeNXCPServer;
+import org.netxms.client.loadtest.LoadGenerator;
+import org.netxms.client.loadtest.LoadGenerator.Configuration;
+import org.netxms.client.loadtest.LoadGenerator.Operation;
+import org.netxms.client.loadtest.LoadGenerator.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client library tests against built-in fake server. Throughput test runs for several seconds and is tagged as "load", so it is
+ * excluded from default build; it can be started with <code>mvn test -Pload-test</code>. Run length and load profile can be
+ * changed with system properties (see {@link Configuration#fromSystemProperties()}); minimal acceptable throughput can be set
+ * with property <code>netxms.loadtest.minThroughput</code> (operations per second).
+ */
+public class ClientLoadTest
+{
+   private static final Logger logger = LoggerFactory.getLogger(ClientLoadTest.class);
+
+   @Test
+   public void testFakeServerResponses() throws Exception
+   {
+      Configuration cfg = new Configuration();
+      cfg.objectCount = 50;
+      cfg.alarmCount = 20;
+      cfg.dciRowCount = 100;
+      cfg.fileSize = 100000; // not multiple of chunk size
+
+      FakeNXCPServer server = new FakeNXCPServer(cfg.objectCount, cfg.alarmCount, cfg.dciRowCount, cfg.fileSize);
+      server.start();
+      NXCSession session = new NXCSession(server.getAddress(), server.getPort());
+      try
+      {
+         session.connect();
+         session.login(cfg.login, cfg.password);
+         for(Operation o : Operation.values())
+         {
+            // Each operation validates response against fake server content and throws exception on mismatch
+            LoadGenerator.execute(session, o, cfg, true);
+            LoadGenerator.execute(session, o, cfg, true);
+         }
+      }
+      finally
+      {
+         session.disconnect();
+         server.stop();
+      }
+      assertEquals(0, server.getUnknownRequestCount());
+   }
+
+   @Test
+   public void testInterruptedSender() throws Exception
+   {
+      Configuration cfg = new Configuration();
+      cfg.objectCount = 10;
+      cfg.alarmCount = 10;
+      cfg.dciRowCount = 10;
+      cfg.fileSize = 10000;
+
+      FakeNXCPServer server = new FakeNXCPServer(cfg.objectCount, cfg.alarmCount, cfg.dciRowCount, cfg.fileSize);
+      server.start();
+      NXCSession session = new NXCSession(server.getAddress(), server.getPort());
+      try
+      {
+         session.connect();
+         session.login(cfg.login, cfg.password);
+
+         // Socket is backed by interruptible channel, which should not be closed by interrupt of sending thread
+         Thread.currentThread().interrupt();
+         session.sendMessage(new NXCPMessage(NXCPCodes.CMD_KEEPALIVE, 1000000L));
+         assertTrue(Thread.interrupted(), "Interrupt status was not preserved");
+
+         final AtomicReference<Exception> senderError = new AtomicReference<Exception>();
+         Thread sender = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            try
+            {
+               for(Operation o : Operation.values())
+                  LoadGenerator.execute(session, o, cfg, true);
+            }
+            catch(Exception e)
+            {
+               senderError.set(e);
+            }
+         });
+         sender.start();
+         sender.join();
+         assertNull(senderError.get());
+
+         assertTrue(session.isConnected());
+         assertTrue(session.checkConnection());
+         for(Operation o : Operation.values())
+            LoadGenerator.execute(session, o, cfg, true);
+      }
+      finally
+      {
+         session.disconnect();
+         server.stop();
+      }
+   }
+
+   @Test
+   @Tag("load")
+   public void testClientThroughput() throws Exception
+   {
+      Configuration cfg = Configuration.fromSystemProperties();
+      cfg.server = null;
+      cfg.sessions = Integer.getInteger("netxms.loadtest.sessions", 2);
+      cfg.threads = Integer.getInteger("netxms.loadtest.threads", 4);
+      cfg.warmupTime = Integer.getInteger("netxms.loadtest.warmupTime", 1);
+      cfg.duration = Integer.getInteger("netxms.loadtest.duration", 3);
+      cfg.objectCount = Integer.getInteger("netxms.loadtest.objectCount", 500);
+
+      Result result = new LoadGenerator(cfg).run();
+      logger.info("Load test results:\n" + result.getReport());
+
+      // Every response is validated against fake server content, so any mismatch is reported as error
+      assertEquals(0, result.getErrorCount());
+
+      double minThroughput = Double.parseDouble(System.getProperty("netxms.loadtest.minThroughput", "0"));
+      assertTrue(result.getThroughput() >= minThroughput,
+            String.format("Throughput %.1f ops/s is below required minimum %.1f ops/s", result.getThroughput(), minThroughput));
+   }
+}
@@ -0,0 +1,124 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.constants.DataType;
+import org.netxms.client.log.LogRecordCache;
+
+/**
+ * Tests for log record cache
+ */
+public class LogRecordCacheTest
+{
+   private static final long RECORD_COUNT = 10050;
+
+   /**
+    * Record cache with synthetic data source
+    */
+   private static class TestRecordCache extends LogRecordCache
+   {
+      int requests = 0;
+
+      TestRecordCache()
+      {
+         super(null, 100, 4);
+      }
+
+      @Override
+      public long getRecordCount()
+      {
+         return RECORD_COUNT;
+      }
+
+      @Override
+      protected Table retrieveRecords(long startRow, int rowCount, boolean refresh)
+      {
+         requests++;
+         int count = (int)Math.min(rowCount, RECORD_COUNT - startRow);
+         NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_LOG_DATA);
+         msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_COLS, 1);
+         msg.setField(NXCPCodes.VID_TABLE_COLUMN_INFO_BASE, "id");
+         msg.setFieldInt32(NXCPCodes.VID_TABLE_COLUMN_INFO_BASE + 1, DataType.INT64.getValue());
+         msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_ROWS, count);
+         msg.setFieldInt32(NXCPCodes.VID_NUM_ROWS, count);
+         for(int i = 0; i < count; i++)
+            msg.setFieldInt64(NXCPCodes.VID_TABLE_DATA_BASE + i, startRow + i);
+         return new Table(msg);
+      }
+   }
+
+   @Test
+   public void testPaging() throws Exception
+   {
+      TestRecordCache cache = new TestRecordCache();
+      assertNull(cache.getRecord(250));
+
+      List<Integer> pages = cache.getPagesToLoad(250);
+      assertEquals(1, pages.size());
+      assertEquals(2, (int)pages.get(0));
+      assertTrue(cache.getPagesToLoad(250).isEmpty()); // already pending
+
+      cache.loadPage(2, false);
+      assertEquals(250L, cache.getRecord(250).getValueAsLong(0));
+      assertEquals(1, cache.requests);
+
+      // close to page end - next page should be prefetched
+      pages = cache.getPagesToLoad(290);
+      assertEquals(1, pages.size());
+      assertEquals(3, (int)pages.get(0));
+
+      // last page is partial
+      cache.loadPage(100, false);
+      assertEquals(10049L, cache.getRecord(10049).getValueAsLong(0));
+      assertNull(cache.getRecord(10051));
+      assertTrue(cache.getPagesToLoad(10049).isEmpty());
+   }
+
+   @Test
+   public void testEviction() throws Exception
+   {
+      TestRecordCache cache = new TestRecordCache();
+      for(int i = 0; i < 10; i++)
+      {
+         cache.getRecord(i * 100);
+         cache.loadPage(i, false);
+      }
+      assertEquals(4, cache.getLoadedPageCount());
+      assertTrue(cache.isPageLoaded(9));
+      assertTrue(cache.isPageLoaded(6));
+      assertFalse(cache.isPageLoaded(0));
+
+      List<Integer> evicted = cache.takeEvictedPages();
+      assertEquals(6, evicted.size());
+      assertTrue(evicted.contains(0));
+      assertFalse(evicted.contains(9));
+      assertTrue(cache.takeEvictedPages().isEmpty());
+
+      cache.clear();
+      assertEquals(0, cache.getLoadedPageCount());
+   }
+}
@@ -0,0 +1,85 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.net.InetAddress;
+import org.junit.jupiter.api.Test;
+import org.netxms.client.objects.AbstractObject;
+import org.netxms.client.objects.queries.ObjectQueryFilter;
+
+/**
+ * Tests for class <code>ObjectQueryFilter</code>.
+ */
+public class ObjectQueryFilterTest
+{
+   @Test
+   public void testEmptyFilter()
+   {
+      ObjectQueryFilter filter = new ObjectQueryFilter();
+      assertTrue(filter.isEmpty());
+      assertTrue(filter.createQuery().endsWith("return true;\n"));
+   }
+
+   @Test
+   public void testConditions() throws Exception
+   {
+      ObjectQueryFilter filter = new ObjectQueryFilter();
+      assertTrue(filter.addObjectClass("Node"));
+      assertFalse(filter.addObjectClass("NoSuchClass"));
+      filter.setNamePattern("srv-\"*\"");
+      filter.addZone(4);
+      filter.addCustomAttribute("site", "Riga*");
+      filter.setStateFlags(0x02);
+      assertFalse(filter.isEmpty());
+
+      String query = filter.createQuery();
+      assertTrue(query.contains("($object.type == " + AbstractObject.OBJECT_NODE + ")"));
+      assertTrue(query.contains("matchPattern($object.name, \"srv-\\\"*\\\"\")"));
+      assertTrue(query.contains("($object?.zoneUIN == 4)"));
+      assertTrue(query.contains("matchPattern($object.getCustomAttribute(\"site\"), \"Riga*\")"));
+      assertTrue(query.contains("(($object.state & 2) != 0)"));
+      assertTrue(query.contains("ilike"));
+
+      filter.setRegularExpressions(true);
+      query = filter.createQuery();
+      assertTrue(query.contains("imatch"));
+      assertTrue(query.contains("\"^(?:Riga*)$\""));
+   }
+
+   @Test
+   public void testIpSubnet() throws Exception
+   {
+      ObjectQueryFilter filter = new ObjectQueryFilter();
+      filter.setIpSubnet(InetAddress.getByName("10.1.2.3"), 23);
+      assertEquals(InetAddress.getByName("10.1.2.0"), filter.getIpRangeStart());
+      assertEquals(InetAddress.getByName("10.1.3.255"), filter.getIpRangeEnd());
+
+      filter.setIpSubnet(InetAddress.getByName("192.168.1.1"), 0);
+      assertEquals(InetAddress.getByName("0.0.0.0"), filter.getIpRangeStart());
+      assertEquals(InetAddress.getByName("255.255.255.255"), filter.getIpRangeEnd());
+
+      filter.setIpSubnet(InetAddress.getByName("fd00::1234"), 64);
+      assertEquals(InetAddress.getByName("fd00::"), filter.getIpRangeStart());
+      assertEquals(InetAddress.getByName("fd00::ffff:ffff:ffff:ffff"), filter.getIpRangeEnd());
+      assertTrue(filter.createQuery().contains("AddrInRange($object.ipAddr, "));
+   }
+}
@@ -0,0 +1,219 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Comparator;
+import org.junit.jupiter.api.Test;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.constants.DataType;
+
+/**
+ * Tests for columnar table storage
+ */
+public class TableTest
+{
+   private static final String[] SEVERITIES = { "Normal", "Warning", "Minor", "Major", "Critical" };
+
+   /**
+    * Create message with table header (columns: ID as INT64, severity as STRING, message as STRING).
+    */
+   private static NXCPMessage createHeader(int totalRows, boolean extended)
+   {
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_LOG_DATA);
+      msg.setField(NXCPCodes.VID_TABLE_TITLE, "test");
+      msg.setFieldInt16(NXCPCodes.VID_TABLE_EXTENDED_FORMAT, extended ? 1 : 0);
+      msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_COLS, 3);
+      msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_ROWS, totalRows);
+      setColumn(msg, 0, "id", DataType.INT64);
+      setColumn(msg, 1, "severity", DataType.STRING);
+      setColumn(msg, 2, "message", DataType.STRING);
+      return msg;
+   }
+
+   private static void setColumn(NXCPMessage msg, int index, String name, DataType type)
+   {
+      long fieldId = NXCPCodes.VID_TABLE_COLUMN_INFO_BASE + index * 10L;
+      msg.setField(fieldId, name);
+      msg.setFieldInt32(fieldId + 1, type.getValue());
+      msg.setField(fieldId + 2, name);
+   }
+
+   /**
+    * Add rows to message in basic format.
+    */
+   private static void addRows(NXCPMessage msg, int start, int count)
+   {
+      msg.setFieldInt32(NXCPCodes.VID_NUM_ROWS, count);
+      long fieldId = NXCPCodes.VID_TABLE_DATA_BASE;
+      for(int i = start; i < start + count; i++)
+      {
+         msg.setField(fieldId++, Long.toString(1000000L + i));
+         msg.setField(fieldId++, SEVERITIES[i % SEVERITIES.length]);
+         msg.setField(fieldId++, "Event message for record " + i);
+      }
+   }
+
+   @Test
+   public void testMessageDecoding() throws Exception
+   {
+      NXCPMessage msg = createHeader(3000, false);
+      addRows(msg, 0, 2000);
+      Table table = new Table(msg);
+
+      msg = createHeader(3000, false);
+      addRows(msg, 2000, 1000);
+      table.addDataFromMessage(msg);
+
+      assertEquals(3, table.getColumnCount());
+      assertEquals(3000, table.getRowCount());
+      for(int i = 0; i < 3000; i++)
+      {
+         assertEquals(Long.toString(1000000L + i), table.getCellValue(i, 0));
+         assertEquals(1000000L + i, table.getRow(i).getValueAsLong(0));
+         assertEquals(SEVERITIES[i % SEVERITIES.length], table.getCellValue(i, 1));
+         assertEquals("Event message for record " + i, table.getRow(i).getValue(2));
+      }
+
+      assertTrue(table.getColumnData(0).isIntegerStorage());
+      assertTrue(table.getColumnData(1).isDictionaryStorage());
+      assertFalse(table.getColumnData(2).isDictionaryStorage());
+      assertNull(table.getRow(0).getValue(5));
+   }
+
+   @Test
+   public void testIrregularIntegerValues() throws Exception
+   {
+      NXCPMessage msg = createHeader(5, false);
+      msg.setFieldInt32(NXCPCodes.VID_NUM_ROWS, 5);
+      String[] ids = { "42", "", "007", "18446744073709551615", "-5" };
+      long fieldId = NXCPCodes.VID_TABLE_DATA_BASE;
+      for(int i = 0; i < ids.length; i++)
+      {
+         msg.setField(fieldId++, ids[i]);
+         msg.setField(fieldId++, "Normal");
+         msg.setField(fieldId++, "");
+      }
+
+      Table table = new Table(msg);
+      for(int i = 0; i < ids.length; i++)
+         assertEquals(ids[i], table.getCellValue(i, 0));
+      assertEquals(-5L, table.getCell(4, 0).getValueAsLong());
+      assertEquals(0L, table.getCell(1, 0).getValueAsLong());
+   }
+
+   @Test
+   public void testExtendedFormat() throws Exception
+   {
+      NXCPMessage msg = createHeader(2, true);
+      msg.setFieldInt32(NXCPCodes.VID_NUM_ROWS, 2);
+      long fieldId = NXCPCodes.VID_TABLE_DATA_BASE;
+      for(int i = 0; i < 2; i++)
+      {
+         msg.setFieldInt32(fieldId, 100 + i);
+         msg.setFieldInt32(fieldId + 1, i - 1);
+         fieldId += 10;
+         for(int j = 0; j < 3; j++)
+         {
+            msg.setField(fieldId++, Integer.toString(i * 10 + j));
+            msg.setFieldInt16(fieldId++, (i == 0) ? 65535 : j);
+            msg.setFieldInt32(fieldId++, 200 + j);
+            fieldId += 7;
+         }
+      }
+
+      Table table = new Table(msg);
+      assertEquals(100L, table.getRow(0).getObjectId());
+      assertEquals(-1, table.getRow(0).getBaseRow());
+      assertEquals(0, table.getRow(1).getBaseRow());
+      assertEquals(-1, table.getCell(0, 1).getStatus());
+      assertEquals(2, table.getCell(1, 2).getStatus());
+      assertEquals(201L, table.getCell(1, 1).getObjectId());
+      assertEquals("12", table.getCellValue(1, 2));
+   }
+
+   @Test
+   public void testModificationAndSort() throws Exception
+   {
+      NXCPMessage msg = createHeader(10, false);
+      addRows(msg, 0, 10);
+      Table table = new Table(msg);
+
+      TableRow row = table.getRow(3);
+      row.get(1).setValue("Custom");
+      assertEquals("Custom", table.getCellValue(3, 1));
+      table.setCell(4, 0, "n/a");
+      assertEquals("n/a", table.getRow(4).getValue(0));
+      assertEquals(row, table.getRow(3));
+
+      Table top = table.getFirstRows(5);
+      assertEquals(5, top.getRowCount());
+
+      table.sort(new Comparator<TableRow>() {
+         @Override
+         public int compare(TableRow r1, TableRow r2)
+         {
+            return Long.compare(r2.getValueAsLong(0), r1.getValueAsLong(0));
+         }
+      });
+      assertEquals("1000009", table.getCellValue(0, 0));
+      assertEquals("n/a", table.getCellValue(9, 0));
+      assertEquals("1000000", top.getCellValue(0, 0));
+
+      top.addRow();
+      assertEquals(6, top.getRowCount());
+      assertEquals("", top.getCellValue(5, 2));
+      assertEquals(10, table.getRowCount());
+
+      Table copy = new Table(createHeader(0, false));
+      copy.addAll(table);
+      assertEquals(10, copy.getRowCount());
+      assertEquals("Custom", copy.getCellValue(5, 1));
+   }
+
+   @Test
+   public void testFirstRowsIsolation() throws Exception
+   {
+      NXCPMessage msg = createHeader(10, false);
+      addRows(msg, 0, 10);
+      Table table = new Table(msg);
+
+      Table top = table.getFirstRows(5);
+      Table top2 = table.getFirstRows(3);
+      table.setCell(0, 1, "Changed");
+      assertEquals("Changed", table.getCellValue(0, 1));
+      assertEquals("Normal", top.getCellValue(0, 1));
+      assertEquals("Normal", top2.getCellValue(0, 1));
+
+      top.getRow(1).get(2).setValue("Top only");
+      assertEquals("Top only", top.getCellValue(1, 2));
+      assertEquals("Event message for record 1", table.getCellValue(1, 2));
+      assertEquals("Event message for record 1", top2.getCellValue(1, 2));
+
+      // Last table holding shared data modifies it in place
+      top2.setCell(2, 0, "n/a");
+      assertEquals("n/a", top2.getCellValue(2, 0));
+      assertEquals("1000002", table.getCellValue(2, 0));
+      assertEquals("1000002", top.getCellValue(2, 0));
+   }
+}
@@ -0,0 +1,478 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.loadtest;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPException;
+import org.netxms.base.NXCPMessage;
+import org.netxms.base.NXCPMessageReceiver;
+import org.netxms.client.ProtocolVersion;
+import org.netxms.client.constants.DataType;
+import org.netxms.client.constants.RCC;
+import org.netxms.client.objects.AbstractObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Minimal stand-in for NetXMS server that answers client requests with canned responses. Only requests needed for load
+ * generation are implemented (server info, login, object synchronization, alarm list, DCI data, server file download);
+ * any other request is answered with success code. All responses are serialized once at startup and only message ID is
+ * patched when sending, so server side overhead is small compared to client side processing.
+ */
+public class FakeNXCPServer
+{
+   private static final Logger logger = LoggerFactory.getLogger(FakeNXCPServer.class);
+
+   private static final int FILE_CHUNK_SIZE = 32768;
+
+   private final int objectCount;
+   private final int alarmCount;
+   private final int dciRowCount;
+   private final int fileSize;
+   private ServerSocket serverSocket;
+   private Thread listenerThread;
+   private final List<Connection> connections = new ArrayList<Connection>();
+   private final AtomicLong requestCount = new AtomicLong();
+   private final AtomicLong unknownRequestCount = new AtomicLong();
+   private volatile boolean running = false;
+
+   private byte[] serverInfo;
+   private byte[] loginResponse;
+   private byte[] successResponse;
+   private byte[] objectCategories;
+   private byte[][] objects;
+   private byte[] objectListEnd;
+   private byte[][] alarms;
+   private byte[] dciData;
+   private byte[][] fileChunks;
+
+   /**
+    * Create server.
+    *
+    * @param objectCount number of objects sent on object synchronization
+    * @param alarmCount number of active alarms
+    * @param dciRowCount number of rows returned for DCI data request
+    * @param fileSize size of file returned for server file download request
+    */
+   public FakeNXCPServer(int objectCount, int alarmCount, int dciRowCount, int fileSize)
+   {
+      this.objectCount = objectCount;
+      this.alarmCount = alarmCount;
+      this.dciRowCount = dciRowCount;
+      this.fileSize = fileSize;
+   }
+
+   /**
+    * Prepare canned responses and start listening on loopback interface on random port.
+    *
+    * @throws IOException if server socket cannot be created
+    */
+   public void start() throws IOException
+   {
+      prepareResponses();
+      serverSocket = new ServerSocket();
+      serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      running = true;
+      listenerThread = new Thread(() -> {
+         while(running)
+         {
+            try
+            {
+               Socket socket = serverSocket.accept();
+               socket.setTcpNoDelay(true);
+               Connection c = new Connection(socket);
+               synchronized(connections)
+               {
+                  connections.add(c);
+               }
+               c.start();
+            }
+            catch(IOException e)
+            {
+               if (running)
+                  logger.error("Error accepting client connection", e);
+            }
+         }
+      }, "FakeNXCPServer-Listener");
+      listenerThread.setDaemon(true);
+      listenerThread.start();
+   }
+
+   /**
+    * Stop server and close all connections.
+    */
+   public void stop()
+   {
+      running = false;
+      try
+      {
+         serverSocket.close();
+      }
+      catch(IOException e)
+      {
+      }
+      synchronized(connections)
+      {
+         for(Connection c : connections)
+            c.close();
+         connections.clear();
+      }
+   }
+
+   /**
+    * @return server address
+    */
+   public String getAddress()
+   {
+      return serverSocket.getInetAddress().getHostAddress();
+   }
+
+   /**
+    * @return server port
+    */
+   public int getPort()
+   {
+      return serverSocket.getLocalPort();
+   }
+
+   /**
+    * @return number of requests processed
+    */
+   public long getRequestCount()
+   {
+      return requestCount.get();
+   }
+
+   /**
+    * @return number of requests with unknown command code (answered with success code)
+    */
+   public long getUnknownRequestCount()
+   {
+      return unknownRequestCount.get();
+   }
+
+   /**
+    * @return number of objects sent on object synchronization
+    */
+   public int getObjectCount()
+   {
+      return objectCount;
+   }
+
+   /**
+    * @return number of active alarms
+    */
+   public int getAlarmCount()
+   {
+      return alarmCount;
+   }
+
+   /**
+    * @return number of rows returned for DCI data request
+    */
+   public int getDciRowCount()
+   {
+      return dciRowCount;
+   }
+
+   /**
+    * @return size of file returned for server file download request
+    */
+   public int getFileSize()
+   {
+      return fileSize;
+   }
+
+   /**
+    * Serialize all canned responses.
+    *
+    * @throws IOException on serialization error
+    */
+   private void prepareResponses() throws IOException
+   {
+      Random rnd = new Random(1);
+
+      NXCPMessage msg = createResponse();
+      long[] versions = new long[] { ProtocolVersion.BASE, ProtocolVersion.ALARMS, ProtocolVersion.PUSH, ProtocolVersion.TRAP,
+            ProtocolVersion.MOBILE, ProtocolVersion.FULL, ProtocolVersion.TCPPROXY, ProtocolVersion.SCHEDULER };
+      msg.setField(NXCPCodes.VID_PROTOCOL_VERSION_EX, versions);
+      msg.setFieldInt32(NXCPCodes.VID_PROTOCOL_VERSION, ProtocolVersion.BASE);
+      msg.setField(NXCPCodes.VID_SERVER_VERSION, "5.1.0");
+      msg.setField(NXCPCodes.VID_SERVER_BUILD, "loadtest");
+      msg.setFieldInt64(NXCPCodes.VID_SERVER_ID, 0x4C4F4144L);
+      msg.setField(NXCPCodes.VID_TIMEZONE, "UTC");
+      msg.setFieldInt64(NXCPCodes.VID_TIMESTAMP, System.currentTimeMillis() / 1000);
+      serverInfo = msg.createNXCPMessage(false);
+
+      msg = createResponse();
+      msg.setFieldInt32(NXCPCodes.VID_USER_ID, 1);
+      msg.setFieldInt32(NXCPCodes.VID_SESSION_ID, 1);
+      msg.setFieldInt64(NXCPCodes.VID_USER_SYS_RIGHTS, 0xFFFFFFFFFFFFL);
+      msg.setField(NXCPCodes.VID_SERVER_NAME, "loadtest");
+      loginResponse = msg.createNXCPMessage(false);
+
+      successResponse = createResponse().createNXCPMessage(false);
+
+      msg = createResponse();
+      msg.setFieldInt32(NXCPCodes.VID_NUM_ELEMENTS, 0);
+      objectCategories = msg.createNXCPMessage(false);
+
+      // Objects: one container with all nodes as children
+      final long containerId = 100;
+      objects = new byte[objectCount + 1][];
+      msg = new NXCPMessage(NXCPCodes.CMD_OBJECT, 0);
+      setCommonObjectFields(msg, containerId, AbstractObject.OBJECT_CONTAINER, "Nodes", rnd);
+      msg.setFieldInt32(NXCPCodes.VID_PARENT_CNT, 0);
+      msg.setFieldInt32(NXCPCodes.VID_CHILD_CNT, objectCount);
+      for(int i = 0; i < objectCount; i++)
+         msg.setFieldInt32(NXCPCodes.VID_CHILD_ID_BASE + i, (int)containerId + i + 1);
+      objects[0] = msg.createNXCPMessage(false);
+      for(int i = 0; i < objectCount; i++)
+      {
+         msg = new NXCPMessage(NXCPCodes.CMD_OBJECT, 0);
+         setCommonObjectFields(msg, containerId + i + 1, AbstractObject.OBJECT_NODE, "node-" + i, rnd);
+         msg.setFieldInt32(NXCPCodes.VID_PARENT_CNT, 1);
+         msg.setFieldInt32(NXCPCodes.VID_PARENT_ID_BASE, (int)containerId);
+         msg.setFieldInt32(NXCPCodes.VID_CHILD_CNT, 0);
+         msg.setField(NXCPCodes.VID_IP_ADDRESS, InetAddress.getByAddress(new byte[] { 10, (byte)(i >> 16), (byte)(i >> 8), (byte)i }));
+         msg.setField(NXCPCodes.VID_PRIMARY_NAME, "node-" + i + ".example.com");
+         msg.setField(NXCPCodes.VID_SNMP_OID, ".1.3.6.1.4.1.9.1." + rnd.nextInt(3000));
+         msg.setField(NXCPCodes.VID_SYS_DESCRIPTION, "Cisco IOS Software, C2960 Software (C2960-LANBASEK9-M), Version 12.2(55)SE");
+         objects[i + 1] = msg.createNXCPMessage(false);
+      }
+      objectListEnd = new NXCPMessage(NXCPCodes.CMD_OBJECT_LIST_END, 0).createNXCPMessage(false);
+
+      alarms = new byte[alarmCount + 1][];
+      for(int i = 0; i < alarmCount; i++)
+      {
+         msg = new NXCPMessage(NXCPCodes.CMD_ALARM_DATA, 0);
+         msg.setFieldInt32(NXCPCodes.VID_ALARM_ID, i + 1);
+         msg.setFieldInt32(NXCPCodes.VID_OBJECT_ID, (int)containerId + 1 + rnd.nextInt(Math.max(objectCount, 1)));
+         msg.setFieldInt16(NXCPCodes.VID_CURRENT_SEVERITY, rnd.nextInt(5));
+         msg.setFieldInt16(NXCPCodes.VID_ORIGINAL_SEVERITY, rnd.nextInt(5));
+         msg.setFieldInt16(NXCPCodes.VID_STATE, 0);
+         msg.setFieldInt32(NXCPCodes.VID_EVENT_CODE, 28);
+         msg.setFieldInt32(NXCPCodes.VID_REPEAT_COUNT, 1 + rnd.nextInt(10));
+         msg.setFieldInt64(NXCPCodes.VID_CREATION_TIME, 1700000000L + i);
+         msg.setFieldInt64(NXCPCodes.VID_LAST_CHANGE_TIME, 1700000000L + i);
+         msg.setField(NXCPCodes.VID_ALARM_KEY, "IF_DOWN_" + i);
+         msg.setField(NXCPCodes.VID_ALARM_MESSAGE, "Interface \"GigabitEthernet0/" + rnd.nextInt(48) + "\" changed state to DOWN");
+         msg.setField(NXCPCodes.VID_RULE_ID, new UUID(rnd.nextLong(), rnd.nextLong()));
+         alarms[i] = msg.createNXCPMessage(false);
+      }
+      msg = new NXCPMessage(NXCPCodes.CMD_ALARM_DATA, 0);
+      msg.setFieldInt32(NXCPCodes.VID_ALARM_ID, 0); // end of list indicator
+      alarms[alarmCount] = msg.createNXCPMessage(false);
+
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(buffer);
+      out.writeInt(dciRowCount);
+      out.writeShort(DataType.FLOAT.getValue());
+      out.writeShort(0);
+      for(int i = 0; i < dciRowCount; i++)
+      {
+         out.writeInt(1700000000 - i * 60);
+         out.writeDouble(rnd.nextDouble() * 100.0);
+      }
+      out.close();
+      msg = new NXCPMessage(NXCPCodes.CMD_DCI_DATA, 0);
+      msg.setBinaryMessage(true);
+      msg.setBinaryData(buffer.toByteArray());
+      dciData = msg.createNXCPMessage(false);
+
+      int chunkCount = Math.max((fileSize + FILE_CHUNK_SIZE - 1) / FILE_CHUNK_SIZE, 1);
+      fileChunks = new byte[chunkCount][];
+      for(int i = 0; i < chunkCount; i++)
+      {
+         byte[] data = new byte[Math.min(FILE_CHUNK_SIZE, fileSize - i * FILE_CHUNK_SIZE)];
+         rnd.nextBytes(data);
+         msg = new NXCPMessage(NXCPCodes.CMD_FILE_DATA, 0);
+         msg.setBinaryMessage(true);
+         msg.setBinaryData(data);
+         msg.setEndOfFile(i == chunkCount - 1);
+         fileChunks[i] = msg.createNXCPMessage(false);
+      }
+   }
+
+   /**
+    * Create CMD_REQUEST_COMPLETED message with success code.
+    */
+   private static NXCPMessage createResponse()
+   {
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, 0);
+      msg.setFieldInt32(NXCPCodes.VID_RCC, RCC.SUCCESS);
+      return msg;
+   }
+
+   /**
+    * Set fields common for all object classes.
+    */
+   private static void setCommonObjectFields(NXCPMessage msg, long id, int objectClass, String name, Random rnd)
+   {
+      msg.setFieldInt32(NXCPCodes.VID_OBJECT_ID, (int)id);
+      msg.setFieldInt16(NXCPCodes.VID_OBJECT_CLASS, objectClass);
+      msg.setField(NXCPCodes.VID_OBJECT_NAME, name);
+      msg.setField(NXCPCodes.VID_GUID, new UUID(rnd.nextLong(), rnd.nextLong()));
+      msg.setFieldInt16(NXCPCodes.VID_OBJECT_STATUS, rnd.nextInt(5));
+      msg.setField(NXCPCodes.VID_COMMENTS, "Object created by load test");
+      msg.setFieldInt32(NXCPCodes.VID_NUM_CUSTOM_ATTRIBUTES, 2);
+      msg.setField(NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE, "location");
+      msg.setField(NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE + 1, "Rack " + rnd.nextInt(100));
+      msg.setFieldInt32(NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE + 2, 0);
+      msg.setField(NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE + 3, "owner");
+      msg.setField(NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE + 4, "netops");
+      msg.setFieldInt32(NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE + 5, 0);
+   }
+
+   /**
+    * Client connection
+    */
+   private class Connection extends Thread
+   {
+      private final Socket socket;
+      private OutputStream out;
+
+      Connection(Socket socket)
+      {
+         super("FakeNXCPServer-Session");
+         setDaemon(true);
+         this.socket = socket;
+      }
+
+      @Override
+      public void run()
+      {
+         NXCPMessageReceiver receiver = new NXCPMessageReceiver(65536, 4 * 1024 * 1024);
+         try
+         {
+            InputStream in = socket.getInputStream();
+            out = new BufferedOutputStream(socket.getOutputStream(), 65536);
+            while(running)
+            {
+               NXCPMessage request = receiver.receiveMessage(in, null);
+               requestCount.incrementAndGet();
+               processRequest(request);
+            }
+         }
+         catch(IOException | NXCPException e)
+         {
+            // connection closed by client
+         }
+         finally
+         {
+            close();
+            synchronized(connections)
+            {
+               connections.remove(this);
+            }
+         }
+      }
+
+      /**
+       * Process single request.
+       */
+      private void processRequest(NXCPMessage request) throws IOException
+      {
+         long id = request.getMessageId();
+         switch(request.getMessageCode())
+         {
+            case NXCPCodes.CMD_GET_SERVER_INFO:
+               send(serverInfo, id);
+               break;
+            case NXCPCodes.CMD_LOGIN:
+               send(loginResponse, id);
+               break;
+            case NXCPCodes.CMD_GET_OBJECT_CATEGORIES:
+               send(objectCategories, id);
+               break;
+            case NXCPCodes.CMD_GET_OBJECTS:
+               send(successResponse, id);
+               for(byte[] o : objects)
+                  send(o, id);
+               send(objectListEnd, id);
+               break;
+            case NXCPCodes.CMD_GET_ALL_ALARMS:
+               for(byte[] a : alarms)
+                  send(a, id);
+               break;
+            case NXCPCodes.CMD_GET_DCI_DATA:
+               send(successResponse, id);
+               send(dciData, id);
+               break;
+            case NXCPCodes.CMD_GET_SERVER_FILE:
+               send(successResponse, id);
+               for(byte[] c : fileChunks)
+                  send(c, id);
+               break;
+            case NXCPCodes.CMD_REQUEST_ENCRYPTION:
+            case NXCPCodes.CMD_KEEPALIVE:
+            case NXCPCodes.CMD_CHANGE_SUBSCRIPTION:
+               send(successResponse, id);
+               break;
+            default:
+               unknownRequestCount.incrementAndGet();
+               send(successResponse, id);
+               break;
+         }
+         out.flush();
+      }
+
+      /**
+       * Send pre-serialized message with given message ID.
+       */
+      private void send(byte[] template, long id) throws IOException
+      {
+         byte[] msg = template.clone();
+         msg[8] = (byte)(id >> 24);
+         msg[9] = (byte)(id >> 16);
+         msg[10] = (byte)(id >> 8);
+         msg[11] = (byte)id;
+         out.write(msg);
+      }
+
+      /**
+       * Close connection.
+       */
+      void close()
+      {
+         try
+         {
+            socket.close();
+         }
+         catch(IOException e)
+         {
+         }
+      }
+   }
+}
@@ -0,0 +1,116 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Records operation latencies. Each worker thread should use its own instance; instances are merged after the run.
+ */
+public class LatencyRecorder
+{
+   private long[] samples = new long[4096];
+   private int count = 0;
+   private long errors = 0;
+   private boolean sorted = true;
+
+   /**
+    * Record successful operation.
+    *
+    * @param nanos operation latency in nanoseconds
+    */
+   public void record(long nanos)
+   {
+      if (count == samples.length)
+         samples = Arrays.copyOf(samples, samples.length * 2);
+      samples[count++] = nanos;
+      sorted = false;
+   }
+
+   /**
+    * Record failed operation.
+    */
+   public void recordError()
+   {
+      errors++;
+   }
+
+   /**
+    * Merge samples from other recorder into this one.
+    *
+    * @param other other recorder
+    */
+   public void merge(LatencyRecorder other)
+   {
+      if (count + other.count > samples.length)
+         samples = Arrays.copyOf(samples, count + other.count);
+      System.arraycopy(other.samples, 0, samples, count, other.count);
+      count += other.count;
+      errors += other.errors;
+      sorted = false;
+   }
+
+   /**
+    * @return number of successful operations
+    */
+   public int getCount()
+   {
+      return count;
+   }
+
+   /**
+    * @return number of failed operations
+    */
+   public long getErrors()
+   {
+      return errors;
+   }
+
+   /**
+    * Get latency at given percentile.
+    *
+    * @param percentile percentile (0 - 100)
+    * @return latency in nanoseconds or 0 if there are no samples
+    */
+   public long getPercentile(double percentile)
+   {
+      if (count == 0)
+         return 0;
+      if (!sorted)
+      {
+         Arrays.sort(samples, 0, count);
+         sorted = true;
+      }
+      int index = (int)Math.ceil(percentile / 100.0 * count) - 1;
+      return samples[Math.max(0, Math.min(index, count - 1))];
+   }
+
+   /**
+    * @return mean latency in nanoseconds or 0 if there are no samples
+    */
+   public long getMean()
+   {
+      if (count == 0)
+         return 0;
+      long sum = 0;
+      for(int i = 0; i < count; i++)
+         sum += samples[i];
+      return sum / count;
+   }
+}
@@ -0,0 +1,512 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.loadtest;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import org.netxms.client.NXCSession;
+import org.netxms.client.constants.HistoricalDataType;
+import org.netxms.client.datacollection.DciData;
+
+/**
+ * Load generator for client library. Opens given number of real client sessions to either built-in fake server or real
+ * NetXMS server, and runs mix of requests from configured number of threads for given time. Reports throughput, latency
+ * percentiles, GC activity and allocation rate.
+ * <p>
+ * Can be started directly (configuration is taken from system properties, see {@link Configuration#fromSystemProperties()})
+ * or from unit test. When running against built-in fake server, every response is checked against known server content and
+ * mismatch is counted as error.
+ */
+public class LoadGenerator
+{
+   /**
+    * Operations
+    */
+   public enum Operation
+   {
+      SYNC_OBJECTS, GET_ALARMS, GET_DCI_DATA, DOWNLOAD_FILE
+   }
+
+   /**
+    * Load generator configuration
+    */
+   public static class Configuration
+   {
+      public String server = null; // null means built-in fake server
+      public int port = 4701;
+      public String login = "admin";
+      public String password = "";
+      public int sessions = 4;
+      public int threads = 8;
+      public int warmupTime = 5; // seconds
+      public int duration = 30; // seconds
+      public int objectCount = 2000;
+      public int alarmCount = 500;
+      public int dciRowCount = 1000;
+      public int fileSize = 256 * 1024;
+      public long nodeId = 101;
+      public long dciId = 1;
+      public String fileName = "loadtest.bin";
+      public final Map<Operation, Integer> weights = new EnumMap<Operation, Integer>(Operation.class);
+
+      public Configuration()
+      {
+         weights.put(Operation.SYNC_OBJECTS, 1);
+         weights.put(Operation.GET_ALARMS, 10);
+         weights.put(Operation.GET_DCI_DATA, 40);
+         weights.put(Operation.DOWNLOAD_FILE, 2);
+      }
+
+      /**
+       * Create configuration from system properties. Properties have prefix <code>netxms.loadtest.</code> and same name as
+       * configuration fields (for example, <code>netxms.loadtest.threads</code>). Operation weights are set with properties
+       * <code>netxms.loadtest.weight.OPERATION</code> (for example, <code>netxms.loadtest.weight.GET_ALARMS</code>).
+       *
+       * @return configuration
+       */
+      public static Configuration fromSystemProperties()
+      {
+         Configuration c = new Configuration();
+         c.server = System.getProperty("netxms.loadtest.server", c.server);
+         c.port = Integer.getInteger("netxms.loadtest.port", c.port);
+         c.login = System.getProperty("netxms.loadtest.login", c.login);
+         c.password = System.getProperty("netxms.loadtest.password", c.password);
+         c.sessions = Integer.getInteger("netxms.loadtest.sessions", c.sessions);
+         c.threads = Integer.getInteger("netxms.loadtest.threads", c.threads);
+         c.warmupTime = Integer.getInteger("netxms.loadtest.warmupTime", c.warmupTime);
+         c.duration = Integer.getInteger("netxms.loadtest.duration", c.duration);
+         c.objectCount = Integer.getInteger("netxms.loadtest.objectCount", c.objectCount);
+         c.alarmCount = Integer.getInteger("netxms.loadtest.alarmCount", c.alarmCount);
+         c.dciRowCount = Integer.getInteger("netxms.loadtest.dciRowCount", c.dciRowCount);
+         c.fileSize = Integer.getInteger("netxms.loadtest.fileSize", c.fileSize);
+         c.nodeId = Long.getLong("netxms.loadtest.nodeId", c.nodeId);
+         c.dciId = Long.getLong("netxms.loadtest.dciId", c.dciId);
+         c.fileName = System.getProperty("netxms.loadtest.fileName", c.fileName);
+         for(Operation o : Operation.values())
+            c.weights.put(o, Integer.getInteger("netxms.loadtest.weight." + o.name(), c.weights.get(o)));
+         return c;
+      }
+   }
+
+   /**
+    * Load test result
+    */
+   public static class Result
+   {
+      private final Map<Operation, LatencyRecorder> operations = new EnumMap<Operation, LatencyRecorder>(Operation.class);
+      private final LatencyRecorder login = new LatencyRecorder();
+      private final LatencyRecorder total = new LatencyRecorder();
+      private double duration;
+      private long gcCount;
+      private long gcTime;
+      private long allocatedBytes = -1;
+
+      /**
+       * @return measurement duration in seconds
+       */
+      public double getDuration()
+      {
+         return duration;
+      }
+
+      /**
+       * @return total number of successful operations
+       */
+      public long getOperationCount()
+      {
+         return total.getCount();
+      }
+
+      /**
+       * @return total number of failed operations (including failed logins)
+       */
+      public long getErrorCount()
+      {
+         return total.getErrors() + login.getErrors();
+      }
+
+      /**
+       * @return total throughput (operations per second)
+       */
+      public double getThroughput()
+      {
+         return (duration > 0) ? total.getCount() / duration : 0;
+      }
+
+      /**
+       * Get latency recorder for given operation.
+       *
+       * @param operation operation
+       * @return latency recorder
+       */
+      public LatencyRecorder getOperation(Operation operation)
+      {
+         return operations.get(operation);
+      }
+
+      /**
+       * @return number of garbage collections during measurement
+       */
+      public long getGcCount()
+      {
+         return gcCount;
+      }
+
+      /**
+       * @return time spent in garbage collection during measurement (milliseconds)
+       */
+      public long getGcTime()
+      {
+         return gcTime;
+      }
+
+      /**
+       * @return allocation rate in bytes per second or -1 if not supported by JVM
+       */
+      public double getAllocationRate()
+      {
+         return ((allocatedBytes >= 0) && (duration > 0)) ? allocatedBytes / duration : -1;
+      }
+
+      /**
+       * Create text report.
+       *
+       * @return multi-line report
+       */
+      public String getReport()
+      {
+         StringBuilder sb = new StringBuilder();
+         sb.append(String.format(Locale.US, "%-14s %10s %10s %8s %9s %9s %9s %9s %9s%n", "Operation", "Count", "Ops/s", "Errors",
+               "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms"));
+         for(Operation o : Operation.values())
+            appendLine(sb, o.name(), operations.get(o));
+         appendLine(sb, "TOTAL", total);
+         appendLine(sb, "LOGIN", login);
+         sb.append(String.format(Locale.US, "Duration: %.1f s; GC: %d collections, %d ms (%.2f%%); allocation rate: %s", duration,
+               gcCount, gcTime, (duration > 0) ? gcTime / (duration * 10.0) : 0.0,
+               (allocatedBytes >= 0) ? String.format(Locale.US, "%.1f MB/s, %.1f KB/op", getAllocationRate() / 1048576.0,
+                     (total.getCount() > 0) ? allocatedBytes / 1024.0 / total.getCount() : 0.0) : "n/a"));
+         return sb.toString();
+      }
+
+      /**
+       * Add single report line.
+       */
+      private void appendLine(StringBuilder sb, String name, LatencyRecorder r)
+      {
+         sb.append(String.format(Locale.US, "%-14s %10d %10.1f %8d %9.3f %9.3f %9.3f %9.3f %9.3f%n", name, r.getCount(),
+               (r != login) && (duration > 0) ? r.getCount() / duration : 0.0, r.getErrors(), r.getMean() / 1e6,
+               r.getPercentile(50) / 1e6, r.getPercentile(90) / 1e6, r.getPercentile(99) / 1e6, r.getPercentile(100) / 1e6));
+      }
+   }
+
+   private final Configuration cfg;
+   private volatile boolean measuring = false;
+   private volatile boolean stop = false;
+
+   /**
+    * Create load generator.
+    *
+    * @param cfg configuration
+    */
+   public LoadGenerator(Configuration cfg)
+   {
+      this.cfg = cfg;
+   }
+
+   /**
+    * Run load test.
+    *
+    * @return test result
+    * @throws Exception on setup error
+    */
+   public Result run() throws Exception
+   {
+      FakeNXCPServer fakeServer = null;
+      String address = cfg.server;
+      int port = cfg.port;
+      if (address == null)
+      {
+         fakeServer = new FakeNXCPServer(cfg.objectCount, cfg.alarmCount, cfg.dciRowCount, cfg.fileSize);
+         fakeServer.start();
+         address = fakeServer.getAddress();
+         port = fakeServer.getPort();
+      }
+
+      Result result = new Result();
+      List<NXCSession> sessions = new ArrayList<NXCSession>(cfg.sessions);
+      try
+      {
+         for(int i = 0; i < cfg.sessions; i++)
+         {
+            NXCSession session = new NXCSession(address, port);
+            session.setClientInfo("nxloadtest");
+            long start = System.nanoTime();
+            try
+            {
+               session.connect();
+               session.login(cfg.login, cfg.password);
+               result.login.record(System.nanoTime() - start);
+               sessions.add(session);
+            }
+            catch(Exception e)
+            {
+               result.login.recordError();
+               session.disconnect();
+               throw e;
+            }
+         }
+
+         final List<Map<Operation, LatencyRecorder>> recorders = new ArrayList<Map<Operation, LatencyRecorder>>(cfg.threads);
+         final CountDownLatch finished = new CountDownLatch(cfg.threads);
+         final List<Thread> workers = new ArrayList<Thread>(cfg.threads);
+         for(int i = 0; i < cfg.threads; i++)
+         {
+            final Map<Operation, LatencyRecorder> r = new EnumMap<Operation, LatencyRecorder>(Operation.class);
+            for(Operation o : Operation.values())
+               r.put(o, new LatencyRecorder());
+            recorders.add(r);
+            final NXCSession session = sessions.get(i % sessions.size());
+            final Random random = new Random(i);
+            Thread t = new Thread(() -> {
+               try
+               {
+                  workerLoop(session, r, random);
+               }
+               finally
+               {
+                  finished.countDown();
+               }
+            }, "LoadGenerator-Worker-" + i);
+            t.setDaemon(true);
+            workers.add(t);
+         }
+
+         for(Thread t : workers)
+            t.start();
+         Thread.sleep(cfg.warmupTime * 1000L);
+
+         Map<Long, Long> allocationSnapshot = getAllocatedBytes();
+         long gcCountSnapshot = getGcCount();
+         long gcTimeSnapshot = getGcTime();
+         long startTime = System.nanoTime();
+         measuring = true;
+
+         Thread.sleep(cfg.duration * 1000L);
+
+         measuring = false;
+         result.duration = (System.nanoTime() - startTime) / 1e9;
+         result.gcCount = getGcCount() - gcCountSnapshot;
+         result.gcTime = getGcTime() - gcTimeSnapshot;
+         if (allocationSnapshot != null)
+         {
+            long allocated = 0;
+            for(Map.Entry<Long, Long> e : getAllocatedBytes().entrySet())
+            {
+               Long prev = allocationSnapshot.get(e.getKey());
+               allocated += e.getValue() - ((prev != null) ? prev : 0);
+            }
+            result.allocatedBytes = allocated;
+         }
+
+         stop = true;
+         finished.await();
+
+         for(Operation o : Operation.values())
+         {
+            LatencyRecorder merged = new LatencyRecorder();
+            for(Map<Operation, LatencyRecorder> r : recorders)
+               merged.merge(r.get(o));
+            result.operations.put(o, merged);
+            result.total.merge(merged);
+         }
+      }
+      finally
+      {
+         for(NXCSession s : sessions)
+            s.disconnect();
+         if (fakeServer != null)
+            fakeServer.stop();
+      }
+      return result;
+   }
+
+   /**
+    * Worker thread main loop.
+    */
+   private void workerLoop(NXCSession session, Map<Operation, LatencyRecorder> recorders, Random random)
+   {
+      Operation[] operations = Operation.values();
+      int totalWeight = 0;
+      for(Operation o : operations)
+         totalWeight += cfg.weights.get(o);
+      if (totalWeight <= 0)
+         return;
+
+      while(!stop)
+      {
+         int n = random.nextInt(totalWeight);
+         Operation operation = null;
+         for(Operation o : operations)
+         {
+            n -= cfg.weights.get(o);
+            if (n < 0)
+            {
+               operation = o;
+               break;
+            }
+         }
+
+         boolean record = measuring;
+         long start = System.nanoTime();
+         try
+         {
+            execute(session, operation, cfg, cfg.server == null);
+            if (record)
+               recorders.get(operation).record(System.nanoTime() - start);
+         }
+         catch(Exception e)
+         {
+            if (record)
+               recorders.get(operation).recordError();
+         }
+      }
+   }
+
+   /**
+    * Execute single operation. If <code>validate</code> is set, response is checked against content of built-in fake server
+    * created with same configuration.
+    *
+    * @param session client session
+    * @param operation operation to execute
+    * @param cfg configuration
+    * @param validate true to validate response
+    * @throws Exception on communication error or if response does not match expected content
+    */
+   public static void execute(NXCSession session, Operation operation, Configuration cfg, boolean validate) throws Exception
+   {
+      switch(operation)
+      {
+         case SYNC_OBJECTS:
+            session.syncObjects();
+            // All nodes plus container
+            if (validate)
+               checkResult(operation, cfg.objectCount + 1, session.getAllObjects().size());
+            break;
+         case GET_ALARMS:
+            int alarms = session.getAlarms().size();
+            if (validate)
+               checkResult(operation, cfg.alarmCount, alarms);
+            break;
+         case GET_DCI_DATA:
+            DciData data = session.getCollectedData(cfg.nodeId, cfg.dciId, null, null, cfg.dciRowCount, HistoricalDataType.PROCESSED);
+            if (validate)
+               checkResult(operation, cfg.dciRowCount, data.getValues().length);
+            break;
+         case DOWNLOAD_FILE:
+            File file = session.downloadFileFromServer(cfg.fileName);
+            long size = (file != null) ? file.length() : -1;
+            if (file != null)
+               file.delete();
+            if (validate)
+               checkResult(operation, cfg.fileSize, size);
+            break;
+      }
+   }
+
+   /**
+    * Check that operation returned expected number of elements.
+    */
+   private static void checkResult(Operation operation, long expected, long actual)
+   {
+      if (expected != actual)
+         throw new IllegalStateException(String.format("%s: expected %d elements, got %d", operation, expected, actual));
+   }
+
+   /**
+    * Get total number of garbage collections.
+    */
+   private static long getGcCount()
+   {
+      long count = 0;
+      for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+         count += Math.max(gc.getCollectionCount(), 0);
+      return count;
+   }
+
+   /**
+    * Get total time spent in garbage collection in milliseconds.
+    */
+   private static long getGcTime()
+   {
+      long time = 0;
+      for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+         time += Math.max(gc.getCollectionTime(), 0);
+      return time;
+   }
+
+   /**
+    * Get number of bytes allocated by each live thread.
+    *
+    * @return map of thread ID to allocated bytes or null if not supported by JVM
+    */
+   private static Map<Long, Long> getAllocatedBytes()
+   {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (!(bean instanceof com.sun.management.ThreadMXBean))
+         return null;
+      com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+      if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled())
+         return null;
+      long[] ids = sunBean.getAllThreadIds();
+      long[] bytes = sunBean.getThreadAllocatedBytes(ids);
+      Map<Long, Long> result = new HashMap<Long, Long>(ids.length);
+      for(int i = 0; i < ids.length; i++)
+      {
+         if (bytes[i] >= 0)
+            result.put(ids[i], bytes[i]);
+      }
+      return result;
+   }
+
+   /**
+    * Entry point for running load test manually.
+    *
+    * @param args command line arguments (ignored, configuration is taken from system properties)
+    * @throws Exception on error
+    */
+   public static void main(String[] args) throws Exception
+   {
+      Configuration cfg = Configuration.fromSystemProperties();
+      System.out.println(String.format("Running load test: %d sessions, %d threads, %d s warmup, %d s measurement, server %s",
+            cfg.sessions, cfg.threads, cfg.warmupTime, cfg.duration, (cfg.server != null) ? cfg.server + ":" + cfg.port : "built-in"));
+      System.out.println(new LoadGenerator(cfg).run().getReport());
+      System.exit(0);
+   }
+}
@@ -31,6 +31,7 @@
    private String host = "127.0.0.1";
    private int port = 4701;
    private boolean enableCompression;
+   private boolean enableResponseCompression = true;
    private long sessionTimeout = 300000;
 
    /**
@@ -50,6 +51,7 @@ public ApiProperties()
             port = getIntProperty("netxms.server.port", 4701);
             enableCompression = getBooleanProperty("netxms.server.enableCompression", true);
             sessionTimeout = getIntProperty("session.timeout", 300) * 1000;
+            enableResponseCompression = getBooleanProperty("response.enableCompression", true);
          }
       }
       catch(Exception e)
@@ -145,4 +147,14 @@ public long getSessionTimeout()
    {
       return sessionTimeout;
    }
+
+   /**
+    * Check if gzip compression of REST responses is enabled (used only if client accepts it).
+    *
+    * @return true if gzip compression of REST responses is enabled
+    */
+   public boolean isResponseCompressionEnabled()
+   {
+      return enableResponseCompression;
+   }
 }
@@ -36,11 +36,14 @@
 import org.netxms.websvc.SessionStore;
 import org.netxms.websvc.SessionToken;
 import org.netxms.websvc.WebSvcStatusService;
+import org.netxms.websvc.json.JsonStreamRepresentation;
 import org.netxms.websvc.json.JsonTools;
 import org.restlet.Application;
 import org.restlet.data.CookieSetting;
+import org.restlet.data.Encoding;
 import org.restlet.data.Header;
 import org.restlet.data.MediaType;
+import org.restlet.data.Preference;
 import org.restlet.ext.json.JsonRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
@@ -78,7 +81,7 @@ public Representation onGet() throws Exception
       {
          Map<String, String> query = getRequest().getResourceRef().getQueryAsForm().getValuesMap();
          Object response = (id == null) ? getCollection(query) : get(id, query);
-         return new StringRepresentation(JsonTools.jsonFromObject(response, getRequestedFields()), MediaType.APPLICATION_JSON);
+         return new JsonStreamRepresentation(response, getRequestedFields(), properties.isResponseCompressionEnabled() && isGzipAccepted());
       }
       else
       {
@@ -436,6 +439,21 @@ private Set<String> getRequestedFields()
       return fields;
    }
    
+   /**
+    * Check if client accepts gzip encoded responses
+    * 
+    * @return true if client accepts gzip encoding
+    */
+   private boolean isGzipAccepted()
+   {
+      for(Preference<Encoding> p : getRequest().getClientInfo().getAcceptedEncodings())
+      {
+         if (Encoding.GZIP.equals(p.getMetadata()) && (p.getQuality() > 0))
+            return true;
+      }
+      return false;
+   }
+
    /**
     * Get header by name
     * 
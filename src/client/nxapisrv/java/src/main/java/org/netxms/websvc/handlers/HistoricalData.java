@@ -18,6 +18,7 @@
  */
 package org.netxms.websvc.handlers;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -39,9 +40,9 @@
 import org.netxms.client.datacollection.DciDataRow;
 import org.netxms.client.objects.AbstractObject;
 import org.netxms.client.objects.DataCollectionTarget;
+import org.netxms.websvc.json.JsonStreamable;
 import org.netxms.websvc.json.ResponseContainer;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Objects request handler
@@ -150,66 +151,21 @@ else if (outputFormat.equalsIgnoreCase("InstanceColumnRow"))
    }
 
    /**
-    * Transforms Full historical table data into consumable JSON format, grouped by row and column
+    * Transforms Full historical table data into consumable JSON format, grouped by row and column. Output is written directly
+    * to JSON stream during serialization.
     */
-   private Object transformTableDataOutputByRowColumn(DciDataRow[] tableValues, List<Integer> instanceColumns) throws Exception
+   static Object transformTableDataOutputByRowColumn(DciDataRow[] tableValues, List<Integer> instanceColumns)
    {
-      JsonArray output = new JsonArray(tableValues.length);
-      for(int i = 0; i < tableValues.length; i++)
-      {
-         Table table = (Table)tableValues[i].getValue();
-
-         JsonObject entry = new JsonObject();
-         entry.addProperty("timestamp", tableValues[i].getTimestamp().getTime() / 1000);
-
-         JsonArray rows = new JsonArray(table.getRowCount());
-         for(int j = 0; j < table.getRowCount(); j++)
-         {
-            TableRow r = table.getRow(j);
-            JsonObject jr = new JsonObject();
-            jr.addProperty("__instance", instanceKeyForRow(table, j, instanceColumns));
-            for(int k = 0; k < table.getColumnCount(); k++)
-            {
-               jr.addProperty(table.getColumnName(k), r.getValue(k));
-            }
-            rows.add(jr);
-         }
-         entry.add("rows", rows);
-
-         output.add(entry);
-      }
-      return output;
+      return new RowColumnTableData(tableValues, instanceColumns);
    }
 
    /**
-    * Transforms Full historical table data into consumable JSON format, grouped by column and row
+    * Transforms Full historical table data into consumable JSON format, grouped by column and row. Output is written directly
+    * to JSON stream during serialization.
     */
-   private Object transformTableDataOutputByColumnRow(DciDataRow[] tableValues) throws Exception
+   static Object transformTableDataOutputByColumnRow(DciDataRow[] tableValues)
    {
-      JsonArray output = new JsonArray(tableValues.length);
-      for(int i = 0; i < tableValues.length; i++)
-      {
-         Table table = (Table)tableValues[i].getValue();
-
-         JsonObject entry = new JsonObject();
-         entry.addProperty("timestamp", tableValues[i].getTimestamp().getTime() / 1000);
-
-         JsonObject columns = new JsonObject();
-         for(int j = 0; j < table.getColumnCount(); j++)
-         {
-            TableColumnDefinition c = table.getColumnDefinition(j);
-            JsonArray jc = new JsonArray(table.getRowCount());
-            for(int k = 0; k < table.getRowCount(); k++)
-            {
-               jc.add(table.getCellValue(k, j));
-            }
-            columns.add(c.getName(), jc);
-         }
-         entry.add("columns", columns);
-
-         output.add(entry);
-      }
-      return output;
+      return new ColumnRowTableData(tableValues);
    }
 
    /**
@@ -345,4 +301,98 @@ else if (parseInt(timeUnit, 0) == TimeUnit.DAY.getValue())
 
       return new ResponseContainer("values", dciData);
    }
+
+   /**
+    * Historical table data grouped by row and column. Named class is used because GSON before 2.11 serializes instances of
+    * anonymous and local classes as null.
+    */
+   private static final class RowColumnTableData implements JsonStreamable
+   {
+      private final DciDataRow[] tableValues;
+      private final List<Integer> instanceColumns;
+
+      RowColumnTableData(DciDataRow[] tableValues, List<Integer> instanceColumns)
+      {
+         this.tableValues = tableValues;
+         this.instanceColumns = instanceColumns;
+      }
+
+      /**
+       * @see org.netxms.websvc.json.JsonStreamable#writeJson(com.google.gson.stream.JsonWriter)
+       */
+      @Override
+      public void writeJson(JsonWriter writer) throws IOException
+      {
+         writer.beginArray();
+         for(int i = 0; i < tableValues.length; i++)
+         {
+            Table table = (Table)tableValues[i].getValue();
+
+            writer.beginObject();
+            writer.name("timestamp").value(tableValues[i].getTimestamp().getTime() / 1000);
+
+            writer.name("rows").beginArray();
+            for(int j = 0; j < table.getRowCount(); j++)
+            {
+               TableRow r = table.getRow(j);
+               writer.beginObject();
+               writer.name("__instance").value(instanceKeyForRow(table, j, instanceColumns));
+               for(int k = 0; k < table.getColumnCount(); k++)
+               {
+                  writer.name(table.getColumnName(k)).value(r.getValue(k));
+               }
+               writer.endObject();
+            }
+            writer.endArray();
+
+            writer.endObject();
+         }
+         writer.endArray();
+      }
+   }
+
+   /**
+    * Historical table data grouped by column and row.
+    */
+   private static final class ColumnRowTableData implements JsonStreamable
+   {
+      private final DciDataRow[] tableValues;
+
+      ColumnRowTableData(DciDataRow[] tableValues)
+      {
+         this.tableValues = tableValues;
+      }
+
+      /**
+       * @see org.netxms.websvc.json.JsonStreamable#writeJson(com.google.gson.stream.JsonWriter)
+       */
+      @Override
+      public void writeJson(JsonWriter writer) throws IOException
+      {
+         writer.beginArray();
+         for(int i = 0; i < tableValues.length; i++)
+         {
+            Table table = (Table)tableValues[i].getValue();
+
+            writer.beginObject();
+            writer.name("timestamp").value(tableValues[i].getTimestamp().getTime() / 1000);
+
+            writer.name("columns").beginObject();
+            for(int j = 0; j < table.getColumnCount(); j++)
+            {
+               TableColumnDefinition c = table.getColumnDefinition(j);
+               writer.name(c.getName()).beginArray();
+               for(int k = 0; k < table.getRowCount(); k++)
+               {
+                  writer.value(table.getCellValue(k, j));
+               }
+               writer.endArray();
+            }
+            writer.endObject();
+
+            writer.endObject();
+         }
+         writer.endArray();
+      }
+   }
 }
@@ -1,6 +1,6 @@
 /**
  * NetXMS - open source network management system
- * Copyright (C) 2003-2023 Raden Solutions
+ * Copyright (C) 2003-2025 Raden Solutions
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,26 +18,20 @@
  */
 package org.netxms.websvc.handlers;
 
+import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Pattern;
 import org.json.JSONObject;
-import org.netxms.base.Glob;
 import org.netxms.client.NXCObjectCreationData;
 import org.netxms.client.NXCObjectModificationData;
 import org.netxms.client.NXCSession;
 import org.netxms.client.constants.RCC;
-import org.netxms.client.objects.AbstractNode;
 import org.netxms.client.objects.AbstractObject;
-import org.netxms.client.objects.AccessPoint;
-import org.netxms.client.objects.Interface;
-import org.netxms.client.objects.NetworkService;
-import org.netxms.client.objects.Subnet;
-import org.netxms.client.objects.VPNConnector;
+import org.netxms.client.objects.queries.ObjectQueryFilter;
+import org.netxms.client.objects.queries.ObjectQueryResult;
 import org.netxms.websvc.WebSvcException;
 import org.netxms.websvc.json.JsonTools;
 import org.netxms.websvc.json.ResponseContainer;
@@ -58,294 +52,163 @@ public class Objects extends AbstractObjectHandler
    protected Object getCollection(Map<String, String> query) throws Exception
    {
       NXCSession session = getSession();
-      if (!session.areObjectsSynchronized())
-         session.syncObjects();
 
       boolean topLevelOnly = (query.get("topLevelOnly") != null) ? Boolean.parseBoolean(query.get("topLevelOnly")) : false;
-      List<AbstractObject> objects = topLevelOnly ? Arrays.asList(session.getTopLevelObjects()) : session.getAllObjects();
+      if (topLevelOnly)
+      {
+         // Object hierarchy is needed to find top level objects
+         if (!session.areObjectsSynchronized())
+            session.syncObjects();
+         return new ResponseContainer("objects", Arrays.asList(session.getTopLevelObjects()));
+      }
 
-      boolean useRegex = (query.get("regex") != null) ? Boolean.parseBoolean(query.get("regex")) : false;
+      ObjectQueryFilter filter = new ObjectQueryFilter();
+      filter.setRegularExpressions((query.get("regex") != null) ? Boolean.parseBoolean(query.get("regex")) : false);
+      filter.setNamePattern(query.get("name"));
+      filter.setPrimaryNamePattern(query.get("primaryName"));
 
-      String areaFilter = query.get("area");
       String classFilter = query.get("class");
-      String nameFilter = query.get("name");
-      String parentFilter = query.get("parent");
-      String primaryNameFilter = query.get("primaryName");
-      String stateFilter = query.get("state");
-      String zoneFilter = query.get("zone");
-
-      Pattern nameFilterRegex = null;
-      if ((nameFilter != null) && !nameFilter.isEmpty())
-         nameFilterRegex = Pattern.compile(nameFilter, Pattern.CASE_INSENSITIVE);
+      if ((classFilter != null) && !classFilter.isEmpty())
+      {
+         boolean validClass = false;
+         for(String c : classFilter.split(","))
+         {
+            if (filter.addObjectClass(c))
+               validClass = true;
+         }
+         if (!validClass)
+            return new ResponseContainer("objects", new ArrayList<AbstractObject>(0)); // no object can match
+      }
 
-      Pattern primaryNameFilterRegex = null;
-      if ((primaryNameFilter != null) && !primaryNameFilter.isEmpty())
-         primaryNameFilterRegex = Pattern.compile(primaryNameFilter, Pattern.CASE_INSENSITIVE);
+      String parentFilter = query.get("parent");
+      if (parentFilter != null)
+      {
+         try
+         {
+            filter.setRootObjectId(Long.parseLong(parentFilter));
+         }
+         catch(NumberFormatException e)
+         {
+            throw new WebSvcException(RCC.INVALID_ARGUMENT);
+         }
+      }
 
-      Integer stateFilterValue = null;
+      String stateFilter = query.get("state");
       if ((stateFilter != null) && !stateFilter.isEmpty())
       {
          try
          {
-            stateFilterValue = stateFilter.startsWith("0x") ? Integer.parseInt(stateFilter.substring(2), 16) : Integer.parseInt(stateFilter);
+            filter.setStateFlags(stateFilter.startsWith("0x") ? Integer.parseInt(stateFilter.substring(2), 16) : Integer.parseInt(stateFilter));
          }
          catch(NumberFormatException e)
          {
             log.debug("Invalid state filter " + stateFilter);
          }
       }
-      Map<String, Object> customAttributes = null;
-      for(String k : query.keySet())
-      {
-         if (!k.startsWith("@"))
-            continue;
 
-         if (customAttributes == null)
-            customAttributes = new HashMap<String, Object>();
-         if (useRegex)
-            customAttributes.put(k.substring(1), Pattern.compile(query.get(k), Pattern.CASE_INSENSITIVE));
-         else
-            customAttributes.put(k.substring(1), query.get(k));
+      String zoneFilter = query.get("zone");
+      if (zoneFilter != null)
+      {
+         try
+         {
+            for(String z : zoneFilter.split(","))
+               filter.addZone(Integer.parseInt(z.trim()));
+         }
+         catch(NumberFormatException e)
+         {
+            log.warn("Invalid zone filter " + zoneFilter);
+         }
       }
 
-      if ((areaFilter != null) || (classFilter != null) || (customAttributes != null) || (nameFilter != null) ||
-          (parentFilter != null) || (primaryNameFilter != null) || (stateFilterValue != null) || (zoneFilter != null))
+      String ipFilter = query.get("ipRange");
+      if ((ipFilter != null) && !ipFilter.isEmpty())
       {
-         double[] area = null;
-         if (areaFilter != null)
+         try
          {
-            String[] parts = areaFilter.split(",");
-            if (parts.length == 4)
+            int index = ipFilter.indexOf('/');
+            if (index != -1)
             {
-               try
-               {
-                  area = new double[4];
-                  for(int i = 0; i < 4; i++)
-                     area[i] = Double.parseDouble(parts[i]);
-               }
-               catch(NumberFormatException e)
-               {
-                  log.warn("Invalid area filter " + areaFilter);
-               }
+               filter.setIpSubnet(InetAddress.getByName(ipFilter.substring(0, index).trim()), Integer.parseInt(ipFilter.substring(index + 1).trim()));
             }
             else
             {
-               log.warn("Invalid area filter " + areaFilter);
+               String[] parts = ipFilter.split("-");
+               InetAddress start = InetAddress.getByName(parts[0].trim());
+               filter.setIpRange(start, (parts.length > 1) ? InetAddress.getByName(parts[1].trim()) : start);
             }
          }
-
-         String[] classes = null;
-         if ((classFilter != null) && !classFilter.isEmpty())
+         catch(Exception e)
          {
-            classes = classFilter.split(",");
+            throw new WebSvcException(RCC.INVALID_ARGUMENT);
          }
+      }
 
-         long parentId;
-         if (parentFilter != null)
+      for(String k : query.keySet())
+      {
+         if (k.startsWith("@"))
+            filter.addCustomAttribute(k.substring(1), query.get(k));
+      }
+
+      double[] area = null;
+      String areaFilter = query.get("area");
+      if (areaFilter != null)
+      {
+         String[] parts = areaFilter.split(",");
+         if (parts.length == 4)
          {
             try
             {
-               parentId = Long.parseLong(parentFilter);
+               area = new double[4];
+               for(int i = 0; i < 4; i++)
+                  area[i] = Double.parseDouble(parts[i]);
             }
             catch(NumberFormatException e)
             {
-               throw new WebSvcException(RCC.INVALID_ARGUMENT);
+               log.warn("Invalid area filter " + areaFilter);
+               area = null;
             }
          }
          else
          {
-            parentId = 0;
+            log.warn("Invalid area filter " + areaFilter);
          }
+      }
 
-         long[] zones = null;
-         if (zoneFilter != null)
+      // Projection - only requested properties are read on server side and objects are not transferred at all
+      String properties = query.get("properties");
+      if ((properties != null) && !properties.isEmpty() && (area == null))
+      {
+         List<String> propertyList = new ArrayList<String>();
+         for(String p : properties.split(","))
          {
-            String[] parts = zoneFilter.split(",");
-            try
-            {
-               zones = new long[parts.length];
-               for(int i = 0; i < parts.length; i++)
-                  zones[i] = Long.parseLong(parts[i]);
-            }
-            catch(NumberFormatException e)
-            {
-               log.warn("Invalid zone filter " + zoneFilter);
-            }
+            if (!p.trim().isEmpty())
+               propertyList.add(p.trim());
+         }
+         List<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
+         for(ObjectQueryResult r : session.queryObjects(filter, propertyList, null, 0))
+         {
+            Map<String, Object> record = new LinkedHashMap<String, Object>();
+            record.put("id", r.getObjectId());
+            record.putAll(r.getProperties());
+            results.add(record);
          }
+         return new ResponseContainer("objects", results);
+      }
 
-         List<AbstractObject> filteredObjects = new ArrayList<AbstractObject>();
+      List<AbstractObject> objects = session.queryObjects(filter);
+      if (area != null)
+      {
+         List<AbstractObject> filteredObjects = new ArrayList<AbstractObject>(objects.size());
          for(AbstractObject o : objects)
          {
-            // Filter by state
-            if (stateFilterValue != null)
-            {
-               if (!(o instanceof AbstractNode))
-                  continue; // FIXME: check state for all objects
-               if ((stateFilterValue & ((AbstractNode)o).getStateFlags()) == 0)
-                  continue;
-            }
-
-            // Filter by zone
-            if (zones != null)
-            {
-               long zoneUin = getZoneUin(o);
-               if (zoneUin == -1)
-                  continue;
-
-               boolean match = false;
-               for(long z : zones)
-               {
-                  if (zoneUin == z)
-                  {
-                     match = true;
-                     break;
-                  }
-               }
-               if (!match)
-                  continue;
-            }
-
-            // Filter by name
-            if (useRegex)
-            {
-               if ((nameFilterRegex != null) && !nameFilterRegex.matcher(o.getObjectName()).matches())
-                  continue;
-            }
-            else
-            {
-               if ((nameFilter != null) && !nameFilter.isEmpty() && !Glob.matchIgnoreCase(nameFilter, o.getObjectName()))
-                  continue;
-            }
-
-            // Filter by class
-            if (classes != null)
-            {
-               boolean match = false;
-               for(String c : classes)
-               {
-                  if (o.getObjectClassName().equalsIgnoreCase(c))
-                  {
-                     match = true;
-                     break;
-                  }
-               }
-               if (!match)
-                  continue;
-            }
-
-            // Filter by parent
-            if ((parentId != 0) && !o.isChildOf(parentId))
-               continue;
-
-            // Filter by geographical area
-            if (area != null)
-            {
-               if (!o.getGeolocation().isWithinArea(area[0], area[1], area[2], area[3]))
-                  continue;
-            }
-
-            // Filter by custom attribute
-            if (customAttributes != null)
-            {
-               if (o.getCustomAttributes().isEmpty())
-                  continue;
-               boolean match = true;
-               if (useRegex)
-               {
-                  for(Entry<String, Object> e : customAttributes.entrySet())
-                  {
-                     String value = o.getCustomAttributeValue(e.getKey());
-                     if ((value == null) || !((Pattern)e.getValue()).matcher(value).matches())
-                     {
-                        match = false;
-                        break;
-                     }
-                  }
-               }
-               else
-               {
-                  for(Entry<String, Object> e : customAttributes.entrySet())
-                  {
-                     String value = o.getCustomAttributeValue(e.getKey());
-                     if ((value == null) || !Glob.matchIgnoreCase((String)e.getValue(), value))
-                     {
-                        match = false;
-                        break;
-                     }
-                  }
-               }
-               if (!match)
-                  continue;
-            }
-
-            // Filter by primary name
-            if (primaryNameFilter != null)
-            {
-               // If we want to filter by primary name this implies that we are only looking
-               // for nodes.
-               if (o instanceof AbstractNode)
-               {
-                  AbstractNode node = (AbstractNode)o;
-                  if (useRegex)
-                  {
-                     if ((primaryNameFilterRegex != null) && !primaryNameFilterRegex.matcher(node.getPrimaryName()).matches())
-                        continue;
-                  }
-                  else
-                  {
-                     if ((primaryNameFilter != null) && !primaryNameFilter.isEmpty() && !Glob.matchIgnoreCase(primaryNameFilter, node.getPrimaryName()))
-                        continue;
-                  }
-               }
-               else
-               {
-                  continue;
-               }
-            }
-
-            filteredObjects.add(o);
+            if (o.getGeolocation().isWithinArea(area[0], area[1], area[2], area[3]))
+               filteredObjects.add(o);
          }
          objects = filteredObjects;
       }
-
       return new ResponseContainer("objects", objects);
    }
 
-   /**
-    * Get zoneUIN depending on object class
-    * 
-    * @param obj
-    * @return
-    */
-   private static long getZoneUin(AbstractObject obj)
-   {
-      if (obj instanceof AbstractNode)
-      {
-         return ((AbstractNode)obj).getZoneId();
-      }
-      if (obj instanceof Subnet)
-      {
-         return ((Subnet)obj).getZoneId();
-      }
-      if (obj instanceof Interface)
-      {
-         return ((Interface)obj).getZoneId();
-      }
-      if (obj instanceof NetworkService)
-      {
-         return ((NetworkService)obj).getParentNode().getZoneId();
-      }
-      if (obj instanceof VPNConnector)
-      {
-         return ((VPNConnector)obj).getParentNode().getZoneId();
-      }
-      if (obj instanceof AccessPoint)
-      {
-         return ((AccessPoint)obj).getParentNode().getZoneId();
-      }
-      return -1;
-   }
-
    /**
     * @see org.netxms.websvc.handlers.AbstractHandler#get(java.lang.String, java.util.Map)
     */
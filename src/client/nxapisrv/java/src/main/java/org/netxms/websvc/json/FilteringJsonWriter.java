@@ -0,0 +1,242 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.websvc.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * JSON writer that only passes through object members with names from given field set. Filtering is applied at every object
+ * level (including objects within arrays) while writing, without building intermediate element tree.
+ */
+public class FilteringJsonWriter extends JsonWriter
+{
+   private Set<String> fields;
+   private int unfilteredDepth;
+   private int depth = 0;
+   private int skipDepth = 0;
+   private boolean skipValue = false;
+
+   /**
+    * Create new filtering writer.
+    *
+    * @param out underlying writer
+    * @param fields set of field names to pass through (null or empty set to disable filtering)
+    * @param unfilteredDepth number of outermost nesting levels where filtering is not applied
+    */
+   public FilteringJsonWriter(Writer out, Set<String> fields, int unfilteredDepth)
+   {
+      super(out);
+      this.fields = ((fields != null) && !fields.isEmpty()) ? fields : null;
+      this.unfilteredDepth = unfilteredDepth;
+   }
+
+   /**
+    * Check if current value should be skipped. Resets pending skip flag for scalar values.
+    *
+    * @return true if value should be skipped
+    */
+   private boolean skipScalar()
+   {
+      if (skipDepth > 0)
+         return true;
+      if (skipValue)
+      {
+         skipValue = false;
+         return true;
+      }
+      return false;
+   }
+
+   /**
+    * Handle start of object or array.
+    *
+    * @return true if container should be skipped
+    */
+   private boolean enterContainer()
+   {
+      if (skipDepth > 0)
+      {
+         skipDepth++;
+         return true;
+      }
+      if (skipValue)
+      {
+         skipValue = false;
+         skipDepth = 1;
+         return true;
+      }
+      depth++;
+      return false;
+   }
+
+   /**
+    * Handle end of object or array.
+    *
+    * @return true if container end should be skipped
+    */
+   private boolean leaveContainer()
+   {
+      if (skipDepth > 0)
+      {
+         skipDepth--;
+         return true;
+      }
+      depth--;
+      return false;
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#name(java.lang.String)
+    */
+   @Override
+   public JsonWriter name(String name) throws IOException
+   {
+      if (skipDepth > 0)
+         return this;
+      if ((fields != null) && (depth > unfilteredDepth) && !fields.contains(name))
+      {
+         skipValue = true;
+         return this;
+      }
+      return super.name(name);
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#beginObject()
+    */
+   @Override
+   public JsonWriter beginObject() throws IOException
+   {
+      return enterContainer() ? this : super.beginObject();
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#endObject()
+    */
+   @Override
+   public JsonWriter endObject() throws IOException
+   {
+      return leaveContainer() ? this : super.endObject();
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#beginArray()
+    */
+   @Override
+   public JsonWriter beginArray() throws IOException
+   {
+      return enterContainer() ? this : super.beginArray();
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#endArray()
+    */
+   @Override
+   public JsonWriter endArray() throws IOException
+   {
+      return leaveContainer() ? this : super.endArray();
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#value(java.lang.String)
+    */
+   @Override
+   public JsonWriter value(String value) throws IOException
+   {
+      return skipScalar() ? this : super.value(value);
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#jsonValue(java.lang.String)
+    */
+   @Override
+   public JsonWriter jsonValue(String value) throws IOException
+   {
+      return skipScalar() ? this : super.jsonValue(value);
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#nullValue()
+    */
+   @Override
+   public JsonWriter nullValue() throws IOException
+   {
+      return skipScalar() ? this : super.nullValue();
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#value(boolean)
+    */
+   @Override
+   public JsonWriter value(boolean value) throws IOException
+   {
+      return skipScalar() ? this : super.value(value);
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#value(java.lang.Boolean)
+    */
+   @Override
+   public JsonWriter value(Boolean value) throws IOException
+   {
+      return skipScalar() ? this : super.value(value);
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#value(double)
+    */
+   @Override
+   public JsonWriter value(double value) throws IOException
+   {
+      return skipScalar() ? this : super.value(value);
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#value(long)
+    */
+   @Override
+   public JsonWriter value(long value) throws IOException
+   {
+      return skipScalar() ? this : super.value(value);
+   }
+
+   /**
+    * @see com.google.gson.stream.JsonWriter#value(java.lang.Number)
+    */
+   @Override
+   public JsonWriter value(Number value) throws IOException
+   {
+      return skipScalar() ? this : super.value(value);
+   }
+
+   /**
+    * Write float value. Routed through <code>value(Number)</code> so that filtering is applied regardless of GSON version.
+    *
+    * @param value value to write
+    * @return this writer
+    * @throws IOException on write error
+    */
+   public JsonWriter value(float value) throws IOException
+   {
+      return value(Float.valueOf(value));
+   }
+}
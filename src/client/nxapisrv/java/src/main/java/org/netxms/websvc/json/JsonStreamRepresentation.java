@@ -0,0 +1,93 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.websvc.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.Encoding;
+import org.restlet.data.MediaType;
+import org.restlet.representation.OutputRepresentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Representation that serializes response object directly into response output stream. Requested field filtering is applied
+ * during serialization, and output can optionally be compressed with gzip.
+ */
+public class JsonStreamRepresentation extends OutputRepresentation
+{
+   private static final Logger logger = LoggerFactory.getLogger(JsonStreamRepresentation.class);
+
+   private Object object;
+   private Set<String> fields;
+   private boolean compress;
+
+   /**
+    * Create new streaming JSON representation.
+    *
+    * @param object object to serialize
+    * @param fields set of field names to include (null or empty set to include all fields)
+    * @param compress true to compress output with gzip
+    */
+   public JsonStreamRepresentation(Object object, Set<String> fields, boolean compress)
+   {
+      super(MediaType.APPLICATION_JSON);
+      this.object = object;
+      this.fields = fields;
+      this.compress = compress;
+      setCharacterSet(CharacterSet.UTF_8);
+      if (compress)
+         getEncodings().add(Encoding.GZIP);
+   }
+
+   /**
+    * @see org.restlet.representation.Representation#write(java.io.OutputStream)
+    */
+   @Override
+   public void write(OutputStream outputStream) throws IOException
+   {
+      try
+      {
+         GZIPOutputStream gzipStream = compress ? new GZIPOutputStream(outputStream, 65536) : null;
+         Writer writer = new OutputStreamWriter((gzipStream != null) ? gzipStream : outputStream, StandardCharsets.UTF_8);
+         JsonTools.writeJson(object, fields, writer);
+         writer.flush();
+         if (gzipStream != null)
+            gzipStream.finish();
+      }
+      catch(IOException e)
+      {
+         logger.debug("Cannot send JSON response", e);
+         throw e;
+      }
+      catch(Exception e)
+      {
+         // Response status and part of the document may already be sent, so the only way to let client know that document
+         // is incomplete is to abort connection (exception causes server connector to close it without completing response)
+         logger.error("Error while serializing JSON response", e);
+         throw new IOException("JSON serialization error", e);
+      }
+   }
+}
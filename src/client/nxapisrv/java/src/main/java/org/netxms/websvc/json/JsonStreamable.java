@@ -1,6 +1,6 @@
 /**
  * NetXMS - open source network management system
- * Copyright (C) 2003-2017 Raden Solutions
+ * Copyright (C) 2003-2025 Raden Solutions
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,28 +18,19 @@
  */
 package org.netxms.websvc.json;
 
-import java.util.Set;
+import java.io.IOException;
+import com.google.gson.stream.JsonWriter;
 
 /**
- * Dummy JSON filter - does nothing
+ * Object that writes its own JSON representation directly to the output stream instead of building element tree in memory.
  */
-public class JsonFilterDummy<T> extends JsonFilter<T>
+public interface JsonStreamable
 {
    /**
-    * @param object
-    * @param fields
+    * Write JSON representation of this object.
+    *
+    * @param writer JSON writer
+    * @throws IOException on write error
     */
-   protected JsonFilterDummy(T object, Set<String> fields)
-   {
-      super(object, fields);
-   }
-
-   /* (non-Javadoc)
-    * @see org.netxms.websvc.json.JsonFilter#filter()
-    */
-   @Override
-   public T filter()
-   {
-      return object;
-   }
+   public void writeJson(JsonWriter writer) throws IOException;
 }
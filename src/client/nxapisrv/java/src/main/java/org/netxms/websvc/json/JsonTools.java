@@ -18,6 +18,9 @@
  */
 package org.netxms.websvc.json;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.net.InetAddress;
 import java.util.Date;
@@ -37,13 +40,14 @@
 import org.netxms.websvc.json.adapters.DateAdapter;
 import org.netxms.websvc.json.adapters.InetAddressAdapter;
 import org.netxms.websvc.json.adapters.InetAddressExAdapter;
+import org.netxms.websvc.json.adapters.JsonStreamableAdapter;
 import org.netxms.websvc.json.adapters.MacAddressAdapter;
 import org.netxms.websvc.json.adapters.NXCSessionAdapter;
 import com.google.gson.ExclusionStrategy;
 import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
@@ -80,6 +84,7 @@ public static Gson createGsonInstance(Class<?> adapterExclusion)
       registerTypeHierarchyAdapter(builder, AbstractObject.class, new AbstractObjectSerializer(), adapterExclusion);
       registerTypeHierarchyAdapter(builder, DataCollectionObject.class, new DataCollectionObjectSerializer(), adapterExclusion);
       registerTypeHierarchyAdapter(builder, DataCollectionObject.class, new DataCollectionObjectDeserializer(), adapterExclusion);
+      registerTypeHierarchyAdapter(builder, JsonStreamable.class, new JsonStreamableAdapter(), adapterExclusion);
       builder.setExclusionStrategies(new ExclusionStrategy() {
          @Override
          public boolean shouldSkipField(FieldAttributes f)
@@ -130,28 +135,95 @@ private static GsonBuilder registerTypeHierarchyAdapter(GsonBuilder builder, Cla
     * Create JSON representation for given object
     *
     * @param object object to serialize
+    * @param fields set of field names to include (null or empty set to include all fields)
     * @return JSON code
     */
    public static String jsonFromObject(Object object, Set<String> fields)
    {
-      if (object == null)
-         return "{ }"; 
-
-      if ((object instanceof JsonObject) || 
-          (object instanceof JsonArray) ||
-          (object instanceof JSONObject) ||
-          (object instanceof JSONArray))
-         return JsonFilter.createFilter(object, fields).filter().toString();
+      StringWriter out = new StringWriter();
+      try
+      {
+         writeJson(object, fields, out);
+      }
+      catch(IOException e)
+      {
+         // Should not happen with StringWriter
+         throw new RuntimeException(e);
+      }
+      return out.toString();
+   }
 
-      if (object instanceof ResponseContainer)
-         return ((ResponseContainer)object).toJson(fields);
+   /**
+    * Write JSON representation of given object directly to provided writer. Field filtering is applied while writing, so
+    * serialized object is never converted into intermediate element tree.
+    *
+    * @param object object to serialize
+    * @param fields set of field names to include (null or empty set to include all fields)
+    * @param out output writer
+    * @throws IOException on write error
+    */
+   public static void writeJson(Object object, Set<String> fields, Writer out) throws IOException
+   {
+      if (object == null)
+      {
+         out.write("{ }");
+         out.flush();
+         return;
+      }
 
       Gson gson = createGsonInstance();
-      if ((fields != null) && !fields.isEmpty())
+      if (object instanceof ResponseContainer)
+      {
+         // Container name is never filtered, only contained value
+         FilteringJsonWriter writer = createJsonWriter(out, fields, 1);
+         writer.beginObject();
+         writer.name(((ResponseContainer)object).getName());
+         writeValue(gson, writer, ((ResponseContainer)object).getValue());
+         writer.endObject();
+         writer.flush();
+      }
+      else
       {
-         return JsonFilter.createFilter(gson.toJsonTree(object), fields).filter().toString();
+         FilteringJsonWriter writer = createJsonWriter(out, fields, 0);
+         writeValue(gson, writer, object);
+         writer.flush();
       }
-      return gson.toJson(object);
+   }
+
+   /**
+    * Create filtering JSON writer with same formatting options as GSON instance.
+    *
+    * @param out output writer
+    * @param fields set of field names to include
+    * @param unfilteredDepth number of outermost nesting levels where filtering is not applied
+    * @return new JSON writer
+    */
+   private static FilteringJsonWriter createJsonWriter(Writer out, Set<String> fields, int unfilteredDepth)
+   {
+      FilteringJsonWriter writer = new FilteringJsonWriter(out, fields, unfilteredDepth);
+      writer.setIndent("  ");  // same as pretty printing in GSON instance
+      writer.setSerializeNulls(false);
+      return writer;
+   }
+
+   /**
+    * Write single value to JSON writer.
+    *
+    * @param gson GSON instance
+    * @param writer JSON writer
+    * @param value value to write
+    * @throws IOException on write error
+    */
+   private static void writeValue(Gson gson, FilteringJsonWriter writer, Object value) throws IOException
+   {
+      if (value == null)
+         writer.nullValue();
+      else if ((value instanceof JSONObject) || (value instanceof JSONArray))
+         writer.jsonValue(value.toString()); // objects from org.json are not filtered
+      else if (value instanceof JsonElement)
+         gson.toJson((JsonElement)value, writer);
+      else
+         gson.toJson(value, value.getClass(), writer);
    }
 
    /**
@@ -18,8 +18,6 @@
  */
 package org.netxms.websvc.json;
 
-import java.util.Set;
-
 /**
  * Generic container for named response.
  */
@@ -55,19 +53,4 @@ public Object getValue()
    {
       return value;
    }
-   
-   /**
-    * Create JSON code from container.
-    * 
-    * @return JSON code
-    */
-   public String toJson(Set<String> fields)
-   {
-      StringBuilder sb = new StringBuilder("{ \"");
-      sb.append(name);
-      sb.append("\":");
-      sb.append((value != null) ? JsonTools.jsonFromObject(value, fields) : "null");
-      sb.append(" }");
-      return sb.toString();
-   }
 }
@@ -0,0 +1,58 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.websvc.json.adapters;
+
+import java.io.IOException;
+import org.netxms.websvc.json.JsonStreamable;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Type adapter for streamable objects. Adapter is write-only: <code>JsonSerializer</code> cannot be used because it builds
+ * intermediate element tree, which defeats streaming. Reading is never requested because streamable objects are only produced
+ * by handlers as response data and no request is parsed into {@link JsonStreamable}.
+ */
+public class JsonStreamableAdapter extends TypeAdapter<JsonStreamable>
+{
+   /**
+    * @see com.google.gson.TypeAdapter#write(com.google.gson.stream.JsonWriter, java.lang.Object)
+    */
+   @Override
+   public void write(JsonWriter writer, JsonStreamable value) throws IOException
+   {
+      if (value == null)
+      {
+         writer.nullValue();
+         return;
+      }
+      value.writeJson(writer);
+   }
+
+   /**
+    * Not supported (see class description).
+    *
+    * @see com.google.gson.TypeAdapter#read(com.google.gson.stream.JsonReader)
+    */
+   @Override
+   public JsonStreamable read(JsonReader reader) throws IOException
+   {
+      throw new UnsupportedOperationException("Streamable objects cannot be deserialized");
+   }
+}
@@ -0,0 +1,117 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.websvc.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.Table;
+import org.netxms.client.constants.DataType;
+import org.netxms.client.datacollection.DciDataRow;
+import org.netxms.websvc.json.JsonTools;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Tests for streamed serialization of historical table data
+ */
+public class HistoricalDataTest
+{
+   /**
+    * Create table with interface name (instance column) and input octets columns.
+    */
+   private static Table createTable(long base)
+   {
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_TABLE_DATA);
+      msg.setField(NXCPCodes.VID_TABLE_TITLE, "Interfaces");
+      msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_COLS, 2);
+      msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_ROWS, 2);
+      msg.setField(NXCPCodes.VID_TABLE_COLUMN_INFO_BASE, "ifName");
+      msg.setFieldInt32(NXCPCodes.VID_TABLE_COLUMN_INFO_BASE + 1, DataType.STRING.getValue());
+      msg.setFieldInt16(NXCPCodes.VID_TABLE_COLUMN_INFO_BASE + 3, 1);
+      msg.setField(NXCPCodes.VID_TABLE_COLUMN_INFO_BASE + 10, "inOctets");
+      msg.setFieldInt32(NXCPCodes.VID_TABLE_COLUMN_INFO_BASE + 11, DataType.INT64.getValue());
+      msg.setFieldInt32(NXCPCodes.VID_NUM_ROWS, 2);
+      msg.setField(NXCPCodes.VID_TABLE_DATA_BASE, "eth0");
+      msg.setField(NXCPCodes.VID_TABLE_DATA_BASE + 1, Long.toString(base));
+      msg.setField(NXCPCodes.VID_TABLE_DATA_BASE + 2, "eth1");
+      msg.setField(NXCPCodes.VID_TABLE_DATA_BASE + 3, Long.toString(base + 1));
+      return new Table(msg);
+   }
+
+   /**
+    * Create two table values collected one minute apart.
+    */
+   private static DciDataRow[] createTableValues()
+   {
+      return new DciDataRow[] { new DciDataRow(new Date(1700000060000L), createTable(200)), new DciDataRow(new Date(1700000000000L), createTable(100)) };
+   }
+
+   /**
+    * Serialize value the same way as handler does (as element of response map) and parse it back.
+    */
+   private static JsonArray serialize(Object values)
+   {
+      Map<String, Object> response = new HashMap<String, Object>();
+      response.put("values", values);
+      JsonObject json = JsonParser.parseString(JsonTools.jsonFromObject(response, null)).getAsJsonObject();
+      JsonArray array = json.getAsJsonArray("values");
+      assertNotNull("Streamable value serialized as null", array);
+      return array;
+   }
+
+   @Test
+   public void testRowColumnOutput() throws Exception
+   {
+      List<Integer> instanceColumns = new ArrayList<Integer>();
+      instanceColumns.add(0);
+      JsonArray values = serialize(HistoricalData.transformTableDataOutputByRowColumn(createTableValues(), instanceColumns));
+      assertEquals(2, values.size());
+
+      JsonObject first = values.get(0).getAsJsonObject();
+      assertEquals(1700000060L, first.get("timestamp").getAsLong());
+      JsonArray rows = first.getAsJsonArray("rows");
+      assertEquals(2, rows.size());
+      assertEquals("eth1", rows.get(1).getAsJsonObject().get("__instance").getAsString());
+      assertEquals("eth1", rows.get(1).getAsJsonObject().get("ifName").getAsString());
+      assertEquals("201", rows.get(1).getAsJsonObject().get("inOctets").getAsString());
+   }
+
+   @Test
+   public void testColumnRowOutput() throws Exception
+   {
+      JsonArray values = serialize(HistoricalData.transformTableDataOutputByColumnRow(createTableValues()));
+      assertEquals(2, values.size());
+
+      JsonObject second = values.get(1).getAsJsonObject();
+      assertEquals(1700000000L, second.get("timestamp").getAsLong());
+      JsonArray octets = second.getAsJsonObject("columns").getAsJsonArray("inOctets");
+      assertEquals(2, octets.size());
+      assertEquals("100", octets.get(0).getAsString());
+      assertEquals("101", octets.get(1).getAsString());
+   }
+}
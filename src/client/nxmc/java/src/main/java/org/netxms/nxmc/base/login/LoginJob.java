@@ -37,6 +37,7 @@
 import org.netxms.client.ProtocolVersion;
 import org.netxms.client.SessionListener;
 import org.netxms.client.SessionNotification;
+import org.netxms.client.SharedObjectCache;
 import org.netxms.client.TwoFactorAuthenticationCallback;
 import org.netxms.client.constants.AuthenticationType;
 import org.netxms.client.constants.RCC;
@@ -67,6 +68,7 @@ public class LoginJob implements IRunnableWithProgress
    private Certificate certificate;
    private Signature signature;
    private String clientAddress;
+   private SharedObjectCache sharedObjectCache = null;
 
    /**
     * @param display
@@ -206,9 +208,19 @@ public void run()
          monitor.worked(1);
 
          monitor.setTaskName(i18n.tr("Synchronizing objects..."));
+         long syncStartTime = System.currentTimeMillis();
          PreferenceStore store = PreferenceStore.getInstance();
          boolean fullySync = store.getAsBoolean("Connect.FullObjectSync", false);
-         session.syncObjects(fullySync);
+         if ((sharedObjectCache != null) && sharedObjectCache.isValid())
+         {
+            session.syncObjects(sharedObjectCache, fullySync);
+            logger.info("Objects synchronized from shared cache in " + (System.currentTimeMillis() - syncStartTime) + " ms");
+         }
+         else
+         {
+            session.syncObjects(fullySync);
+            logger.info("Objects synchronized in " + (System.currentTimeMillis() - syncStartTime) + " ms");
+         }
          session.syncAssetManagementSchema();
          monitor.worked(1);
 
@@ -361,6 +373,17 @@ public void setAuthByToken()
       authMethod = AuthenticationType.TOKEN;
    }
 
+   /**
+    * Set shared object cache to be used as source of object data during login. If not set, all objects will be read from
+    * server.
+    *
+    * @param sharedObjectCache shared object cache or null
+    */
+   public void setSharedObjectCache(SharedObjectCache sharedObjectCache)
+   {
+      this.sharedObjectCache = sharedObjectCache;
+   }
+
    /**
     * @param enableCompression the enableCompression to set
     */
@@ -192,6 +192,7 @@ public void widgetSelected(SelectionEvent e)
       layoutAlgorithm.add(i18n.tr("Horizontal tree"));
       layoutAlgorithm.add(i18n.tr("Vertical tree"));
       layoutAlgorithm.add(i18n.tr("Sparse vertical tree"));
+      layoutAlgorithm.add(i18n.tr("Force directed"));
       layoutAlgorithm.select(config.getDefaultLayoutAlgorithm().getValue());
 
       /**** object display ****/
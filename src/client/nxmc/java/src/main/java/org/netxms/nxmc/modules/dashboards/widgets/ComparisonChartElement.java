@@ -28,7 +28,7 @@
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
 import org.netxms.client.NXCSession;
-import org.netxms.client.constants.HistoricalDataType;
+import org.netxms.client.constants.DataType;
 import org.netxms.client.dashboards.DashboardElement;
 import org.netxms.client.datacollection.ChartDciConfig;
 import org.netxms.client.datacollection.DataCollectionObject;
@@ -38,6 +38,7 @@
 import org.netxms.client.datacollection.GraphItem;
 import org.netxms.client.datacollection.MeasurementUnit;
 import org.netxms.client.datacollection.Threshold;
+import org.netxms.client.maps.configs.SingleDciConfig;
 import org.netxms.client.objects.AbstractObject;
 import org.netxms.nxmc.Registry;
 import org.netxms.nxmc.base.jobs.Job;
@@ -164,7 +165,7 @@ public void run()
 
                   chart.rebuild();
                   layout(true, true);
-                  startRefreshTimer();
+                  startDataRefresh();
                }
             });
          }
@@ -179,6 +180,34 @@ protected String getErrorMessage()
       job.start();
    }
 
+   /**
+    * Start data refresh for configured metrics. Last values and thresholds for single value DCIs are retrieved via dashboard
+    * refresh coordinator together with data for other dashboard elements; table DCIs are retrieved by element's own refresh timer.
+    */
+   private void startDataRefresh()
+   {
+      List<SingleDciConfig> items = new ArrayList<>();
+      boolean ownRefresh = false;
+      for(ChartDciConfig dci : runtimeDciList)
+      {
+         if (dci.type == ChartDciConfig.ITEM)
+            items.add(new SingleDciConfig(dci.nodeId, dci.dciId));
+         else
+            ownRefresh = true;
+      }
+
+      if (!items.isEmpty())
+      {
+         getRefreshCoordinator().register(this, items, refreshInterval, (values) -> updateLastValues(values));
+         if (updateThresholds)
+            getRefreshCoordinator().registerThresholds(this, items, refreshInterval, (thresholds) -> applyThresholds(thresholds));
+         addDisposeListener((e) -> getRefreshCoordinator().unregister(ComparisonChartElement.this));
+      }
+
+      if (ownRefresh)
+         startRefreshTimer();
+   }
+
 	/**
 	 * Start refresh timer
 	 */
@@ -197,8 +226,89 @@ public void run()
       refreshData();
 	}
 
+   /**
+    * Update chart with last values received from refresh coordinator.
+    *
+    * @param values last values keyed by DCI ID
+    */
+   private void updateLastValues(Map<Long, DciValue> values)
+   {
+      if (chart.isDisposed())
+         return;
+
+      for(int i = 0; i < runtimeDciList.size(); i++)
+      {
+         ChartDciConfig dci = runtimeDciList.get(i);
+         if (dci.type != ChartDciConfig.ITEM)
+            continue;
+
+         DciValue v = values.get(dci.dciId);
+         if (v != null)
+            chart.updateParameter(i, new DciDataRow(v.getTimestamp(), parseValue(v.getValue(), v.getDataType())), v.getDataType(), false);
+         else
+            chart.updateParameter(i, new DciDataRow(new Date(), 0.0), DataType.FLOAT, false);
+      }
+      chart.refresh();
+      clearMessages();
+   }
+
+   /**
+    * Update chart with thresholds received from refresh coordinator.
+    *
+    * @param thresholds threshold lists keyed by DCI ID
+    */
+   private void applyThresholds(Map<Long, Threshold[]> thresholds)
+   {
+      if (chart.isDisposed())
+         return;
+
+      for(int i = 0; i < runtimeDciList.size(); i++)
+      {
+         ChartDciConfig dci = runtimeDciList.get(i);
+         if (dci.type != ChartDciConfig.ITEM)
+            continue;
+
+         Threshold[] t = thresholds.get(dci.dciId);
+         if (t != null)
+            chart.updateParameterThresholds(i, t);
+      }
+      chart.refresh();
+   }
+
+   /**
+    * Convert last value string into object of same type as used in historical data.
+    *
+    * @param value value as string
+    * @param dataType DCI data type
+    * @return value as Long, Double, or String
+    */
+   private static Object parseValue(String value, DataType dataType)
+   {
+      try
+      {
+         switch(dataType)
+         {
+            case INT32:
+            case UINT32:
+            case COUNTER32:
+            case INT64:
+            case UINT64:
+            case COUNTER64:
+               return Long.valueOf(Long.parseLong(value));
+            case FLOAT:
+               return Double.valueOf(Double.parseDouble(value));
+            default:
+               return value;
+         }
+      }
+      catch(NumberFormatException e)
+      {
+         return value;
+      }
+   }
+
 	/**
-	 * Refresh graph's data
+    * Refresh data for table DCIs
 	 */
    protected void refreshData()
 	{
@@ -215,30 +325,10 @@ protected void run(IProgressMonitor monitor) throws Exception
             for(int i = 0; i < runtimeDciList.size(); i++)
 				{
                ChartDciConfig dci = runtimeDciList.get(i);
-               if (dci.type == ChartDciConfig.ITEM)
-                  data[i] = session.getCollectedData(dci.nodeId, dci.dciId, null, null, 1, HistoricalDataType.PROCESSED, dashboardId);
-					else
+               if (dci.type != ChartDciConfig.ITEM)
                   data[i] = session.getCollectedTableData(dci.nodeId, dci.dciId, dci.instance, dci.column, null, null, 1, dashboardId);
 				}
 
-            final Threshold[][] thresholds;
-            if (updateThresholds)
-            {
-               thresholds = new Threshold[runtimeDciList.size()][];
-               for(int i = 0; i < runtimeDciList.size(); i++)
-               {
-                  ChartDciConfig dci = runtimeDciList.get(i);
-                  if (dci.type == ChartDciConfig.ITEM)
-                     thresholds[i] = session.getThresholds(dci.nodeId, dci.dciId, dashboardId);
-                  else
-                     thresholds[i] = new Threshold[0];
-               }
-            }
-            else
-            {
-               thresholds = null;
-            }
-
 				runInUIThread(new Runnable() {
 					@Override
 					public void run()
@@ -249,10 +339,11 @@ public void run()
 
                   for(int i = 0; i < data.length; i++)
 						{
-                     DciDataRow lastValue = data[i].getLastValue();
-                     chart.updateParameter(i, (lastValue != null) ? lastValue : new DciDataRow(new Date(), 0.0), data[i].getDataType(), false);
-                     if (updateThresholds)
-                        chart.updateParameterThresholds(i, thresholds[i]);
+                     if (data[i] != null)
+                     {
+                        DciDataRow lastValue = data[i].getLastValue();
+                        chart.updateParameter(i, (lastValue != null) ? lastValue : new DciDataRow(new Date(), 0.0), data[i].getDataType(), false);
+                     }
 						}
                   chart.refresh();
                   clearMessages();
@@ -86,6 +86,7 @@ public class DashboardControl extends Composite
    private boolean narrowScreenMode = false;
 	private DashboardModifyListener modifyListener = null;
    private AbstractDashboardView view;
+   private DashboardRefreshCoordinator refreshCoordinator = null;
 
    /**
     * Create new dashboard control.
@@ -767,6 +768,22 @@ public Dashboard getDashboardObject()
       return dashboard;
    }
 
+   /**
+    * Get data refresh coordinator for this dashboard. Coordinator is created on first call and disposed together with dashboard
+    * control.
+    *
+    * @return data refresh coordinator for this dashboard
+    */
+   public DashboardRefreshCoordinator getRefreshCoordinator()
+   {
+      if (refreshCoordinator == null)
+      {
+         refreshCoordinator = new DashboardRefreshCoordinator(view, dashboard.getObjectId());
+         addDisposeListener((e) -> refreshCoordinator.dispose());
+      }
+      return refreshCoordinator;
+   }
+
    /**
     * Get context.
     *
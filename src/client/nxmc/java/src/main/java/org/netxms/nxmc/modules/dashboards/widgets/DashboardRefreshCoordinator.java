@@ -0,0 +1,490 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.dashboards.widgets;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.netxms.client.NXCException;
+import org.netxms.client.NXCSession;
+import org.netxms.client.Table;
+import org.netxms.client.datacollection.DciValue;
+import org.netxms.client.datacollection.Threshold;
+import org.netxms.client.maps.configs.SingleDciConfig;
+import org.netxms.nxmc.Registry;
+import org.netxms.nxmc.base.jobs.Job;
+import org.netxms.nxmc.localization.LocalizationHelper;
+import org.netxms.nxmc.modules.dashboards.views.AbstractDashboardView;
+import org.netxms.nxmc.tools.ViewRefreshController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnap.commons.i18n.I18n;
+
+/**
+ * Dashboard-wide data refresh coordinator. Dashboard elements register DCIs they need last values, threshold lists, or table
+ * values for, and coordinator retrieves data for all elements due for refresh within single background job. Last values are
+ * retrieved with single request, using dashboard as delegate object for access check. Same DCI requested by multiple elements
+ * is retrieved only once. Single refresh timer is used for all elements, running at shortest requested interval.
+ */
+public class DashboardRefreshCoordinator
+{
+   private static final Logger logger = LoggerFactory.getLogger(DashboardRefreshCoordinator.class);
+
+   private final I18n i18n = LocalizationHelper.getI18n(DashboardRefreshCoordinator.class);
+
+   /**
+    * Listener for last value updates
+    */
+   public interface LastValueListener
+   {
+      /**
+       * Called in UI thread when new last values are available. Map contains values for all DCIs requested by this listener
+       * that were successfully retrieved (DCI identifiers are unique within server, so map is keyed by DCI ID only).
+       *
+       * @param values retrieved values keyed by DCI ID
+       */
+      public void lastValuesUpdated(Map<Long, DciValue> values);
+   }
+
+   /**
+    * Listener for threshold list updates
+    */
+   public interface ThresholdListener
+   {
+      /**
+       * Called in UI thread when threshold lists are retrieved. Map contains threshold lists for all DCIs requested by this
+       * listener that were successfully retrieved, keyed by DCI ID.
+       *
+       * @param thresholds retrieved threshold lists keyed by DCI ID
+       */
+      public void thresholdsUpdated(Map<Long, Threshold[]> thresholds);
+   }
+
+   /**
+    * Listener for table DCI value updates
+    */
+   public interface TableValueListener
+   {
+      /**
+       * Called in UI thread when new table values are available. Map contains values for all table DCIs requested by this
+       * listener that were successfully retrieved, keyed by DCI ID. Table objects can be shared with other elements and should
+       * not be modified.
+       *
+       * @param tables retrieved table values keyed by DCI ID
+       */
+      public void tableValuesUpdated(Map<Long, Table> tables);
+   }
+
+   /**
+    * Listener for one time request of all last values of an object
+    */
+   public interface ObjectLastValuesListener
+   {
+      /**
+       * Called in UI thread when last values for requested object are available.
+       *
+       * @param values last values for all DCIs of requested object
+       */
+      public void objectLastValuesReceived(DciValue[] values);
+   }
+
+   /**
+    * Registered element
+    */
+   private static class Subscription<L>
+   {
+      List<SingleDciConfig> dciList;
+      int interval;
+      L listener;
+      long lastUpdate = 0;
+
+      Subscription(List<SingleDciConfig> dciList, int interval, L listener)
+      {
+         this.dciList = dciList;
+         this.interval = interval;
+         this.listener = listener;
+      }
+
+      /**
+       * Check if subscription is due for refresh. Allow half a second of timer skew.
+       */
+      boolean isDue(long now)
+      {
+         return now - lastUpdate >= interval * 1000L - 500;
+      }
+   }
+
+   private AbstractDashboardView view;
+   private long dashboardId;
+   private NXCSession session = Registry.getSession();
+   private Map<Object, Subscription<LastValueListener>> subscriptions = new HashMap<Object, Subscription<LastValueListener>>();
+   private Map<Object, Subscription<ThresholdListener>> thresholdSubscriptions = new HashMap<Object, Subscription<ThresholdListener>>();
+   private Map<Object, Subscription<TableValueListener>> tableSubscriptions = new HashMap<Object, Subscription<TableValueListener>>();
+   private Map<Long, List<ObjectLastValuesListener>> objectRequests = new LinkedHashMap<Long, List<ObjectLastValuesListener>>();
+   private ViewRefreshController refreshController = null;
+   private int timerInterval = 0;
+   private boolean refreshScheduled = false;
+   private boolean updateInProgress = false;
+   private boolean refreshPending = false;
+   private boolean disposed = false;
+
+   /**
+    * Create coordinator.
+    *
+    * @param view owning view
+    * @param dashboardId ID of dashboard object (used for delegated access)
+    */
+   public DashboardRefreshCoordinator(AbstractDashboardView view, long dashboardId)
+   {
+      this.view = view;
+      this.dashboardId = dashboardId;
+   }
+
+   /**
+    * Register element's DCI list. If owner is already registered, its registration is replaced. Initial values will be delivered
+    * as soon as possible, and requests from elements registered within same UI event loop iteration are merged.
+    *
+    * @param owner registration owner (usually dashboard element)
+    * @param dciList list of single value DCIs
+    * @param interval refresh interval in seconds
+    * @param listener listener for value updates
+    */
+   public void register(Object owner, List<SingleDciConfig> dciList, int interval, LastValueListener listener)
+   {
+      addSubscription(subscriptions, owner, dciList, interval, listener);
+   }
+
+   /**
+    * Register list of DCIs element needs threshold lists for. If owner already has threshold registration, it is replaced.
+    * Registration for last values or table values of same owner is not affected.
+    *
+    * @param owner registration owner (usually dashboard element)
+    * @param dciList list of single value DCIs
+    * @param interval refresh interval in seconds
+    * @param listener listener for threshold list updates
+    */
+   public void registerThresholds(Object owner, List<SingleDciConfig> dciList, int interval, ThresholdListener listener)
+   {
+      addSubscription(thresholdSubscriptions, owner, dciList, interval, listener);
+   }
+
+   /**
+    * Register list of table DCIs element needs last values for. If owner already has table registration, it is replaced.
+    * Registration for last values or threshold lists of same owner is not affected.
+    *
+    * @param owner registration owner (usually dashboard element)
+    * @param dciList list of table DCIs
+    * @param interval refresh interval in seconds
+    * @param listener listener for table value updates
+    */
+   public void registerTables(Object owner, List<SingleDciConfig> dciList, int interval, TableValueListener listener)
+   {
+      addSubscription(tableSubscriptions, owner, dciList, interval, listener);
+   }
+
+   /**
+    * Request all last values of given object once (usually to resolve context-dependent element configuration). Requests for
+    * same object made within same UI event loop iteration are served by single request.
+    *
+    * @param objectId object ID
+    * @param listener listener to be called when values are available
+    */
+   public void requestObjectLastValues(long objectId, ObjectLastValuesListener listener)
+   {
+      if (disposed)
+         return;
+      List<ObjectLastValuesListener> listeners = objectRequests.get(objectId);
+      if (listeners == null)
+      {
+         listeners = new ArrayList<ObjectLastValuesListener>();
+         objectRequests.put(objectId, listeners);
+      }
+      listeners.add(listener);
+      scheduleRefresh();
+   }
+
+   /**
+    * Add subscription to given subscription map.
+    */
+   private <L> void addSubscription(Map<Object, Subscription<L>> map, Object owner, List<SingleDciConfig> dciList, int interval, L listener)
+   {
+      if (disposed)
+         return;
+      map.put(owner, new Subscription<L>(new ArrayList<SingleDciConfig>(dciList), Math.max(interval, 1), listener));
+      updateTimer();
+      scheduleRefresh();
+   }
+
+   /**
+    * Remove all registrations for given owner.
+    *
+    * @param owner registration owner
+    */
+   public void unregister(Object owner)
+   {
+      boolean removed = (subscriptions.remove(owner) != null);
+      removed |= (thresholdSubscriptions.remove(owner) != null);
+      removed |= (tableSubscriptions.remove(owner) != null);
+      if (removed)
+         updateTimer();
+   }
+
+   /**
+    * Dispose coordinator
+    */
+   public void dispose()
+   {
+      disposed = true;
+      subscriptions.clear();
+      thresholdSubscriptions.clear();
+      tableSubscriptions.clear();
+      objectRequests.clear();
+      if (refreshController != null)
+      {
+         refreshController.dispose();
+         refreshController = null;
+      }
+   }
+
+   /**
+    * Update refresh timer to run at shortest requested interval
+    */
+   private void updateTimer()
+   {
+      int interval = getShortestInterval(subscriptions, 0);
+      interval = getShortestInterval(thresholdSubscriptions, interval);
+      interval = getShortestInterval(tableSubscriptions, interval);
+
+      if (interval == timerInterval)
+         return;
+
+      timerInterval = interval;
+      if (interval == 0)
+      {
+         refreshController.dispose();
+         refreshController = null;
+      }
+      else if (refreshController == null)
+      {
+         refreshController = new ViewRefreshController(view, interval, () -> refresh());
+      }
+      else
+      {
+         refreshController.setInterval(interval);
+      }
+   }
+
+   /**
+    * Get shortest interval among given subscriptions.
+    *
+    * @param map subscriptions
+    * @param interval current shortest interval (0 if not set yet)
+    * @return shortest interval
+    */
+   private static <L> int getShortestInterval(Map<Object, Subscription<L>> map, int interval)
+   {
+      for(Subscription<L> s : map.values())
+      {
+         if ((interval == 0) || (s.interval < interval))
+            interval = s.interval;
+      }
+      return interval;
+   }
+
+   /**
+    * Schedule refresh on next UI event loop iteration, so that multiple registrations are served by single request.
+    */
+   private void scheduleRefresh()
+   {
+      if (refreshScheduled)
+         return;
+      refreshScheduled = true;
+      view.getDisplay().asyncExec(() -> {
+         refreshScheduled = false;
+         refresh();
+      });
+   }
+
+   /**
+    * Collect subscriptions due for refresh and add their DCIs to request.
+    *
+    * @param map subscriptions
+    * @param now current time
+    * @param request request to add DCIs to
+    * @return list of subscriptions due for refresh
+    */
+   private static <L> List<Subscription<L>> collectDueSubscriptions(Map<Object, Subscription<L>> map, long now, Map<Long, SingleDciConfig> request)
+   {
+      List<Subscription<L>> dueSubscriptions = new ArrayList<Subscription<L>>();
+      for(Subscription<L> s : map.values())
+      {
+         if (!s.isDue(now))
+            continue;
+         dueSubscriptions.add(s);
+         for(SingleDciConfig dci : s.dciList)
+            request.putIfAbsent(dci.dciId, dci);
+      }
+      return dueSubscriptions;
+   }
+
+   /**
+    * Retrieve data for subscriptions due for refresh and pending object requests.
+    */
+   private void refresh()
+   {
+      if (disposed)
+         return;
+
+      if (updateInProgress)
+      {
+         refreshPending = true;
+         return;
+      }
+
+      final long now = System.currentTimeMillis();
+      final Map<Long, SingleDciConfig> valueRequest = new LinkedHashMap<Long, SingleDciConfig>();
+      final List<Subscription<LastValueListener>> dueValueSubscriptions = collectDueSubscriptions(subscriptions, now, valueRequest);
+      final Map<Long, SingleDciConfig> thresholdRequest = new LinkedHashMap<Long, SingleDciConfig>();
+      final List<Subscription<ThresholdListener>> dueThresholdSubscriptions = collectDueSubscriptions(thresholdSubscriptions, now, thresholdRequest);
+      final Map<Long, SingleDciConfig> tableRequest = new LinkedHashMap<Long, SingleDciConfig>();
+      final List<Subscription<TableValueListener>> dueTableSubscriptions = collectDueSubscriptions(tableSubscriptions, now, tableRequest);
+      final Map<Long, List<ObjectLastValuesListener>> objectRequest = new LinkedHashMap<Long, List<ObjectLastValuesListener>>(objectRequests);
+      objectRequests.clear();
+      if (dueValueSubscriptions.isEmpty() && dueThresholdSubscriptions.isEmpty() && dueTableSubscriptions.isEmpty() && objectRequest.isEmpty())
+         return;
+
+      updateInProgress = true;
+      Job job = new Job(i18n.tr("Reading last values for dashboard"), view) {
+         @Override
+         protected void run(IProgressMonitor monitor) throws Exception
+         {
+            DciValue[] values = !valueRequest.isEmpty() ? session.getLastValues(new ArrayList<SingleDciConfig>(valueRequest.values()), dashboardId) : new DciValue[0];
+            final Map<Long, DciValue> valueMap = new HashMap<Long, DciValue>(values.length * 2);
+            for(DciValue v : values)
+               valueMap.put(v.getId(), v);
+
+            // Server has no bulk requests for thresholds and table values; each DCI is still requested only once, and error
+            // for one DCI (for example, access denied) does not prevent other elements from being updated
+            final Map<Long, Threshold[]> thresholdMap = new HashMap<Long, Threshold[]>();
+            for(SingleDciConfig dci : thresholdRequest.values())
+            {
+               try
+               {
+                  thresholdMap.put(dci.dciId, session.getThresholds(dci.nodeId, dci.dciId, dashboardId));
+               }
+               catch(NXCException e)
+               {
+                  logger.debug("Cannot read thresholds for DCI " + dci.nodeId + "/" + dci.dciId, e);
+               }
+            }
+
+            final Map<Long, Table> tableMap = new HashMap<Long, Table>();
+            for(SingleDciConfig dci : tableRequest.values())
+            {
+               try
+               {
+                  tableMap.put(dci.dciId, session.getTableLastValues(dci.nodeId, dci.dciId));
+               }
+               catch(NXCException e)
+               {
+                  logger.debug("Cannot read last value for table DCI " + dci.nodeId + "/" + dci.dciId, e);
+               }
+            }
+
+            final Map<Long, DciValue[]> objectValueMap = new HashMap<Long, DciValue[]>();
+            for(Long objectId : objectRequest.keySet())
+            {
+               try
+               {
+                  objectValueMap.put(objectId, session.getLastValues(objectId));
+               }
+               catch(NXCException e)
+               {
+                  logger.debug("Cannot read last values for object " + objectId, e);
+               }
+            }
+
+            runInUIThread(() -> {
+               updateInProgress = false;
+               if (disposed)
+                  return;
+               for(Subscription<LastValueListener> s : dueValueSubscriptions)
+               {
+                  if (!subscriptions.containsValue(s))
+                     continue;  // Unregistered while request was in progress
+                  s.lastUpdate = now;
+                  s.listener.lastValuesUpdated(valueMap);
+               }
+               for(Subscription<ThresholdListener> s : dueThresholdSubscriptions)
+               {
+                  if (!thresholdSubscriptions.containsValue(s))
+                     continue;
+                  s.lastUpdate = now;
+                  s.listener.thresholdsUpdated(thresholdMap);
+               }
+               for(Subscription<TableValueListener> s : dueTableSubscriptions)
+               {
+                  if (!tableSubscriptions.containsValue(s))
+                     continue;
+                  s.lastUpdate = now;
+                  s.listener.tableValuesUpdated(tableMap);
+               }
+               for(Map.Entry<Long, List<ObjectLastValuesListener>> e : objectRequest.entrySet())
+               {
+                  DciValue[] objectValues = objectValueMap.get(e.getKey());
+                  if (objectValues == null)
+                     continue;
+                  for(ObjectLastValuesListener l : e.getValue())
+                     l.objectLastValuesReceived(objectValues);
+               }
+               if (refreshPending)
+               {
+                  refreshPending = false;
+                  refresh();
+               }
+            });
+         }
+
+         @Override
+         protected String getErrorMessage()
+         {
+            return i18n.tr("Cannot read last values for dashboard");
+         }
+
+         @Override
+         protected void jobFailureHandler(Exception e)
+         {
+            runInUIThread(() -> {
+               updateInProgress = false;
+               refreshPending = false;
+               if (disposed)
+                  return;
+               // Keep one time requests for next refresh
+               for(Map.Entry<Long, List<ObjectLastValuesListener>> r : objectRequest.entrySet())
+                  objectRequests.computeIfAbsent(r.getKey(), (k) -> new ArrayList<ObjectLastValuesListener>()).addAll(r.getValue());
+            });
+         }
+      };
+      job.setUser(false);
+      job.start();
+   }
+}
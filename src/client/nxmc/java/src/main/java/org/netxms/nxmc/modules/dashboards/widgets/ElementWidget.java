@@ -411,6 +411,16 @@ protected long getDashboardObjectId()
       return dbc.getDashboardObject().getObjectId();
    }
 
+   /**
+    * Get data refresh coordinator of owning dashboard.
+    *
+    * @return data refresh coordinator of owning dashboard
+    */
+   protected DashboardRefreshCoordinator getRefreshCoordinator()
+   {
+      return dbc.getRefreshCoordinator();
+   }
+
    /**
     * Get context for owning dashboard.
     *
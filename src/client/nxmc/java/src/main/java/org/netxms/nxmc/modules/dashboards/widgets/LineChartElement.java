@@ -44,6 +44,7 @@
 import org.netxms.client.datacollection.GraphItem;
 import org.netxms.client.datacollection.MeasurementUnit;
 import org.netxms.client.datacollection.Threshold;
+import org.netxms.client.maps.configs.SingleDciConfig;
 import org.netxms.client.objects.AbstractObject;
 import org.netxms.client.xml.XMLTools;
 import org.netxms.nxmc.Registry;
@@ -221,6 +222,7 @@ public void run()
                   chart.rebuild();
                   layout(true, true);          
                   refreshData();
+                  registerThresholds();
 
                   refreshController = new ViewRefreshController(view, config.getRefreshRate(), new Runnable() {
                      @Override
@@ -246,6 +248,37 @@ protected String getErrorMessage()
       job.start();
    }
 
+   /**
+    * Register single value DCIs with dashboard refresh coordinator, so their threshold lists are retrieved together with data
+    * for other dashboard elements.
+    */
+   private void registerThresholds()
+   {
+      List<SingleDciConfig> items = new ArrayList<>();
+      for(ChartDciConfig dci : runtimeDciList)
+      {
+         if (dci.type == ChartDciConfig.ITEM)
+            items.add(new SingleDciConfig(dci.nodeId, dci.dciId));
+      }
+      if (items.isEmpty())
+         return;
+
+      getRefreshCoordinator().registerThresholds(this, items, config.getRefreshRate(), (thresholds) -> {
+         if (chart.isDisposed())
+            return;
+         Threshold[][] chartThresholds = new Threshold[runtimeDciList.size()][];
+         for(int i = 0; i < runtimeDciList.size(); i++)
+         {
+            ChartDciConfig dci = runtimeDciList.get(i);
+            if (dci.type == ChartDciConfig.ITEM)
+               chartThresholds[i] = thresholds.get(dci.dciId);
+         }
+         chart.setThresholds(chartThresholds);
+         chart.refresh();
+      });
+      addDisposeListener((e) -> getRefreshCoordinator().unregister(LineChartElement.this));
+   }
+
    /**
     * Create actions
     */
@@ -329,19 +362,16 @@ protected void run(IProgressMonitor monitor) throws Exception
 				final Date from = new Date(System.currentTimeMillis() - config.getTimeRangeMillis());
 				final Date to = new Date(System.currentTimeMillis());
             final DciData[] data = new DciData[runtimeDciList.size()];
-            final Threshold[][] thresholds = new Threshold[runtimeDciList.size()][];
             for(int i = 0; i < runtimeDciList.size(); i++)
             {
                currentDci = runtimeDciList.get(i);
                if (currentDci.type == ChartDciConfig.ITEM)
                {
                   data[i] = session.getCollectedData(currentDci.nodeId, currentDci.dciId, from, to, 0, HistoricalDataType.PROCESSED, dashboardId);
-                  thresholds[i] = session.getThresholds(currentDci.nodeId, currentDci.dciId,dashboardId);
                }
                else
                {
                   data[i] = session.getCollectedTableData(currentDci.nodeId, currentDci.dciId, currentDci.instance, currentDci.column, from, to, 0, dashboardId);
-                  thresholds[i] = null;
                }
             }
             runInUIThread(new Runnable() {
@@ -357,7 +387,6 @@ public void run()
                         chart.updateParameter(i, data[i], false);
                         dataCache.add(new DataCacheElement(runtimeDciList.get(i), data[i]));
                      }
-                     chart.setThresholds(thresholds);
                      chart.refresh();
                      clearMessages();
                   }
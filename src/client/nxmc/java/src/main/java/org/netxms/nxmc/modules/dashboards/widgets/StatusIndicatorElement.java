@@ -72,6 +72,8 @@ public class StatusIndicatorElement extends ElementWidget
    private boolean requireScriptRun = false;
    private boolean requireDataCollection = false;
    private StatusIndicatorElementWidget[] elementWidgets;
+   private Map<String, String> scriptData = null;
+   private Map<Long, DciValue> dciValues = null;
 
 	private static final int ELEMENT_HEIGHT = 36;
 
@@ -167,6 +169,18 @@ public void run()
                   }
                }
             }
+
+            if (requireDataCollection)
+            {
+               runInUIThread(new Runnable() {
+                  @Override
+                  public void run()
+                  {
+                     if (!isDisposed())
+                        registerDciList();
+                  }
+               });
+            }
          }
 
          @Override
@@ -189,57 +203,53 @@ public void widgetDisposed(DisposeEvent e)
       });
 	}
 
+   /**
+    * Register DCI elements with dashboard refresh coordinator, so their values are retrieved together with data for other
+    * dashboard elements.
+    */
+   private void registerDciList()
+   {
+      List<SingleDciConfig> dciList = new ArrayList<>();
+      for(StatusIndicatorElementConfig e : config.getElements())
+      {
+         if (((e.getType() == StatusIndicatorConfig.ELEMENT_TYPE_DCI) || (e.getType() == StatusIndicatorConfig.ELEMENT_TYPE_DCI_TEMPLATE)) && (e.getDciId() != 0))
+            dciList.add(new SingleDciConfig(e.getObjectId(), e.getDciId()));
+      }
+      if (dciList.isEmpty())
+         return;
+
+      getRefreshCoordinator().register(this, dciList, 15, (values) -> {
+         dciValues = values;
+         updateElements();
+      });
+      addDisposeListener((e) -> getRefreshCoordinator().unregister(StatusIndicatorElement.this));
+   }
+
 	/**
-	 * Refresh element content
+    * Refresh element content. Values for DCI elements are updated separately by dashboard refresh coordinator.
 	 */
    private void refreshData()
 	{
-      if (requireDataCollection || requireScriptRun)
+      if (requireScriptRun)
       {
          Job job = new Job(i18n.tr("Update status indicator"), view) {
             @Override
             protected void run(IProgressMonitor monitor) throws Exception
             {
-               final Map<String, String> scriptData;
-               if (requireScriptRun)
-               {
-                  long contextObjectId = config.getScriptContextObjectId();
-                  if (contextObjectId == 0)
-                     contextObjectId = getDashboardObjectId();
-                  else if (contextObjectId == AbstractObject.CONTEXT)
-                     contextObjectId = getContextObjectId();
-                  scriptData = session.queryScript(contextObjectId, config.getScript(), null, null);
-               }
-               else
-               {
-                  scriptData = null;
-               }
-
-               final DciValue[] dciValues;
-               if (requireDataCollection)
-               {
-                  List<SingleDciConfig> dciList = new ArrayList<>();
-                  for(int i = 0; i < config.getElements().length; i++)
-                  {
-                     StatusIndicatorElementConfig e = config.getElements()[i];
-                     if (((e.getType() == StatusIndicatorConfig.ELEMENT_TYPE_DCI) || (e.getType() == StatusIndicatorConfig.ELEMENT_TYPE_DCI_TEMPLATE)) && (e.getDciId() != 0))
-                     {
-                        dciList.add(new SingleDciConfig(e.getObjectId(), e.getDciId()));
-                     }
-                  }
-                  dciValues = !dciList.isEmpty() ? session.getLastValues(dciList) : null;
-               }
-               else
-               {
-                  dciValues = null;
-               }
-
+               long contextObjectId = config.getScriptContextObjectId();
+               if (contextObjectId == 0)
+                  contextObjectId = getDashboardObjectId();
+               else if (contextObjectId == AbstractObject.CONTEXT)
+                  contextObjectId = getContextObjectId();
+               final Map<String, String> data = session.queryScript(contextObjectId, config.getScript(), null, null);
                runInUIThread(new Runnable() {
                   @Override
                   public void run()
                   {
-                     if (!isDisposed())
-                        updateElements(scriptData, dciValues);
+                     if (isDisposed())
+                        return;
+                     scriptData = data;
+                     updateElements();
                   }
                });
             }
@@ -255,17 +265,14 @@ protected String getErrorMessage()
       }
       else
       {
-         updateElements(null, null);
+         updateElements();
       }
    }
 
    /**
-    * Update elements
-    *
-    * @param scriptData data from script
-    * @param dciValues collected DCI values
+    * Update elements using last received script data and DCI values
     */
-   private void updateElements(Map<String, String> scriptData, DciValue[] dciValues)
+   private void updateElements()
    {
       for(StatusIndicatorElementWidget w : elementWidgets)
       {
@@ -277,7 +284,7 @@ private void updateElements(Map<String, String> scriptData, DciValue[] dciValues
                w.setStatus((object != null) ? object.getStatus() : ObjectStatus.UNKNOWN);
                break;
             case StatusIndicatorConfig.ELEMENT_TYPE_SCRIPT:
-               String value = scriptData.get(e.getTag());
+               String value = (scriptData != null) ? scriptData.get(e.getTag()) : null;
                if (value != null)
                {
                   try
@@ -296,21 +303,13 @@ private void updateElements(Map<String, String> scriptData, DciValue[] dciValues
                break;
             case StatusIndicatorConfig.ELEMENT_TYPE_DCI:
             case StatusIndicatorConfig.ELEMENT_TYPE_DCI_TEMPLATE:
-               boolean found = false;
-               if (dciValues != null)
+               DciValue v = (dciValues != null) ? dciValues.get(e.getDciId()) : null;
+               if (v != null)
                {
-                  for(DciValue v : dciValues)
-                  {
-                     if (v.getId() == e.getDciId())
-                     {
-                        Threshold t = v.getActiveThreshold();
-                        w.setStatus((t != null) ? ObjectStatus.getByValue(t.getCurrentSeverity().getValue()) : ObjectStatus.NORMAL);
-                        found = true;
-                        break;
-                     }
-                  }
+                  Threshold t = v.getActiveThreshold();
+                  w.setStatus((t != null) ? ObjectStatus.getByValue(t.getCurrentSeverity().getValue()) : ObjectStatus.NORMAL);
                }
-               if (!found)
+               else
                {
                   w.setStatus(ObjectStatus.UNKNOWN);
                }
@@ -18,23 +18,19 @@
  */
 package org.netxms.nxmc.modules.dashboards.widgets;
 
+import java.util.Collections;
 import java.util.regex.Pattern;
-import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.swt.SWT;
-import org.eclipse.swt.events.DisposeEvent;
-import org.eclipse.swt.events.DisposeListener;
-import org.netxms.client.NXCSession;
+import org.netxms.client.Table;
 import org.netxms.client.dashboards.DashboardElement;
 import org.netxms.client.datacollection.DataCollectionObject;
 import org.netxms.client.datacollection.DciValue;
+import org.netxms.client.maps.configs.SingleDciConfig;
 import org.netxms.client.objects.AbstractObject;
 import org.netxms.client.xml.XMLTools;
-import org.netxms.nxmc.Registry;
-import org.netxms.nxmc.base.jobs.Job;
 import org.netxms.nxmc.modules.dashboards.config.TableValueConfig;
 import org.netxms.nxmc.modules.dashboards.views.AbstractDashboardView;
 import org.netxms.nxmc.modules.datacollection.widgets.TableValueViewer;
-import org.netxms.nxmc.tools.ViewRefreshController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,35 +66,33 @@ public TableValueElement(DashboardControl parent, DashboardElement element, Abst
       processCommonSettings(config);
 
       viewer = new TableValueViewer(getContentArea(), SWT.NONE, view, parent.getDashboardObject().getGuid().toString(), false);
+      addDisposeListener((e) -> getRefreshCoordinator().unregister(TableValueElement.this));
       if (config.getObjectId() == AbstractObject.CONTEXT)
       {
          configureContext();
       }
       else
       {
-         viewer.setObject(config.getObjectId(), config.getDciId());
-         viewer.refresh(null);
+         setDci(config.getObjectId(), config.getDciId());
       }
+	}
 
-      final ViewRefreshController refreshController = new ViewRefreshController(view, config.getRefreshRate(), new Runnable() {
-			@Override
-			public void run()
-			{
-				if (TableValueElement.this.isDisposed())
-					return;
-
-				viewer.refresh(null);
-			}
-		});
-
-		addDisposeListener(new DisposeListener() {
-         @Override
-         public void widgetDisposed(DisposeEvent e)
-         {
-            refreshController.dispose();
-         }
+   /**
+    * Set table DCI to display and register it with dashboard refresh coordinator, so its value is retrieved together with data
+    * for other dashboard elements.
+    *
+    * @param objectId DCI owner object ID
+    * @param dciId DCI ID
+    */
+   private void setDci(long objectId, final long dciId)
+   {
+      viewer.setObject(objectId, dciId);
+      getRefreshCoordinator().registerTables(this, Collections.singletonList(new SingleDciConfig(objectId, dciId)), config.getRefreshRate(), (tables) -> {
+         Table table = tables.get(dciId);
+         if ((table != null) && !viewer.isDisposed())
+            viewer.showData(table);
       });
-	}
+   }
 
    /**
     * Configure context if element is context-aware
@@ -109,40 +103,24 @@ private void configureContext()
       if (contextObject == null)
          return;
 
-      final NXCSession session = Registry.getSession();
-      new Job("Configuring context", view) {
-         @Override
-         protected void run(IProgressMonitor monitor) throws Exception
+      getRefreshCoordinator().requestObjectLastValues(contextObject.getObjectId(), (dciList) -> {
+         if (isDisposed())
+            return;
+
+         Pattern namePattern = Pattern.compile(config.getDciName());
+         Pattern descriptionPattern = Pattern.compile(config.getDciDescription());
+         for(DciValue dciInfo : dciList)
          {
-            DciValue[] dciList = session.getLastValues(contextObject.getObjectId());
-            Pattern namePattern = Pattern.compile(config.getDciName());
-            Pattern descriptionPattern = Pattern.compile(config.getDciDescription());
-            for(DciValue dciInfo : dciList)
-            {
-               if (dciInfo.getDcObjectType() != DataCollectionObject.DCO_TYPE_TABLE)
-                  continue;
+            if (dciInfo.getDcObjectType() != DataCollectionObject.DCO_TYPE_TABLE)
+               continue;
 
-               if ((!config.getDciName().isEmpty() && namePattern.matcher(dciInfo.getName()).find()) ||
-                   (!config.getDciDescription().isEmpty() && descriptionPattern.matcher(dciInfo.getDescription()).find()))
-               {
-                  runInUIThread(new Runnable() {
-                     @Override
-                     public void run()
-                     {
-                        viewer.setObject(dciInfo.getNodeId(), dciInfo.getId());
-                        viewer.refresh(null);
-                     }
-                  });
-                  break;
-               }
+            if ((!config.getDciName().isEmpty() && namePattern.matcher(dciInfo.getName()).find()) ||
+                (!config.getDciDescription().isEmpty() && descriptionPattern.matcher(dciInfo.getDescription()).find()))
+            {
+               setDci(dciInfo.getNodeId(), dciInfo.getId());
+               break;
             }
          }
-
-         @Override
-         protected String getErrorMessage()
-         {
-            return "Cannot read DCI data from server";
-         }
-      }.start();
+      });
    }
 }
@@ -289,14 +289,7 @@ protected void run(IProgressMonitor monitor) throws Exception
                if (viewer.getControl().isDisposed())
                   return;
 
-               if (errorLabel != null)
-               {
-                  errorLabel.dispose();
-                  errorLabel = null;
-                  viewer.getControl().setVisible(true);
-                  viewer.getControl().getParent().layout(true, true);
-               }
-               updateViewer(table);
+               showData(table);
                if (postRefreshHook != null)
                {
                   postRefreshHook.run();
@@ -314,6 +307,23 @@ protected String getErrorMessage()
       job.start();
    }
 
+   /**
+    * Show table data retrieved elsewhere (for example, by dashboard refresh coordinator). Must be called in UI thread.
+    *
+    * @param table table data
+    */
+   public void showData(Table table)
+   {
+      if (errorLabel != null)
+      {
+         errorLabel.dispose();
+         errorLabel = null;
+         viewer.getControl().setVisible(true);
+         viewer.getControl().getParent().layout(true, true);
+      }
+      updateViewer(table);
+   }
+
    public AbstractViewerFilter getFilter()
    {
       return filter;
@@ -29,6 +29,7 @@
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.action.Separator;
 import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnViewer;
 import org.eclipse.jface.viewers.DoubleClickEvent;
 import org.eclipse.jface.viewers.IDoubleClickListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -40,7 +41,6 @@
 import org.eclipse.swt.layout.FormAttachment;
 import org.eclipse.swt.layout.FormData;
 import org.eclipse.swt.layout.FormLayout;
-import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.TableColumn;
@@ -51,10 +51,13 @@
 import org.netxms.client.log.Log;
 import org.netxms.client.log.LogColumn;
 import org.netxms.client.log.LogFilter;
+import org.netxms.client.log.LogRecordCache;
 import org.netxms.client.log.LogRecordDetails;
 import org.netxms.client.log.OrderingColumn;
+import org.netxms.nxmc.PreferenceStore;
 import org.netxms.nxmc.Registry;
 import org.netxms.nxmc.base.actions.ExportToCsvAction;
+import org.netxms.nxmc.base.actions.ViewerProvider;
 import org.netxms.nxmc.base.jobs.Job;
 import org.netxms.nxmc.base.views.View;
 import org.netxms.nxmc.base.views.ViewWithContext;
@@ -62,6 +65,7 @@
 import org.netxms.nxmc.modules.logviewer.LogRecordDetailsViewer;
 import org.netxms.nxmc.modules.logviewer.LogRecordDetailsViewerRegistry;
 import org.netxms.nxmc.modules.logviewer.views.helpers.LogLabelProvider;
+import org.netxms.nxmc.modules.logviewer.views.helpers.LogRecordContentProvider;
 import org.netxms.nxmc.modules.logviewer.widgets.FilterBuilder;
 import org.netxms.nxmc.resources.ResourceManager;
 import org.netxms.nxmc.resources.SharedIcons;
@@ -74,6 +78,7 @@
 public class LogViewer extends ViewWithContext
 {
 	private static final int PAGE_SIZE = 400;
+   private static final int VIRTUAL_MODE_MAX_PAGES = 8;
 
    private final I18n i18n = LocalizationHelper.getI18n(LogViewer.class);
 
@@ -86,7 +91,11 @@ public class LogViewer extends ViewWithContext
    private LogFilter delayedQueryFilter = null;
    private LogRecordDetailsViewer recordDetailsViewer;
 	private Table resultSet;
+   private LogRecordCache recordCache;
+   private LogFilter currentFilter = null;
+   private Composite viewerParent;
 	private boolean noData = false;
+   private boolean virtualMode = false;
    private Action actionExecute;
    private Action actionClearFilter;
    private Action actionShowFilter;
@@ -95,6 +104,7 @@ public class LogViewer extends ViewWithContext
    private Action actionExportToCsv;
    private Action actionExportAllToCsv;
    private Action actionShowDetails;
+   private Action actionVirtualMode;
 
    /**
     * Internal constructor used for cloning
@@ -140,22 +150,35 @@ public void createContent(Composite parent)
 
 		/* create filter builder */
 		filterBuilder = new FilterBuilder(parent, SWT.NONE);
-		GridData gd = new GridData();
-		gd.horizontalAlignment = SWT.FILL;
-		filterBuilder.setLayoutData(gd);
+		FormData fd = new FormData();
+		fd.left = new FormAttachment(0, 0);
+		fd.top = new FormAttachment(0, 0);
+		fd.right = new FormAttachment(100, 0);
+		filterBuilder.setLayoutData(fd);
 
 		/* create viewer */
-		viewer = new TableViewer(parent, SWT.MULTI | SWT.FULL_SELECTION);
-		org.eclipse.swt.widgets.Table table = viewer.getTable();
+      virtualMode = PreferenceStore.getInstance().getAsBoolean("LogViewer.VirtualMode", false);
+      viewerParent = parent;
+      createViewer();
+
+		createActions();
+		createPopupMenu();
+
+      enableRefresh(false);
+   }
+
+   /**
+    * Create table viewer. Table is created with SWT.VIRTUAL style only in virtual mode.
+    */
+   private void createViewer()
+   {
+      int style = SWT.MULTI | SWT.FULL_SELECTION;
+      if (virtualMode)
+         style |= SWT.VIRTUAL;
+		viewer = new TableViewer(viewerParent, style);
+		final org.eclipse.swt.widgets.Table table = viewer.getTable();
 		table.setLinesVisible(true);
 		table.setHeaderVisible(true);
-		viewer.setContentProvider(new ArrayContentProvider());
-		gd = new GridData();
-		gd.horizontalAlignment = SWT.FILL;
-		gd.grabExcessHorizontalSpace = true;
-		gd.verticalAlignment = SWT.FILL;
-		gd.grabExcessVerticalSpace = true;
-		viewer.getControl().setLayoutData(gd);
       viewer.addDoubleClickListener(new IDoubleClickListener() {
          @Override
          public void doubleClick(DoubleClickEvent event)
@@ -163,33 +186,21 @@ public void doubleClick(DoubleClickEvent event)
             showRecordDetails();
          }
       });
-		viewer.getTable().addDisposeListener(new DisposeListener() {
+		table.addDisposeListener(new DisposeListener() {
 			@Override
 			public void widgetDisposed(DisposeEvent e)
 			{
 				if (logHandle != null)
-               WidgetHelper.saveColumnSettings(viewer.getTable(), "LogViewer." + logHandle.getName());
+               WidgetHelper.saveColumnSettings(table, "LogViewer." + logHandle.getName());
 			}
 		});
 
-		/* setup layout */
 		FormData fd = new FormData();
 		fd.left = new FormAttachment(0, 0);
-		fd.top = new FormAttachment(filterBuilder);
+		fd.top = filterBuilder.getVisible() ? new FormAttachment(filterBuilder) : new FormAttachment(0, 0);
 		fd.right = new FormAttachment(100, 0);
 		fd.bottom = new FormAttachment(100, 0);
 		table.setLayoutData(fd);
-		
-		fd = new FormData();
-		fd.left = new FormAttachment(0, 0);
-		fd.top = new FormAttachment(0, 0);
-		fd.right = new FormAttachment(100, 0);
-		filterBuilder.setLayoutData(fd);
-
-		createActions();
-		createPopupMenu();
-
-      enableRefresh(false);
    }
 
    /**
@@ -277,9 +288,35 @@ protected int estimateColumnWidth(final LogColumn lc)
 	 */
 	protected void setupLogViewer(boolean onClone)
 	{
+      LogFilter filter = delayedQueryFilter != null ? delayedQueryFilter : new LogFilter();
+      LogColumn orderingColumn = createColumns(onClone);
+		filterBuilder.setLogHandle(logHandle);
+      if (onClone)
+      {
+         filterBuilder.setFilter(delayedQueryFilter);
+      }
+      else
+      {
+         if (orderingColumn != null)
+         {
+            List<OrderingColumn> orderingColumns = new ArrayList<OrderingColumn>(1);
+            orderingColumns.add(new OrderingColumn(orderingColumn.getName(), orderingColumn.getDescription(), true));
+            filter.setOrderingColumns(orderingColumns);
+         }
+         filterBuilder.setFilter(filter);         
+      }
+	}
+
+   /**
+    * Create viewer columns for current log and set content and label providers.
+    *
+    * @param onClone true if called on view clone
+    * @return default ordering column (always null if called on view clone)
+    */
+   private LogColumn createColumns(boolean onClone)
+   {
       org.eclipse.swt.widgets.Table table = viewer.getTable();
       Collection<LogColumn> columns = logHandle.getColumns();
-      LogFilter filter = delayedQueryFilter != null ? delayedQueryFilter : new LogFilter();
       LogColumn orderingColumn = null;
       for(final LogColumn lc : columns)
       {
@@ -301,23 +338,26 @@ else if ((orderingColumn == null) && (lc.getType() == LogColumn.LC_TIMESTAMP))
       }
 
       WidgetHelper.restoreColumnSettings(table, "LogViewer." + logHandle.getName());
+      updateContentProvider();
 		viewer.setLabelProvider(createLabelProvider(logHandle));
-		filterBuilder.setLogHandle(logHandle);
-      if (onClone)
-      {
-         filterBuilder.setFilter(delayedQueryFilter);
-      }
+      return orderingColumn;
+   }
+
+   /**
+    * Set content provider according to current mode (lazy provider backed by record cache in virtual mode, array provider
+    * otherwise).
+    */
+   private void updateContentProvider()
+   {
+      if (viewer.getContentProvider() != null)
+         viewer.setInput(null);
+      resultSet = null;
+      recordCache = null;
+      if (virtualMode)
+         viewer.setContentProvider(new LogRecordContentProvider(this, viewer));
       else
-      {
-         if (orderingColumn != null)
-         {
-            List<OrderingColumn> orderingColumns = new ArrayList<OrderingColumn>(1);
-            orderingColumns.add(new OrderingColumn(orderingColumn.getName(), orderingColumn.getDescription(), true));
-            filter.setOrderingColumns(orderingColumns);
-         }
-         filterBuilder.setFilter(filter);         
-      }
-	}
+         viewer.setContentProvider(new ArrayContentProvider());
+   }
 
 	/**
 	 * Create label provider
@@ -342,6 +382,8 @@ protected void fillLocalMenu(IMenuManager manager)
       manager.add(new Separator());
 		manager.add(actionClearFilter);
 		manager.add(actionShowFilter);
+      manager.add(new Separator());
+      manager.add(actionVirtualMode);
 	}
 
    /**
@@ -448,8 +490,16 @@ public void run()
 		};
       addKeyBinding("M1+C", actionCopyToClipboard);
 
-		actionExportToCsv = new ExportToCsvAction(this, viewer, true);
-		actionExportAllToCsv = new ExportToCsvAction(this, viewer, false);
+      // Viewer is re-created when virtual mode is switched, so export actions should get current viewer on demand
+      ViewerProvider viewerProvider = new ViewerProvider() {
+         @Override
+         public ColumnViewer getViewer()
+         {
+            return viewer;
+         }
+      };
+		actionExportToCsv = new ExportToCsvAction(this, viewerProvider, true);
+		actionExportAllToCsv = new ExportToCsvAction(this, viewerProvider, false);
 
       actionShowDetails = new Action("Show &details") {
          @Override
@@ -458,8 +508,48 @@ public void run()
             showRecordDetails();
          }
       };
+
+      actionVirtualMode = new Action(i18n.tr("&Virtual scrolling"), Action.AS_CHECK_BOX) {
+         @Override
+         public void run()
+         {
+            setVirtualMode(actionVirtualMode.isChecked());
+         }
+      };
+      actionVirtualMode.setChecked(virtualMode);
+      actionExportAllToCsv.setEnabled(!virtualMode);
 	}
 
+   /**
+    * Switch between virtual mode (only pages around current scroll position are kept in memory) and normal mode (all retrieved
+    * records are kept in memory). Table viewer is re-created because SWT.VIRTUAL style cannot be changed on existing table, and
+    * current query is re-executed in new mode.
+    *
+    * @param enable true to enable virtual mode
+    */
+   private void setVirtualMode(boolean enable)
+   {
+      if (virtualMode == enable)
+         return;
+
+      virtualMode = enable;
+      PreferenceStore.getInstance().set("LogViewer.VirtualMode", enable);
+      actionExportAllToCsv.setEnabled(!enable);
+
+      boolean hadResults = (resultSet != null);
+      resultSet = null;
+      recordCache = null;
+      viewer.getControl().dispose();
+      createViewer();
+      createPopupMenu();
+      if (logHandle != null)
+         createColumns(true);
+      viewerParent.layout(true, true);
+
+      if (hadResults)
+         doQuery();
+   }
+
 	/**
 	 * Query log with given filter
 	 * 
@@ -490,12 +580,30 @@ private void doQuery()
          protected void run(IProgressMonitor monitor) throws Exception
 			{
 				logHandle.query(filter);
-				final Table data = logHandle.retrieveData(0, PAGE_SIZE);
-            runInUIThread(() -> {
-               resultSet = data;
-               viewer.setInput(resultSet.getAllRows());
-               noData = (resultSet.getRowCount() < PAGE_SIZE);
-				});
+            if (virtualMode)
+            {
+               final LogRecordCache cache = new LogRecordCache(logHandle, PAGE_SIZE, VIRTUAL_MODE_MAX_PAGES);
+               final Table data = cache.loadPage(0, false);
+               runInUIThread(() -> {
+                  if (!(viewer.getContentProvider() instanceof LogRecordContentProvider))
+                     return; // mode was switched while query was running
+                  currentFilter = filter;
+                  resultSet = data;
+                  recordCache = cache;
+                  viewer.setInput(cache);
+                  ((LogRecordContentProvider)viewer.getContentProvider()).updateTable(-1);
+                  noData = true;
+               });
+            }
+            else
+            {
+               final Table data = logHandle.retrieveData(0, PAGE_SIZE);
+               runInUIThread(() -> {
+                  resultSet = data;
+                  viewer.setInput(resultSet.getAllRows());
+                  noData = (resultSet.getRowCount() < PAGE_SIZE);
+               });
+            }
 			}
 
          @Override
@@ -562,6 +670,12 @@ public void refresh()
       if (resultSet == null)
          return;
 
+      if (recordCache != null)
+      {
+         refreshVirtual();
+         return;
+      }
+
       onQueryStart();
       new Job(String.format(i18n.tr("Querying server log \"%s\""), logName), this) {
 			@Override
@@ -592,6 +706,48 @@ protected void jobFinalize()
       }.start();
 	}
 
+   /**
+    * Refresh in virtual mode - re-execute current query on server (so that number of records is updated), drop all cached pages
+    * and reload page at current scroll position.
+    */
+   private void refreshVirtual()
+   {
+      final LogRecordCache cache = recordCache;
+      final LogFilter filter = currentFilter;
+      final int pageIndex = cache.getPageIndex(viewer.getTable().getTopIndex());
+      onQueryStart();
+      new Job(String.format(i18n.tr("Querying server log \"%s\""), logName), this) {
+         @Override
+         protected void run(IProgressMonitor monitor) throws Exception
+         {
+            logHandle.query(filter);
+            cache.clear();
+            cache.loadPage(pageIndex, true);
+            runInUIThread(() -> {
+               if (recordCache != cache)
+                  return;
+               ((LogRecordContentProvider)viewer.getContentProvider()).updateTable(-1);
+               viewer.getTable().clearAll();
+            });
+         }
+
+         @Override
+         protected String getErrorMessage()
+         {
+            return String.format(i18n.tr("Cannot query server log \"%s\""), logName);
+         }
+
+         /**
+          * @see org.netxms.nxmc.base.jobs.Job#jobFinalize()
+          */
+         @Override
+         protected void jobFinalize()
+         {
+            runInUIThread(() -> onQueryComplete());
+         }
+      }.start();
+   }
+
    /**
     * Handles query start
     */
@@ -624,7 +780,11 @@ private void showRecordDetails()
       if (selection.size() != 1)
          return;
 
-      final TableRow record = (TableRow)selection.getFirstElement();
+      Object element = selection.getFirstElement();
+      final TableRow record = (element instanceof TableRow) ? (TableRow)element :
+            ((LogRecordContentProvider)viewer.getContentProvider()).getRecord(element);
+      if (record == null)
+         return;
       final long recordId = record.getValueAsLong(logHandle.getRecordIdColumnIndex());
 
       new Job(i18n.tr("Getting log record details"), this) {
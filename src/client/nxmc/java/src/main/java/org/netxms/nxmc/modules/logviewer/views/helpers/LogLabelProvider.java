@@ -87,7 +87,10 @@ public LogLabelProvider(Log logHandle, TableViewer viewer)
 	@Override
 	public Image getColumnImage(Object element, int columnIndex)
 	{
-      final String value = ((TableRow)element).get(columnIndex).getValue();
+      final TableRow record = getRecord(element);
+      if (record == null)
+         return null;
+      final String value = record.get(columnIndex).getValue();
 		switch(columns[columnIndex].getType())
 		{
          case LogColumn.LC_ALARM_STATE:
@@ -153,7 +156,10 @@ public Image getColumnImage(Object element, int columnIndex)
 	@Override
 	public String getColumnText(Object element, int columnIndex)
 	{
-		final String value = ((TableRow)element).get(columnIndex).getValue();
+      final TableRow record = getRecord(element);
+      if (record == null)
+         return "";
+		final String value = record.get(columnIndex).getValue();
 		switch(columns[columnIndex].getType())
 		{
          case LogColumn.LC_ALARM_HD_STATE:
@@ -273,6 +279,21 @@ public String getColumnText(Object element, int columnIndex)
 		}
 	}
 
+   /**
+    * Get record for given viewer element. In virtual mode viewer elements are record indexes resolved through content provider.
+    *
+    * @param element viewer element
+    * @return record or null if not available
+    */
+   private TableRow getRecord(Object element)
+   {
+      if (element instanceof TableRow)
+         return (TableRow)element;
+      if ((viewer != null) && (viewer.getContentProvider() instanceof LogRecordContentProvider))
+         return ((LogRecordContentProvider)viewer.getContentProvider()).getRecord(element);
+      return null;
+   }
+
    /**
     * @see org.eclipse.jface.viewers.BaseLabelProvider#dispose()
     */
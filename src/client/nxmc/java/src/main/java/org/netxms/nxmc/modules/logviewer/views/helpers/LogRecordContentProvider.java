@@ -0,0 +1,167 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.logviewer.views.helpers;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.netxms.client.TableRow;
+import org.netxms.client.log.LogRecordCache;
+import org.netxms.nxmc.base.jobs.Job;
+import org.netxms.nxmc.base.views.View;
+import org.netxms.nxmc.localization.LocalizationHelper;
+import org.xnap.commons.i18n.I18n;
+
+/**
+ * Lazy content provider for log viewer in virtual mode. Expects LogRecordCache as viewer input. Viewer elements are record
+ * indexes (as Integer objects), so table items never hold references to records - label provider resolves records through the
+ * cache with getRecord(). Records that are not loaded yet are shown as empty rows until containing page is retrieved from server
+ * in background. When cache evicts a page, corresponding table items are cleared.
+ */
+public class LogRecordContentProvider implements ILazyContentProvider
+{
+   private final I18n i18n = LocalizationHelper.getI18n(LogRecordContentProvider.class);
+
+   private View view;
+   private TableViewer viewer;
+   private LogRecordCache cache;
+
+   /**
+    * Create content provider.
+    *
+    * @param view owning view
+    * @param viewer table viewer
+    */
+   public LogRecordContentProvider(View view, TableViewer viewer)
+   {
+      this.view = view;
+      this.viewer = viewer;
+   }
+
+   /**
+    * @see org.eclipse.jface.viewers.IContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object, java.lang.Object)
+    */
+   @Override
+   public void inputChanged(Viewer viewer, Object oldInput, Object newInput)
+   {
+      cache = (newInput instanceof LogRecordCache) ? (LogRecordCache)newInput : null;
+   }
+
+   /**
+    * @see org.eclipse.jface.viewers.ILazyContentProvider#updateElement(int)
+    */
+   @Override
+   public void updateElement(int index)
+   {
+      if (cache == null)
+         return;
+
+      viewer.replace(Integer.valueOf(index), index);
+      for(Integer page : cache.getPagesToLoad(index))
+         loadPage(page);
+   }
+
+   /**
+    * Get record for given viewer element.
+    *
+    * @param element viewer element (record index)
+    * @return record or null if record is not loaded
+    */
+   public TableRow getRecord(Object element)
+   {
+      LogRecordCache currentCache = cache;
+      if ((currentCache == null) || !(element instanceof Integer))
+         return null;
+      return currentCache.getRecord((Integer)element);
+   }
+
+   /**
+    * Update table after cache content change - clear items for evicted pages and given loaded page (so they will be requested
+    * again when visible), and update item count if number of records has changed. Must be called from UI thread.
+    *
+    * @param loadedPage index of loaded page or -1
+    */
+   public void updateTable(int loadedPage)
+   {
+      if ((cache == null) || viewer.getControl().isDisposed())
+         return;
+
+      int itemCount = (int)Math.min(cache.getRecordCount(), Integer.MAX_VALUE);
+      if (viewer.getTable().getItemCount() != itemCount)
+         viewer.setItemCount(itemCount);
+
+      for(Integer page : cache.takeEvictedPages())
+         clearPage(page);
+      if (loadedPage >= 0)
+         clearPage(loadedPage);
+   }
+
+   /**
+    * Clear table items for given page.
+    *
+    * @param pageIndex page index
+    */
+   private void clearPage(int pageIndex)
+   {
+      int itemCount = viewer.getTable().getItemCount();
+      int start = pageIndex * cache.getPageSize();
+      int end = Math.min(start + cache.getPageSize(), itemCount) - 1;
+      if (end >= start)
+         viewer.getTable().clear(start, end);
+   }
+
+   /**
+    * Load page in background and update affected table items when done.
+    *
+    * @param pageIndex page index
+    */
+   private void loadPage(final int pageIndex)
+   {
+      final LogRecordCache currentCache = cache;
+      Job job = new Job(i18n.tr("Reading log records"), view) {
+         @Override
+         protected void run(IProgressMonitor monitor) throws Exception
+         {
+            currentCache.loadPage(pageIndex, false);
+            runInUIThread(() -> {
+               if (currentCache == cache)
+                  updateTable(pageIndex);
+            });
+         }
+
+         @Override
+         protected String getErrorMessage()
+         {
+            return i18n.tr("Cannot read log records");
+         }
+      };
+      job.setUser(false);
+      job.start();
+   }
+
+   /**
+    * @see org.eclipse.jface.viewers.IContentProvider#dispose()
+    */
+   @Override
+   public void dispose()
+   {
+      cache = null;
+   }
+}
@@ -0,0 +1,239 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.networkmaps.algorithms;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.gef4.zest.layouts.LayoutAlgorithm;
+import org.eclipse.gef4.zest.layouts.dataStructures.DisplayIndependentDimension;
+import org.eclipse.gef4.zest.layouts.dataStructures.DisplayIndependentPoint;
+import org.eclipse.gef4.zest.layouts.interfaces.ConnectionLayout;
+import org.eclipse.gef4.zest.layouts.interfaces.LayoutContext;
+import org.eclipse.gef4.zest.layouts.interfaces.NodeLayout;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Item;
+import org.netxms.nxmc.base.jobs.Job;
+import org.netxms.nxmc.localization.LocalizationHelper;
+import org.xnap.commons.i18n.I18n;
+
+/**
+ * Force-directed layout for large maps. Uses Barnes-Hut approximation, so each iteration is O(n log n). Small graphs are laid out
+ * synchronously; for larger graphs simulation runs in background job and intermediate positions are pushed to the graph at fixed
+ * frame rate, so map remains responsive while layout converges. Simulation stops early when nodes stop moving.
+ */
+public class ForceDirectedLayout implements LayoutAlgorithm
+{
+   private static final I18n i18n = LocalizationHelper.getI18n(ForceDirectedLayout.class);
+
+   private static final int SYNCHRONOUS_LAYOUT_LIMIT = 200;
+   private static final int MAX_ITERATIONS = 500;
+   private static final double MIN_MOVEMENT = 1.0;
+   private static final double IDEAL_EDGE_LENGTH = 80;
+   private static final double MARGIN = 20;
+   private static final long FRAME_INTERVAL = 100;
+
+   private LayoutContext context;
+   private Job job = null;
+   private int generation = 0;
+
+   /**
+    * @see org.eclipse.gef4.zest.layouts.LayoutAlgorithm#setLayoutContext(org.eclipse.gef4.zest.layouts.interfaces.LayoutContext)
+    */
+   @Override
+   public void setLayoutContext(LayoutContext context)
+   {
+      cancelBackgroundLayout();
+      this.context = context;
+   }
+
+   /**
+    * @see org.eclipse.gef4.zest.layouts.LayoutAlgorithm#applyLayout(boolean)
+    */
+   @Override
+   public void applyLayout(boolean clean)
+   {
+      if (!clean || (context == null))
+         return;
+
+      cancelBackgroundLayout();
+
+      final NodeLayout[] nodes = context.getNodes();
+      if (nodes.length == 0)
+         return;
+
+      Map<NodeLayout, Integer> indexes = new HashMap<NodeLayout, Integer>(nodes.length * 2);
+      double[] x = new double[nodes.length];
+      double[] y = new double[nodes.length];
+      final boolean[] fixed = new boolean[nodes.length];
+      double sizeSum = 0;
+      for(int i = 0; i < nodes.length; i++)
+      {
+         indexes.put(nodes[i], i);
+         DisplayIndependentPoint p = nodes[i].getLocation();
+         x[i] = p.x;
+         y[i] = p.y;
+         fixed[i] = !nodes[i].isMovable();
+         DisplayIndependentDimension d = nodes[i].getSize();
+         sizeSum += Math.max(d.width, d.height);
+      }
+
+      ConnectionLayout[] connections = context.getConnections();
+      int[] edgeSource = new int[connections.length];
+      int[] edgeTarget = new int[connections.length];
+      int edgeCount = 0;
+      for(ConnectionLayout c : connections)
+      {
+         Integer s = indexes.get(c.getSource());
+         Integer t = indexes.get(c.getTarget());
+         if ((s == null) || (t == null) || s.equals(t))
+            continue;
+         edgeSource[edgeCount] = s;
+         edgeTarget[edgeCount] = t;
+         edgeCount++;
+      }
+
+      final ForceDirectedSimulation simulation = new ForceDirectedSimulation(x, y, fixed,
+            Arrays.copyOf(edgeSource, edgeCount), Arrays.copyOf(edgeTarget, edgeCount),
+            IDEAL_EDGE_LENGTH + sizeSum / nodes.length);
+      simulation.placeInitial();
+
+      if (nodes.length <= SYNCHRONOUS_LAYOUT_LIMIT)
+      {
+         while((simulation.getIteration() < MAX_ITERATIONS) && (simulation.step() >= MIN_MOVEMENT))
+            ;
+         applyPositions(nodes, getPositions(simulation, fixed));
+         return;
+      }
+
+      applyPositions(nodes, getPositions(simulation, fixed));
+
+      final int jobGeneration = ++generation;
+      final Display display = Display.getCurrent();
+      job = new Job(i18n.tr("Calculating map layout"), null, null, display) {
+         @Override
+         protected void run(IProgressMonitor monitor) throws Exception
+         {
+            long frameTime = System.currentTimeMillis();
+            boolean converged = false;
+            while(!converged && !monitor.isCanceled() && (simulation.getIteration() < MAX_ITERATIONS))
+            {
+               converged = simulation.step() < MIN_MOVEMENT;
+               long now = System.currentTimeMillis();
+               if (converged || (now - frameTime >= FRAME_INTERVAL) || (simulation.getIteration() == MAX_ITERATIONS))
+               {
+                  final double[] positions = getPositions(simulation, fixed);
+                  display.syncExec(() -> {
+                     if ((jobGeneration == generation) && !isGraphDisposed(nodes))
+                        applyPositions(nodes, positions);
+                  });
+                  frameTime = now;
+               }
+            }
+         }
+
+         @Override
+         protected String getErrorMessage()
+         {
+            return i18n.tr("Cannot calculate map layout");
+         }
+      };
+      job.setUser(false);
+      job.start();
+   }
+
+   /**
+    * Cancel running background layout (if any).
+    */
+   private void cancelBackgroundLayout()
+   {
+      generation++;
+      if (job != null)
+      {
+         job.cancel();
+         job = null;
+      }
+   }
+
+   /**
+    * Get node positions from simulation, shifted so that all nodes have non-negative coordinates.
+    *
+    * @param simulation simulation
+    * @param fixed fixed node flags
+    * @return node positions as x0, y0, x1, y1, ...
+    */
+   private static double[] getPositions(ForceDirectedSimulation simulation, boolean[] fixed)
+   {
+      double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+      double[] positions = new double[fixed.length * 2];
+      for(int i = 0; i < fixed.length; i++)
+      {
+         positions[i * 2] = simulation.getX(i);
+         positions[i * 2 + 1] = simulation.getY(i);
+         if (!fixed[i])
+         {
+            minX = Math.min(minX, positions[i * 2]);
+            minY = Math.min(minY, positions[i * 2 + 1]);
+         }
+      }
+      if (minX == Double.MAX_VALUE)
+         return positions;
+
+      double shiftX = MARGIN + IDEAL_EDGE_LENGTH / 2 - minX;
+      double shiftY = MARGIN + IDEAL_EDGE_LENGTH / 2 - minY;
+      for(int i = 0; i < fixed.length; i++)
+      {
+         if (!fixed[i])
+         {
+            positions[i * 2] += shiftX;
+            positions[i * 2 + 1] += shiftY;
+         }
+      }
+      return positions;
+   }
+
+   /**
+    * Apply calculated positions to graph nodes. Must be called from UI thread.
+    *
+    * @param nodes graph nodes
+    * @param positions node positions
+    */
+   private void applyPositions(NodeLayout[] nodes, double[] positions)
+   {
+      for(int i = 0; i < nodes.length; i++)
+      {
+         if (nodes[i].isMovable())
+            nodes[i].setLocation(positions[i * 2], positions[i * 2 + 1]);
+      }
+      context.flushChanges(false);
+   }
+
+   /**
+    * Check if graph items behind layout nodes were disposed (map closed or reloaded).
+    *
+    * @param nodes graph nodes
+    * @return true if graph is disposed
+    */
+   private static boolean isGraphDisposed(NodeLayout[] nodes)
+   {
+      Item[] items = nodes[0].getItems();
+      return (items.length == 0) || items[0].isDisposed();
+   }
+}
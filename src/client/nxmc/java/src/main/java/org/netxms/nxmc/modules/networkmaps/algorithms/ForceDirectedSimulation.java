@@ -0,0 +1,378 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.networkmaps.algorithms;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Force-directed graph layout simulation (Fruchterman-Reingold model) with Barnes-Hut approximation of repulsive forces. Each
+ * iteration costs O(n log n + e) instead of O(n^2) for naive all-pairs implementation. Simulation is not thread safe and does not
+ * depend on UI classes, so it can be run in background thread.
+ */
+final class ForceDirectedSimulation
+{
+   private static final double THETA = 0.8;
+   private static final double GRAVITY = 0.1;
+   private static final double COOLING_FACTOR = 0.97;
+   private static final double MIN_TEMPERATURE = 0.5;
+   private static final int MAX_TREE_DEPTH = 24;
+   private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+
+   private final int count;
+   private final double[] x;
+   private final double[] y;
+   private final double[] dispX;
+   private final double[] dispY;
+   private final boolean[] fixed;
+   private final int[] edgeSource;
+   private final int[] edgeTarget;
+   private final double k;
+   private final double k2;
+   private double temperature;
+   private int iteration = 0;
+
+   /**
+    * Create simulation.
+    *
+    * @param x initial X coordinates (array is copied)
+    * @param y initial Y coordinates (array is copied)
+    * @param fixed fixed node flags (can be null if all nodes are movable)
+    * @param edgeSource edge source node indexes
+    * @param edgeTarget edge target node indexes
+    * @param idealEdgeLength ideal distance between connected nodes
+    */
+   ForceDirectedSimulation(double[] x, double[] y, boolean[] fixed, int[] edgeSource, int[] edgeTarget, double idealEdgeLength)
+   {
+      count = x.length;
+      this.x = x.clone();
+      this.y = y.clone();
+      this.fixed = (fixed != null) ? fixed : new boolean[count];
+      this.edgeSource = edgeSource;
+      this.edgeTarget = edgeTarget;
+      dispX = new double[count];
+      dispY = new double[count];
+      k = idealEdgeLength;
+      k2 = k * k;
+      temperature = k * Math.max(1.0, Math.sqrt(count) / 4);
+   }
+
+   /**
+    * Place movable nodes on a spiral in breadth-first order, so connected nodes start close to each other. This gives much
+    * better starting point than random placement and makes result deterministic.
+    */
+   void placeInitial()
+   {
+      List<List<Integer>> adjacency = new ArrayList<List<Integer>>(count);
+      for(int i = 0; i < count; i++)
+         adjacency.add(new ArrayList<Integer>());
+      for(int i = 0; i < edgeSource.length; i++)
+      {
+         adjacency.get(edgeSource[i]).add(edgeTarget[i]);
+         adjacency.get(edgeTarget[i]).add(edgeSource[i]);
+      }
+
+      boolean[] visited = new boolean[count];
+      int position = 0;
+      ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+      while(true)
+      {
+         // Start each component from its most connected node
+         int root = -1;
+         for(int i = 0; i < count; i++)
+         {
+            if (!visited[i] && ((root == -1) || (adjacency.get(i).size() > adjacency.get(root).size())))
+               root = i;
+         }
+         if (root == -1)
+            break;
+
+         visited[root] = true;
+         queue.add(root);
+         while(!queue.isEmpty())
+         {
+            int n = queue.poll();
+            if (!fixed[n])
+            {
+               double r = k * 0.5 * Math.sqrt(position);
+               double a = position * GOLDEN_ANGLE;
+               x[n] = r * Math.cos(a);
+               y[n] = r * Math.sin(a);
+               position++;
+            }
+            for(int peer : adjacency.get(n))
+            {
+               if (!visited[peer])
+               {
+                  visited[peer] = true;
+                  queue.add(peer);
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Run single simulation step.
+    *
+    * @return maximum displacement of a node during this step
+    */
+   double step()
+   {
+      Arrays.fill(dispX, 0);
+      Arrays.fill(dispY, 0);
+
+      // Repulsive forces
+      Cell root = buildTree();
+      double centerX = root.sumX / Math.max(root.mass, 1);
+      double centerY = root.sumY / Math.max(root.mass, 1);
+      for(int i = 0; i < count; i++)
+      {
+         if (!fixed[i])
+            applyRepulsion(root, i);
+      }
+
+      // Attractive forces
+      for(int e = 0; e < edgeSource.length; e++)
+      {
+         int s = edgeSource[e];
+         int t = edgeTarget[e];
+         double dx = x[s] - x[t];
+         double dy = y[s] - y[t];
+         double d = Math.sqrt(dx * dx + dy * dy);
+         if (d < 0.01)
+            continue;
+         double f = d / k; // (d^2 / k) / d
+         dispX[s] -= dx * f;
+         dispY[s] -= dy * f;
+         dispX[t] += dx * f;
+         dispY[t] += dy * f;
+      }
+
+      // Gravity keeps disconnected components together, then limit movement by temperature
+      double maxMovement = 0;
+      for(int i = 0; i < count; i++)
+      {
+         if (fixed[i])
+            continue;
+         dispX[i] -= (x[i] - centerX) * GRAVITY;
+         dispY[i] -= (y[i] - centerY) * GRAVITY;
+         double d = Math.sqrt(dispX[i] * dispX[i] + dispY[i] * dispY[i]);
+         if (d < 0.01)
+            continue;
+         double movement = Math.min(d, temperature);
+         x[i] += dispX[i] / d * movement;
+         y[i] += dispY[i] / d * movement;
+         if (movement > maxMovement)
+            maxMovement = movement;
+      }
+
+      temperature = Math.max(temperature * COOLING_FACTOR, MIN_TEMPERATURE);
+      iteration++;
+      return maxMovement;
+   }
+
+   /**
+    * Build Barnes-Hut quad tree for current node positions.
+    *
+    * @return root cell
+    */
+   private Cell buildTree()
+   {
+      double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+      for(int i = 0; i < count; i++)
+      {
+         minX = Math.min(minX, x[i]);
+         minY = Math.min(minY, y[i]);
+         maxX = Math.max(maxX, x[i]);
+         maxY = Math.max(maxY, y[i]);
+      }
+      Cell root = new Cell(minX, minY, Math.max(Math.max(maxX - minX, maxY - minY), 1) + 1, 0);
+      for(int i = 0; i < count; i++)
+         root.insert(i);
+      return root;
+   }
+
+   /**
+    * Accumulate repulsive force acting on given node from all nodes within given cell.
+    *
+    * @param cell tree cell
+    * @param node node index
+    */
+   private void applyRepulsion(Cell cell, int node)
+   {
+      if (cell.mass == 0)
+         return;
+
+      if (cell.children == null)
+      {
+         // Leaf - either single node or several nodes at (almost) same position
+         double mass = cell.mass;
+         if (cell.contains(node))
+            mass -= 1;
+         if (mass == 0)
+            return;
+         double dx = x[node] - cell.sumX / cell.mass;
+         double dy = y[node] - cell.sumY / cell.mass;
+         double d2 = dx * dx + dy * dy;
+         if (d2 < 0.01)
+         {
+            // Separate coincident nodes in deterministic direction
+            double a = node * GOLDEN_ANGLE;
+            dx = Math.cos(a);
+            dy = Math.sin(a);
+            d2 = 1;
+         }
+         double f = mass * k2 / d2;
+         dispX[node] += dx * f;
+         dispY[node] += dy * f;
+         return;
+      }
+
+      double dx = x[node] - cell.sumX / cell.mass;
+      double dy = y[node] - cell.sumY / cell.mass;
+      double d2 = dx * dx + dy * dy;
+      if ((cell.size * cell.size < THETA * THETA * d2) && !cell.contains(node))
+      {
+         double f = cell.mass * k2 / d2;
+         dispX[node] += dx * f;
+         dispY[node] += dy * f;
+         return;
+      }
+
+      for(Cell c : cell.children)
+      {
+         if (c != null)
+            applyRepulsion(c, node);
+      }
+   }
+
+   /**
+    * Get number of completed iterations.
+    *
+    * @return number of completed iterations
+    */
+   int getIteration()
+   {
+      return iteration;
+   }
+
+   /**
+    * Get X coordinate of given node.
+    *
+    * @param index node index
+    * @return X coordinate
+    */
+   double getX(int index)
+   {
+      return x[index];
+   }
+
+   /**
+    * Get Y coordinate of given node.
+    *
+    * @param index node index
+    * @return Y coordinate
+    */
+   double getY(int index)
+   {
+      return y[index];
+   }
+
+   /**
+    * Quad tree cell
+    */
+   private final class Cell
+   {
+      final double minX;
+      final double minY;
+      final double size;
+      final int depth;
+      Cell[] children = null;
+      int[] nodes = null;
+      int nodeCount = 0;
+      double mass = 0;
+      double sumX = 0;
+      double sumY = 0;
+
+      Cell(double minX, double minY, double size, int depth)
+      {
+         this.minX = minX;
+         this.minY = minY;
+         this.size = size;
+         this.depth = depth;
+      }
+
+      /**
+       * Check if given node is located within this cell.
+       */
+      boolean contains(int node)
+      {
+         return (x[node] >= minX) && (x[node] < minX + size) && (y[node] >= minY) && (y[node] < minY + size);
+      }
+
+      /**
+       * Insert node into this cell.
+       */
+      void insert(int node)
+      {
+         mass += 1;
+         sumX += x[node];
+         sumY += y[node];
+
+         if (children != null)
+         {
+            child(node).insert(node);
+            return;
+         }
+
+         if ((nodeCount == 0) || (depth >= MAX_TREE_DEPTH))
+         {
+            if (nodes == null)
+               nodes = new int[1];
+            else if (nodeCount == nodes.length)
+               nodes = Arrays.copyOf(nodes, nodeCount * 2);
+            nodes[nodeCount++] = node;
+            return;
+         }
+
+         // Split leaf
+         children = new Cell[4];
+         for(int i = 0; i < nodeCount; i++)
+            child(nodes[i]).insert(nodes[i]);
+         nodes = null;
+         nodeCount = 0;
+         child(node).insert(node);
+      }
+
+      /**
+       * Get (create if needed) child cell for given node.
+       */
+      private Cell child(int node)
+      {
+         double half = size / 2;
+         int index = ((x[node] >= minX + half) ? 1 : 0) | ((y[node] >= minY + half) ? 2 : 0);
+         if (children[index] == null)
+            children[index] = new Cell(((index & 1) != 0) ? minX + half : minX, ((index & 2) != 0) ? minY + half : minY, half, depth + 1);
+         return children[index];
+      }
+   }
+}
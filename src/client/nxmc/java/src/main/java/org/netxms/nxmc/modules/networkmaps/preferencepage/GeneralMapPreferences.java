@@ -50,5 +50,6 @@ protected void createFieldEditors()
       addField(new BooleanFieldEditor("NetMap.ShowStatusBackground", i18n.tr("Show status background under objects"), getFieldEditorParent()));
       addField(new BooleanFieldEditor("NetMap.TranslucentLabelBkgnd", i18n.tr("Translucent label background"), getFieldEditorParent()));
       addField(new IntegerFieldEditor("NetMap.DefaultLinkWidth", i18n.tr("Default link width"), getFieldEditorParent(), 3));
+      addField(new BooleanFieldEditor("NetMap.ShowRenderStatistics", i18n.tr("Show rendering statistics (debug)"), getFieldEditorParent()));
 	}
 }
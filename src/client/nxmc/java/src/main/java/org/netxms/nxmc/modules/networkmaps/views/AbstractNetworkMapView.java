@@ -87,6 +87,7 @@
 import org.netxms.nxmc.localization.LocalizationHelper;
 import org.netxms.nxmc.modules.datacollection.views.HistoricalGraphView;
 import org.netxms.nxmc.modules.networkmaps.ObjectDoubleClickHandlerRegistry;
+import org.netxms.nxmc.modules.networkmaps.algorithms.ForceDirectedLayout;
 import org.netxms.nxmc.modules.networkmaps.algorithms.ManualLayout;
 import org.netxms.nxmc.modules.networkmaps.views.helpers.BendpointEditor;
 import org.netxms.nxmc.modules.networkmaps.views.helpers.MapImageManipulationHelper;
@@ -95,6 +96,7 @@
 import org.netxms.nxmc.modules.networkmaps.widgets.helpers.LinkDciValueProvider;
 import org.netxms.nxmc.modules.networkmaps.widgets.helpers.MapContentProvider;
 import org.netxms.nxmc.modules.networkmaps.widgets.helpers.MapLabelProvider;
+import org.netxms.nxmc.modules.networkmaps.widgets.helpers.MapUpdateScheduler;
 import org.netxms.nxmc.modules.objects.ObjectContextMenuManager;
 import org.netxms.nxmc.modules.objects.views.ObjectView;
 import org.netxms.nxmc.resources.ResourceManager;
@@ -116,6 +118,7 @@ public abstract class AbstractNetworkMapView extends ObjectView implements ISele
 	protected static final int LAYOUT_HTREE = 2;
 	protected static final int LAYOUT_VTREE = 3;
 	protected static final int LAYOUT_SPARSE_VTREE = 4;
+	protected static final int LAYOUT_FORCE_DIRECTED = 5;
 
 	private static final String[] layoutAlgorithmNames = 
    	   { 
@@ -123,7 +126,8 @@ public abstract class AbstractNetworkMapView extends ObjectView implements ISele
    	      LocalizationHelper.getI18n(AbstractNetworkMapView.class).tr("Radial"), 
    	      LocalizationHelper.getI18n(AbstractNetworkMapView.class).tr("Horizontal tree"), 
    	      LocalizationHelper.getI18n(AbstractNetworkMapView.class).tr("Vertical tree"), 
-   	      LocalizationHelper.getI18n(AbstractNetworkMapView.class).tr("Sparse vertical tree") 
+   	      LocalizationHelper.getI18n(AbstractNetworkMapView.class).tr("Sparse vertical tree"), 
+   	      LocalizationHelper.getI18n(AbstractNetworkMapView.class).tr("Force directed") 
    	   };
    private static final String[] connectionRouterNames = 
          { 
@@ -188,6 +192,8 @@ public abstract class AbstractNetworkMapView extends ObjectView implements ISele
 	private SessionListener sessionListener;
 	private ObjectDoubleClickHandlerRegistry doubleClickHandlers;
    private LinkDciValueProvider dciValueProvider = LinkDciValueProvider.getInstance();
+   private LinkDciValueProvider.DciValueChangeListener dciValueChangeListener;
+   protected MapUpdateScheduler updateScheduler;
 
    /**
     * Create new map view.
@@ -248,7 +254,9 @@ public void onLinkChange(NetworkMapLink link)
          }
       });
       labelProvider = new MapLabelProvider(viewer);
-		viewer.setContentProvider(new MapContentProvider(viewer, labelProvider));
+      updateScheduler = new MapUpdateScheduler(viewer);
+      updateScheduler.setShowStatistics(PreferenceStore.getInstance().getAsBoolean("NetMap.ShowRenderStatistics", false));
+		viewer.setContentProvider(new MapContentProvider(viewer, labelProvider, updateScheduler));
 		viewer.setLabelProvider(labelProvider);
       viewer.setBackgroundColor(parent.getDisplay().getSystemColor(SWT.COLOR_LIST_BACKGROUND).getRGB());
 
@@ -349,6 +357,18 @@ public void run()
 		};
 		session.addListener(sessionListener);
 
+      dciValueChangeListener = new LinkDciValueProvider.DciValueChangeListener() {
+         @Override
+         public void dciValuesChanged(final Set<Long> dciIds)
+         {
+            viewer.getControl().getDisplay().asyncExec(() -> {
+               if (!viewer.getControl().isDisposed())
+                  processDciValueChange(dciIds);
+            });
+         }
+      };
+      dciValueProvider.addChangeListener(dciValueChangeListener);
+
 		createActions();
 		createContextMenu();
 
@@ -413,6 +433,7 @@ protected void setupMapControl()
    public void refresh()
 	{
 		buildMapPage(mapPage);
+      updateScheduler.reset();
 		viewer.setInput(mapPage);
 		viewer.setSelection(StructuredSelection.EMPTY);
 	}
@@ -431,6 +452,7 @@ public void run()
 			   NetworkMapPage oldMapPage = mapPage;
 				mapPage = page;
 				refreshDciRequestList(oldMapPage);
+            updateScheduler.reset();
 				viewer.setInput(mapPage);
 			}
 		});
@@ -485,6 +507,9 @@ protected void setLayoutAlgorithm(MapLayoutAlgorithm alg, boolean forceChange)
 				algorithm = new TreeLayoutAlgorithm(TreeLayoutAlgorithm.TOP_DOWN);
 				((TreeLayoutAlgorithm)algorithm).setNodeSpace(new Dimension(100, 100));
 				break;
+			case FORCE_DIRECTED:
+				algorithm = new ForceDirectedLayout();
+				break;
 			default:
 				algorithm = new GridLayoutAlgorithm();
 				break;
@@ -1191,7 +1216,8 @@ else if (first instanceof NetworkMapLink)
 	}
 
 	/**
-	 * Called by session listener when NetXMS object was changed.
+	 * Called by session listener when NetXMS object was changed. Affected elements and links are marked for update; actual refresh
+	 * is done by update scheduler.
 	 * 
 	 * @param object changed NetXMS object
 	 */
@@ -1202,16 +1228,27 @@ protected void processObjectUpdateNotification(final AbstractObject object)
       
 		NetworkMapObject element = mapPage.findObjectElement(object.getObjectId());
 		if (element != null)
-			viewer.refresh(element, true);
+			updateScheduler.markElement(element);
 
 		List<NetworkMapLink> links = mapPage.findLinksWithStatusObject(object.getObjectId());
-		if (links != null)
+		if ((links != null) && updateScheduler.isStatusChanged(object.getObjectId(), object.getStatus()))
 		{
 			for(NetworkMapLink l : links)
-				viewer.refresh(l);
+				updateScheduler.markLink(l);
 		}
 	}
 
+   /**
+    * Called when last values for some DCIs used on map were changed. Marks links and DCI elements showing these DCIs for update.
+    *
+    * @param dciIds identifiers of changed DCIs
+    */
+   protected void processDciValueChange(Set<Long> dciIds)
+   {
+      if (mapPage != null)
+         updateScheduler.markDciChanges(mapPage, dciIds);
+   }
+
 	/**
 	 * Called when map layout has to be saved. Object positions already updated when this method is called. Default implementation
 	 * does nothing.
@@ -1238,6 +1275,8 @@ public void dispose()
 	{
 		if (sessionListener != null)
 			session.removeListener(sessionListener);
+      if (dciValueChangeListener != null)
+         dciValueProvider.removeChangeListener(dciValueChangeListener);
 
       if (mapPage != null)
          dciValueProvider.removeDcis(mapPage);
@@ -65,12 +65,14 @@
 import org.netxms.nxmc.localization.LocalizationHelper;
 import org.netxms.nxmc.modules.imagelibrary.ImageProvider;
 import org.netxms.nxmc.modules.networkmaps.ObjectDoubleClickHandlerRegistry;
+import org.netxms.nxmc.modules.networkmaps.algorithms.ForceDirectedLayout;
 import org.netxms.nxmc.modules.networkmaps.algorithms.ManualLayout;
 import org.netxms.nxmc.modules.networkmaps.algorithms.SparseTree;
 import org.netxms.nxmc.modules.networkmaps.widgets.helpers.ExtendedGraphViewer;
 import org.netxms.nxmc.modules.networkmaps.widgets.helpers.LinkDciValueProvider;
 import org.netxms.nxmc.modules.networkmaps.widgets.helpers.MapContentProvider;
 import org.netxms.nxmc.modules.networkmaps.widgets.helpers.MapLabelProvider;
+import org.netxms.nxmc.modules.networkmaps.widgets.helpers.MapUpdateScheduler;
 import org.netxms.nxmc.tools.ColorConverter;
 import org.xnap.commons.i18n.I18n;
 
@@ -92,6 +94,8 @@ public class NetworkMapWidget extends Composite
    private Stack<Long> history = new Stack<Long>();
    private long currentMapId = 0;
    private LinkDciValueProvider dciValueProvider;
+   private LinkDciValueProvider.DciValueChangeListener dciValueChangeListener;
+   private MapUpdateScheduler updateScheduler;
    private View view;
 
 	/**
@@ -109,7 +113,8 @@ public NetworkMapWidget(Composite parent, int style, View view)
 
       viewer = new ExtendedGraphViewer(this, SWT.NONE, view, null); 
       labelProvider = new MapLabelProvider(viewer);
-		viewer.setContentProvider(new MapContentProvider(viewer, labelProvider));
+      updateScheduler = new MapUpdateScheduler(viewer);
+		viewer.setContentProvider(new MapContentProvider(viewer, labelProvider, updateScheduler));
 		viewer.setLabelProvider(labelProvider);
 
 		addDisposeListener(new DisposeListener() {
@@ -120,6 +125,7 @@ public void widgetDisposed(DisposeEvent e)
 					defaultLinkColor.dispose();
 		      if (sessionListener != null)
 		         session.removeListener(sessionListener);
+		      dciValueProvider.removeChangeListener(dciValueChangeListener);
 			}
 		});
 
@@ -140,6 +146,22 @@ public void run()
          }
       };
       session.addListener(sessionListener);
+
+      dciValueChangeListener = new LinkDciValueProvider.DciValueChangeListener() {
+         @Override
+         public void dciValuesChanged(final Set<Long> dciIds)
+         {
+            getDisplay().asyncExec(new Runnable() {
+               @Override
+               public void run()
+               {
+                  if (!isDisposed() && (mapPage != null))
+                     updateScheduler.markDciChanges(mapPage, dciIds);
+               }
+            });
+         }
+      };
+      dciValueProvider.addChangeListener(dciValueChangeListener);
 	}
 
 	/**
@@ -211,12 +233,12 @@ private void onObjectChange(final AbstractObject object)
 
       NetworkMapObject element = mapPage.findObjectElement(object.getObjectId());
       if (element != null)
-         viewer.refresh(element, true);
+         updateScheduler.markElement(element);
 
       List<NetworkMapLink> links = mapPage.findLinksWithStatusObject(object.getObjectId());
-      if (links != null)
+      if ((links != null) && updateScheduler.isStatusChanged(object.getObjectId(), object.getStatus()))
          for(NetworkMapLink l : links)
-            viewer.refresh(l);
+            updateScheduler.markLink(l);
    }
 
 	/**
@@ -228,6 +250,7 @@ public void setContent(NetworkMapPage page)
 	{
 	   mapPage = page;
       addDciToRequestList();
+      updateScheduler.reset();
       viewer.setInput(page);
 	}
 
@@ -290,6 +313,7 @@ private void setContent(NetworkMap mapObject, boolean resetHistory)
 
 		mapPage = mapObject.createMapPage();
       addDciToRequestList();	
+      updateScheduler.reset();
 		viewer.setInput(mapPage);
 
 		if (resetHistory)
@@ -382,6 +406,9 @@ public int compare(Viewer viewer, Object e1, Object e2)
 						new LayoutAlgorithm[] { mainLayoutAlgorithm,
 						                        new SparseTree() });
 				break;
+			case FORCE_DIRECTED:
+				algorithm = new ForceDirectedLayout();
+				break;
 			default:
 				algorithm = new GridLayoutAlgorithm();
 				break;
@@ -118,6 +118,7 @@ public class ExtendedGraphViewer extends GraphViewer
 	private ColorCache colors;
 	private Image iconBack;
 	private OverlayButton backButton = null;
+   private Label renderStatistics = null;
 	private boolean draggingEnabled = true;
    private boolean centeredBackground = false;
    private boolean fitBackground = false;
@@ -699,6 +700,38 @@ public void hideBackButton()
       }
 	}
 	
+   /**
+    * Show rendering statistics overlay (intended for debugging map performance).
+    *
+    * @param text statistics text
+    */
+   public void showRenderStatistics(String text)
+   {
+      if (renderStatistics == null)
+      {
+         renderStatistics = new Label();
+         renderStatistics.setOpaque(true);
+         renderStatistics.setBackgroundColor(colors.create(255, 255, 224));
+         renderStatistics.setForegroundColor(colors.create(0, 0, 0));
+         controlLayer.add(renderStatistics);
+      }
+      renderStatistics.setText(text);
+      Dimension size = renderStatistics.getPreferredSize();
+      renderStatistics.setBounds(new org.eclipse.draw2d.geometry.Rectangle(10, 50, size.width + 8, size.height + 4));
+   }
+
+   /**
+    * Hide rendering statistics overlay
+    */
+   public void hideRenderStatistics()
+   {
+      if (renderStatistics != null)
+      {
+         controlLayer.remove(renderStatistics);
+         renderStatistics = null;
+      }
+   }
+
 	/**
 	 * Show crosshair at given location
 	 * 
@@ -24,7 +24,9 @@
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import org.netxms.client.NXCSession;
 import org.netxms.client.datacollection.DataCollectionItem;
 import org.netxms.client.datacollection.DciValue;
@@ -51,6 +53,20 @@
    private NXCSession session = Registry.getSession();
 	private Thread syncThread = null;
 	private volatile boolean syncRunning = true;
+   private Set<DciValueChangeListener> changeListeners = new CopyOnWriteArraySet<DciValueChangeListener>();
+
+   /**
+    * Listener for DCI value changes
+    */
+   public interface DciValueChangeListener
+   {
+      /**
+       * Called from background synchronization thread when values for some DCIs were changed since last synchronization.
+       *
+       * @param dciIds identifiers of changed DCIs
+       */
+      public void dciValuesChanged(Set<Long> dciIds);
+   }
 
    /**
     * Create instance of map object syncer for given display and session.
@@ -103,8 +119,18 @@ private void syncLastValues()
                   if (dciIDList.size() > 0)
 					   {
    						DciValue[] values = session.getLastValues(dciIDList); 
+                     Set<Long> changedDciIds = new HashSet<Long>();
    						for(DciValue v : values)
-   						   cachedDciValues.put(v.getId(), v);
+                     {
+   						   DciValue prev = cachedDciValues.put(v.getId(), v);
+                        if ((prev == null) || !Objects.equals(prev.getValue(), v.getValue()) || !Objects.equals(prev.getTimestamp(), v.getTimestamp()))
+                           changedDciIds.add(v.getId());
+                     }
+                     if (!changedDciIds.isEmpty())
+                     {
+                        for(DciValueChangeListener l : changeListeners)
+                           l.dciValuesChanged(changedDciIds);
+                     }
 					   }
 					}
 					catch(Exception e2)
@@ -139,6 +165,26 @@ public DciValue getDciLastValue(long dciID)
 		return value;
 	}
 
+   /**
+    * Add DCI value change listener.
+    *
+    * @param listener listener to add
+    */
+   public void addChangeListener(DciValueChangeListener listener)
+   {
+      changeListeners.add(listener);
+   }
+
+   /**
+    * Remove DCI value change listener.
+    *
+    * @param listener listener to remove
+    */
+   public void removeChangeListener(DciValueChangeListener listener)
+   {
+      changeListeners.remove(listener);
+   }
+
    /**
 	 * 
 	 */
@@ -24,6 +24,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 import org.eclipse.gef4.zest.core.viewers.IGraphEntityRelationshipContentProvider;
 import org.eclipse.jface.viewers.Viewer;
@@ -31,7 +32,6 @@
 import org.netxms.client.NXCSession;
 import org.netxms.client.datacollection.DciValue;
 import org.netxms.client.maps.MapObjectDisplayMode;
-import org.netxms.client.maps.NetworkMapLink;
 import org.netxms.client.maps.NetworkMapPage;
 import org.netxms.client.maps.elements.NetworkMapDCIContainer;
 import org.netxms.client.maps.elements.NetworkMapDCIImage;
@@ -59,14 +59,19 @@ public class MapContentProvider implements IGraphEntityRelationshipContentProvid
 	private Thread syncThread = null;
 	private volatile boolean syncRunning = true;
 	private MapLabelProvider labelProvider;
+   private MapUpdateScheduler updateScheduler;
 	
 	/**
 	 * Constructor
-	 * @param labelProvider 
+	 *
+	 * @param viewer map viewer
+	 * @param labelProvider map label provider
+	 * @param updateScheduler update scheduler for changed map elements
 	 */
-	public MapContentProvider(ExtendedGraphViewer viewer, MapLabelProvider labelProvider)
+	public MapContentProvider(ExtendedGraphViewer viewer, MapLabelProvider labelProvider, MapUpdateScheduler updateScheduler)
 	{
 	   this.labelProvider = labelProvider;
+      this.updateScheduler = updateScheduler;
 		this.viewer = viewer;
 		final Display display = viewer.getControl().getDisplay();
 		syncThread = new Thread(new Runnable() {
@@ -81,7 +86,8 @@ public void run()
 	}
 
 	/**
-    * Synchronize data in background
+    * Synchronize last values shown in large object labels in background. Only objects with changed values are passed to update
+    * scheduler. Links and DCI elements are updated by DCI value change notifications from LinkDciValueProvider.
     */
 	private void syncData(Display display)
 	{
@@ -106,48 +112,30 @@ private void syncData(Display display)
          {
             try
             {
-               final Map<Long, DciValue[]> values = session.getTooltipLastValues(cachedDciValues.keySet());
+               final Map<Long, DciValue[]> values = session.getTooltipLastValues(dataSyncSet);
                display.asyncExec(new Runnable() {
                   @Override
                   public void run()
                   {
-                     if (viewer.getControl().isDisposed())
+                     if (viewer.getControl().isDisposed() || (page == null))
                         return;
 
+                     List<Long> changedObjects = new ArrayList<Long>();
                      synchronized(cachedDciValues)
                      {
-                        cachedDciValues.putAll(values);
-
-                        if (labelProvider.getObjectFigureType() == MapObjectDisplayMode.LARGE_LABEL)
-                        {
-                           for(Entry<Long, DciValue[]> e : cachedDciValues.entrySet())
-                           {
-                              if ((e.getValue() == null) || (e.getValue().length == 0))
-                                 continue;
-                              NetworkMapObject o = page.findObjectElement(e.getKey());
-                              if (o != null)
-                                 viewer.refresh(o);
-                           }
-                        }
-                        if (page != null && page.getLinks() != null)
+                        for(Entry<Long, DciValue[]> e : values.entrySet())
                         {
-                           for(NetworkMapLink e : page.getLinks())
-                           {
-                              if (!e.hasDciData())
-                                 continue;
-                              viewer.refresh(e);
-                           }
-                        }
-                        if (page != null && page.getElements() != null)
-                        {
-                           for(NetworkMapElement e : page.getElements())
-                           {
-                              if ((!(e instanceof NetworkMapDCIContainer) || !((NetworkMapDCIContainer)e).hasDciData()) && !(e instanceof NetworkMapDCIImage))
-                                 continue;
-                              viewer.updateDecorationFigure(e);
-                           }
+                           if (!isSameValues(cachedDciValues.put(e.getKey(), e.getValue()), e.getValue()))
+                              changedObjects.add(e.getKey());
                         }
                      }
+
+                     for(Long id : changedObjects)
+                     {
+                        NetworkMapObject o = page.findObjectElement(id);
+                        if (o != null)
+                           updateScheduler.markElement(o);
+                     }
                   }
                });
             }
@@ -167,6 +155,29 @@ public void run()
 		}
 	}
 
+   /**
+    * Check if two sets of last values are the same (same DCIs with same values and timestamps).
+    *
+    * @param oldValues old values (may be null)
+    * @param newValues new values (may be null)
+    * @return true if values are the same
+    */
+   private static boolean isSameValues(DciValue[] oldValues, DciValue[] newValues)
+   {
+      if ((oldValues == null) || (newValues == null))
+         return oldValues == newValues;
+      if (oldValues.length != newValues.length)
+         return false;
+      for(int i = 0; i < oldValues.length; i++)
+      {
+         if ((oldValues[i].getId() != newValues[i].getId()) || (oldValues[i].getStatus() != newValues[i].getStatus()) ||
+             !Objects.equals(oldValues[i].getValue(), newValues[i].getValue()) ||
+             !Objects.equals(oldValues[i].getTimestamp(), newValues[i].getTimestamp()))
+            return false;
+      }
+      return true;
+   }
+
 	/**
 	 * Get last DCI values for given node
 	 * 
@@ -0,0 +1,221 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.networkmaps.widgets.helpers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.swt.widgets.Display;
+import org.netxms.client.constants.ObjectStatus;
+import org.netxms.client.maps.NetworkMapLink;
+import org.netxms.client.maps.NetworkMapPage;
+import org.netxms.client.maps.configs.SingleDciConfig;
+import org.netxms.client.maps.elements.NetworkMapDCIContainer;
+import org.netxms.client.maps.elements.NetworkMapDCIImage;
+import org.netxms.client.maps.elements.NetworkMapDecoration;
+import org.netxms.client.maps.elements.NetworkMapElement;
+import org.netxms.client.maps.elements.NetworkMapTextBox;
+import org.netxms.nxmc.localization.LocalizationHelper;
+import org.xnap.commons.i18n.I18n;
+
+/**
+ * Incremental update scheduler for network map. Collects map elements and links affected by object changes or DCI value updates
+ * and refreshes only those items, so only figures that actually changed are re-styled and only their regions are repainted.
+ * Updates are coalesced and applied not more often than once per minimal update interval. Must be used from UI thread only.
+ */
+public class MapUpdateScheduler
+{
+   private static final int MIN_UPDATE_INTERVAL = 250;
+
+   private final I18n i18n = LocalizationHelper.getI18n(MapUpdateScheduler.class);
+
+   private ExtendedGraphViewer viewer;
+   private Display display;
+   private Set<Object> dirtyItems = new LinkedHashSet<Object>();
+   private Map<Long, ObjectStatus> objectStatus = new HashMap<Long, ObjectStatus>();
+   private boolean updateScheduled = false;
+   private long lastUpdateTime = 0;
+   private long firstChangeTime = 0;
+   private boolean showStatistics = false;
+   private List<Long> updateTimestamps = new ArrayList<Long>();
+
+   /**
+    * Create scheduler for given viewer.
+    *
+    * @param viewer map viewer
+    */
+   public MapUpdateScheduler(ExtendedGraphViewer viewer)
+   {
+      this.viewer = viewer;
+      this.display = viewer.getControl().getDisplay();
+   }
+
+   /**
+    * Enable or disable rendering statistics overlay (updates per second and update latency).
+    *
+    * @param show true to show statistics
+    */
+   public void setShowStatistics(boolean show)
+   {
+      showStatistics = show;
+      if (!show)
+         viewer.hideRenderStatistics();
+   }
+
+   /**
+    * Mark map element as changed.
+    *
+    * @param element changed element
+    */
+   public void markElement(NetworkMapElement element)
+   {
+      markItem(element);
+   }
+
+   /**
+    * Mark map link as changed.
+    *
+    * @param link changed link
+    */
+   public void markLink(NetworkMapLink link)
+   {
+      markItem(link);
+   }
+
+   /**
+    * Mark links and DCI elements showing any of given DCIs as changed.
+    *
+    * @param page map page
+    * @param dciIds identifiers of changed DCIs
+    */
+   public void markDciChanges(NetworkMapPage page, Set<Long> dciIds)
+   {
+      for(NetworkMapLink link : page.getLinks())
+      {
+         if (!link.hasDciData())
+            continue;
+         for(SingleDciConfig dci : link.getDciList())
+         {
+            if (dciIds.contains(dci.dciId))
+            {
+               markLink(link);
+               break;
+            }
+         }
+      }
+
+      for(NetworkMapElement element : page.getElements())
+      {
+         if ((element instanceof NetworkMapDCIContainer) && ((NetworkMapDCIContainer)element).hasDciData())
+         {
+            for(SingleDciConfig dci : ((NetworkMapDCIContainer)element).getObjectDCIArray())
+            {
+               if (dciIds.contains(dci.dciId))
+               {
+                  markElement(element);
+                  break;
+               }
+            }
+         }
+         else if ((element instanceof NetworkMapDCIImage) && dciIds.contains(((NetworkMapDCIImage)element).getImageOptions().getDci().dciId))
+         {
+            markElement(element);
+         }
+      }
+   }
+
+   /**
+    * Check if status of given object was changed since last call for same object. Links colored by object status only need
+    * update when status actually changes, while any other object change does not affect them.
+    *
+    * @param objectId object ID
+    * @param status current object status
+    * @return true if status was changed or is not known yet
+    */
+   public boolean isStatusChanged(long objectId, ObjectStatus status)
+   {
+      return objectStatus.put(objectId, status) != status;
+   }
+
+   /**
+    * Forget all pending updates and known object states (should be called when map page is replaced).
+    */
+   public void reset()
+   {
+      dirtyItems.clear();
+      objectStatus.clear();
+   }
+
+   /**
+    * Add item to dirty set and schedule update if needed.
+    *
+    * @param item map element or link
+    */
+   private void markItem(Object item)
+   {
+      if (dirtyItems.isEmpty())
+         firstChangeTime = System.currentTimeMillis();
+      dirtyItems.add(item);
+      if (updateScheduled)
+         return;
+
+      updateScheduled = true;
+      long delay = lastUpdateTime + MIN_UPDATE_INTERVAL - System.currentTimeMillis();
+      if (delay > 0)
+         display.timerExec((int)delay, () -> update());
+      else
+         display.asyncExec(() -> update());
+   }
+
+   /**
+    * Apply pending updates
+    */
+   private void update()
+   {
+      updateScheduled = false;
+      if (viewer.getControl().isDisposed() || dirtyItems.isEmpty())
+         return;
+
+      long startTime = System.currentTimeMillis();
+      List<Object> items = new ArrayList<Object>(dirtyItems);
+      dirtyItems.clear();
+      for(Object item : items)
+      {
+         if ((item instanceof NetworkMapDecoration) || (item instanceof NetworkMapDCIContainer) || (item instanceof NetworkMapDCIImage) || (item instanceof NetworkMapTextBox))
+            viewer.updateDecorationFigure((NetworkMapElement)item);
+         else if (item instanceof NetworkMapLink)
+            viewer.refresh(item);
+         else
+            viewer.refresh(item, true);
+      }
+      lastUpdateTime = System.currentTimeMillis();
+
+      if (showStatistics)
+      {
+         final long now = lastUpdateTime;
+         updateTimestamps.add(now);
+         updateTimestamps.removeIf((t) -> t < now - 1000);
+         viewer.showRenderStatistics(String.format(i18n.tr("%d updates/s, %d items, render %d ms, latency %d ms"),
+               updateTimestamps.size(), items.size(), now - startTime, now - firstChangeTime));
+      }
+   }
+}
@@ -0,0 +1,165 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc;
+
+import org.netxms.base.VersionInfo;
+import org.netxms.client.NXCSession;
+import org.netxms.client.ProtocolVersion;
+import org.netxms.client.SharedObjectCache;
+import org.netxms.nxmc.base.login.KeepAliveTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manager for process-wide shared object cache. When enabled, single session logged in with dedicated account maintains
+ * object cache which is then used as source of object data by all user sessions, so each user session does not have to
+ * read all objects from server on login. Cache session is created by background thread started at application startup;
+ * until it is ready (or while it is being re-created after connection loss) user sessions synchronize objects as usual.
+ */
+public final class SharedObjectCacheManager
+{
+   private static final Logger logger = LoggerFactory.getLogger(SharedObjectCacheManager.class);
+   private static final long RETRY_INTERVAL = 60000;
+   private static final long CHECK_INTERVAL = 10000;
+
+   private static volatile SharedObjectCache cache = null;
+   private static Thread managerThread = null;
+
+   /**
+    * Start background initialization of shared object cache if it is enabled in application properties.
+    *
+    * @param appProperties application properties
+    */
+   public static synchronized void start(final AppPropertiesLoader appProperties)
+   {
+      if (!appProperties.getPropertyAsBoolean("sharedObjectCache", false) || (managerThread != null))
+         return;
+
+      final String login = appProperties.getProperty("sharedObjectCacheLogin");
+      if (login == null)
+      {
+         logger.warn("Shared object cache enabled but login is not set");
+         return;
+      }
+
+      managerThread = new Thread(new Runnable() {
+         @Override
+         public void run()
+         {
+            managerThreadMain(appProperties, login);
+         }
+      }, "SharedObjectCacheManager");
+      managerThread.setDaemon(true);
+      managerThread.start();
+   }
+
+   /**
+    * Get shared object cache. This method never blocks; if cache is disabled or not ready yet it returns null and caller
+    * should synchronize objects from server.
+    *
+    * @return shared object cache or null
+    */
+   public static SharedObjectCache getCache()
+   {
+      SharedObjectCache c = cache;
+      return ((c != null) && c.isValid()) ? c : null;
+   }
+
+   /**
+    * Manager thread main loop. Creates cache session and re-creates it if it becomes invalid.
+    *
+    * @param appProperties application properties
+    * @param login login name for cache session
+    */
+   private static void managerThreadMain(AppPropertiesLoader appProperties, String login)
+   {
+      while(true)
+      {
+         SharedObjectCache c = cache;
+         if ((c != null) && !c.isValid())
+         {
+            logger.info("Shared object cache session is no longer valid");
+            cache = null;
+            c.getSession().disconnect();
+            c = null;
+         }
+
+         if (c == null)
+            cache = createCache(appProperties, login);
+
+         try
+         {
+            Thread.sleep((cache != null) ? CHECK_INTERVAL : RETRY_INTERVAL);
+         }
+         catch(InterruptedException e)
+         {
+            break;
+         }
+      }
+   }
+
+   /**
+    * Create cache session and synchronize objects.
+    *
+    * @param appProperties application properties
+    * @param login login name for cache session
+    * @return new cache or null on failure
+    */
+   private static SharedObjectCache createCache(AppPropertiesLoader appProperties, String login)
+   {
+      String server = appProperties.getProperty("server", "127.0.0.1");
+      String hostName = server;
+      int port = NXCSession.DEFAULT_CONN_PORT;
+      String[] parts = server.split(":");
+      if (parts.length == 2)
+      {
+         hostName = parts[0];
+         try
+         {
+            port = Integer.parseInt(parts[1]);
+         }
+         catch(NumberFormatException e)
+         {
+            // ignore
+         }
+      }
+
+      logger.info("Creating shared object cache session (server " + hostName + " port " + port + ", login " + login + ")");
+      NXCSession session = new NXCSession(hostName, port, appProperties.getPropertyAsBoolean("enableCompression", true));
+      try
+      {
+         session.setClientInfo("nxmc/" + VersionInfo.version() + " (shared object cache)");
+         session.setClientType(NXCSession.WEB_CLIENT);
+         session.setIgnoreProtocolVersion(appProperties.getPropertyAsBoolean("ignoreProtocolVersion", false));
+         session.connect(new int[] { ProtocolVersion.INDEX_FULL });
+         session.login(login, appProperties.getProperty("sharedObjectCachePassword", ""));
+         long startTime = System.currentTimeMillis();
+         session.syncObjects(true);
+         logger.info("Shared object cache initialized in " + (System.currentTimeMillis() - startTime) + " ms");
+         new KeepAliveTimer(session).start();
+         return new SharedObjectCache(session);
+      }
+      catch(Exception e)
+      {
+         logger.error("Cannot initialize shared object cache", e);
+         session.disconnect();
+         return null;
+      }
+   }
+}
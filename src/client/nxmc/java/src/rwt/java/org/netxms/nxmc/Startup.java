@@ -403,6 +403,7 @@ else if (appProperties.getPropertyAsBoolean("autoLoginOnReload", true))
          boolean ignoreProtocolVersion = appProperties.getPropertyAsBoolean("ignoreProtocolVersion", false);
          boolean enableCompression = appProperties.getPropertyAsBoolean("enableCompression", true);
          LoginJob job = new LoginJob(display, ignoreProtocolVersion, enableCompression);
+         job.setSharedObjectCache(SharedObjectCacheManager.getCache());
          if (tokenAuth)
          {
             tokenAuth = false;  // only do token auth for first time
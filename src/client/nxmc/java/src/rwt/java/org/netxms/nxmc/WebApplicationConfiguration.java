@@ -104,6 +104,8 @@ public void logging(IStatus status, String plugin)
       });
 
       ServiceManager.registerClassLoader(getClass().getClassLoader());
+
+      SharedObjectCacheManager.start(new AppPropertiesLoader());
    }
 
    /**
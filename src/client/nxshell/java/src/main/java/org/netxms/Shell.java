@@ -1,6 +1,6 @@
 /**
  * NetXMS - open source network management system
- * Copyright (C) 2003-2024 Raden Solutions
+ * Copyright (C) 2003-2025 Raden Solutions
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -68,6 +68,13 @@ public static void main(String[] args)
     */
    private void run(String[] args) throws IOException, NXCException
    {
+      String daemonPort = System.getProperty("nxshell.daemon.port");
+      if ((daemonPort != null) && !daemonPort.isEmpty())
+      {
+         runDaemon(Integer.parseInt(daemonPort));
+         return;
+      }
+
       initJython(args);
 
       readCredentials((args.length == 0) && isInteractive());
@@ -92,6 +99,31 @@ private void run(String[] args) throws IOException, NXCException
       session.disconnect();
    }
 
+   /**
+    * Run as daemon executing scripts received from launcher.
+    *
+    * @param port TCP port to listen on
+    * @throws IOException
+    * @throws NXCException
+    */
+   private void runDaemon(int port) throws IOException, NXCException
+   {
+      initJython(new String[0]);
+
+      readCredentials(false);
+
+      final NXCSession session = connect();
+
+      final InteractiveConsole console = createInterpreter(new String[0]);
+
+      console.set("session", session);
+      console.set("s", session);
+
+      String keyFileName = System.getProperty("nxshell.daemon.keyFile");
+      File keyFile = ((keyFileName != null) && !keyFileName.isEmpty()) ? new File(keyFileName) : ShellDaemon.getDefaultKeyFile(port);
+      new ShellDaemon(this, port, keyFile, console, session).run();
+   }
+
    /**
     * @param interactive
     */
@@ -158,7 +190,7 @@ private String getBanner()
     * @throws IOException
     * @throws NetXMSClientException
     */
-   private NXCSession connect() throws IOException, NXCException
+   NXCSession connect() throws IOException, NXCException
    {
       boolean enableCompression = true;
       String enableCompressionOption = System.getProperty("netxms.enableCompression");
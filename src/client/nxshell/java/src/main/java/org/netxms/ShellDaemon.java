@@ -0,0 +1,468 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.netxms.client.NXCSession;
+import org.python.core.CompileMode;
+import org.python.core.CompilerFlags;
+import org.python.core.Py;
+import org.python.core.PyCode;
+import org.python.core.PyException;
+import org.python.core.PyList;
+import org.python.core.PyObject;
+import org.python.core.PySystemState;
+import org.python.util.InteractiveConsole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * nxshell daemon. Keeps logged in and synchronized client session and initialized interpreter, and executes scripts received
+ * from launcher over local TCP socket. Compiled script code is cached by script content hash, so repeated runs of same script
+ * skip parsing and compilation. Scripts are executed one at a time, each in its own copy of initial namespace.
+ * <p>
+ * Request format (all integers are 32 bit big endian, strings are UTF-8 encoded and prefixed by length in bytes):
+ * magic, key, number of arguments, arguments (first argument is script name), script source. Response is a sequence of
+ * frames, each consisting of type byte, data length, and data: 'O' for standard output, 'E' for standard error, and 'X' with 4
+ * byte exit code as last frame.
+ */
+class ShellDaemon
+{
+   static final int PROTOCOL_MAGIC = 0x4E585348; // "NXSH"
+
+   private static final Logger logger = LoggerFactory.getLogger(ShellDaemon.class);
+   private static final int MAX_ARGUMENTS = 1024;
+   private static final int MAX_STRING_SIZE = 16 * 1024 * 1024;
+   private static final int REQUEST_READ_TIMEOUT = 30000;
+
+   private final Shell shell;
+   private final int port;
+   private final File keyFile;
+   private final InteractiveConsole console;
+   private final PyObject baseNamespace;
+   private final Map<String, PyCode> codeCache;
+   private final Object executionLock = new Object();
+   private NXCSession session;
+   private byte[] key;
+
+   /**
+    * Create daemon.
+    *
+    * @param shell shell instance (used for reconnecting to server)
+    * @param port TCP port to listen on (loopback interface only)
+    * @param keyFile file where access key will be written
+    * @param console initialized interpreter
+    * @param session logged in client session
+    */
+   ShellDaemon(Shell shell, int port, File keyFile, InteractiveConsole console, NXCSession session)
+   {
+      this.shell = shell;
+      this.port = port;
+      this.keyFile = keyFile;
+      this.console = console;
+      this.baseNamespace = console.getLocals();
+      this.session = session;
+
+      final int cacheSize = Integer.getInteger("nxshell.daemon.cacheSize", 256);
+      codeCache = new LinkedHashMap<String, PyCode>(64, 0.75f, true) {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<String, PyCode> eldest)
+         {
+            return size() > cacheSize;
+         }
+      };
+   }
+
+   /**
+    * Get default key file location for given port.
+    *
+    * @param port daemon TCP port
+    * @return default key file
+    */
+   static File getDefaultKeyFile(int port)
+   {
+      return new File(System.getProperty("user.home"), ".nxshell-daemon-" + port + ".key");
+   }
+
+   /**
+    * Run daemon. This method does not return under normal circumstances.
+    *
+    * @throws IOException if listening socket cannot be created or key file cannot be written
+    */
+   void run() throws IOException
+   {
+      ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+      createKeyFile();
+      logger.info("nxshell daemon listening on port " + port + ", access key stored in " + keyFile.getAbsolutePath());
+
+      while(true)
+      {
+         final Socket socket = serverSocket.accept();
+         Thread t = new Thread(new Runnable() {
+            @Override
+            public void run()
+            {
+               processConnection(socket);
+            }
+         }, "Client " + socket.getRemoteSocketAddress());
+         t.setDaemon(true);
+         t.start();
+      }
+   }
+
+   /**
+    * Generate new access key and write it to key file readable only by owner.
+    *
+    * @throws IOException if key file cannot be written
+    */
+   private void createKeyFile() throws IOException
+   {
+      byte[] random = new byte[32];
+      new SecureRandom().nextBytes(random);
+      key = Base64.getUrlEncoder().withoutPadding().encode(random);
+
+      keyFile.delete();
+      try
+      {
+         // Set permissions atomically on creation, so file is never accessible by other users
+         Files.createFile(keyFile.toPath(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+      }
+      catch(UnsupportedOperationException e)
+      {
+         // Not a POSIX file system
+         if (!keyFile.createNewFile())
+            throw new IOException("Cannot create key file " + keyFile.getAbsolutePath());
+         keyFile.setReadable(false, false);
+         keyFile.setReadable(true, true);
+         keyFile.setWritable(false, false);
+         keyFile.setWritable(true, true);
+      }
+      keyFile.deleteOnExit();
+
+      FileOutputStream out = new FileOutputStream(keyFile);
+      try
+      {
+         out.write(key);
+      }
+      finally
+      {
+         out.close();
+      }
+   }
+
+   /**
+    * Process single connection from launcher.
+    *
+    * @param socket client socket
+    */
+   private void processConnection(Socket socket)
+   {
+      try
+      {
+         socket.setSoTimeout(REQUEST_READ_TIMEOUT);
+         DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+         if (in.readInt() != PROTOCOL_MAGIC)
+         {
+            logger.debug("Invalid request from " + socket.getRemoteSocketAddress());
+            return;
+         }
+         if (!MessageDigest.isEqual(key, readBytes(in)))
+         {
+            logger.warn("Request with invalid access key from " + socket.getRemoteSocketAddress());
+            sendResult(out, "Access denied\n", 2);
+            return;
+         }
+
+         int argc = in.readInt();
+         if ((argc < 1) || (argc > MAX_ARGUMENTS))
+            throw new IOException("Invalid number of arguments");
+         String[] args = new String[argc];
+         for(int i = 0; i < argc; i++)
+            args[i] = new String(readBytes(in), StandardCharsets.UTF_8);
+         String source = new String(readBytes(in), StandardCharsets.UTF_8);
+         socket.setSoTimeout(0);
+
+         int exitCode = execute(args, source, new FrameOutputStream(out, 'O'), new FrameOutputStream(out, 'E'));
+         sendResult(out, null, exitCode);
+      }
+      catch(Exception e)
+      {
+         logger.debug("Error processing request from " + socket.getRemoteSocketAddress(), e);
+      }
+      finally
+      {
+         try
+         {
+            socket.close();
+         }
+         catch(IOException e)
+         {
+         }
+      }
+   }
+
+   /**
+    * Read length-prefixed byte array.
+    *
+    * @param in input stream
+    * @return bytes read
+    * @throws IOException on I/O error or if length is invalid
+    */
+   private static byte[] readBytes(DataInputStream in) throws IOException
+   {
+      int size = in.readInt();
+      if ((size < 0) || (size > MAX_STRING_SIZE))
+         throw new IOException("Invalid string length " + size);
+      byte[] bytes = new byte[size];
+      in.readFully(bytes);
+      return bytes;
+   }
+
+   /**
+    * Send optional error message and exit code to launcher.
+    *
+    * @param out output stream
+    * @param message error message or null
+    * @param exitCode exit code
+    * @throws IOException on I/O error
+    */
+   private static void sendResult(DataOutputStream out, String message, int exitCode) throws IOException
+   {
+      if (message != null)
+      {
+         byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+         out.writeByte('E');
+         out.writeInt(bytes.length);
+         out.write(bytes);
+      }
+      out.writeByte('X');
+      out.writeInt(4);
+      out.writeInt(exitCode);
+      out.flush();
+   }
+
+   /**
+    * Execute script.
+    *
+    * @param args script arguments (first argument is script name)
+    * @param source script source
+    * @param stdout standard output stream
+    * @param stderr standard error stream
+    * @return script exit code
+    */
+   private int execute(String[] args, String source, OutputStream stdout, OutputStream stderr)
+   {
+      synchronized(executionLock)
+      {
+         long startTime = System.currentTimeMillis();
+         PrintStream err = new PrintStream(stderr, true);
+         try
+         {
+            if (!checkSession())
+            {
+               err.println("Cannot connect to server");
+               return 2;
+            }
+
+            PySystemState systemState = console.getSystemState();
+            PyList argv = new PyList();
+            for(String a : args)
+               argv.append(Py.newUnicode(a));
+            systemState.argv = argv;
+
+            PyObject namespace = baseNamespace.invoke("copy");
+            namespace.__setitem__("__file__", Py.newUnicode(args[0]));
+            console.setIn(new ByteArrayInputStream(new byte[0]));
+            console.setOut(stdout);
+            console.setErr(stderr);
+            console.setLocals(namespace);
+            try
+            {
+               console.exec(getCompiledScript(args[0], source));
+               return 0;
+            }
+            catch(PyException e)
+            {
+               if (e.match(Py.SystemExit))
+                  return getExitCode(e, err);
+               err.print(e.toString());
+               return 1;
+            }
+            finally
+            {
+               console.setLocals(baseNamespace);
+               console.setOut(System.out);
+               console.setErr(System.err);
+            }
+         }
+         catch(Exception e)
+         {
+            logger.error("Unexpected error while executing script " + args[0], e);
+            err.println("Internal error: " + e.getMessage());
+            return 2;
+         }
+         finally
+         {
+            err.flush();
+            logger.debug("Script " + args[0] + " executed in " + (System.currentTimeMillis() - startTime) + " ms");
+         }
+      }
+   }
+
+   /**
+    * Get compiled script code from cache or compile it.
+    *
+    * @param name script name
+    * @param source script source
+    * @return compiled code
+    * @throws NoSuchAlgorithmException if SHA-256 is not available
+    */
+   private PyCode getCompiledScript(String name, String source) throws NoSuchAlgorithmException
+   {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(name.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte)0);
+      digest.update(source.getBytes(StandardCharsets.UTF_8));
+      String hash = Base64.getEncoder().encodeToString(digest.digest());
+
+      PyCode code = codeCache.get(hash);
+      if (code == null)
+      {
+         code = Py.compile_flags(source, name, CompileMode.exec, new CompilerFlags());
+         codeCache.put(hash, code);
+         logger.debug("Script " + name + " compiled and added to cache");
+      }
+      return code;
+   }
+
+   /**
+    * Get exit code from SystemExit exception.
+    *
+    * @param e exception
+    * @param err error stream
+    * @return exit code
+    */
+   private static int getExitCode(PyException e, PrintStream err)
+   {
+      PyObject value = e.value;
+      PyObject code = (value != null) ? value.__findattr__("code") : null;
+      if (code == null)
+         code = value;
+      if ((code == null) || (code == Py.None))
+         return 0;
+      if (code.isIndex())
+         return code.asInt();
+      err.println(code.__str__().toString());
+      return 1;
+   }
+
+   /**
+    * Check that client session is still connected and reconnect if needed.
+    *
+    * @return true if session is usable
+    */
+   private boolean checkSession()
+   {
+      if (session.checkConnection())
+         return true;
+
+      logger.info("Connection to server lost, reconnecting");
+      session.disconnect();
+      try
+      {
+         session = shell.connect();
+         console.set("session", session);
+         console.set("s", session);
+         return true;
+      }
+      catch(Exception e)
+      {
+         logger.error("Cannot reconnect to server", e);
+         return false;
+      }
+   }
+
+   /**
+    * Output stream which sends data to launcher as response frames of given type.
+    */
+   private static class FrameOutputStream extends OutputStream
+   {
+      private final DataOutputStream out;
+      private final int type;
+
+      FrameOutputStream(DataOutputStream out, int type)
+      {
+         this.out = out;
+         this.type = type;
+      }
+
+      @Override
+      public void write(int b) throws IOException
+      {
+         write(new byte[] { (byte)b }, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException
+      {
+         if (len == 0)
+            return;
+         synchronized(out)
+         {
+            out.writeByte(type);
+            out.writeInt(len);
+            out.write(b, off, len);
+         }
+      }
+
+      @Override
+      public void flush() throws IOException
+      {
+         synchronized(out)
+         {
+            out.flush();
+         }
+      }
+   }
+}
@@ -1,6 +1,6 @@
 /* 
 ** nxshell - launcher for main Java application
-** Copyright (C) 2017-2024 Raden Solutions
+** Copyright (C) 2017-2025 Raden Solutions
 **
 ** This program is free software; you can redistribute it and/or modify
 ** it under the terms of the GNU General Public License as published by
@@ -37,6 +37,135 @@ static const char *s_optToken = nullptr;
 static const char *s_optJre = nullptr;
 static const char *s_optClassPath = nullptr;
 static bool s_optSync = true;
+static uint16_t s_optDaemonPort = 0;
+static uint16_t s_optConnectPort = 0;
+static const char *s_optKeyFile = nullptr;
+
+/**
+ * Daemon protocol magic ("NXSH")
+ */
+#define DAEMON_PROTOCOL_MAGIC 0x4E585348
+
+/**
+ * Get default daemon key file location (should match one used by Java application)
+ */
+static void GetDefaultKeyFile(uint16_t port, char *path)
+{
+#ifdef _WIN32
+   const char *home = getenv("USERPROFILE");
+#else
+   const char *home = getenv("HOME");
+#endif
+   snprintf(path, MAX_PATH, "%s%c.nxshell-daemon-%u.key", (home != nullptr) ? home : ".", FS_PATH_SEPARATOR_CHAR_A, static_cast<unsigned int>(port));
+}
+
+/**
+ * Append length-prefixed string to daemon request
+ */
+static void AppendString(ByteStream *request, const void *data, size_t size)
+{
+   request->writeB(static_cast<uint32_t>(size));
+   request->write(data, size);
+}
+
+/**
+ * Execute script using running nxshell daemon. Avoids JVM startup, interpreter initialization, and object synchronization on
+ * each run.
+ */
+static int RunInDaemon(int argc, char *argv[])
+{
+   if (argc < 1)
+   {
+      _tprintf(_T("Script file name is required\n"));
+      return 1;
+   }
+
+   char keyFile[MAX_PATH];
+   if (s_optKeyFile != nullptr)
+      strlcpy(keyFile, s_optKeyFile, MAX_PATH);
+   else
+      GetDefaultKeyFile(s_optConnectPort, keyFile);
+
+   size_t keySize;
+   BYTE *key = LoadFileA(keyFile, &keySize);
+   if (key == nullptr)
+   {
+      _tprintf(_T("Cannot read daemon access key from %hs\n"), keyFile);
+      return 5;
+   }
+   while((keySize > 0) && isspace(key[keySize - 1]))
+      keySize--;
+
+   size_t scriptSize;
+   BYTE *script = LoadFileA(argv[0], &scriptSize);
+   if (script == nullptr)
+   {
+      MemFree(key);
+      _tprintf(_T("Cannot read script file %hs\n"), argv[0]);
+      return 5;
+   }
+
+   ByteStream request(scriptSize + 1024);
+   request.writeB(static_cast<uint32_t>(DAEMON_PROTOCOL_MAGIC));
+   AppendString(&request, key, keySize);
+   request.writeB(static_cast<uint32_t>(argc));
+   for(int i = 0; i < argc; i++)
+      AppendString(&request, argv[i], strlen(argv[i]));
+   AppendString(&request, script, scriptSize);
+   MemFree(key);
+   MemFree(script);
+
+   SOCKET s = ConnectToHost(InetAddress::LOOPBACK, s_optConnectPort, 5000);
+   if (s == INVALID_SOCKET)
+   {
+      _tprintf(_T("Cannot connect to nxshell daemon on port %u\n"), static_cast<unsigned int>(s_optConnectPort));
+      return 5;
+   }
+   nxlog_debug(5, _T("Connected to nxshell daemon on port %u"), static_cast<unsigned int>(s_optConnectPort));
+
+   int rc = 5;
+   bool completed = false;
+   if (SendEx(s, request.buffer(), request.size(), 0, nullptr) == static_cast<ssize_t>(request.size()))
+   {
+      // Response is a sequence of frames (type, size, data); last frame contains exit code
+      BYTE buffer[16384];
+      BYTE header[5];
+      while(RecvAll(s, header, 5, INFINITE))
+      {
+         uint32_t size;
+         memcpy(&size, &header[1], 4);
+         size = ntohl(size);
+         if (header[0] == 'X')
+         {
+            uint32_t exitCode;
+            if ((size == 4) && RecvAll(s, &exitCode, 4, INFINITE))
+            {
+               rc = static_cast<int>(ntohl(exitCode));
+               completed = true;
+            }
+            break;
+         }
+
+         FILE *out = (header[0] == 'E') ? stderr : stdout;
+         while(size > 0)
+         {
+            size_t chunk = std::min(static_cast<size_t>(size), sizeof(buffer));
+            if (!RecvAll(s, buffer, chunk, INFINITE))
+               break;
+            fwrite(buffer, 1, chunk, out);
+            size -= static_cast<uint32_t>(chunk);
+         }
+         if (size > 0)
+            break;
+         fflush(out);
+      }
+   }
+   closesocket(s);
+
+   if (!completed)
+      _tprintf(_T("Communication with nxshell daemon failed\n"));
+   return rc;
+}
 
 /**
  * Start application
@@ -71,6 +200,16 @@ static int StartApp(int argc, char *argv[])
    vmOptions.addMBString(buffer);
    snprintf(buffer, 256, "-Dnetxms.syncObjects=%s", s_optSync ? "true" : "false");
    vmOptions.addMBString(buffer);
+   if (s_optDaemonPort != 0)
+   {
+      snprintf(buffer, 256, "-Dnxshell.daemon.port=%u", static_cast<unsigned int>(s_optDaemonPort));
+      vmOptions.addMBString(buffer);
+      if (s_optKeyFile != nullptr)
+      {
+         snprintf(buffer, 256, "-Dnxshell.daemon.keyFile=%s", s_optKeyFile);
+         vmOptions.addMBString(buffer);
+      }
+   }
 
    if (s_optToken != nullptr)
    {
@@ -161,10 +300,13 @@ static int StartApp(int argc, char *argv[])
 static struct option longOptions[] =
 {
 	{ (char *)"classpath",      required_argument, nullptr,        'C' },
+   { (char *)"connect",        required_argument, nullptr,        'c' },
+   { (char *)"daemon",         required_argument, nullptr,        'd' },
 	{ (char *)"debug",          no_argument,       nullptr,        'D' },
 	{ (char *)"help",           no_argument,       nullptr,        'h' },
 	{ (char *)"host",           required_argument, nullptr,        'H' },
 	{ (char *)"jre",            required_argument, nullptr,        'j' },
+   { (char *)"key-file",       required_argument, nullptr,        'k' },
 	{ (char *)"no-sync",        required_argument, nullptr,        'n' },
 	{ (char *)"password",       required_argument, nullptr,        'P' },
    { (char *)"port",           required_argument, nullptr,        'p' },
@@ -175,7 +317,7 @@ static struct option longOptions[] =
 };
 #endif
 
-#define SHORT_OPTIONS "C:DhH:j:np:P:t:u:v"
+#define SHORT_OPTIONS "c:C:d:DhH:j:k:np:P:t:u:v"
 
 /**
  * Print usage info
@@ -194,11 +336,14 @@ static void ShowUsage(bool showVersion)
       _T("  \n")
       _T("Options:\n")
 #if HAVE_GETOPT_LONG
+      _T("  -c, --connect <port>        Execute script using nxshell daemon listening on given local port.\n")
       _T("  -C, --classpath <path>      Additional Java class path.\n")
+      _T("  -d, --daemon <port>         Run as daemon executing scripts received on given local port.\n")
       _T("  -D, --debug                 Show additional debug output (use twice for extra output).\n")
       _T("  -h, --help                  Display this help message.\n")
       _T("  -H, --host <hostname>       Specify host name or IP address. Could be in host:port form.\n")
       _T("  -j, --jre <path>            Specify JRE location.\n")
+      _T("  -k, --key-file <file>       Daemon access key file. Default is $HOME/.nxshell-daemon-<port>.key.\n")
       _T("  -n, --no-sync               Do not synchronize objects on connect.\n")
       _T("  -p, --port <port>           Specify TCP port for connection. Default is 4701.\n")
       _T("  -P, --password <password>   Specify user's password. Default is empty.\n")
@@ -206,11 +351,14 @@ static void ShowUsage(bool showVersion)
       _T("  -u, --user <user>           Login to server as user. Default is \"admin\".\n")
       _T("  -v, --version               Display version information.\n\n")
 #else
+      _T("  -c <port>      Execute script using nxshell daemon listening on given local port.\n")
       _T("  -C <path>      Additional Java class path.\n")
+      _T("  -d <port>      Run as daemon executing scripts received on given local port.\n")
       _T("  -D             Show additional debug output.\n")
       _T("  -h             Display this help message.\n")
       _T("  -H <hostname>  Specify host name or IP address. Could be in host:port form.\n")
       _T("  -j <path>      Specify JRE location.\n")
+      _T("  -k <file>      Daemon access key file. Default is $HOME/.nxshell-daemon-<port>.key.\n")
       _T("  -n             Do not synchronize objects on connect.\n")
       _T("  -p <port>      Specify TCP port for connection. Default is 4701.\n")
       _T("  -P <password>  Specify user's password. If not given, password will be read from terminal.\n")
@@ -254,9 +402,25 @@ int main(int argc, char *argv[])
    {
 		switch(c)
 		{
+         case 'c': // connect to daemon
+            s_optConnectPort = static_cast<uint16_t>(strtoul(optarg, nullptr, 10));
+            if (s_optConnectPort == 0)
+            {
+               _tprintf(_T("Invalid port number %hs\n"), optarg);
+               exit(1);
+            }
+            break;
 		   case 'C': // classpath
 			   s_optClassPath = optarg;
 			   break;
+         case 'd': // daemon mode
+            s_optDaemonPort = static_cast<uint16_t>(strtoul(optarg, nullptr, 10));
+            if (s_optDaemonPort == 0)
+            {
+               _tprintf(_T("Invalid port number %hs\n"), optarg);
+               exit(1);
+            }
+            break;
          case 'D': // Additional debug
             debug++;
             nxlog_set_debug_writer(DebugWriter);
@@ -272,6 +436,9 @@ int main(int argc, char *argv[])
 		   case 'j': // JRE
 			   s_optJre = optarg;
 			   break;
+         case 'k': // daemon key file
+            s_optKeyFile = optarg;
+            break;
          case 'n': // no sync
             s_optSync = false;
             break;
@@ -299,5 +466,8 @@ int main(int argc, char *argv[])
 		}
 	}
 
+   if (s_optConnectPort != 0)
+      return RunInDaemon(argc - optind, &argv[optind]);
+
    return StartApp(argc - optind, &argv[optind]);
 }
@@ -0,0 +1,125 @@
+#!/usr/bin/env bash
+#
+# Run netxms-base and netxms-client JMH benchmarks and store results for comparison between revisions.
+#
+# Usage:
+#    run-benchmarks.sh [-quick] [-no-build] [-o output_dir] [benchmark_regexp] [-- extra JMH options]
+#    run-benchmarks.sh -compare baseline.json current.json
+#
+# Results are written as JSON (machine readable, usable with JMH visualizers) and CSV to
+# output_dir (default: results/) with file names containing git revision and timestamp.
+#
+
+set -e
+
+cd "$(dirname "$0")"
+
+OUTPUT_DIR="results"
+BUILD="yes"
+QUICK="no"
+FILTER=""
+EXTRA_OPTIONS=()
+
+compare()
+{
+   if [ ! -r "$1" ] || [ ! -r "$2" ]; then
+      echo "Cannot read result files" >&2
+      exit 1
+   fi
+   python3 - "$1" "$2" <<'PYEOF'
+import json, sys
+
+def load(name):
+   results = {}
+   with open(name) as f:
+      for r in json.load(f):
+         params = ",".join("%s=%s" % (k, v) for k, v in sorted(r.get("params", {}).items()))
+         key = r["benchmark"].replace("org.netxms.base.", "").replace("org.netxms.client.", "") + ("(" + params + ")" if params else "")
+         m = r["primaryMetric"]
+         results[key] = (m["score"], m["scoreError"], m["scoreUnit"], r["mode"])
+   return results
+
+base = load(sys.argv[1])
+curr = load(sys.argv[2])
+print("%-80s %14s %14s %9s  %s" % ("Benchmark", "Baseline", "Current", "Change", "Unit"))
+for key in sorted(set(base) | set(curr)):
+   b = base.get(key)
+   c = curr.get(key)
+   if b is None or c is None:
+      print("%-80s %14s %14s %9s" % (key, "%.3f" % b[0] if b else "-", "%.3f" % c[0] if c else "-", "n/a"))
+      continue
+   change = (c[0] - b[0]) / b[0] * 100.0 if b[0] != 0 else 0.0
+   # For time-per-operation modes lower is better, so invert sign to make positive change always mean improvement
+   if c[3] in ("avgt", "sample", "ss"):
+      change = -change
+   noise = " (within error)" if abs(c[0] - b[0]) <= (b[1] + c[1]) else ""
+   print("%-80s %14.3f %14.3f %+8.1f%%  %s%s" % (key, b[0], c[0], change, c[2], noise))
+PYEOF
+}
+
+while [[ $# -gt 0 ]]; do
+   case $1 in
+      -compare)
+         compare "$2" "$3"
+         exit 0
+         ;;
+      -quick)
+         QUICK="yes"
+         shift
+         ;;
+      -no-build)
+         BUILD="no"
+         shift
+         ;;
+      -o)
+         OUTPUT_DIR="$2"
+         shift 2
+         ;;
+      --)
+         shift
+         EXTRA_OPTIONS=("$@")
+         break
+         ;;
+      *)
+         FILTER="$1"
+         shift
+         ;;
+   esac
+done
+
+if [ "$BUILD" = "yes" ]; then
+   mvn -B -q -f ../netxms-base/pom.xml install -DskipTests -Dmaven.javadoc.skip=true
+   mvn -B -q -f ../../client/java/netxms-client/pom.xml install -DskipTests -Dmaven.javadoc.skip=true
+   mvn -B -q package
+fi
+
+REVISION=`git rev-parse --short HEAD 2>/dev/null || echo unknown`
+if [ -n "`git status --porcelain -- ../netxms-base ../../client/java/netxms-client 2>/dev/null`" ]; then
+   REVISION="$REVISION-dirty"
+fi
+NAME="$OUTPUT_DIR/netxms-base-$REVISION-`date +%Y%m%d-%H%M%S`"
+mkdir -p "$OUTPUT_DIR"
+
+OPTIONS=()
+if [ "$QUICK" = "yes" ]; then
+   OPTIONS=(-f 1 -wi 2 -i 3 -w 1s -r 1s)
+fi
+
+java -jar target/benchmarks.jar $FILTER "${OPTIONS[@]}" -rf json -rff "$NAME.json" "${EXTRA_OPTIONS[@]}" | tee "$NAME.txt"
+
+python3 - "$NAME.json" "$NAME.csv" <<'PYEOF'
+import csv, json, sys
+with open(sys.argv[1]) as f:
+   results = json.load(f)
+with open(sys.argv[2], "w", newline="") as f:
+   w = csv.writer(f)
+   w.writerow(["benchmark", "params", "mode", "threads", "score", "error", "unit"])
+   for r in results:
+      params = ";".join("%s=%s" % (k, v) for k, v in sorted(r.get("params", {}).items()))
+      m = r["primaryMetric"]
+      w.writerow([r["benchmark"], params, r["mode"], r["threads"], m["score"], m["scoreError"], m["scoreUnit"]])
+PYEOF
+
+echo
+echo "Results saved to $NAME.json and $NAME.csv"
+echo "Compare with another run using: $0 -compare <baseline.json> $NAME.json"
@@ -0,0 +1,94 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.base;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.jcraft.jzlib.Deflater;
+import com.jcraft.jzlib.DeflaterOutputStream;
+import com.jcraft.jzlib.InflaterInputStream;
+
+/**
+ * Raw throughput of bundled jzlib compressor on serialized message payloads, to separate compression cost from message
+ * serialization cost measured by {@link MessageCodecBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CompressionBenchmark
+{
+   @Param({ "OBJECT", "DCI_DATA", "BINARY" })
+   public SampleMessages.Type messageType;
+
+   @Param({ "1", "6", "9" })
+   public int level;
+
+   private byte[] source;
+   private byte[] compressed;
+
+   @Setup
+   public void setup() throws Exception
+   {
+      source = SampleMessages.create(messageType, 1).createNXCPMessage(false);
+      compressed = compress();
+   }
+
+   @Benchmark
+   public byte[] compress() throws IOException
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(source.length);
+      DeflaterOutputStream deflater = new DeflaterOutputStream(out, new Deflater(level));
+      deflater.write(source);
+      deflater.close();
+      return out.toByteArray();
+   }
+
+   @Benchmark
+   public byte[] decompress() throws IOException
+   {
+      byte[] result = new byte[source.length];
+      InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(compressed));
+      int pos = 0;
+      while(pos < result.length)
+      {
+         int bytes = inflater.read(result, pos, result.length - pos);
+         if (bytes < 0)
+            break;
+         pos += bytes;
+      }
+      inflater.close();
+      return result;
+   }
+}
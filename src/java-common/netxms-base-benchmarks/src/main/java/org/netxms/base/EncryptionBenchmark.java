@@ -0,0 +1,82 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.base;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encryption and decryption of NXCP messages with each supported cipher.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class EncryptionBenchmark
+{
+   /**
+    * Cipher ID: 0 = AES-256, 1 = Blowfish-256, 4 = AES-128, 5 = Blowfish-128
+    */
+   @Param({ "0", "1", "4", "5" })
+   public int cipher;
+
+   @Param({ "DCI_DATA", "BINARY" })
+   public SampleMessages.Type messageType;
+
+   @Param({ "false", "true" })
+   public boolean compression;
+
+   private EncryptionContext ectx;
+   private NXCPMessage message;
+   private byte[] encrypted;
+
+   @Setup
+   public void setup() throws Exception
+   {
+      if (!EncryptionContext.testCipher(cipher))
+         throw new IllegalStateException("Cipher " + EncryptionContext.getCipherName(cipher) + " is not available in this JVM");
+      ectx = new EncryptionContext(cipher, null);
+      message = SampleMessages.create(messageType, 1);
+      encrypted = ectx.encryptMessage(message, compression);
+   }
+
+   @Benchmark
+   public byte[] encrypt() throws Exception
+   {
+      return ectx.encryptMessage(message, compression);
+   }
+
+   @Benchmark
+   public NXCPMessage decrypt() throws Exception
+   {
+      return new NXCPMessage(encrypted, ectx);
+   }
+}
@@ -0,0 +1,115 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.base;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Contention on {@link NXCPMsgWaitQueue}. Queue is pre-filled with given number of messages nobody waits for (like
+ * unsolicited responses not yet expired), so cost of lookup under lock is visible.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class NXCPMsgWaitQueueBenchmark
+{
+   @Param({ "0", "100", "1000" })
+   public int backlog;
+
+   private NXCPMsgWaitQueue queue;
+   private AtomicLong requestId;
+   private BlockingQueue<Long> pendingRequests;
+
+   @Setup(Level.Iteration)
+   public void setup()
+   {
+      queue = new NXCPMsgWaitQueue(1000, 3600000);
+      for(int i = 0; i < backlog; i++)
+         queue.putMessage(new NXCPMessage(NXCPCodes.CMD_NOTIFY, 0x80000000L + i));
+      requestId = new AtomicLong();
+      pendingRequests = new ArrayBlockingQueue<Long>(1024);
+   }
+
+   @TearDown(Level.Iteration)
+   public void tearDown()
+   {
+      queue.shutdown();
+   }
+
+   /**
+    * Each thread puts message and immediately waits for it, so all threads compete for queue lock.
+    */
+   @Benchmark
+   @Threads(4)
+   public NXCPMessage putAndWait()
+   {
+      long id = requestId.incrementAndGet();
+      queue.putMessage(new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, id));
+      return queue.waitForMessage(NXCPCodes.CMD_REQUEST_COMPLETED, id);
+   }
+
+   /**
+    * Request side of request/response scenario: several threads send requests and wait for responses delivered by
+    * single receiver thread, as in client session.
+    */
+   @Benchmark
+   @Group("requestResponse")
+   @GroupThreads(4)
+   public NXCPMessage request() throws InterruptedException
+   {
+      long id = requestId.incrementAndGet();
+      pendingRequests.put(id);
+      return queue.waitForMessage(NXCPCodes.CMD_REQUEST_COMPLETED, id);
+   }
+
+   /**
+    * Receiver side of request/response scenario.
+    */
+   @Benchmark
+   @Group("requestResponse")
+   @GroupThreads(1)
+   public void respond() throws InterruptedException
+   {
+      Long id = pendingRequests.poll(10, TimeUnit.MILLISECONDS);
+      if (id != null)
+         queue.putMessage(new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, id));
+   }
+}
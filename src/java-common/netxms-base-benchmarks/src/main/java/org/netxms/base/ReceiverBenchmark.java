@@ -0,0 +1,123 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.base;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Framing of pipelined messages by {@link NXCPMessageReceiver} and {@link NXCPChannelReceiver}. Stream delivers data in chunks of configurable size to
+ * simulate TCP segments, so both the case of many messages per read and of one message spanning many reads are covered.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ReceiverBenchmark
+{
+   private static final int MESSAGE_COUNT = 256;
+
+   @Param({ "OBJECT", "DCI_DATA", "ALARM", "BINARY" })
+   public SampleMessages.Type messageType;
+
+   @Param({ "1460", "65536" })
+   public int chunkSize;
+
+   @Param({ "stream", "channel" })
+   public String receiverType;
+
+   private byte[] stream;
+
+   @Setup
+   public void setup() throws Exception
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for(int i = 0; i < MESSAGE_COUNT; i++)
+         out.write(SampleMessages.create(messageType, i).createNXCPMessage(false));
+      stream = out.toByteArray();
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(MESSAGE_COUNT)
+   public void receive(Blackhole bh) throws Exception
+   {
+      InputStream in = new ChunkedInputStream(stream, chunkSize);
+      if (receiverType.equals("channel"))
+      {
+         NXCPChannelReceiver receiver = new NXCPChannelReceiver(262144, 4194304);
+         for(int i = 0; i < MESSAGE_COUNT; i++)
+            bh.consume(receiver.receiveMessage(in, null));
+      }
+      else
+      {
+         NXCPMessageReceiver receiver = new NXCPMessageReceiver(262144, 4194304);
+         for(int i = 0; i < MESSAGE_COUNT; i++)
+            bh.consume(receiver.receiveMessage(in, null));
+      }
+   }
+
+   /**
+    * Input stream over byte array that returns at most given number of bytes per read call.
+    */
+   private static final class ChunkedInputStream extends InputStream
+   {
+      private final byte[] data;
+      private final int chunkSize;
+      private int pos = 0;
+
+      ChunkedInputStream(byte[] data, int chunkSize)
+      {
+         this.data = data;
+         this.chunkSize = chunkSize;
+      }
+
+      @Override
+      public int read()
+      {
+         return (pos < data.length) ? (data[pos++] & 0xFF) : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len)
+      {
+         if (pos >= data.length)
+            return -1;
+         int bytes = Math.min(Math.min(len, chunkSize), data.length - pos);
+         System.arraycopy(data, pos, b, off, bytes);
+         pos += bytes;
+         return bytes;
+      }
+   }
+}
@@ -0,0 +1,203 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2024 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.base;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Factory for representative NXCP messages used by benchmarks. Content is generated from fixed seed so that all runs
+ * (and all revisions) measure identical payloads.
+ */
+public final class SampleMessages
+{
+   /**
+    * Message types
+    */
+   public enum Type
+   {
+      OBJECT, DCI_DATA, ALARM, BINARY
+   }
+
+   private static final long SEED = 0x4E58434DL;
+
+   private SampleMessages()
+   {
+   }
+
+   /**
+    * Create message of given type.
+    *
+    * @param type message type
+    * @param id message ID
+    * @return new message
+    */
+   public static NXCPMessage create(Type type, long id)
+   {
+      switch(type)
+      {
+         case OBJECT:
+            return createObjectUpdate(id);
+         case DCI_DATA:
+            return createDciData(id, 200);
+         case ALARM:
+            return createAlarm(id);
+         case BINARY:
+            return createBinary(id, 256 * 1024);
+         default:
+            throw new IllegalArgumentException("Unknown message type " + type);
+      }
+   }
+
+   /**
+    * Create object update message similar to one sent by server for node object.
+    *
+    * @param id message ID
+    * @return new message
+    */
+   public static NXCPMessage createObjectUpdate(long id)
+   {
+      Random rnd = new Random(SEED);
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_OBJECT, id);
+      msg.setFieldInt32(NXCPCodes.VID_OBJECT_ID, 1000 + rnd.nextInt(100000));
+      msg.setFieldInt16(NXCPCodes.VID_OBJECT_CLASS, 2);
+      msg.setFieldInt16(NXCPCodes.VID_OBJECT_STATUS, rnd.nextInt(5));
+      msg.setField(NXCPCodes.VID_OBJECT_NAME, "node-" + Long.toHexString(rnd.nextLong()) + ".example.com");
+      msg.setField(NXCPCodes.VID_PRIMARY_NAME, "10.0." + rnd.nextInt(256) + "." + rnd.nextInt(256));
+      msg.setField(NXCPCodes.VID_GUID, new UUID(rnd.nextLong(), rnd.nextLong()));
+      try
+      {
+         msg.setField(NXCPCodes.VID_IP_ADDRESS, InetAddress.getByAddress(new byte[] { 10, 0, (byte)rnd.nextInt(256), (byte)rnd.nextInt(256) }));
+      }
+      catch(UnknownHostException e)
+      {
+      }
+      byte[] mac = new byte[6];
+      rnd.nextBytes(mac);
+      msg.setField(NXCPCodes.VID_MAC_ADDR, mac);
+      msg.setField(NXCPCodes.VID_COMMENTS, randomText(rnd, 512));
+      msg.setField(NXCPCodes.VID_SNMP_OID, ".1.3.6.1.4.1.9.1." + rnd.nextInt(3000));
+      msg.setField(NXCPCodes.VID_CREATION_TIME, new Date(1700000000000L));
+      msg.setFieldInt32(NXCPCodes.VID_PARENT_CNT, 4);
+      for(int i = 0; i < 4; i++)
+         msg.setFieldInt32(NXCPCodes.VID_PARENT_ID_BASE + i, rnd.nextInt(100000));
+      msg.setFieldInt32(NXCPCodes.VID_CHILD_CNT, 64);
+      for(int i = 0; i < 64; i++)
+         msg.setFieldInt32(NXCPCodes.VID_CHILD_ID_BASE + i, rnd.nextInt(100000));
+      long fieldId = NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE;
+      for(int i = 0; i < 16; i++)
+      {
+         msg.setField(fieldId++, "attribute" + i);
+         msg.setField(fieldId++, randomText(rnd, 32));
+         msg.setFieldInt32(fieldId++, 0);
+      }
+      msg.setFieldInt32(NXCPCodes.VID_NUM_CUSTOM_ATTRIBUTES, 16);
+      return msg;
+   }
+
+   /**
+    * Create DCI data message with given number of values.
+    *
+    * @param id message ID
+    * @param count number of values
+    * @return new message
+    */
+   public static NXCPMessage createDciData(long id, int count)
+   {
+      Random rnd = new Random(SEED);
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_DCI_DATA, id);
+      msg.setFieldInt32(NXCPCodes.VID_NUM_ITEMS, count);
+      long fieldId = NXCPCodes.VID_DCI_VALUES_BASE;
+      for(int i = 0; i < count; i++, fieldId += 10)
+      {
+         msg.setFieldInt32(fieldId, 1000 + i);
+         msg.setField(fieldId + 1, "Net.Interface.BytesIn64(" + (i % 48 + 1) + ")");
+         msg.setFieldInt16(fieldId + 2, 7);
+         msg.setField(fieldId + 3, Double.toString(rnd.nextDouble() * 1e9));
+         msg.setFieldInt64(fieldId + 4, 1700000000000L + i * 1000L);
+         msg.setFieldInt16(fieldId + 5, 0);
+      }
+      return msg;
+   }
+
+   /**
+    * Create alarm update message.
+    *
+    * @param id message ID
+    * @return new message
+    */
+   public static NXCPMessage createAlarm(long id)
+   {
+      Random rnd = new Random(SEED);
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_ALARM_UPDATE, id);
+      msg.setFieldInt32(NXCPCodes.VID_ALARM_ID, rnd.nextInt(1000000));
+      msg.setFieldInt32(NXCPCodes.VID_SOURCE_OBJECT, rnd.nextInt(100000));
+      msg.setFieldInt32(NXCPCodes.VID_EVENT_CODE, 28);
+      msg.setFieldInt16(NXCPCodes.VID_ALARM_SEVERITY, 3);
+      msg.setFieldInt16(NXCPCodes.VID_STATE, 0);
+      msg.setField(NXCPCodes.VID_ALARM_KEY, "IF_DOWN_" + rnd.nextInt(100000) + "_" + rnd.nextInt(48));
+      msg.setField(NXCPCodes.VID_ALARM_MESSAGE, "Interface \"GigabitEthernet0/" + rnd.nextInt(48) + "\" changed state to DOWN (IP Addr: 10.0.0.1/24, IfIndex: 3)");
+      msg.setField(NXCPCodes.VID_HELPDESK_REF, "");
+      msg.setFieldInt32(NXCPCodes.VID_REPEAT_COUNT, rnd.nextInt(10));
+      msg.setField(NXCPCodes.VID_CREATION_TIME, new Date(1700000000000L));
+      msg.setField(NXCPCodes.VID_LAST_CHANGE_TIME, new Date(1700000060000L));
+      return msg;
+   }
+
+   /**
+    * Create binary message (like file transfer chunk) with given payload size. Payload is half random and half
+    * repetitive, so compression has realistic effect.
+    *
+    * @param id message ID
+    * @param size payload size in bytes
+    * @return new message
+    */
+   public static NXCPMessage createBinary(long id, int size)
+   {
+      Random rnd = new Random(SEED);
+      byte[] data = new byte[size];
+      rnd.nextBytes(data);
+      for(int i = size / 2; i < size; i++)
+         data[i] = (byte)('A' + (i % 26));
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_FILE_DATA, id);
+      msg.setBinaryMessage(true);
+      msg.setBinaryData(data);
+      return msg;
+   }
+
+   /**
+    * Generate random text of given length.
+    */
+   private static String randomText(Random rnd, int length)
+   {
+      StringBuilder sb = new StringBuilder(length);
+      while(sb.length() < length)
+      {
+         int wordLength = 2 + rnd.nextInt(8);
+         for(int i = 0; i < wordLength; i++)
+            sb.append((char)('a' + rnd.nextInt(26)));
+         sb.append(' ');
+      }
+      sb.setLength(length);
+      return sb.toString();
+   }
+}
@@ -0,0 +1,178 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.constants.DataType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Retained heap size of {@link Table} compared to row/cell object layout used before columnar storage. Each invocation
+ * builds table from log data messages (400 rows per message, as server sends them) and walks resulting object graph.
+ * Result of interest is secondary metric "bytesPerRow"; time score only shows decoding cost plus graph walk.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TableMemoryBenchmark
+{
+   private static final String[] SEVERITIES = { "Normal", "Warning", "Minor", "Major", "Critical" };
+   private static final int ROWS_PER_MESSAGE = 400;
+
+   @Param({ "1000", "50000" })
+   public int rows;
+
+   private List<NXCPMessage> messages;
+
+   /**
+    * Retained size counters
+    */
+   @AuxCounters(AuxCounters.Type.EVENTS)
+   @State(Scope.Thread)
+   public static class RetainedSize
+   {
+      public long bytesPerRow;
+
+      @Setup(Level.Iteration)
+      public void reset()
+      {
+         bytesPerRow = 0;
+      }
+   }
+
+   /**
+    * Cell in row based layout
+    */
+   private static class RowCell
+   {
+      String value;
+      int status = -1;
+      long objectId = 0;
+
+      RowCell(String value)
+      {
+         this.value = value;
+      }
+   }
+
+   /**
+    * Row in row based layout
+    */
+   private static class Row
+   {
+      List<RowCell> cells;
+      long objectId = 0;
+      int baseRow = -1;
+
+      Row(int columns)
+      {
+         cells = new ArrayList<RowCell>(columns);
+      }
+   }
+
+   @Setup(Level.Trial)
+   public void setup()
+   {
+      messages = new ArrayList<NXCPMessage>();
+      for(int start = 0; start < rows; start += ROWS_PER_MESSAGE)
+      {
+         NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_LOG_DATA);
+         msg.setField(NXCPCodes.VID_TABLE_TITLE, "events");
+         msg.setFieldInt16(NXCPCodes.VID_TABLE_EXTENDED_FORMAT, 0);
+         msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_COLS, 3);
+         msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_ROWS, rows);
+         setColumn(msg, 0, "event_id", DataType.INT64);
+         setColumn(msg, 1, "severity", DataType.STRING);
+         setColumn(msg, 2, "message", DataType.STRING);
+
+         int count = Math.min(ROWS_PER_MESSAGE, rows - start);
+         msg.setFieldInt32(NXCPCodes.VID_NUM_ROWS, count);
+         long fieldId = NXCPCodes.VID_TABLE_DATA_BASE;
+         for(int i = start; i < start + count; i++)
+         {
+            msg.setField(fieldId++, Long.toString(1000000L + i));
+            msg.setField(fieldId++, SEVERITIES[i % SEVERITIES.length]);
+            msg.setField(fieldId++, "Event message for record " + i);
+         }
+         messages.add(msg);
+      }
+   }
+
+   private static void setColumn(NXCPMessage msg, int index, String name, DataType type)
+   {
+      long fieldId = NXCPCodes.VID_TABLE_COLUMN_INFO_BASE + index * 10L;
+      msg.setField(fieldId, name);
+      msg.setFieldInt32(fieldId + 1, type.getValue());
+      msg.setField(fieldId + 2, name);
+   }
+
+   @Benchmark
+   public Table columnarTable(RetainedSize size)
+   {
+      Table table = new Table(messages.get(0));
+      for(int i = 1; i < messages.size(); i++)
+         table.addDataFromMessage(messages.get(i));
+      size.bytesPerRow = GraphLayout.parseInstance(table).totalSize() / rows;
+      return table;
+   }
+
+   /**
+    * Baseline: same data decoded into list of rows with one object per cell.
+    */
+   @Benchmark
+   public List<?> rowTable(RetainedSize size)
+   {
+      List<Row> table = new ArrayList<Row>();
+      for(NXCPMessage msg : messages)
+      {
+         int columns = msg.getFieldAsInt32(NXCPCodes.VID_TABLE_NUM_COLS);
+         int count = msg.getFieldAsInt32(NXCPCodes.VID_NUM_ROWS);
+         long fieldId = NXCPCodes.VID_TABLE_DATA_BASE;
+         for(int i = 0; i < count; i++)
+         {
+            Row row = new Row(columns);
+            for(int j = 0; j < columns; j++)
+               row.cells.add(new RowCell(msg.getFieldAsString(fieldId++)));
+            table.add(row);
+         }
+      }
+      size.bytesPerRow = GraphLayout.parseInstance(table).totalSize() / rows;
+      return table;
+   }
+}
@@ -0,0 +1,94 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.base;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of large receive buffers shared by all channel receivers. Buffers are grouped into size classes (powers of two)
+ * and total amount of memory held by the pool is limited.
+ */
+final class NXCPBufferPool
+{
+   private static final int MIN_CLASS = 16; // 64 KB
+   private static final int MAX_CLASS = 30; // 1 GB
+   private static final long MAX_RETAINED_BYTES = 64L * 1024 * 1024;
+
+   @SuppressWarnings("unchecked")
+   private static final ConcurrentLinkedQueue<byte[]>[] buffers = new ConcurrentLinkedQueue[MAX_CLASS + 1];
+   private static final AtomicLong retainedBytes = new AtomicLong(0);
+
+   static
+   {
+      for(int i = MIN_CLASS; i <= MAX_CLASS; i++)
+         buffers[i] = new ConcurrentLinkedQueue<byte[]>();
+   }
+
+   private NXCPBufferPool()
+   {
+   }
+
+   /**
+    * Get size class for given buffer size.
+    */
+   private static int sizeClass(int size)
+   {
+      int c = 32 - Integer.numberOfLeadingZeros(size - 1);
+      return Math.max(c, MIN_CLASS);
+   }
+
+   /**
+    * Get buffer of at least given size. Returned buffer content is undefined.
+    *
+    * @param size minimal buffer size
+    * @return buffer
+    */
+   static byte[] acquire(int size)
+   {
+      int c = sizeClass(size);
+      if (c > MAX_CLASS)
+         return new byte[size];
+      byte[] b = buffers[c].poll();
+      if (b != null)
+      {
+         retainedBytes.addAndGet(-b.length);
+         return b;
+      }
+      return new byte[1 << c];
+   }
+
+   /**
+    * Return buffer to the pool. Buffer will be discarded if pool is full or buffer size is not one of size classes.
+    *
+    * @param buffer buffer to return
+    */
+   static void release(byte[] buffer)
+   {
+      int c = sizeClass(buffer.length);
+      if ((c > MAX_CLASS) || (buffer.length != (1 << c)))
+         return;
+      if (retainedBytes.addAndGet(buffer.length) > MAX_RETAINED_BYTES)
+      {
+         retainedBytes.addAndGet(-buffer.length);
+         return;
+      }
+      buffers[c].offer(buffer);
+   }
+}
@@ -0,0 +1,240 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.base;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Message receiver for NXCP protocol that reads directly from channel (or input stream) into reusable buffer. Unlike
+ * {@link NXCPMessageReceiver}, remaining data is not moved to the beginning of the buffer after each message - messages
+ * are decoded in place and buffer is compacted only when there is not enough free space at the end for the rest of
+ * incomplete message. Messages larger than default buffer are received into buffers taken from shared pool, which are
+ * returned to the pool as soon as they are no longer needed.
+ * <p>
+ * Receiver is not thread safe and should be used from single receiving thread.
+ */
+public class NXCPChannelReceiver
+{
+   private final int defaultBufferSize;
+   private final int maxBufferSize;
+   private final byte[] defaultBuffer;
+   private byte[] buffer;
+   private ByteBuffer byteBuffer;
+   private int readPos = 0;
+   private int writePos = 0;
+
+   /**
+    * Create new receiver.
+    *
+    * @param defaultBufferSize default receiving buffer size (in bytes)
+    * @param maxBufferSize maximum receiving buffer size (in bytes)
+    */
+   public NXCPChannelReceiver(int defaultBufferSize, int maxBufferSize)
+   {
+      this.defaultBufferSize = Math.max(defaultBufferSize, NXCPMessage.HEADER_SIZE);
+      this.maxBufferSize = maxBufferSize;
+      defaultBuffer = new byte[this.defaultBufferSize];
+      setBuffer(defaultBuffer);
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   @Override
+   public String toString()
+   {
+      return "NXCPChannelReceiver [defaultBufferSize=" + defaultBufferSize + " maxBufferSize=" + maxBufferSize +
+            " bufferSize=" + buffer.length + " readPos=" + readPos + " writePos=" + writePos + "]";
+   }
+
+   /**
+    * Receive NXCP message from socket. If socket has associated channel, data will be read directly from channel, otherwise
+    * from socket's input stream.
+    *
+    * @param socket socket to read from
+    * @param ectx encryption context
+    * @return message object
+    * @throws IOException if read from socket fails
+    * @throws NXCPException if message is too large or if communication session is closed
+    */
+   public NXCPMessage receiveMessage(final Socket socket, EncryptionContext ectx) throws IOException, NXCPException
+   {
+      SocketChannel channel = socket.getChannel();
+      return (channel != null) ? receiveMessage(channel, ectx) : receiveMessage(socket.getInputStream(), ectx);
+   }
+
+   /**
+    * Receive NXCP message from channel. Channel should be in blocking mode.
+    *
+    * @param channel channel to read from
+    * @param ectx encryption context
+    * @return message object
+    * @throws IOException if read from channel fails
+    * @throws NXCPException if message is too large or if communication session is closed
+    */
+   public NXCPMessage receiveMessage(final ReadableByteChannel channel, EncryptionContext ectx) throws IOException, NXCPException
+   {
+      while(true)
+      {
+         NXCPMessage msg = getMessageFromBuffer(ectx);
+         if (msg != null)
+            return msg;
+         byteBuffer.limit(buffer.length).position(writePos);
+         int bytes = channel.read(byteBuffer);
+         if (bytes == -1)
+            throw new NXCPException(NXCPException.SESSION_CLOSED);
+         writePos += bytes;
+      }
+   }
+
+   /**
+    * Receive NXCP message from input stream.
+    *
+    * @param in input stream
+    * @param ectx encryption context
+    * @return message object
+    * @throws IOException if read from input stream fails
+    * @throws NXCPException if message is too large or if communication session is closed
+    */
+   public NXCPMessage receiveMessage(final InputStream in, EncryptionContext ectx) throws IOException, NXCPException
+   {
+      while(true)
+      {
+         NXCPMessage msg = getMessageFromBuffer(ectx);
+         if (msg != null)
+            return msg;
+         int bytes = in.read(buffer, writePos, buffer.length - writePos);
+         if (bytes == -1)
+            throw new NXCPException(NXCPException.SESSION_CLOSED);
+         writePos += bytes;
+      }
+   }
+
+   /**
+    * Get message from receiver's buffer. If there is no complete message in the buffer, ensures that there is enough free
+    * space at the end of the buffer for the rest of message (or at least for message header).
+    *
+    * @return message object or null if there are not enough data in the buffer
+    * @throws IOException if message decoding fails
+    * @throws NXCPException if message is too large or malformed
+    */
+   private NXCPMessage getMessageFromBuffer(EncryptionContext ectx) throws IOException, NXCPException
+   {
+      int available = writePos - readPos;
+      if (available < NXCPMessage.HEADER_SIZE)
+      {
+         if (buffer.length - readPos < NXCPMessage.HEADER_SIZE)
+            compact();
+         return null;
+      }
+
+      final long size = getMessageSize(buffer, readPos);
+      if (size < NXCPMessage.HEADER_SIZE)
+         throw new NXCPException(NXCPException.FATAL_PROTOCOL_ERROR);
+      if (size > maxBufferSize)
+         throw new NXCPException(NXCPException.MESSAGE_TOO_LARGE);
+
+      if (size > available)
+      {
+         if (size > buffer.length)
+            switchBuffer(NXCPBufferPool.acquire((int)size));
+         else if (size > buffer.length - readPos)
+            compact();
+         return null;
+      }
+
+      // Entire message in buffer, decode in place
+      int offset = readPos;
+      readPos += (int)size;
+      try
+      {
+         return new NXCPMessage(buffer, offset, (int)size, ectx);
+      }
+      finally
+      {
+         if (readPos == writePos)
+         {
+            readPos = 0;
+            writePos = 0;
+         }
+         if ((buffer != defaultBuffer) && (writePos - readPos <= defaultBufferSize))
+            switchBuffer(defaultBuffer);
+      }
+   }
+
+   /**
+    * Move unprocessed data to the beginning of the buffer.
+    */
+   private void compact()
+   {
+      if (readPos == 0)
+         return;
+      int available = writePos - readPos;
+      if (available > 0)
+         System.arraycopy(buffer, readPos, buffer, 0, available);
+      readPos = 0;
+      writePos = available;
+   }
+
+   /**
+    * Switch to another buffer, copying unprocessed data. Current buffer is returned to the pool if it was taken from it.
+    *
+    * @param newBuffer new buffer
+    */
+   private void switchBuffer(byte[] newBuffer)
+   {
+      int available = writePos - readPos;
+      if (available > 0)
+         System.arraycopy(buffer, readPos, newBuffer, 0, available);
+      if (buffer != defaultBuffer)
+         NXCPBufferPool.release(buffer);
+      setBuffer(newBuffer);
+      readPos = 0;
+      writePos = available;
+   }
+
+   /**
+    * Set current buffer.
+    */
+   private void setBuffer(byte[] b)
+   {
+      buffer = b;
+      byteBuffer = ByteBuffer.wrap(b);
+   }
+
+   /**
+    * Get message size from message header.
+    *
+    * @param b buffer
+    * @param offset header offset
+    * @return message size in bytes
+    */
+   private static long getMessageSize(final byte[] b, int offset)
+   {
+      return (((long)b[offset + 4] << 24) & 0xFF000000L) |
+             (((long)b[offset + 5] << 16) & 0x00FF0000L) |
+             (((long)b[offset + 6] << 8) & 0x0000FF00L) |
+             ((long)b[offset + 7] & 0x000000FFL);
+   }
+}
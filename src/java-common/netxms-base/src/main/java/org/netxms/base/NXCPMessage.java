@@ -101,7 +101,23 @@ public NXCPMessage(final int msgCode, final long msgId)
 	 */
 	public NXCPMessage(final byte[] nxcpMessage, EncryptionContext ectx) throws IOException, NXCPException
 	{
-		final ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(nxcpMessage);
+	   this(nxcpMessage, 0, nxcpMessage.length, ectx);
+	}
+
+   /**
+    * Create NXCPMessage from binary NXCP message located in given region of byte array. Message object does not keep
+    * reference to provided array, so it can be reused by caller immediately after this call.
+    * 
+    * @param buffer buffer containing binary NXCP message
+    * @param offset message offset within buffer
+    * @param length message length in bytes
+    * @param ectx encryption context
+    * @throws IOException if internal byte stream error occurs (normally should not happen)
+    * @throws NXCPException if message cannot be parsed
+    */
+   public NXCPMessage(final byte[] buffer, int offset, int length, EncryptionContext ectx) throws IOException, NXCPException
+   {
+		final ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(buffer, offset, length);
 		final NXCPDataInputStream inputStream = new NXCPDataInputStream(byteArrayInputStream);
 
 		messageCode = inputStream.readUnsignedShort();
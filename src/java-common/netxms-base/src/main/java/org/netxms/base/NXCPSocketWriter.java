@@ -0,0 +1,65 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.base;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Writer for sockets created from {@link java.nio.channels.SocketChannel} (as used with {@link NXCPChannelReceiver}).
+ * Such channels are closed when thread doing I/O on them is interrupted, so interrupting any thread that happens to send
+ * message (for example, on job cancellation) would break entire session. Writer clears interrupt flag for the duration of
+ * the write and restores it afterwards.
+ */
+public final class NXCPSocketWriter
+{
+   /**
+    * Private constructor to prevent instantiation
+    */
+   private NXCPSocketWriter()
+   {
+   }
+
+   /**
+    * Write data to socket. Interrupt status of calling thread is preserved, but not acted upon while writing.
+    *
+    * @param socket socket to write to
+    * @param data data to write
+    * @throws IOException if write fails
+    */
+   public static void write(Socket socket, byte[] data) throws IOException
+   {
+      if (socket.getChannel() == null)
+      {
+         socket.getOutputStream().write(data);
+         return;
+      }
+
+      boolean interrupted = Thread.interrupted();
+      try
+      {
+         socket.getOutputStream().write(data);
+      }
+      finally
+      {
+         if (interrupted)
+            Thread.currentThread().interrupt();
+      }
+   }
+}
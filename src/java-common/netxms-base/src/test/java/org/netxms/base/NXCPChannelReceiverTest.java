@@ -0,0 +1,140 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.base;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for NXCPChannelReceiver class
+ */
+public class NXCPChannelReceiverTest
+{
+   /**
+    * Input stream that returns at most given number of bytes per read call
+    */
+   private static class ChunkedInputStream extends ByteArrayInputStream
+   {
+      private final int chunkSize;
+
+      ChunkedInputStream(byte[] data, int chunkSize)
+      {
+         super(data);
+         this.chunkSize = chunkSize;
+      }
+
+      @Override
+      public synchronized int read(byte[] b, int off, int len)
+      {
+         return super.read(b, off, Math.min(len, chunkSize));
+      }
+   }
+
+   /**
+    * Create stream of messages with mix of small and large binary messages.
+    */
+   private static byte[] createStream(int count, byte[] largeData) throws Exception
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for(int i = 0; i < count; i++)
+      {
+         NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, i);
+         if (i % 10 == 5)
+         {
+            msg.setBinaryMessage(true);
+            msg.setBinaryData(largeData);
+         }
+         else
+         {
+            msg.setFieldInt32(NXCPCodes.VID_RCC, i);
+            msg.setField(NXCPCodes.VID_NAME, "message " + i);
+         }
+         out.write(msg.createNXCPMessage(false));
+      }
+      return out.toByteArray();
+   }
+
+   /**
+    * Validate received messages.
+    */
+   private static void checkMessages(NXCPChannelReceiver receiver, InputStream in, ReadableByteChannel channel, int count, byte[] largeData) throws Exception
+   {
+      for(int i = 0; i < count; i++)
+      {
+         NXCPMessage msg = (channel != null) ? receiver.receiveMessage(channel, null) : receiver.receiveMessage(in, null);
+         assertEquals(NXCPCodes.CMD_REQUEST_COMPLETED, msg.getMessageCode());
+         assertEquals(i, msg.getMessageId());
+         if (i % 10 == 5)
+         {
+            assertArrayEquals(largeData, msg.getBinaryData());
+         }
+         else
+         {
+            assertEquals(i, msg.getFieldAsInt32(NXCPCodes.VID_RCC));
+            assertEquals("message " + i, msg.getFieldAsString(NXCPCodes.VID_NAME));
+         }
+      }
+   }
+
+   @Test
+   public void testStreamReceive() throws Exception
+   {
+      byte[] largeData = new byte[100000];
+      new Random(1).nextBytes(largeData);
+      byte[] data = createStream(100, largeData);
+      for(int chunkSize : new int[] { 1, 7, 1460, 65536, data.length })
+      {
+         NXCPChannelReceiver receiver = new NXCPChannelReceiver(4096, 1024 * 1024);
+         InputStream in = new ChunkedInputStream(data, chunkSize);
+         checkMessages(receiver, in, null, 100, largeData);
+         NXCPException e = assertThrows(NXCPException.class, () -> receiver.receiveMessage(in, null));
+         assertEquals(NXCPException.SESSION_CLOSED, e.getErrorCode());
+      }
+   }
+
+   @Test
+   public void testChannelReceive() throws Exception
+   {
+      byte[] largeData = new byte[100000];
+      new Random(2).nextBytes(largeData);
+      byte[] data = createStream(100, largeData);
+      NXCPChannelReceiver receiver = new NXCPChannelReceiver(4096, 1024 * 1024);
+      checkMessages(receiver, null, Channels.newChannel(new ChunkedInputStream(data, 1460)), 100, largeData);
+   }
+
+   @Test
+   public void testMessageTooLarge() throws Exception
+   {
+      byte[] data = createStream(10, new byte[100000]);
+      NXCPChannelReceiver receiver = new NXCPChannelReceiver(4096, 65536);
+      InputStream in = new ByteArrayInputStream(data);
+      for(int i = 0; i < 5; i++)
+         receiver.receiveMessage(in, null);
+      NXCPException e = assertThrows(NXCPException.class, () -> receiver.receiveMessage(in, null));
+      assertEquals(NXCPException.MESSAGE_TOO_LARGE, e.getErrorCode());
+   }
+}
@@ -456,6 +456,10 @@ public void run()
 	 */
 	protected void setLayoutAlgorithm(MapLayoutAlgorithm alg, boolean forceChange)
 	{
+		// Force directed layout is not available in this client
+		if (alg == MapLayoutAlgorithm.FORCE_DIRECTED)
+			alg = MapLayoutAlgorithm.SPRING;
+
 		if (alg == MapLayoutAlgorithm.MANUAL)
 		{
 			if (!automaticLayoutEnabled)
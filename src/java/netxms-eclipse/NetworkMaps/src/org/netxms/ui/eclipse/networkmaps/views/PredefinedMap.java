@@ -155,7 +155,8 @@ protected String getErrorMessage()
 		else
 		{
 			automaticLayoutEnabled = true;
-			layoutAlgorithm = mapObject.getLayout();
+			// Force directed layout is not available in this client
+			layoutAlgorithm = (mapObject.getLayout() == MapLayoutAlgorithm.FORCE_DIRECTED) ? MapLayoutAlgorithm.SPRING : mapObject.getLayout();
 		}
 		syncObjects();
 	}
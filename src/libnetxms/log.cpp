@@ -81,6 +81,7 @@ static Condition s_writerStopCondition(true);
 static NxLogDebugWriter s_debugWriter = nullptr;
 static volatile DebugTagManager s_tagTree;
 static Mutex s_mutexDebugTagTreeWrite(MutexType::FAST);
+static VolatileCounter s_debugLevelVersion = 0;
 
 /**
  * Swaps tag tree pointers and waits till reader count drops to 0
@@ -155,6 +156,7 @@ void LIBNETXMS_EXPORTABLE nxlog_set_debug_level(int level)
    SwapAndWait();
    s_tagTree.secondary->setRootDebugLevel(level); // Update the previously active tree
    InterlockedDecrement(&s_tagTree.secondary->m_writers);
+   InterlockedIncrement(&s_debugLevelVersion);
    s_mutexDebugTagTreeWrite.unlock();
 }
 
@@ -186,6 +188,7 @@ void LIBNETXMS_EXPORTABLE nxlog_set_debug_level_tag(const TCHAR *tag, int level)
       s_tagTree.secondary->remove(tag);
    }
    InterlockedDecrement(&s_tagTree.secondary->m_writers);
+   InterlockedIncrement(&s_debugLevelVersion);
    s_mutexDebugTagTreeWrite.unlock();
 }
 
@@ -199,9 +202,19 @@ void LIBNETXMS_EXPORTABLE nxlog_reset_debug_level_tags()
    SwapAndWait();
    s_tagTree.secondary->clear();
    InterlockedDecrement(&s_tagTree.secondary->m_writers);
+   InterlockedIncrement(&s_debugLevelVersion);
    s_mutexDebugTagTreeWrite.unlock();
 }
 
+/**
+ * Get debug level configuration version. Version is changed every time when debug level is changed for any tag, so
+ * components that cache debug levels can detect that cached values are outdated.
+ */
+uint32_t LIBNETXMS_EXPORTABLE nxlog_get_debug_level_version()
+{
+   return static_cast<uint32_t>(s_debugLevelVersion);
+}
+
 /**
  * Acquire active tag tree for reading
  */
@@ -19,11 +19,21 @@
  */
 package org.netxms.bridge;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
 /**
  * Platform utility class
  */
 public final class Platform
 {
+   private static final long DEBUG_LEVEL_CHECK_INTERVAL = 1000;
+   private static final String DEFAULT_DEBUG_TAG = "java";
+
+   private static final ConcurrentHashMap<String, Integer> debugLevels = new ConcurrentHashMap<String, Integer>();
+   private static volatile int debugLevelVersion = -1;
+   private static volatile long nextDebugLevelCheck = 0;
+
    /**
     * Get NetXMS directory (internal bridge to native code)
     * 
@@ -77,6 +87,64 @@ public static void writeLog(String tag, LogLevel level, String message)
       writeLog(tag, level.getValue(), message);
    }
 
+   /**
+    * Get current debug level for given tag (internal bridge to native code)
+    * 
+    * @param tag debug tag (null for default tag)
+    * @return current debug level
+    */
+   protected static native int getDebugLevelInternal(String tag);
+
+   /**
+    * Get version of debug level configuration. Version changes every time debug level is changed for any tag.
+    * 
+    * @return debug level configuration version
+    */
+   protected static native int getDebugLevelVersion();
+
+   /**
+    * Get current debug level for given tag. Levels are cached on Java side; cache is invalidated when debug level
+    * configuration is changed (change is detected within one second).
+    * 
+    * @param tag debug tag (null for default tag)
+    * @return current debug level
+    */
+   public static int getDebugLevel(String tag)
+   {
+      long now = System.currentTimeMillis();
+      if (now >= nextDebugLevelCheck)
+      {
+         nextDebugLevelCheck = now + DEBUG_LEVEL_CHECK_INTERVAL;
+         int version = getDebugLevelVersion();
+         if (version != debugLevelVersion)
+         {
+            debugLevels.clear();
+            debugLevelVersion = version;
+         }
+      }
+
+      String key = (tag != null) ? tag : DEFAULT_DEBUG_TAG;
+      Integer level = debugLevels.get(key);
+      if (level == null)
+      {
+         level = getDebugLevelInternal(key);
+         debugLevels.put(key, level);
+      }
+      return level;
+   }
+
+   /**
+    * Check if debug messages with given level will be written for given tag.
+    * 
+    * @param tag debug tag (null for default tag)
+    * @param level debug level (0-9)
+    * @return true if messages with given level are enabled
+    */
+   public static boolean isDebugEnabled(String tag, int level)
+   {
+      return level <= getDebugLevel(tag);
+   }
+
    /**
     * Write debug log message using NetXMS logging facility
     * 
@@ -86,6 +154,35 @@ public static void writeLog(String tag, LogLevel level, String message)
     */
    public static native void writeDebugLog(String tag, int level, String message);
 
+   /**
+    * Write debug log message using NetXMS logging facility. Message supplier is called only if given debug level is enabled
+    * for given tag.
+    * 
+    * @param tag debug tag
+    * @param level debug level (0-9)
+    * @param message message supplier
+    */
+   public static void writeDebugLog(String tag, int level, Supplier<String> message)
+   {
+      if (isDebugEnabled(tag, level))
+         writeDebugLog(tag, level, message.get());
+   }
+
+   /**
+    * Write formatted debug log message using NetXMS logging facility. Message is formatted (using
+    * <code>String.format</code>) only if given debug level is enabled for given tag.
+    * 
+    * @param tag debug tag
+    * @param level debug level (0-9)
+    * @param format message format
+    * @param args format arguments
+    */
+   public static void writeDebugLog(String tag, int level, String format, Object... args)
+   {
+      if (isDebugEnabled(tag, level))
+         writeDebugLog(tag, level, String.format(format, args));
+   }
+
    /**
     * Write debug log message using NetXMS logging facility
     * 
@@ -123,6 +220,8 @@ public static void writeDebugLog(int level, String prefix, Throwable e)
     */
    public static void writeDebugLog(String tag, int level, String prefix, Throwable e)
    {
+      if (!isDebugEnabled(tag, level))
+         return;
       for(StackTraceElement s : e.getStackTrace())
       {
          writeDebugLog(tag, level, prefix + s.toString());
@@ -81,11 +81,39 @@ static void JNICALL J_writeDebugLog(JNIEnv *jenv, jclass jcls, jstring jtag, jin
    MemFree(message);
 }
 
+/**
+ * Class:     org.netxms.bridge.Platform
+ * Method:    getDebugLevelInternal
+ * Signature: (Ljava/lang/String;)I
+ */
+static jint JNICALL J_getDebugLevelInternal(JNIEnv *jenv, jclass jcls, jstring jtag)
+{
+   if (jtag == nullptr)
+      return static_cast<jint>(nxlog_get_debug_level_tag(_T("java")));
+
+   TCHAR *tag = CStringFromJavaString(jenv, jtag);
+   int level = nxlog_get_debug_level_tag(tag);
+   MemFree(tag);
+   return static_cast<jint>(level);
+}
+
+/**
+ * Class:     org.netxms.bridge.Platform
+ * Method:    getDebugLevelVersion
+ * Signature: ()I
+ */
+static jint JNICALL J_getDebugLevelVersion(JNIEnv *jenv, jclass jcls)
+{
+   return static_cast<jint>(nxlog_get_debug_level_version());
+}
+
 /**
  * Native methods
  */
 static JNINativeMethod s_jniNativeMethods[] =
 {
+   { (char *)"getDebugLevelInternal", (char *)"(Ljava/lang/String;)I", (void *)J_getDebugLevelInternal },
+   { (char *)"getDebugLevelVersion", (char *)"()I", (void *)J_getDebugLevelVersion },
    { (char *)"getNetXMSDirectoryInternal", (char *)"(I)Ljava/lang/String;", (void *)J_getNetXMSDirectoryInternal },
    { (char *)"writeDebugLog", (char *)"(Ljava/lang/String;ILjava/lang/String;)V", (void *)J_writeDebugLog },
    { (char *)"writeLog", (char *)"(Ljava/lang/String;ILjava/lang/String;)V", (void *)J_writeLog }
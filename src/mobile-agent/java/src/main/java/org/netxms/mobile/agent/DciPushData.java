@@ -18,6 +18,8 @@
  */
 package org.netxms.mobile.agent;
 
+import java.util.Date;
+
 /**
  * Push DCI data
  */
@@ -28,6 +30,7 @@
 	public long dciId;
 	public String dciName;
 	public String value;
+	public Date timestamp;
 	
 	/**
 	 * @param nodeId node object ID
@@ -41,6 +44,19 @@ public DciPushData(long nodeId, long dciId, String value)
 		this.dciId = dciId;
 		this.dciName = null;
 		this.value = value;
+		this.timestamp = null;
+	}
+
+	/**
+	 * @param nodeId node object ID
+	 * @param dciId DCI ID
+	 * @param value value to push
+	 * @param timestamp time when value was collected (null for current time)
+	 */
+	public DciPushData(long nodeId, long dciId, String value, Date timestamp)
+	{
+		this(nodeId, dciId, value);
+		this.timestamp = timestamp;
 	}
 
 	/**
@@ -55,5 +71,18 @@ public DciPushData(String nodeName, String dciName, String value)
 		this.dciId = 0;
 		this.dciName = dciName;
 		this.value = value;
+		this.timestamp = null;
+	}
+
+	/**
+	 * @param nodeName node object name
+	 * @param dciName DCI name
+	 * @param value value to push
+	 * @param timestamp time when value was collected (null for current time)
+	 */
+	public DciPushData(String nodeName, String dciName, String value, Date timestamp)
+	{
+		this(nodeName, dciName, value);
+		this.timestamp = timestamp;
 	}
 }
@@ -0,0 +1,746 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Victor Kirhenshtein
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.mobile.agent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.mobile.agent.constants.RCC;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client side queue for DCI push data. Values are buffered locally (optionally persisted to file, so they survive application
+ * restart) and sent to server in batches. Values collected at the same time are combined into single push request, and
+ * several requests are sent without waiting for server response to each of them, which makes draining of large backlog
+ * accumulated while device was offline fast even on high latency links. Requests sent that way never have values for the
+ * same DCI, so values for each DCI are registered by server in the order they were collected. Queue size is bounded - when
+ * limit is reached, oldest values are discarded.
+ */
+public class DciPushQueue
+{
+   private static final Logger logger = LoggerFactory.getLogger(DciPushQueue.class);
+
+   private static final int FILE_MAGIC = 0x4E584451; // "NXDQ"
+   private static final int FILE_VERSION = 2;
+   private static final int MAX_STRING_LENGTH = 16 * 1024 * 1024;
+
+   private final Session session;
+   private final File storageFile;
+   private final int maxQueueSize;
+   private final ArrayDeque<DciPushData> queue = new ArrayDeque<DciPushData>();
+   private final Object flushLock = new Object();
+   private DataOutputStream journal = null;
+   private int journalRecords = 0;
+   private int batchSize = 256;
+   private int maxRequestsInFlight = 16;
+   private long flushInterval = 60000;
+   private long discardedValues = 0;
+   private Thread flushThread = null;
+   private volatile boolean running = false;
+
+   /**
+    * Create new in-memory push queue.
+    *
+    * @param session communication session
+    * @param maxQueueSize maximum number of queued values
+    */
+   public DciPushQueue(Session session, int maxQueueSize)
+   {
+      this(session, maxQueueSize, null);
+   }
+
+   /**
+    * Create new push queue. If storage file is given, queued values will be stored in that file and loaded from it when queue
+    * is created.
+    *
+    * @param session communication session
+    * @param maxQueueSize maximum number of queued values
+    * @param storageFile file for storing queued values (can be null)
+    */
+   public DciPushQueue(Session session, int maxQueueSize, File storageFile)
+   {
+      this.session = session;
+      this.maxQueueSize = Math.max(maxQueueSize, 1);
+      this.storageFile = storageFile;
+      if (storageFile != null)
+      {
+         load();
+         rewriteStorage();
+      }
+   }
+
+   /**
+    * Add value to the queue. If timestamp is not set in push data, it will be set to current time.
+    *
+    * @param data push data
+    */
+   public void add(DciPushData data)
+   {
+      if (data.timestamp == null)
+         data.timestamp = new Date();
+      synchronized(queue)
+      {
+         if (queue.size() >= maxQueueSize)
+         {
+            queue.removeFirst();
+            discardedValues++;
+            if ((discardedValues % 1000) == 1)
+               logger.warn("DCI push queue is full, oldest values discarded (" + discardedValues + " values discarded so far)");
+         }
+         queue.addLast(data);
+         if (journal != null)
+         {
+            try
+            {
+               writeRecord(journal, data);
+               journal.flush();
+               journalRecords++;
+            }
+            catch(IOException e)
+            {
+               logger.error("Cannot write DCI push queue storage file", e);
+               closeJournal();
+            }
+         }
+         if (journalRecords > maxQueueSize * 2)
+            rewriteStorage(); // discard records for values that are not in the queue anymore
+         if ((queue.size() >= batchSize) && (flushThread != null))
+            queue.notifyAll();
+      }
+   }
+
+   /**
+    * Add value for DCI with given ID to the queue.
+    *
+    * @param dciId DCI ID
+    * @param value value
+    * @param timestamp time when value was collected (null for current time)
+    */
+   public void add(long dciId, String value, Date timestamp)
+   {
+      add(new DciPushData(0, dciId, value, timestamp));
+   }
+
+   /**
+    * Add value for DCI with given name to the queue.
+    *
+    * @param dciName DCI name
+    * @param value value
+    * @param timestamp time when value was collected (null for current time)
+    */
+   public void add(String dciName, String value, Date timestamp)
+   {
+      add(new DciPushData(null, dciName, value, timestamp));
+   }
+
+   /**
+    * Get number of queued values.
+    *
+    * @return number of queued values
+    */
+   public int size()
+   {
+      synchronized(queue)
+      {
+         return queue.size();
+      }
+   }
+
+   /**
+    * Get number of values discarded because queue was full or server rejected them.
+    *
+    * @return number of discarded values
+    */
+   public long getDiscardedValues()
+   {
+      synchronized(queue)
+      {
+         return discardedValues;
+      }
+   }
+
+   /**
+    * Send all queued values to server. Values successfully delivered (or rejected by server as invalid) are removed from queue.
+    * On communication error undelivered values remain in the queue.
+    *
+    * @return number of delivered values
+    * @throws IOException if socket I/O error occurs
+    * @throws MobileAgentException if NetXMS server returns an error or operation was timed out
+    */
+   public int flush() throws IOException, MobileAgentException
+   {
+      synchronized(flushLock)
+      {
+         List<DciPushData> pending;
+         synchronized(queue)
+         {
+            if (queue.isEmpty())
+               return 0;
+            pending = new ArrayList<DciPushData>(queue);
+         }
+
+         List<Batch> batches = createBatches(pending);
+         logger.debug("Sending " + pending.size() + " queued values in " + batches.size() + " requests");
+
+         Set<DciPushData> completed = Collections.newSetFromMap(new IdentityHashMap<DciPushData, Boolean>());
+         ArrayDeque<Batch> inFlight = new ArrayDeque<Batch>(maxRequestsInFlight);
+         Map<Object, Integer> inFlightDcis = new HashMap<Object, Integer>();
+         int delivered = 0;
+         try
+         {
+            int next = 0;
+            while((next < batches.size()) || !inFlight.isEmpty())
+            {
+               // Batch with values for DCI that has values in requests still waiting for response is held back, otherwise
+               // server may process requests out of order and register older value after newer one
+               while((next < batches.size()) && (inFlight.size() < maxRequestsInFlight) && !hasInFlightValues(batches.get(next), inFlightDcis))
+               {
+                  Batch b = batches.get(next++);
+                  b.requestId = session.sendDciData(b.data, b.timestamp);
+                  inFlight.addLast(b);
+                  updateInFlightValues(b, inFlightDcis, 1);
+               }
+
+               Batch b = inFlight.removeFirst();
+               NXCPMessage response = session.waitForMessage(NXCPCodes.CMD_REQUEST_COMPLETED, b.requestId);
+               updateInFlightValues(b, inFlightDcis, -1);
+               Batch remaining = processResponse(b, response, completed);
+               if (remaining == b)
+               {
+                  delivered += b.data.length;
+               }
+               else if (remaining != null)
+               {
+                  // No request in flight has values for these DCIs, so re-sent values cannot overtake newer ones
+                  batches.add(next, remaining);
+               }
+            }
+         }
+         finally
+         {
+            // Server may have already processed requests sent before failure, so collect their responses to avoid sending
+            // same values again on next flush
+            for(Batch b : inFlight)
+            {
+               NXCPMessage response;
+               try
+               {
+                  response = session.waitForMessage(NXCPCodes.CMD_REQUEST_COMPLETED, b.requestId);
+               }
+               catch(MobileAgentException e)
+               {
+                  logger.debug("No response for DCI push request " + b.requestId + ", remaining responses will not be collected");
+                  break;
+               }
+               try
+               {
+                  processResponse(b, response, completed);
+               }
+               catch(MobileAgentException e)
+               {
+                  logger.debug("DCI push request " + b.requestId + " failed (" + e.getMessage() + ")");
+               }
+            }
+            removeCompleted(completed);
+         }
+         return delivered;
+      }
+   }
+
+   /**
+    * Process server response to push request. Delivered values and values rejected by server are added to completed set.
+    *
+    * @param b batch
+    * @param response server response
+    * @param completed set of completed values
+    * @return same batch if all values were delivered, new batch with values to be re-sent if server rejected one of the values, or
+    *         null if there is nothing to re-send
+    * @throws MobileAgentException if server returns an error
+    */
+   private Batch processResponse(Batch b, NXCPMessage response, Set<DciPushData> completed) throws MobileAgentException
+   {
+      int rcc = response.getFieldAsInt32(NXCPCodes.VID_RCC);
+      if (rcc == RCC.SUCCESS)
+      {
+         Collections.addAll(completed, b.data);
+         return b;
+      }
+
+      if (((rcc != RCC.INVALID_DCI_ID) && (rcc != RCC.NOT_PUSH_DCI)) || !response.isFieldPresent(NXCPCodes.VID_FAILED_DCI_INDEX))
+         throw new MobileAgentException(rcc);
+
+      // Server rejects whole request if any value is invalid - drop invalid value and re-send the rest
+      int index = response.getFieldAsInt32(NXCPCodes.VID_FAILED_DCI_INDEX);
+      if ((index < 0) || (index >= b.data.length))
+         throw new MobileAgentException(rcc);
+      DciPushData failed = b.data[index];
+      logger.warn("Value for DCI " + ((failed.dciId != 0) ? Long.toString(failed.dciId) : failed.dciName) + " rejected by server (RCC=" + rcc + ")");
+      completed.add(failed);
+      synchronized(queue)
+      {
+         discardedValues++;
+      }
+      if (b.data.length == 1)
+         return null;
+      DciPushData[] remaining = new DciPushData[b.data.length - 1];
+      System.arraycopy(b.data, 0, remaining, 0, index);
+      System.arraycopy(b.data, index + 1, remaining, index, remaining.length - index);
+      return new Batch(b.timestamp, remaining);
+   }
+
+   /**
+    * Get key identifying DCI of pushed value. Values are always pushed to DCIs of this device, so node is not part of the key.
+    *
+    * @param d push data
+    * @return DCI key
+    */
+   private static Object getDciKey(DciPushData d)
+   {
+      return (d.dciId != 0) ? (Object)Long.valueOf(d.dciId) : d.dciName;
+   }
+
+   /**
+    * Check if any of DCIs in given batch has values in requests waiting for server response.
+    *
+    * @param b batch
+    * @param inFlightDcis number of in-flight values per DCI
+    * @return true if batch contains values for DCIs with in-flight values
+    */
+   private static boolean hasInFlightValues(Batch b, Map<Object, Integer> inFlightDcis)
+   {
+      if (inFlightDcis.isEmpty())
+         return false;
+      for(DciPushData d : b.data)
+      {
+         if (inFlightDcis.containsKey(getDciKey(d)))
+            return true;
+      }
+      return false;
+   }
+
+   /**
+    * Update number of in-flight values per DCI.
+    *
+    * @param b batch sent or completed
+    * @param inFlightDcis number of in-flight values per DCI
+    * @param delta 1 when batch is sent, -1 when response is received
+    */
+   private static void updateInFlightValues(Batch b, Map<Object, Integer> inFlightDcis, int delta)
+   {
+      for(DciPushData d : b.data)
+      {
+         Object key = getDciKey(d);
+         Integer count = inFlightDcis.get(key);
+         int n = ((count != null) ? count : 0) + delta;
+         if (n > 0)
+            inFlightDcis.put(key, n);
+         else
+            inFlightDcis.remove(key);
+      }
+   }
+
+   /**
+    * Split pending values into batches. Values with same timestamp (with one second precision) are sent in one request, up to
+    * configured batch size. Order of timestamps is preserved.
+    *
+    * @param pending pending values
+    * @return list of batches
+    */
+   private List<Batch> createBatches(List<DciPushData> pending)
+   {
+      Map<Long, List<DciPushData>> groups = new LinkedHashMap<Long, List<DciPushData>>();
+      for(DciPushData d : pending)
+      {
+         Long t = d.timestamp.getTime() / 1000;
+         List<DciPushData> group = groups.get(t);
+         if (group == null)
+         {
+            group = new ArrayList<DciPushData>();
+            groups.put(t, group);
+         }
+         group.add(d);
+      }
+
+      List<Batch> batches = new ArrayList<Batch>();
+      for(Map.Entry<Long, List<DciPushData>> e : groups.entrySet())
+      {
+         Date timestamp = new Date(e.getKey() * 1000);
+         List<DciPushData> group = e.getValue();
+         for(int i = 0; i < group.size(); i += batchSize)
+         {
+            List<DciPushData> part = group.subList(i, Math.min(i + batchSize, group.size()));
+            batches.add(new Batch(timestamp, part.toArray(new DciPushData[part.size()])));
+         }
+      }
+      return batches;
+   }
+
+   /**
+    * Remove completed values from queue and update storage file.
+    *
+    * @param completed completed values
+    */
+   private void removeCompleted(Set<DciPushData> completed)
+   {
+      if (completed.isEmpty())
+         return;
+      synchronized(queue)
+      {
+         Iterator<DciPushData> it = queue.iterator();
+         while(it.hasNext())
+         {
+            if (completed.contains(it.next()))
+               it.remove();
+         }
+      }
+      if (storageFile != null)
+         rewriteStorage();
+   }
+
+   /**
+    * Start background thread which will send queued values to server periodically (and as soon as there are enough values for
+    * full batch). Session should be connected by application; while it is not, values are kept in queue.
+    */
+   public synchronized void start()
+   {
+      if (flushThread != null)
+         return;
+      running = true;
+      flushThread = new Thread(new Runnable() {
+         @Override
+         public void run()
+         {
+            flushThreadMain();
+         }
+      }, "DCI Push Queue");
+      flushThread.setDaemon(true);
+      flushThread.start();
+   }
+
+   /**
+    * Stop background thread and close storage file.
+    */
+   public void stop()
+   {
+      Thread t;
+      synchronized(this)
+      {
+         running = false;
+         t = flushThread;
+         flushThread = null;
+      }
+      if (t != null)
+      {
+         synchronized(queue)
+         {
+            queue.notifyAll();
+         }
+         try
+         {
+            t.join();
+         }
+         catch(InterruptedException e)
+         {
+         }
+      }
+      synchronized(queue)
+      {
+         closeJournal();
+      }
+   }
+
+   /**
+    * Background flush thread
+    */
+   private void flushThreadMain()
+   {
+      while(running)
+      {
+         synchronized(queue)
+         {
+            try
+            {
+               // Always wait while disconnected, otherwise full queue would cause busy loop
+               if (running && ((queue.size() < batchSize) || !session.isConnected()))
+                  queue.wait(flushInterval);
+            }
+            catch(InterruptedException e)
+            {
+               break;
+            }
+         }
+         if (!running || !session.isConnected())
+            continue;
+         try
+         {
+            int count = flush();
+            if (count > 0)
+               logger.debug(count + " queued values sent to server");
+         }
+         catch(Exception e)
+         {
+            logger.warn("Cannot send queued values to server", e);
+            try
+            {
+               Thread.sleep(flushInterval); // do not retry immediately
+            }
+            catch(InterruptedException e1)
+            {
+               break;
+            }
+         }
+      }
+   }
+
+   /**
+    * Load queued values from storage file
+    */
+   private void load()
+   {
+      if (!storageFile.exists())
+         return;
+
+      DataInputStream in = null;
+      try
+      {
+         in = new DataInputStream(new BufferedInputStream(new FileInputStream(storageFile)));
+         if ((in.readInt() != FILE_MAGIC) || (in.readInt() != FILE_VERSION))
+         {
+            logger.warn("Invalid DCI push queue storage file " + storageFile.getAbsolutePath());
+            return;
+         }
+         while(true)
+         {
+            DciPushData d = readRecord(in);
+            if (queue.size() >= maxQueueSize)
+            {
+               queue.removeFirst();
+               discardedValues++;
+            }
+            queue.addLast(d);
+         }
+      }
+      catch(EOFException e)
+      {
+         // end of file or incomplete last record
+      }
+      catch(IOException e)
+      {
+         logger.error("Error reading DCI push queue storage file " + storageFile.getAbsolutePath(), e);
+      }
+      finally
+      {
+         if (in != null)
+         {
+            try
+            {
+               in.close();
+            }
+            catch(IOException e)
+            {
+            }
+         }
+      }
+      logger.info(queue.size() + " queued values loaded from " + storageFile.getAbsolutePath());
+   }
+
+   /**
+    * Rewrite storage file with current queue content and keep it open for appending new values.
+    */
+   private void rewriteStorage()
+   {
+      synchronized(queue)
+      {
+         closeJournal();
+         try
+         {
+            journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(storageFile)));
+            journal.writeInt(FILE_MAGIC);
+            journal.writeInt(FILE_VERSION);
+            for(DciPushData d : queue)
+               writeRecord(journal, d);
+            journal.flush();
+            journalRecords = queue.size();
+         }
+         catch(IOException e)
+         {
+            logger.error("Cannot write DCI push queue storage file " + storageFile.getAbsolutePath(), e);
+            closeJournal();
+         }
+      }
+   }
+
+   /**
+    * Close storage file
+    */
+   private void closeJournal()
+   {
+      if (journal == null)
+         return;
+      try
+      {
+         journal.close();
+      }
+      catch(IOException e)
+      {
+      }
+      journal = null;
+   }
+
+   /**
+    * Write single record to storage file.
+    */
+   private static void writeRecord(DataOutputStream out, DciPushData d) throws IOException
+   {
+      out.writeLong(d.timestamp.getTime());
+      out.writeLong(d.dciId);
+      out.writeBoolean(d.dciName != null);
+      if (d.dciName != null)
+         writeString(out, d.dciName);
+      out.writeBoolean(d.value != null);
+      if (d.value != null)
+         writeString(out, d.value);
+   }
+
+   /**
+    * Read single record from storage file.
+    */
+   private static DciPushData readRecord(DataInputStream in) throws IOException
+   {
+      Date timestamp = new Date(in.readLong());
+      long dciId = in.readLong();
+      String dciName = in.readBoolean() ? readString(in) : null;
+      String value = in.readBoolean() ? readString(in) : null;
+      return (dciId != 0) ? new DciPushData(0, dciId, value, timestamp) : new DciPushData(null, dciName, value, timestamp);
+   }
+
+   /**
+    * Write string to storage file as length-prefixed UTF-8 byte array (unlike writeUTF, not limited to 64KB).
+    */
+   private static void writeString(DataOutputStream out, String s) throws IOException
+   {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   /**
+    * Read string written by writeString() from storage file.
+    */
+   private static String readString(DataInputStream in) throws IOException
+   {
+      int length = in.readInt();
+      if ((length < 0) || (length > MAX_STRING_LENGTH))
+         throw new IOException("Invalid string length " + length);
+      byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   /**
+    * @return maximum number of values in single push request
+    */
+   public int getBatchSize()
+   {
+      return batchSize;
+   }
+
+   /**
+    * Set maximum number of values in single push request.
+    *
+    * @param batchSize maximum number of values in single push request
+    */
+   public void setBatchSize(int batchSize)
+   {
+      this.batchSize = Math.max(batchSize, 1);
+   }
+
+   /**
+    * @return maximum number of push requests sent without waiting for server response
+    */
+   public int getMaxRequestsInFlight()
+   {
+      return maxRequestsInFlight;
+   }
+
+   /**
+    * Set maximum number of push requests sent without waiting for server response.
+    *
+    * @param maxRequestsInFlight maximum number of requests in flight
+    */
+   public void setMaxRequestsInFlight(int maxRequestsInFlight)
+   {
+      this.maxRequestsInFlight = Math.max(maxRequestsInFlight, 1);
+   }
+
+   /**
+    * @return flush interval for background thread in milliseconds
+    */
+   public long getFlushInterval()
+   {
+      return flushInterval;
+   }
+
+   /**
+    * Set flush interval for background thread.
+    *
+    * @param flushInterval flush interval in milliseconds
+    */
+   public void setFlushInterval(long flushInterval)
+   {
+      this.flushInterval = Math.max(flushInterval, 100);
+   }
+
+   /**
+    * Batch of values sent in single request
+    */
+   private static class Batch
+   {
+      final Date timestamp;
+      final DciPushData[] data;
+      long requestId;
+
+      Batch(Date timestamp, DciPushData[] data)
+      {
+         this.timestamp = timestamp;
+         this.data = data;
+      }
+   }
+}
@@ -1,6 +1,6 @@
 /**
  * NetXMS - open source network management system
- * Copyright (C) 2003-2020 Victor Kirhenshtein
+ * Copyright (C) 2003-2025 Victor Kirhenshtein
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,20 +19,22 @@
 package org.netxms.mobile.agent;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
 import java.security.GeneralSecurityException;
+import java.util.Date;
 import java.util.concurrent.atomic.AtomicLong;
 import org.netxms.base.EncryptionContext;
 import org.netxms.base.GeoLocation;
+import org.netxms.base.NXCPChannelReceiver;
 import org.netxms.base.NXCPCodes;
 import org.netxms.base.NXCPException;
 import org.netxms.base.NXCPMessage;
-import org.netxms.base.NXCPMessageReceiver;
 import org.netxms.base.NXCPMsgWaitQueue;
+import org.netxms.base.NXCPSocketWriter;
 import org.netxms.base.VersionInfo;
 import org.netxms.mobile.agent.constants.RCC;
 import org.slf4j.Logger;
@@ -116,23 +118,14 @@ private class ReceiverThread extends Thread
 		@Override
 		public void run()
 		{
-			final NXCPMessageReceiver receiver = new NXCPMessageReceiver(defaultRecvBufferSize, maxRecvBufferSize);
-			InputStream in;
+			final NXCPChannelReceiver receiver = new NXCPChannelReceiver(defaultRecvBufferSize, maxRecvBufferSize);
+			final Socket socket = connSocket;
 
-			try
-			{
-				in = connSocket.getInputStream();
-			}
-			catch(IOException e)
-			{
-				return; // Stop receiver thread if input stream cannot be obtained
-			}
-
-			while(connSocket.isConnected())
+			while(socket.isConnected())
 			{
 				try
 				{
-					final NXCPMessage msg = receiver.receiveMessage(in, encryptionContext);
+					final NXCPMessage msg = receiver.receiveMessage(socket, encryptionContext);
 					switch(msg.getMessageCode())
 					{
 						case NXCPCodes.CMD_REQUEST_SESSION_KEY:
@@ -235,7 +228,6 @@ public synchronized void sendMessage(final NXCPMessage msg) throws IOException,
 		{
 			throw new IllegalStateException("Not connected to the server. Did you forgot to call connect() first?");
 		}
-		final OutputStream outputStream = connSocket.getOutputStream();
 		byte[] message;
 		if ((encryptionContext != null) && !msg.isEncryptionDisabled())
 		{
@@ -252,7 +244,7 @@ public synchronized void sendMessage(final NXCPMessage msg) throws IOException,
 		{
 			message = msg.createNXCPMessage(allowCompression);
 		}
-		outputStream.write(message);
+		NXCPSocketWriter.write(connSocket, message);
 	}
 
 	/**
@@ -357,7 +349,10 @@ public void connect() throws IOException, UnknownHostException, MobileAgentExcep
       logger.info("Connecting to " + connAddress + ":" + connPort);
 		try
 		{
-			connSocket = new Socket(connAddress, connPort);
+			InetSocketAddress address = new InetSocketAddress(connAddress, connPort);
+			if (address.isUnresolved())
+				throw new UnknownHostException(connAddress);
+			connSocket = SocketChannel.open(address).socket();
 			msgWaitQueue = new NXCPMsgWaitQueue(commandTimeout);
 			recvThread = new ReceiverThread();
 
@@ -464,6 +459,16 @@ public void disconnect()
 		isConnected = false;
 	}
 
+	/**
+	 * Check if session is connected to the server.
+	 *
+	 * @return true if session is connected
+	 */
+	public boolean isConnected()
+	{
+		return isConnected;
+	}
+
 	/**
 	 * Set command execution timeout in milliseconds.
 	 * 
@@ -482,23 +487,50 @@ public void setCommandTimeout(final int commandTimeout)
 	 * @throws MobileAgentException if NetXMS server returns an error or operation was timed out
 	 */
 	public void pushDciData(DciPushData[] data) throws IOException, MobileAgentException
+	{
+		pushDciData(data, null);
+	}
+
+	/**
+	 * Push data to server. All values will be registered on server with same timestamp.
+	 * 
+	 * @param data push data 
+	 * @param timestamp time when values were collected (null for current time)
+	 * @throws IOException if socket I/O error occurs
+	 * @throws MobileAgentException if NetXMS server returns an error or operation was timed out
+	 */
+	public void pushDciData(DciPushData[] data, Date timestamp) throws IOException, MobileAgentException
+	{
+		waitForRCC(sendDciData(data, timestamp));
+	}
+
+	/**
+	 * Send push data request without waiting for server response. Caller is responsible for waiting for
+	 * CMD_REQUEST_COMPLETED message with returned request ID. Data is always pushed to DCIs of this device, so
+	 * node ID and name in push data elements are ignored.
+	 * 
+	 * @param data push data
+	 * @param timestamp time when values were collected (null for current time)
+	 * @return request ID
+	 * @throws IOException if socket I/O error occurs
+	 * @throws MobileAgentException in case of encryption error
+	 */
+	public long sendDciData(DciPushData[] data, Date timestamp) throws IOException, MobileAgentException
 	{
 		NXCPMessage msg = newMessage(NXCPCodes.CMD_PUSH_DCI_DATA);
 		msg.setFieldInt32(NXCPCodes.VID_NUM_ITEMS, data.length);
 		long varId = NXCPCodes.VID_PUSH_DCI_DATA_BASE;
 		for(DciPushData d : data)
 		{
-			msg.setFieldInt32(varId++, (int)d.nodeId);
-			if (d.nodeId == 0)
-				msg.setField(varId++, d.nodeName);
 			msg.setFieldInt32(varId++, (int)d.dciId);
 			if (d.dciId == 0)
 				msg.setField(varId++, d.dciName);
 			msg.setField(varId++, d.value);
 		}
-		
+		if (timestamp != null)
+			msg.setFieldInt32(NXCPCodes.VID_TIMESTAMP, (int)(timestamp.getTime() / 1000));
 		sendMessage(msg);
-		waitForRCC(msg.getMessageId());
+		return msg.getMessageId();
 	}
 
 	/**
@@ -45,6 +45,10 @@ public Class<?> loadClass(String name) throws ClassNotFoundException
    {
       if (!name.startsWith("report."))
          return super.loadClass(name);
-      return findClass(name);
+      synchronized(getClassLoadingLock(name))
+      {
+         Class<?> c = findLoadedClass(name);
+         return (c != null) ? c : findClass(name);
+      }
    }
 }
@@ -21,22 +21,28 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.util.Properties;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
 import org.apache.commons.daemon.Daemon;
 import org.apache.commons.daemon.DaemonContext;
 import org.apache.commons.daemon.DaemonInitException;
 import org.netxms.reporting.services.CommunicationManager;
+import org.netxms.reporting.services.ConnectionPool;
 import org.netxms.reporting.services.FileMonitor;
 import org.netxms.reporting.services.ReportManager;
+import org.netxms.reporting.services.ReportScheduler;
 import org.netxms.reporting.tools.SmtpSender;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +60,8 @@ public final class Server implements Daemon
    private Thread listenerThread;
    private CommunicationManager communicationManager;
    private ReportManager reportManager;
+   private ReportScheduler reportScheduler;
+   private ConnectionPool connectionPool;
    private FileMonitor fileMonitor;
    private Properties configuration = new Properties();
    private ThreadPoolExecutor threadPool;
@@ -94,10 +102,15 @@ else if (bindAddressName.isEmpty() || bindAddressName.equals("*") || bindAddress
             bindAddress = InetAddress.getLoopbackAddress();
          }
       }
-      serverSocket = new ServerSocket(4710, 0, bindAddress);
+      serverSocket = ServerSocketChannel.open().socket(); // accepted sockets will have channels for direct reads
+      serverSocket.bind(new InetSocketAddress(bindAddress, 4710));
 
       communicationManager = new CommunicationManager(this);
       reportManager = new ReportManager(this);
+      reportScheduler = new ReportScheduler(this);
+      connectionPool = new ConnectionPool(this, reportScheduler.getMaxConcurrentJobs() + 2);
+      registerManagementBean(reportScheduler, "ReportScheduler");
+      registerManagementBean(connectionPool, "ConnectionPool");
       smtpSender = new SmtpSender(this);
 
       File definitionsDirectory = reportManager.getDefinitionsDirectory();
@@ -147,6 +160,7 @@ public void start() throws Exception
       logger.debug("Starting server instance");
 
       reportManager.deployAll();
+      reportScheduler.start();
 
       listenerThread = new Thread(new Runnable() {
          @Override
@@ -180,6 +194,7 @@ public void stop() throws Exception
    {
       communicationManager.shutdown();
       listenerThread.interrupt();
+      reportScheduler.shutdown();
    }
 
    /**
@@ -189,6 +204,8 @@ public void stop() throws Exception
    public void destroy()
    {
       threadPool.shutdownNow();
+      reportManager.shutdown();
+      connectionPool.close();
       try
       {
          serverSocket.close();
@@ -198,6 +215,8 @@ public void destroy()
          logger.warn("Exception while closing listening socket", e);
       }
       reportManager = null;
+      reportScheduler = null;
+      connectionPool = null;
       communicationManager = null;
       smtpSender = null;
       threadPool = null;
@@ -242,6 +261,24 @@ private static Properties loadProperties(String name)
       return properties;
    }
 
+   /**
+    * Register management bean with platform MBean server.
+    *
+    * @param bean management bean
+    * @param type bean type (used as part of object name)
+    */
+   private static void registerManagementBean(Object bean, String type)
+   {
+      try
+      {
+         ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName("org.netxms.reporting:type=" + type));
+      }
+      catch(Exception e)
+      {
+         logger.warn("Cannot register management bean " + type, e);
+      }
+   }
+
    /**
     * Update server configuration. Provided properties will be merged into existing configuration.
     *
@@ -251,6 +288,8 @@ public void updateConfiguration(Properties update)
    {
       configuration.putAll(update);
       logger.info("Server configuration updated");
+      if (connectionPool != null)
+         connectionPool.reset(); // database connection settings could be changed
    }
 
    /**
@@ -277,6 +316,29 @@ public String getConfigurationProperty(String name, String defaultValue)
       return (value != null) ? value : configuration.getProperty(name + "@remote", defaultValue);
    }
 
+   /**
+    * Get server configuration property as integer
+    *
+    * @param name property name
+    * @param defaultValue default value
+    * @return property value or default value if property is not set or is not a valid integer
+    */
+   public int getConfigurationPropertyAsInt(String name, int defaultValue)
+   {
+      String value = getConfigurationProperty(name);
+      if (value == null)
+         return defaultValue;
+      try
+      {
+         return Integer.parseInt(value.trim());
+      }
+      catch(NumberFormatException e)
+      {
+         logger.warn("Invalid value \"" + value + "\" for configuration property " + name + ", using default " + defaultValue);
+         return defaultValue;
+      }
+   }
+
    /**
     * Get SMTP sender
     * 
@@ -304,7 +366,26 @@ public ReportManager getReportManager()
    }
 
    /**
-    * Get database connection
+    * @return the report scheduler
+    */
+   public ReportScheduler getReportScheduler()
+   {
+      return reportScheduler;
+   }
+
+   /**
+    * Get database connection from connection pool. Connection should be closed by caller to return it to the pool.
+    *
+    * @return database connection
+    * @throws Exception if connection cannot be obtained
+    */
+   public Connection getDatabaseConnection() throws Exception
+   {
+      return connectionPool.getConnection();
+   }
+
+   /**
+    * Create new database connection bypassing connection pool.
     *
     * @return database connection
     * @throws Exception if connection cannot be created
@@ -36,6 +36,8 @@
 
    protected NXCSession session = null;
 
+   private boolean sharedSession = false;
+
    /**
     * Connect to NetXMS server using login and password authentication.
     *
@@ -74,7 +76,53 @@ public void connect(String server, String token) throws ServerException
     */
    private void connect(String server, String token, String login, String password) throws ServerException
    {
-      session = new NXCSession(server);
+      session = createSession(server, token, login, password);
+      sharedSession = false;
+      try
+      {
+         onConnect(session);
+      }
+      catch(Exception e)
+      {
+         disconnect();
+         throw new ServerException("Cannot connect to NetXMS server", e);
+      }
+   }
+
+   /**
+    * Attach to existing client session. Shared session will not be closed by <code>disconnect</code>.
+    *
+    * @param session client session
+    * @throws ServerException on failure
+    */
+   public void attach(NXCSession session) throws ServerException
+   {
+      this.session = session;
+      sharedSession = true;
+      try
+      {
+         onConnect(session);
+      }
+      catch(Exception e)
+      {
+         this.session = null;
+         throw new ServerException("Cannot initialize extension with existing session", e);
+      }
+   }
+
+   /**
+    * Create new client session connected to NetXMS server with synchronized objects.
+    *
+    * @param server server host name
+    * @param token authentication token (if null, login and password will be used)
+    * @param login login name
+    * @param password password
+    * @return connected client session
+    * @throws ServerException on failure
+    */
+   public static NXCSession createSession(String server, String token, String login, String password) throws ServerException
+   {
+      NXCSession session = new NXCSession(server);
       try
       {
          session.connect(PROTOCOL_COMPONENTS);
@@ -83,7 +131,7 @@ private void connect(String server, String token, String login, String password)
          else
             session.login(login, password);
          session.syncObjects();
-         onConnect(session);
+         return session;
       }
       catch(Exception e)
       {
@@ -117,7 +165,8 @@ public void disconnect()
    {
       if (session != null)
       {
-         session.disconnect();
+         if (!sharedSession)
+            session.disconnect();
          session = null;
       }
    }
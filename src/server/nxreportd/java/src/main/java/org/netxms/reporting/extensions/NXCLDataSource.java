@@ -46,6 +46,16 @@ protected Object getParameterValue(String name)
       return parameters == null ? null : parameters.get(name).getValue();
    }
 
+   /**
+    * Replace dataset parameters (used when data was loaded in advance with equivalent parameter values).
+    *
+    * @param parameters new dataset parameters
+    */
+   public void setParameters(Map<String, ? extends JRValueParameter> parameters)
+   {
+      this.parameters = parameters;
+   }
+
    /**
     * @see org.netxms.reporting.extensions.GenericExtension#onConnect(org.netxms.client.NXCSession)
     */
@@ -0,0 +1,408 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.nxcl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import org.netxms.client.NXCSession;
+import org.netxms.reporting.Server;
+import org.netxms.reporting.ServerException;
+import org.netxms.reporting.extensions.GenericExtension;
+import org.netxms.reporting.extensions.NXCLDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRQuery;
+import net.sf.jasperreports.engine.JRValueParameter;
+import net.sf.jasperreports.engine.JasperReport;
+
+/**
+ * Execution context for NXCL data sources of single reporting job. Holds client session shared by all data sources created
+ * during report fill, and data sources prefetched in parallel before fill starts.
+ */
+public class NXCLJobContext
+{
+   private static final Logger logger = LoggerFactory.getLogger(NXCLJobContext.class);
+
+   public static final String QUERY_LANGUAGE = "nxcl";
+
+   private final Server server;
+   private final String authToken;
+   private final ClassLoader classLoader;
+   private final Object sessionLock = new Object();
+   private NXCSession session = null;
+   private Constructor<? extends NXCLDataSource> constructor = null;
+   private final Map<String, List<PrefetchedDataSource>> prefetched = new HashMap<String, List<PrefetchedDataSource>>();
+   private boolean closed = false;
+
+   /**
+    * Create new context.
+    *
+    * @param server server instance
+    * @param authToken authentication token (if null, login and password from server configuration will be used)
+    * @param classLoader class loader for report classes
+    */
+   public NXCLJobContext(Server server, String authToken, ClassLoader classLoader)
+   {
+      this.server = server;
+      this.authToken = authToken;
+      this.classLoader = classLoader;
+   }
+
+   /**
+    * Get client session for this job. Session is created on first call and then shared by all callers.
+    *
+    * @return client session
+    * @throws ServerException if session cannot be created
+    */
+   public NXCSession getSession() throws ServerException
+   {
+      synchronized(sessionLock)
+      {
+         if (closed)
+            throw new ServerException("Reporting job context already closed");
+         if (session == null)
+         {
+            String hostname = server.getConfigurationProperty("netxms.server.hostname", "localhost");
+            logger.debug("Creating shared client session for reporting job (server=" + hostname + ")");
+            if (authToken != null)
+               session = GenericExtension.createSession(hostname, authToken, null, null);
+            else
+               session = GenericExtension.createSession(hostname, null, server.getConfigurationProperty("netxms.server.login", "admin"),
+                     server.getConfigurationProperty("netxms.server.password", ""));
+         }
+         return session;
+      }
+   }
+
+   /**
+    * Create data source for given dataset. Created data source is not connected.
+    *
+    * @param dataset dataset
+    * @param parameters dataset parameters
+    * @return new data source
+    * @throws Exception on failure
+    */
+   @SuppressWarnings("unchecked")
+   public NXCLDataSource createDataSource(JRDataset dataset, Map<String, ? extends JRValueParameter> parameters) throws Exception
+   {
+      Constructor<? extends NXCLDataSource> c;
+      synchronized(this)
+      {
+         if (constructor == null)
+         {
+            Class<NXCLDataSource> dataSourceClass = (Class<NXCLDataSource>)classLoader.loadClass("report.DataSource");
+            constructor = dataSourceClass.getConstructor(JRDataset.class, Map.class);
+         }
+         c = constructor;
+      }
+      NXCLDataSource dataSource = c.newInstance(dataset, parameters);
+      dataSource.setQuery(getQueryText(dataset));
+      return dataSource;
+   }
+
+   /**
+    * Get data source for given dataset, either prefetched or newly created and connected.
+    *
+    * @param dataset dataset
+    * @param parameters dataset parameters
+    * @return connected data source
+    * @throws Exception on failure
+    */
+   public NXCLDataSource getDataSource(JRDataset dataset, Map<String, ? extends JRValueParameter> parameters) throws Exception
+   {
+      NXCLDataSource dataSource = takePrefetched(dataset, parameters);
+      if (dataSource != null)
+         return dataSource;
+      dataSource = createDataSource(dataset, parameters);
+      dataSource.attach(getSession());
+      return dataSource;
+   }
+
+   /**
+    * Start loading data for all NXCL datasets of given report in background. Datasets are loaded with parameter values
+    * available before fill; if data source uses parameter which has different value at fill time, prefetched data is discarded.
+    *
+    * @param report report
+    * @param parameters report parameters
+    * @param executor executor for data loading tasks
+    */
+   public void prefetch(JasperReport report, Map<String, Object> parameters, ExecutorService executor)
+   {
+      List<JRDataset> datasets = new ArrayList<JRDataset>();
+      datasets.add(report.getMainDataset());
+      if (report.getDatasets() != null)
+      {
+         for(JRDataset d : report.getDatasets())
+            datasets.add(d);
+      }
+
+      for(final JRDataset dataset : datasets)
+      {
+         if (!isNXCLDataset(dataset))
+            continue;
+
+         final PrefetchParameters prefetchParameters = new PrefetchParameters(dataset, parameters);
+         final PrefetchedDataSource p = new PrefetchedDataSource(prefetchParameters);
+         try
+         {
+            p.future = executor.submit(new Callable<NXCLDataSource>() {
+               @Override
+               public NXCLDataSource call() throws Exception
+               {
+                  long startTime = System.currentTimeMillis();
+                  NXCLDataSource dataSource = createDataSource(dataset, prefetchParameters);
+                  dataSource.attach(getSession());
+                  logger.debug("Data for dataset " + dataset.getName() + " prefetched in " + (System.currentTimeMillis() - startTime) + " ms");
+                  return dataSource;
+               }
+            });
+         }
+         catch(RejectedExecutionException e)
+         {
+            logger.debug("Cannot start data prefetch for dataset " + dataset.getName(), e);
+            continue;
+         }
+
+         String key = getPrefetchKey(dataset);
+         synchronized(prefetched)
+         {
+            List<PrefetchedDataSource> list = prefetched.get(key);
+            if (list == null)
+            {
+               list = new ArrayList<PrefetchedDataSource>(1);
+               prefetched.put(key, list);
+            }
+            list.add(p);
+         }
+      }
+   }
+
+   /**
+    * Take prefetched data source matching given dataset and parameters.
+    *
+    * @param dataset dataset
+    * @param parameters actual dataset parameters
+    * @return prefetched data source or null if there is no matching one
+    */
+   private NXCLDataSource takePrefetched(JRDataset dataset, Map<String, ? extends JRValueParameter> parameters)
+   {
+      PrefetchedDataSource p;
+      synchronized(prefetched)
+      {
+         List<PrefetchedDataSource> list = prefetched.get(getPrefetchKey(dataset));
+         if ((list == null) || list.isEmpty())
+            return null;
+         p = list.remove(0);
+      }
+
+      try
+      {
+         NXCLDataSource dataSource = p.future.get();
+         if (!p.parameters.matches(parameters))
+         {
+            logger.debug("Prefetched data for dataset " + dataset.getName() + " discarded (parameter values changed)");
+            return null;
+         }
+         dataSource.setParameters(parameters);
+         return dataSource;
+      }
+      catch(Exception e)
+      {
+         logger.debug("Data prefetch for dataset " + dataset.getName() + " failed", e);
+         return null;
+      }
+   }
+
+   /**
+    * Close context. Cancels pending prefetch tasks and disconnects shared session.
+    */
+   public void close()
+   {
+      synchronized(prefetched)
+      {
+         for(List<PrefetchedDataSource> list : prefetched.values())
+         {
+            for(PrefetchedDataSource p : list)
+               p.future.cancel(true);
+         }
+         prefetched.clear();
+      }
+      synchronized(sessionLock)
+      {
+         closed = true;
+         if (session != null)
+         {
+            session.disconnect();
+            session = null;
+         }
+      }
+   }
+
+   /**
+    * Check if given dataset uses NXCL query language.
+    *
+    * @param dataset dataset
+    * @return true if given dataset uses NXCL query language
+    */
+   private static boolean isNXCLDataset(JRDataset dataset)
+   {
+      JRQuery query = dataset.getQuery();
+      return (query != null) && QUERY_LANGUAGE.equalsIgnoreCase(query.getLanguage()) && (query.getChunks() != null) && (query.getChunks().length > 0);
+   }
+
+   /**
+    * Get query text for dataset.
+    *
+    * @param dataset dataset
+    * @return query text
+    */
+   private static String getQueryText(JRDataset dataset)
+   {
+      return dataset.getQuery().getChunks()[0].getText().trim();
+   }
+
+   /**
+    * Get key for prefetched data source lookup.
+    *
+    * @param dataset dataset
+    * @return lookup key
+    */
+   private static String getPrefetchKey(JRDataset dataset)
+   {
+      return dataset.getName() + "\n" + getQueryText(dataset);
+   }
+
+   /**
+    * Data source being prefetched
+    */
+   private static final class PrefetchedDataSource
+   {
+      final PrefetchParameters parameters;
+      Future<NXCLDataSource> future;
+
+      PrefetchedDataSource(PrefetchParameters parameters)
+      {
+         this.parameters = parameters;
+      }
+   }
+
+   /**
+    * Parameter map for prefetched data sources. Records names of parameters accessed by data source, so prefetched data can be
+    * validated against actual parameter values at fill time.
+    */
+   private static final class PrefetchParameters extends HashMap<String, JRValueParameter>
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final Set<String> accessedParameters = new HashSet<String>();
+
+      PrefetchParameters(JRDataset dataset, Map<String, Object> values)
+      {
+         JRParameter[] declared = dataset.getParameters();
+         if (declared != null)
+         {
+            for(JRParameter p : declared)
+               put(p.getName(), createValueParameter(p.getName(), values.get(p.getName())));
+         }
+      }
+
+      /**
+       * @see java.util.HashMap#get(java.lang.Object)
+       */
+      @Override
+      public JRValueParameter get(Object key)
+      {
+         synchronized(accessedParameters)
+         {
+            accessedParameters.add((String)key);
+         }
+         return super.get(key);
+      }
+
+      /**
+       * Check if all parameters used by data source have same values in given parameter map.
+       *
+       * @param actualParameters actual parameters
+       * @return true if all accessed parameters have same values
+       */
+      boolean matches(Map<String, ? extends JRValueParameter> actualParameters)
+      {
+         synchronized(accessedParameters)
+         {
+            for(String name : accessedParameters)
+            {
+               JRValueParameter expected = super.get(name);
+               JRValueParameter actual = actualParameters.get(name);
+               if ((expected == null) != (actual == null))
+                  return false;
+               if ((expected != null) && !Objects.equals(expected.getValue(), actual.getValue()))
+                  return false;
+            }
+         }
+         return true;
+      }
+
+      /**
+       * Create value parameter with given name and value.
+       */
+      private static JRValueParameter createValueParameter(final String name, final Object value)
+      {
+         return (JRValueParameter)Proxy.newProxyInstance(JRValueParameter.class.getClassLoader(), new Class<?>[] { JRValueParameter.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+               switch(method.getName())
+               {
+                  case "getValue":
+                     return value;
+                  case "getName":
+                     return name;
+                  case "toString":
+                     return name + "=" + value;
+                  case "hashCode":
+                     return System.identityHashCode(proxy);
+                  case "equals":
+                     return proxy == args[0];
+               }
+               Class<?> type = method.getReturnType();
+               if (type == boolean.class)
+                  return false;
+               if (type.isPrimitive() && (type != void.class))
+                  return 0;
+               return null;
+            }
+         });
+      }
+   }
+}
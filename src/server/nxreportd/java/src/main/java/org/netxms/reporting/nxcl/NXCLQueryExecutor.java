@@ -60,6 +60,20 @@ protected NXCLQueryExecutor(JasperReportsContext jasperReportsContext, JRDataset
    @Override
    public JRDataSource createDatasource() throws JRException
    {
+      NXCLJobContext context = ThreadLocalReportInfo.getNXCLContext();
+      if (context != null)
+      {
+         try
+         {
+            return context.getDataSource(dataset, parametersMap);
+         }
+         catch(Exception e)
+         {
+            log.error("Cannot load report data source", e);
+            return null;
+         }
+      }
+
       String reportLocation = ThreadLocalReportInfo.getReportLocation();
 
       try
@@ -18,20 +18,26 @@
  */
 package org.netxms.reporting.services;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.netxms.base.NXCPChannelReceiver;
 import org.netxms.base.NXCPCodes;
 import org.netxms.base.NXCPException;
 import org.netxms.base.NXCPMessage;
-import org.netxms.base.NXCPMessageReceiver;
+import org.netxms.base.NXCPSocketWriter;
 import org.netxms.client.SessionNotification;
 import org.netxms.client.constants.RCC;
 import org.netxms.client.objects.AbstractObject;
@@ -58,6 +64,7 @@
    private Server server;
    private Socket socket;
    private Thread receiverThread;
+   private ThreadPoolExecutor renderExecutor;
 
    /**
     * Create communication manager on given socket
@@ -67,6 +74,20 @@ public CommunicationManager(Server server)
       this.server = server;
       this.socket = null;
       receiverThread = null;
+
+      int renderThreads = Math.max(server.getConfigurationPropertyAsInt("nxreportd.render.threads", 4), 1);
+      renderExecutor = new ThreadPoolExecutor(renderThreads, renderThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+         private int threadNumber = 1;
+
+         @Override
+         public synchronized Thread newThread(Runnable r)
+         {
+            Thread t = new Thread(r, "Report Renderer #" + threadNumber++);
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      renderExecutor.allowCoreThreadTimeOut(true);
    }
 
    /**
@@ -117,6 +138,7 @@ public void run()
     */
    public void shutdown()
    {
+      renderExecutor.shutdownNow();
       synchronized(mutex)
       {
          if (socket != null)
@@ -158,7 +180,9 @@ public boolean sendMessage(NXCPMessage message)
       {
          synchronized(mutex)
          {
-            socket.getOutputStream().write(message.createNXCPMessage(false));
+            if (socket == null)
+               return false;
+            NXCPSocketWriter.write(socket, message.createNXCPMessage(false));
          }
          return true;
       }
@@ -169,52 +193,12 @@ public boolean sendMessage(NXCPMessage message)
       return false;
    }
 
-   /**
-    * Send file stream to core server.
-    *
-    * @param requestId request ID
-    * @param inputStream input stream for file
-    * @throws IOException
-    */
-   public void sendFileStream(final long requestId, final InputStream inputStream) throws IOException
-   {
-      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_FILE_DATA, requestId);
-      msg.setBinaryMessage(true);
-
-      boolean success = false;
-      final byte[] buffer = new byte[FILE_BUFFER_SIZE];
-      while(true)
-      {
-         final int bytesRead = inputStream.read(buffer);
-         if (bytesRead < FILE_BUFFER_SIZE)
-         {
-            msg.setEndOfFile(true);
-         }
-
-         msg.setBinaryData(bytesRead == -1 ? new byte[0] : Arrays.copyOf(buffer, bytesRead));
-         sendMessage(msg);
-
-         if (bytesRead < FILE_BUFFER_SIZE)
-         {
-            success = true;
-            break;
-         }
-      }
-
-      if (!success)
-      {
-         NXCPMessage abortMessage = new NXCPMessage(NXCPCodes.CMD_ABORT_FILE_TRANSFER, requestId);
-         abortMessage.setBinaryMessage(true);
-         sendMessage(abortMessage);
-      }
-   }
-
    /**
     * Receiver thread for communication session
     */
    private void receiverThread()
    {
-      final NXCPMessageReceiver messageReceiver = new NXCPMessageReceiver(262144, 4194304);   // 256KB, 4MB
+      final NXCPChannelReceiver messageReceiver = new NXCPChannelReceiver(262144, 4194304);   // 256KB, 4MB
       while(!Thread.currentThread().isInterrupted())
       {
          try
@@ -226,38 +210,21 @@ private void receiverThread()
                   break;
                s = socket;
             }
-            final NXCPMessage message = messageReceiver.receiveMessage(s.getInputStream(), null);
+            final NXCPMessage message = messageReceiver.receiveMessage(s, null);
             if (message != null)
             {
                if (message.getMessageCode() != NXCPCodes.CMD_KEEPALIVE)
                {
-                  logger.debug("RECV: " + message.toString());
+                  logger.debug("RECV: {}", message);
                }
-               final MessageProcessingResult result = processMessage(message);
-               if (result.response != null)
+               final NXCPMessage response = processMessage(message);
+               if (response != null)
                {
                   if (message.getMessageCode() != NXCPCodes.CMD_KEEPALIVE)
                   {
-                     logger.debug("SEND: " + result.response.toString());
-                  }
-                  sendMessage(result.response);
-                  if (result.file != null)
-                  {
-                     logger.debug("File data found, sending");
-                     FileInputStream in = null;
-                     try
-                     {
-                        in = new FileInputStream(result.file);
-                        sendFileStream(message.getMessageId(), in);
-                     }
-                     catch(IOException e)
-                     {
-                        logger.error("Unexpected I/O exception while sending rendered file");
-                     }
-                     if (in != null)
-                        in.close();
-                     result.file.delete();
+                     logger.debug("SEND: {}", response);
                   }
+                  sendMessage(response);
                }
             }
          }
@@ -279,12 +246,11 @@ private void receiverThread()
     * Process incoming message
     * 
     * @param request input message
-    * @return message processing result
+    * @return response message or null if response will be sent asynchronously
     */
-   public MessageProcessingResult processMessage(NXCPMessage request)
+   public NXCPMessage processMessage(NXCPMessage request)
    {
       NXCPMessage reply = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, request.getMessageId());
-      File file = null;
       switch(request.getMessageCode())
       {
          case NXCPCodes.CMD_ISC_CONNECT_TO_SERVICE: // ignore and reply "Ok"
@@ -313,7 +279,10 @@ public MessageProcessingResult processMessage(NXCPMessage request)
             getResults(request, reply);
             break;
          case NXCPCodes.CMD_RS_RENDER_RESULT:
-            file = renderResult(request, reply);
+            if (renderResult(request))
+               reply = null; // response will be sent by rendering task
+            else
+               reply.setFieldInt32(NXCPCodes.VID_RCC, RCC.INTERNAL_ERROR);
             break;
          case NXCPCodes.CMD_RS_DELETE_RESULT:
             deleteResult(request, reply);
@@ -322,7 +291,7 @@ public MessageProcessingResult processMessage(NXCPMessage request)
             reply.setFieldInt32(NXCPCodes.VID_RCC, RCC.NOT_IMPLEMENTED);
             break;
       }
-      return new MessageProcessingResult(reply, file);
+      return reply;
    }
 
    /**
@@ -402,9 +371,12 @@ private void getResults(NXCPMessage request, NXCPMessage reply)
       reply.setFieldInt32(NXCPCodes.VID_RCC, RCC.SUCCESS);
       final int userId = request.getFieldAsInt32(NXCPCodes.VID_USER_ID);
       final UUID reportId = request.getFieldAsUUID(NXCPCodes.VID_REPORT_DEFINITION);
-      logger.debug("Loading report results for {} (user={})", reportId, userId);
-      final List<ReportResult> list = server.getReportManager().listResults(reportId, userId);
-      logger.debug("Got {} records", list.size());
+      final int offset = request.getFieldAsInt32(NXCPCodes.VID_START_ROW);
+      final int limit = request.getFieldAsInt32(NXCPCodes.VID_MAX_RECORDS);
+      logger.debug("Loading report results for {} (user={}, offset={}, limit={})", reportId, userId, offset, limit);
+      final List<ReportResult> list = new ArrayList<ReportResult>();
+      final int total = server.getReportManager().listResults(reportId, userId, offset, limit, list);
+      logger.debug("Got {} records ({} total)", list.size(), total);
       long fieldId = NXCPCodes.VID_ROW_DATA_BASE;
       for(ReportResult record : list)
       {
@@ -412,6 +384,7 @@ private void getResults(NXCPMessage request, NXCPMessage reply)
          fieldId += 10;
       }
       reply.setFieldInt32(NXCPCodes.VID_NUM_ITEMS, list.size());
+      reply.setFieldInt32(NXCPCodes.VID_NUM_RECORDS, total);
       reply.setFieldInt32(NXCPCodes.VID_RCC, RCC.SUCCESS);
    }
 
@@ -440,13 +413,18 @@ private void executeReport(NXCPMessage request, NXCPMessage response)
       final String idataView = request.getFieldAsString(NXCPCodes.VID_VIEW_NAME);
       final String authToken = request.getFieldAsString(NXCPCodes.VID_AUTH_TOKEN);
       requestObjectAccessSnapshotUpdate(userId);
-      server.executeBackgroundTask(new Runnable() {
+      boolean queued = server.getReportScheduler().submit(jobConfiguration.reportId, userId, jobConfiguration.priority, new Callable<Boolean>() {
          @Override
-         public void run()
+         public Boolean call() throws Exception
          {
-            server.getReportManager().execute(userId, authToken, jobId, jobConfiguration, idataView, Locale.US);
+            return server.getReportManager().execute(userId, authToken, jobId, jobConfiguration, idataView, Locale.US);
          }
       });
+      if (!queued)
+      {
+         response.setFieldInt32(NXCPCodes.VID_RCC, RCC.RESOURCE_BUSY);
+         return;
+      }
       response.setField(NXCPCodes.VID_TASK_ID, jobId);
       response.setFieldInt32(NXCPCodes.VID_RCC, RCC.SUCCESS);
    }
@@ -464,22 +442,40 @@ private static UUID getOrCreateJobId(NXCPMessage request)
    }
 
    /**
-    * Render report result
+    * Start rendering of report result. Rendering is done by worker thread, which sends response and then rendered document
+    * as file data messages with request ID as it is produced.
     *
     * @param request request message
-    * @param response response message
-    * @return rendered document or null on failure
+    * @return true if rendering task was started
     */
-   private File renderResult(NXCPMessage request, NXCPMessage response)
+   private boolean renderResult(NXCPMessage request)
    {
       final UUID reportId = request.getFieldAsUUID(NXCPCodes.VID_REPORT_DEFINITION);
       final UUID jobId = request.getFieldAsUUID(NXCPCodes.VID_TASK_ID);
       final int formatCode = request.getFieldAsInt32(NXCPCodes.VID_RENDER_FORMAT);
       final ReportRenderFormat format = ReportRenderFormat.valueOf(formatCode);
       final int userId = request.getFieldAsInt32(NXCPCodes.VID_USER_ID);
-      File file = server.getReportManager().renderResult(reportId, jobId, userId, format);
-      response.setFieldInt32(NXCPCodes.VID_RCC, (file != null) ? RCC.SUCCESS : RCC.IO_ERROR);
-      return file;
+      final long requestId = request.getMessageId();
+      try
+      {
+         renderExecutor.execute(new Runnable() {
+            @Override
+            public void run()
+            {
+               FileDataOutputStream out = new FileDataOutputStream(requestId);
+               if (server.getReportManager().renderResult(reportId, jobId, userId, format, out))
+                  out.complete();
+               else
+                  out.abort();
+            }
+         });
+         return true;
+      }
+      catch(RejectedExecutionException e)
+      {
+         logger.error("Cannot start rendering task", e);
+         return false;
+      }
    }
 
    /**
@@ -505,7 +501,7 @@ public void sendNotification(int code, int data)
       NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_RS_NOTIFY);
       msg.setFieldInt32(NXCPCodes.VID_NOTIFICATION_CODE, code);
       msg.setFieldInt32(NXCPCodes.VID_NOTIFICATION_DATA, data);
-      logger.debug("SEND: " + msg.toString());
+      logger.debug("SEND: {}", msg);
       sendMessage(msg);
    }
 
@@ -519,26 +515,122 @@ public void requestObjectAccessSnapshotUpdate(int userId)
       NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_CREATE_OBJECT_ACCESS_SNAPSHOT);
       msg.setFieldInt32(NXCPCodes.VID_OBJECT_CLASS, AbstractObject.OBJECT_NODE);
       msg.setFieldInt32(NXCPCodes.VID_USER_ID, userId);
-      logger.debug("SEND: " + msg.toString());
+      logger.debug("SEND: {}", msg);
       sendMessage(msg);
    }
 
    /**
-    * Message processing result
+    * Output stream that sends data written to it to core server as file data messages. Response to original request is sent
+    * before first data block, so core server does not wait for response while report is being rendered.
     */
-   private static class MessageProcessingResult
+   private final class FileDataOutputStream extends OutputStream
    {
-      public NXCPMessage response;
-      public File file;
+      private final long requestId;
+      private final byte[] buffer = new byte[FILE_BUFFER_SIZE];
+      private int size = 0;
+      private boolean responseSent = false;
 
       /**
-       * @param response
-       * @param file
+       * Create new stream for given request.
+       *
+       * @param requestId request ID
        */
-      public MessageProcessingResult(NXCPMessage response, File file)
+      FileDataOutputStream(long requestId)
       {
-         this.response = response;
-         this.file = file;
+         this.requestId = requestId;
+      }
+
+      /**
+       * @see java.io.OutputStream#write(int)
+       */
+      @Override
+      public void write(int b) throws IOException
+      {
+         if (size == buffer.length)
+            sendBlock(false);
+         buffer[size++] = (byte)b;
+      }
+
+      /**
+       * @see java.io.OutputStream#write(byte[], int, int)
+       */
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException
+      {
+         while(len > 0)
+         {
+            if (size == buffer.length)
+               sendBlock(false);
+            int bytes = Math.min(len, buffer.length - size);
+            System.arraycopy(b, off, buffer, size, bytes);
+            size += bytes;
+            off += bytes;
+            len -= bytes;
+         }
+      }
+
+      /**
+       * Send response to original request.
+       *
+       * @param rcc request completion code
+       */
+      private void sendResponse(int rcc)
+      {
+         NXCPMessage response = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, requestId);
+         response.setFieldInt32(NXCPCodes.VID_RCC, rcc);
+         logger.debug("SEND: {}", response);
+         sendMessage(response);
+         responseSent = true;
+      }
+
+      /**
+       * Send buffered data.
+       *
+       * @param endOfFile true if this is last block
+       * @throws IOException if data cannot be sent
+       */
+      private void sendBlock(boolean endOfFile) throws IOException
+      {
+         if (!responseSent)
+            sendResponse(RCC.SUCCESS);
+
+         NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_FILE_DATA, requestId);
+         msg.setBinaryMessage(true);
+         msg.setBinaryData((size == buffer.length) ? buffer : Arrays.copyOf(buffer, size)); // message is serialized before buffer is reused
+         msg.setEndOfFile(endOfFile);
+         if (!sendMessage(msg))
+            throw new IOException("Cannot send file data to core server");
+         size = 0;
+      }
+
+      /**
+       * Complete transfer (send remaining data with end of file mark).
+       */
+      void complete()
+      {
+         try
+         {
+            sendBlock(true);
+         }
+         catch(IOException e)
+         {
+            logger.error("Cannot complete file transfer", e);
+         }
+      }
+
+      /**
+       * Abort transfer. If response to request was not sent yet, error response will be sent instead.
+       */
+      void abort()
+      {
+         if (!responseSent)
+         {
+            sendResponse(RCC.IO_ERROR);
+            return;
+         }
+         NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_ABORT_FILE_TRANSFER, requestId);
+         msg.setBinaryMessage(true);
+         sendMessage(msg);
       }
    }
 }
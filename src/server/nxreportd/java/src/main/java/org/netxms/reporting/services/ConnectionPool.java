@@ -0,0 +1,455 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.services;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import org.netxms.reporting.Server;
+import org.netxms.reporting.ServerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of database connections. Connections handed out by pool are proxies which return underlying connection to the
+ * pool when closed. Connections that were idle for some time are validated before reuse, and connections that reported
+ * communication error are discarded.
+ */
+public class ConnectionPool implements ConnectionPoolMBean
+{
+   private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+   private final Server server;
+   private final int maxSize;
+   private final long maxWaitTime;
+   private final long idleTimeout;
+   private final long validationInterval;
+   private final int validationTimeout;
+   private final ArrayDeque<PooledConnection> idleConnections = new ArrayDeque<PooledConnection>();
+   private int activeConnections = 0;
+   private int waitingThreads = 0;
+   private int generation = 0;
+   private boolean closed = false;
+   private long createdConnections = 0;
+   private long invalidatedConnections = 0;
+   private long waitCount = 0;
+   private long totalWaitTime = 0;
+   private long maxObservedWaitTime = 0;
+
+   /**
+    * Create connection pool. Pool parameters are read from server configuration.
+    *
+    * @param server server instance
+    * @param defaultSize default pool size
+    */
+   public ConnectionPool(Server server, int defaultSize)
+   {
+      this.server = server;
+      maxSize = Math.max(server.getConfigurationPropertyAsInt("nxreportd.db.pool.maxSize", defaultSize), 1);
+      maxWaitTime = server.getConfigurationPropertyAsInt("nxreportd.db.pool.maxWaitTime", 300) * 1000L;
+      idleTimeout = server.getConfigurationPropertyAsInt("nxreportd.db.pool.idleTimeout", 600) * 1000L;
+      validationInterval = server.getConfigurationPropertyAsInt("nxreportd.db.pool.validationInterval", 30) * 1000L;
+      validationTimeout = server.getConfigurationPropertyAsInt("nxreportd.db.pool.validationTimeout", 5);
+      logger.info("Database connection pool created (maxSize=" + maxSize + ", maxWaitTime=" + (maxWaitTime / 1000) + "s)");
+   }
+
+   /**
+    * Get connection from pool. Will wait for available connection if pool is exhausted. Returned connection should be closed by
+    * caller when no longer needed.
+    *
+    * @return database connection
+    * @throws Exception if connection cannot be obtained
+    */
+   public Connection getConnection() throws Exception
+   {
+      long startTime = System.currentTimeMillis();
+      PooledConnection connection = null;
+      int connectionGeneration;
+      List<PooledConnection> expiredConnections = null;
+      synchronized(this)
+      {
+         waitingThreads++;
+         try
+         {
+            while(true)
+            {
+               if (closed)
+                  throw new ServerException("Database connection pool is closed");
+
+               // Oldest connections are at the head of the queue
+               long now = System.currentTimeMillis();
+               while(!idleConnections.isEmpty() && (now - idleConnections.peekFirst().lastUsed > idleTimeout))
+               {
+                  if (expiredConnections == null)
+                     expiredConnections = new ArrayList<PooledConnection>();
+                  expiredConnections.add(idleConnections.pollFirst());
+               }
+
+               connection = idleConnections.pollLast();
+               if ((connection != null) || (activeConnections + idleConnections.size() < maxSize))
+                  break;
+
+               long timeout = startTime + maxWaitTime - now;
+               if (timeout <= 0)
+                  throw new ServerException("Timeout waiting for database connection");
+               wait(timeout);
+            }
+            activeConnections++;
+            connectionGeneration = generation;
+         }
+         finally
+         {
+            waitingThreads--;
+         }
+
+         long waitTime = System.currentTimeMillis() - startTime;
+         waitCount++;
+         totalWaitTime += waitTime;
+         if (waitTime > maxObservedWaitTime)
+            maxObservedWaitTime = waitTime;
+      }
+
+      if (expiredConnections != null)
+      {
+         for(PooledConnection c : expiredConnections)
+            c.close();
+         logger.debug("Closed " + expiredConnections.size() + " idle database connections");
+      }
+
+      try
+      {
+         if ((connection != null) && !connection.validate())
+         {
+            logger.debug("Idle database connection failed validation and will be replaced");
+            connection.close();
+            connection = null;
+            synchronized(this)
+            {
+               invalidatedConnections++;
+            }
+         }
+         if (connection == null)
+         {
+            connection = new PooledConnection(server.createDatabaseConnection(), connectionGeneration);
+            synchronized(this)
+            {
+               createdConnections++;
+            }
+         }
+      }
+      catch(Exception e)
+      {
+         synchronized(this)
+         {
+            activeConnections--;
+            notifyAll();
+         }
+         throw e;
+      }
+      return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, new ConnectionLease(connection));
+   }
+
+   /**
+    * Return connection to the pool.
+    *
+    * @param connection pooled connection
+    */
+   private void release(PooledConnection connection)
+   {
+      boolean reusable = !connection.broken && connection.resetState();
+      synchronized(this)
+      {
+         activeConnections--;
+         if (reusable && !closed && (connection.generation == generation))
+         {
+            connection.lastUsed = System.currentTimeMillis();
+            idleConnections.addLast(connection);
+            connection = null;
+         }
+         notifyAll();
+      }
+      if (connection != null)
+         connection.close();
+   }
+
+   /**
+    * Discard all idle connections and mark connections currently in use as not reusable. Should be called when database
+    * connection configuration changes.
+    */
+   public void reset()
+   {
+      List<PooledConnection> connections;
+      synchronized(this)
+      {
+         generation++;
+         connections = new ArrayList<PooledConnection>(idleConnections);
+         idleConnections.clear();
+         notifyAll();
+      }
+      for(PooledConnection c : connections)
+         c.close();
+      if (!connections.isEmpty())
+         logger.debug("Database connection pool reset (" + connections.size() + " idle connections closed)");
+   }
+
+   /**
+    * Close pool. Connections currently in use will be closed when returned to the pool.
+    */
+   public void close()
+   {
+      synchronized(this)
+      {
+         closed = true;
+      }
+      reset();
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ConnectionPoolMBean#getMaxSize()
+    */
+   @Override
+   public int getMaxSize()
+   {
+      return maxSize;
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ConnectionPoolMBean#getActiveConnections()
+    */
+   @Override
+   public synchronized int getActiveConnections()
+   {
+      return activeConnections;
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ConnectionPoolMBean#getIdleConnections()
+    */
+   @Override
+   public synchronized int getIdleConnections()
+   {
+      return idleConnections.size();
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ConnectionPoolMBean#getWaitingThreads()
+    */
+   @Override
+   public synchronized int getWaitingThreads()
+   {
+      return waitingThreads;
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ConnectionPoolMBean#getCreatedConnections()
+    */
+   @Override
+   public synchronized long getCreatedConnections()
+   {
+      return createdConnections;
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ConnectionPoolMBean#getInvalidatedConnections()
+    */
+   @Override
+   public synchronized long getInvalidatedConnections()
+   {
+      return invalidatedConnections;
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ConnectionPoolMBean#getAverageWaitTime()
+    */
+   @Override
+   public synchronized double getAverageWaitTime()
+   {
+      return (waitCount > 0) ? (double)totalWaitTime / (double)waitCount : 0;
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ConnectionPoolMBean#getMaxWaitTime()
+    */
+   @Override
+   public synchronized long getMaxWaitTime()
+   {
+      return maxObservedWaitTime;
+   }
+
+   /**
+    * Physical connection managed by pool
+    */
+   private final class PooledConnection
+   {
+      final Connection connection;
+      final int generation;
+      long lastUsed;
+      volatile boolean broken = false;
+
+      PooledConnection(Connection connection, int generation)
+      {
+         this.connection = connection;
+         this.generation = generation;
+         this.lastUsed = System.currentTimeMillis();
+      }
+
+      /**
+       * Validate connection if it was not used for some time.
+       *
+       * @return true if connection is usable
+       */
+      boolean validate()
+      {
+         if (System.currentTimeMillis() - lastUsed < validationInterval)
+            return true;
+         try
+         {
+            return connection.isValid(validationTimeout);
+         }
+         catch(SQLException e)
+         {
+            return false;
+         }
+      }
+
+      /**
+       * Reset connection state before returning it to the pool (roll back any uncommitted transaction left by report).
+       *
+       * @return true if connection can be reused
+       */
+      boolean resetState()
+      {
+         try
+         {
+            if (connection.isClosed())
+               return false;
+            if (!connection.getAutoCommit())
+            {
+               connection.rollback();
+               connection.setAutoCommit(true);
+            }
+            return true;
+         }
+         catch(SQLException e)
+         {
+            logger.debug("Cannot reset database connection state", e);
+            return false;
+         }
+      }
+
+      /**
+       * Close physical connection.
+       */
+      void close()
+      {
+         try
+         {
+            connection.close();
+         }
+         catch(SQLException e)
+         {
+            logger.debug("Error closing database connection", e);
+         }
+      }
+   }
+
+   /**
+    * Invocation handler for connection proxy handed out to pool user
+    */
+   private final class ConnectionLease implements InvocationHandler
+   {
+      private final PooledConnection connection;
+      private boolean released = false;
+
+      ConnectionLease(PooledConnection connection)
+      {
+         this.connection = connection;
+      }
+
+      /**
+       * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+       */
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+      {
+         String name = method.getName();
+         if (name.equals("close") && (method.getParameterCount() == 0))
+         {
+            synchronized(this)
+            {
+               if (released)
+                  return null;
+               released = true;
+            }
+            release(connection);
+            return null;
+         }
+         if (name.equals("isClosed") && (method.getParameterCount() == 0))
+         {
+            synchronized(this)
+            {
+               if (released)
+                  return true;
+            }
+            return connection.connection.isClosed();
+         }
+         if (name.equals("equals") && (method.getParameterCount() == 1))
+            return proxy == args[0];
+         if (name.equals("hashCode") && (method.getParameterCount() == 0))
+            return System.identityHashCode(proxy);
+         if (name.equals("toString") && (method.getParameterCount() == 0))
+            return "Pooled[" + connection.connection + "]";
+
+         synchronized(this)
+         {
+            if (released)
+               throw new SQLException("Connection already returned to pool");
+         }
+         try
+         {
+            return method.invoke(connection.connection, args);
+         }
+         catch(InvocationTargetException e)
+         {
+            Throwable cause = e.getCause();
+            if ((cause instanceof SQLException) && isConnectionError((SQLException)cause))
+               connection.broken = true;
+            throw cause;
+         }
+      }
+   }
+
+   /**
+    * Check if given exception indicates connection failure (SQL state class 08).
+    *
+    * @param e exception
+    * @return true if exception indicates connection failure
+    */
+   private static boolean isConnectionError(SQLException e)
+   {
+      String state = e.getSQLState();
+      return (state != null) && state.startsWith("08");
+   }
+}
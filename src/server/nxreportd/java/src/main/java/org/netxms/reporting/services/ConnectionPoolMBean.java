@@ -0,0 +1,65 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.services;
+
+/**
+ * Management interface for database connection pool
+ */
+public interface ConnectionPoolMBean
+{
+   /**
+    * @return maximum pool size
+    */
+   public int getMaxSize();
+
+   /**
+    * @return number of connections currently handed out
+    */
+   public int getActiveConnections();
+
+   /**
+    * @return number of idle connections
+    */
+   public int getIdleConnections();
+
+   /**
+    * @return number of threads waiting for connection
+    */
+   public int getWaitingThreads();
+
+   /**
+    * @return total number of physical connections created since startup
+    */
+   public long getCreatedConnections();
+
+   /**
+    * @return number of connections discarded because validation failed
+    */
+   public long getInvalidatedConnections();
+
+   /**
+    * @return average time (in milliseconds) spent waiting for connection
+    */
+   public double getAverageWaitTime();
+
+   /**
+    * @return maximum time (in milliseconds) spent waiting for connection
+    */
+   public long getMaxWaitTime();
+}
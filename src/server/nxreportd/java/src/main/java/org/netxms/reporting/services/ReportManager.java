@@ -18,15 +18,20 @@
  */
 package org.netxms.reporting.services;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -45,10 +50,15 @@
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.TeeOutputStream;
 import org.netxms.client.SessionNotification;
 import org.netxms.client.reporting.ReportRenderFormat;
 import org.netxms.client.reporting.ReportResult;
@@ -60,6 +70,7 @@
 import org.netxms.reporting.extensions.ExecutionHook;
 import org.netxms.reporting.extensions.PrepareResponsibleUsers;
 import org.netxms.reporting.model.ReportDefinition;
+import org.netxms.reporting.nxcl.NXCLJobContext;
 import org.netxms.reporting.tools.DatabaseTools;
 import org.netxms.reporting.tools.DateParameterParser;
 import org.netxms.reporting.tools.ThreadLocalReportInfo;
@@ -68,13 +79,21 @@
 import net.sf.jasperreports.engine.DefaultJasperReportsContext;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRVirtualizer;
 import net.sf.jasperreports.engine.JasperCompileManager;
 import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.base.JRVirtualizationHelper;
 import net.sf.jasperreports.engine.export.JRPdfExporter;
 import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
 import net.sf.jasperreports.engine.query.QueryExecuterFactory;
+import net.sf.jasperreports.engine.util.FileBufferedOutputStream;
 import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSwapFile;
 import net.sf.jasperreports.export.SimpleExporterInput;
 import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
 import net.sf.jasperreports.export.SimpleXlsxReportConfiguration;
@@ -94,8 +113,13 @@
    private static final String FILE_SUFFIX_COMPILED = ".jasper";
    private static final String FILE_SUFFIX_FILLED = ".jrprint";
    private static final String FILE_SUFFIX_METADATA = ".meta";
+   private static final String FILE_SUFFIX_RENDERED = ".rendered";
    private static final String FILE_SUFFIX_SQL = ".sql";
    private static final String MAIN_REPORT_COMPILED = "main" + FILE_SUFFIX_COMPILED;
+   private static final String SWAP_DIRECTORY = "swap";
+   private static final int SWAP_BLOCK_SIZE = 4096;
+   private static final int SWAP_MIN_GROW_COUNT = 256;
+   private static final int XLSX_MAX_ROWS_PER_SHEET = 1000000; // Excel limit is 1048576
 
    private static final Logger logger = LoggerFactory.getLogger(ReportManager.class);
 
@@ -103,6 +127,13 @@
    private String workspace;
    private Map<UUID, String> reportMap;
    private Map<UUID, AbstractBackgroundWorker> backgroundWorkers;
+   private Map<UUID, JasperReport> compiledReports;
+   private Map<String, ReportClassLoader> classLoaders;
+   private ThreadPoolExecutor prefetchExecutor;
+   private ResultCatalogue resultCatalogue;
+   private String virtualizerType;
+   private int virtualizerMaxPages;
+   private int exportMemoryThreshold;
 
    /**
     * Create new report manager.
@@ -115,6 +146,51 @@ public ReportManager(Server server)
       workspace = server.getConfigurationProperty("nxreportd.workspace", "");
       reportMap = new HashMap<>();
       backgroundWorkers = new HashMap<>();
+      compiledReports = new HashMap<>();
+      classLoaders = new HashMap<>();
+      if (Boolean.parseBoolean(server.getConfigurationProperty("nxreportd.nxcl.prefetch", "true")))
+      {
+         int prefetchThreads = Math.max(server.getConfigurationPropertyAsInt("nxreportd.nxcl.prefetchThreads", 4), 1);
+         prefetchExecutor = new ThreadPoolExecutor(prefetchThreads, prefetchThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private int threadNumber = 1;
+
+            @Override
+            public synchronized Thread newThread(Runnable r)
+            {
+               Thread t = new Thread(r, "NXCL Data Loader #" + threadNumber++);
+               t.setDaemon(true);
+               return t;
+            }
+         });
+         prefetchExecutor.allowCoreThreadTimeOut(true);
+      }
+      virtualizerType = server.getConfigurationProperty("nxreportd.virtualizer", "swap").trim().toLowerCase();
+      virtualizerMaxPages = Math.max(server.getConfigurationPropertyAsInt("nxreportd.virtualizer.maxPages", 100), 1);
+      exportMemoryThreshold = server.getConfigurationPropertyAsInt("nxreportd.export.memoryThreshold", 4 * 1024 * 1024);
+      logger.info("Report virtualizer: " + virtualizerType + " (maxPages=" + virtualizerMaxPages + ")");
+
+      // Swap files left by previous run are useless
+      File[] swapFiles = getSwapDirectory().listFiles();
+      if (swapFiles != null)
+      {
+         for(File f : swapFiles)
+            f.delete();
+      }
+
+      File outputDirectory = new File(workspace, "output");
+      outputDirectory.mkdirs();
+      resultCatalogue = new ResultCatalogue(outputDirectory, FILE_SUFFIX_METADATA);
+      resultCatalogue.load();
+   }
+
+   /**
+    * Shutdown report manager.
+    */
+   public void shutdown()
+   {
+      if (prefetchExecutor != null)
+         prefetchExecutor.shutdownNow();
+      resultCatalogue.close();
    }
 
    /**
@@ -151,19 +227,30 @@ public ReportDefinition getReportDefinition(UUID reportId, Locale locale)
    }
 
    /**
-    * Load report with given GUID.
+    * Load report with given GUID. Loaded reports are cached until report is re-deployed or undeployed.
     * 
     * @param uuid report GUID
     * @return report object or null
     */
    private JasperReport loadReport(UUID uuid)
    {
-      JasperReport jasperReport = null;
+      JasperReport jasperReport;
+      synchronized(compiledReports)
+      {
+         jasperReport = compiledReports.get(uuid);
+      }
+      if (jasperReport != null)
+         return jasperReport;
+
       final File reportDirectory = getReportDirectory(uuid);
       final File reportFile = new File(reportDirectory, MAIN_REPORT_COMPILED);
       try
       {
          jasperReport = (JasperReport)JRLoader.loadObject(reportFile);
+         synchronized(compiledReports)
+         {
+            compiledReports.put(uuid, jasperReport);
+         }
       }
       catch(JRException e)
       {
@@ -211,9 +298,14 @@ public void deploy(String archiveName)
       {
          String deployedName = archiveName.split("\\.(?=[^\\.]+$)")[0];
          File destination = new File(definitionsDirectory, deployedName);
+         releaseReportClassLoader(destination);
          deleteFolder(destination);
          UUID bundleId = unpackJar(destination, new File(definitionsDirectory, archiveName));
          executeDeploymentSqlStatements(destination);
+         synchronized(compiledReports)
+         {
+            compiledReports.remove(bundleId);
+         }
          if (compileReport(destination))
          {
             synchronized(reportMap)
@@ -248,6 +340,7 @@ public void undeploy(String archiveName)
       {
          String deployedName = archiveName.split("\\.(?=[^\\.]+$)")[0];
          File destination = new File(definitionsDirectory, deployedName);
+         releaseReportClassLoader(destination);
          if (destination.isDirectory())
          {
             try (InputStream in = new FileInputStream(new File(destination, "META-INF/MANIFEST.MF")))
@@ -261,6 +354,10 @@ public void undeploy(String archiveName)
                   {
                      reportMap.remove(bundleId);
                   }
+                  synchronized(compiledReports)
+                  {
+                     compiledReports.remove(bundleId);
+                  }
                   synchronized(backgroundWorkers)
                   {
                      AbstractBackgroundWorker worker = backgroundWorkers.remove(bundleId);
@@ -446,7 +543,7 @@ public boolean accept(File dir, String name)
       if (list.length > 0)
       {
          Arrays.sort(list);
-         try (Connection dbConnection = server.createDatabaseConnection())
+         try (Connection dbConnection = server.getDatabaseConnection())
          {
             for(String fileName : list)
             {
@@ -516,6 +613,44 @@ private File getOutputDirectory(UUID reportId)
       return file;
    }
 
+   /**
+    * Get directory for virtualizer swap files.
+    *
+    * @return directory for virtualizer swap files
+    */
+   private File getSwapDirectory()
+   {
+      final File swap = new File(workspace, SWAP_DIRECTORY);
+      if (!swap.exists())
+      {
+         swap.mkdirs();
+      }
+      return swap;
+   }
+
+   /**
+    * Create report virtualizer according to server configuration. Virtualizer keeps up to configured number of pages in memory
+    * and moves least recently used pages out of the heap when report grows beyond that, so small reports are processed entirely
+    * in memory and large reports do not exhaust the heap.
+    *
+    * @return new virtualizer or null if virtualization is disabled
+    */
+   private JRVirtualizer createVirtualizer()
+   {
+      switch(virtualizerType)
+      {
+         case "swap":
+            return new JRSwapFileVirtualizer(virtualizerMaxPages, new JRSwapFile(getSwapDirectory().getPath(), SWAP_BLOCK_SIZE, SWAP_MIN_GROW_COUNT), true);
+         case "gzip":
+            return new JRGzipVirtualizer(virtualizerMaxPages);
+         case "none":
+            return null;
+         default:
+            logger.warn("Unknown virtualizer type \"" + virtualizerType + "\", virtualization disabled");
+            return null;
+      }
+   }
+
    /**
     * Execute report.
     *
@@ -524,14 +659,15 @@ private File getOutputDirectory(UUID reportId)
     * @param jobConfiguration reporting job configuration
     * @param idataView name of database view for idata tables access or null if not provided
     * @param locale locale for translation
+    * @return true if report was executed successfully
     */
-   public void execute(int userId, String authToken, UUID jobId, ReportingJobConfiguration jobConfiguration, String idataView, Locale locale)
+   public boolean execute(int userId, String authToken, UUID jobId, ReportingJobConfiguration jobConfiguration, String idataView, Locale locale)
    {
       final JasperReport report = loadReport(jobConfiguration.reportId);
       if (report == null)
       {
          logger.error("Cannot load report with UUID=" + jobConfiguration.reportId);
-         return;
+         return false;
       }
 
       final File reportDirectory = getReportDirectory(jobConfiguration.reportId);
@@ -543,7 +679,7 @@ public void execute(int userId, String authToken, UUID jobId, ReportingJobConfig
       {
          logger.error("Error executing report " + jobConfiguration.reportId + " " + report.getName() + ": DCI data view not provided");
          saveResult(new ReportResult(jobId, jobConfiguration.reportId, new Date(), userId, false));
-         return;
+         return false;
       }
 
       // fill report parameters
@@ -559,36 +695,62 @@ public void execute(int userId, String authToken, UUID jobId, ReportingJobConfig
       URLClassLoader reportClassLoader = new URLClassLoader(new URL[] {}, getClass().getClassLoader());
       localParameters.put(JRParameter.REPORT_CLASS_LOADER, reportClassLoader);
 
+      final JRVirtualizer virtualizer = createVirtualizer();
+      if (virtualizer != null)
+         localParameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+
       ThreadLocalReportInfo.setReportLocation(subrepoDirectory);
       ThreadLocalReportInfo.setServer(server);
 
+      final NXCLJobContext nxclContext;
+      try
+      {
+         nxclContext = new NXCLJobContext(server, authToken, getReportClassLoader(subrepoDirectory));
+      }
+      catch(MalformedURLException e)
+      {
+         logger.error("Error executing report " + jobConfiguration.reportId + " " + report.getName() + ": invalid report location", e);
+         saveResult(new ReportResult(jobId, jobConfiguration.reportId, new Date(), userId, false));
+         return false;
+      }
+      ThreadLocalReportInfo.setNXCLContext(nxclContext);
+
       Connection dbConnection = null;
+      boolean success = false;
       final String outputFile = new File(getOutputDirectory(jobConfiguration.reportId), jobId.toString() + FILE_SUFFIX_FILLED).getPath();
+      deleteRenderedResults(jobConfiguration.reportId, jobId);
       try
       {
-         dbConnection = server.createDatabaseConnection();
+         dbConnection = server.getDatabaseConnection();
 
          if (reportDefinition.isResponsibleUsersViewRequired())
          {
             if (reportDefinition.getResponsibleUsersTag() != null)
                localParameters.put("responsible_users_tag", reportDefinition.getResponsibleUsersTag());
-            executeHook(PrepareResponsibleUsers.class, subrepoDirectory, localParameters, dbConnection, authToken);
+            executeHook(PrepareResponsibleUsers.class, localParameters, dbConnection, nxclContext);
          }
 
          prepareParameters(jobConfiguration.executionParameters, report, localParameters);
          logger.debug("Report parameters: " + localParameters);
 
-         executeHook("PreparationHook", subrepoDirectory, localParameters, dbConnection, authToken);
+         executeHook("PreparationHook", subrepoDirectory, localParameters, dbConnection, nxclContext);
+
+         // Start loading data for NXCL datasets while fill is being prepared
+         if (prefetchExecutor != null)
+            nxclContext.prefetch(report, localParameters, prefetchExecutor);
 
          DefaultJasperReportsContext reportsContext = DefaultJasperReportsContext.getInstance();
          reportsContext.setProperty(QueryExecuterFactory.QUERY_EXECUTER_FACTORY_PREFIX + "nxcl", "org.netxms.reporting.nxcl.NXCLQueryExecutorFactory");
          final JasperFillManager manager = JasperFillManager.getInstance(reportsContext);
+         long fillStartTime = System.currentTimeMillis();
          manager.fillToFile(report, outputFile, localParameters, dbConnection);
+         server.getReportScheduler().recordFillTime(System.currentTimeMillis() - fillStartTime);
 
          saveResult(new ReportResult(jobId, jobConfiguration.reportId, new Date(), userId, true));
          sendMailNotifications(jobConfiguration.reportId, report.getName(), jobId, userId, jobConfiguration.renderFormat, jobConfiguration.emailRecipients);
 
-         executeHook("CleanupHook", subrepoDirectory, localParameters, dbConnection, authToken);
+         executeHook("CleanupHook", subrepoDirectory, localParameters, dbConnection, nxclContext);
+         success = true;
       }
       catch(Throwable e)
       {
@@ -604,6 +766,10 @@ public void execute(int userId, String authToken, UUID jobId, ReportingJobConfig
       }
       finally
       {
+         ThreadLocalReportInfo.setNXCLContext(null);
+         nxclContext.close();
+         if (virtualizer != null)
+            virtualizer.cleanup();
          if (dbConnection != null)
          {
             dropDataView(dbConnection, idataView);
@@ -620,6 +786,7 @@ public void execute(int userId, String authToken, UUID jobId, ReportingJobConfig
       }
       server.getCommunicationManager().sendNotification(SessionNotification.RS_RESULTS_MODIFIED, 0);
       logger.info("Report execution completed (reportId=" + jobConfiguration.reportId + ", jobId=" + jobId + ")");
+      return success;
    }
 
    /**
@@ -629,66 +796,82 @@ public void execute(int userId, String authToken, UUID jobId, ReportingJobConfig
     * @param reportLocation location of report's files
     * @param parameters report execution parameters
     * @param dbConnection database connection
-    * @param authToken authentication token
+    * @param nxclContext NXCL context of current job
     * @throws Exception on any unrecoverable error
     */
    @SuppressWarnings("unchecked")
-   private void executeHook(String hookName, String reportLocation, HashMap<String, Object> parameters, Connection dbConnection, String authToken) throws Exception
+   private void executeHook(String hookName, String reportLocation, HashMap<String, Object> parameters, Connection dbConnection, NXCLJobContext nxclContext) throws Exception
    {
-      ReportClassLoader classLoader = null;
       try
       {
-         URL[] urls = { new URL("file:" + reportLocation) };
-         classLoader = new ReportClassLoader(urls, getClass().getClassLoader());
-         Class<? extends ExecutionHook> hookClass = (Class<? extends ExecutionHook>)classLoader.loadClass("report." + hookName);
-         executeHook(hookClass, reportLocation, parameters, dbConnection, authToken);
+         Class<? extends ExecutionHook> hookClass = (Class<? extends ExecutionHook>)getReportClassLoader(reportLocation).loadClass("report." + hookName);
+         executeHook(hookClass, parameters, dbConnection, nxclContext);
          logger.debug("Report parameters after hook execution: " + parameters);
       }
       catch(ClassNotFoundException e)
       {
          // ignore
       }
-      finally
-      {
-         try
-         {
-            if (classLoader != null)
-               classLoader.close();
-         }
-         catch(Exception e)
-         {
-            logger.warn("Unexpected exception while closing report hook class loader", e);
-         }
-      }
    }
 
    /**
     * Execute hook code.
     *
     * @param hookClass hook class
-    * @param reportLocation location of report's files
     * @param parameters report execution parameters
     * @param dbConnection database connection
-    * @param authToken authentication token
+    * @param nxclContext NXCL context of current job
     * @throws Exception on any unrecoverable error
     */
-   private void executeHook(Class<? extends ExecutionHook> hookClass, String reportLocation, HashMap<String, Object> parameters, Connection dbConnection, String authToken) throws Exception
+   private void executeHook(Class<? extends ExecutionHook> hookClass, HashMap<String, Object> parameters, Connection dbConnection, NXCLJobContext nxclContext) throws Exception
    {
       ExecutionHook hook = hookClass.getConstructor().newInstance();
       if (hook.isServerAccessRequired())
       {
          logger.info("Execution hook " + hookClass.getTypeName() + " requires server access");
-         if (authToken != null)
-            hook.connect(server.getConfigurationProperty("netxms.server.hostname", "localhost"), authToken);
-         else
-            hook.connect(server.getConfigurationProperty("netxms.server.hostname", "localhost"), server.getConfigurationProperty("netxms.server.login", "admin"),
-                  server.getConfigurationProperty("netxms.server.password", ""));
+         hook.attach(nxclContext.getSession());
       }
       logger.info("Running report execution hook " + hookClass.getTypeName());
       hook.run(parameters, dbConnection);
       hook.disconnect();
    }
-   
+
+   /**
+    * Get class loader for report classes in given location. Class loaders are cached, so report classes are loaded only once
+    * per deployed report package.
+    *
+    * @param reportLocation location of report's files
+    * @return class loader for report classes
+    * @throws MalformedURLException if report location cannot be converted to URL
+    */
+   private ReportClassLoader getReportClassLoader(String reportLocation) throws MalformedURLException
+   {
+      synchronized(classLoaders)
+      {
+         ReportClassLoader classLoader = classLoaders.get(reportLocation);
+         if (classLoader == null)
+         {
+            classLoader = new ReportClassLoader(new URL[] { new URL("file:" + reportLocation) }, getClass().getClassLoader());
+            classLoaders.put(reportLocation, classLoader);
+         }
+         return classLoader;
+      }
+   }
+
+   /**
+    * Remove cached class loader for report package being redeployed or undeployed. Class loader is not closed because it
+    * could still be in use by running job; it only references directory and does not hold any open files.
+    *
+    * @param reportDirectory report package directory
+    */
+   private void releaseReportClassLoader(File reportDirectory)
+   {
+      synchronized(classLoaders)
+      {
+         classLoaders.remove(reportDirectory.getPath() + File.separatorChar);
+      }
+   }
+
    /**
     * Start report background worker, if any
     *
@@ -999,6 +1182,7 @@ public void saveResult(ReportResult result)
       {
          File outputFile = new File(getOutputDirectory(result.getReportId()), result.getJobId().toString() + FILE_SUFFIX_METADATA);
          result.saveAsXml(outputFile);
+         resultCatalogue.put(result);
       }
       catch(Exception e)
       {
@@ -1015,33 +1199,26 @@ public void saveResult(ReportResult result)
     */
    public List<ReportResult> listResults(UUID reportId, int userId)
    {
-      File[] files = getOutputDirectory(reportId).listFiles(new FilenameFilter() {
-         @Override
-         public boolean accept(File dir, String name)
-         {
-            String normalizedName = name.toLowerCase();
-            return normalizedName.endsWith(FILE_SUFFIX_METADATA);
-         }
-      });
-
-      List<ReportResult> results = new ArrayList<ReportResult>(files.length);
-      for(File f : files)
-      {
-         try
-         {
-            ReportResult result = ReportResult.loadFromFile(f);
-            if ((result.getUserId() == userId) || (userId == 0))
-               results.add(result);
-         }
-         catch(Exception e)
-         {
-            logger.error("Error reading report execution metadata from file " + f, e);
-         }
-      }
-
+      List<ReportResult> results = new ArrayList<ReportResult>();
+      listResults(reportId, userId, 0, 0, results);
       return results;
    }
 
+   /**
+    * List available results for given report and user, newest first.
+    *
+    * @param reportId report ID
+    * @param userId user ID (0 to list results for all users)
+    * @param offset number of results to skip
+    * @param limit maximum number of results to return (0 for unlimited)
+    * @param results list to add results to
+    * @return total number of available results
+    */
+   public int listResults(UUID reportId, int userId, int offset, int limit, List<ReportResult> results)
+   {
+      return resultCatalogue.query(reportId, userId, offset, limit, results);
+   }
+
    /**
     * Delete report result
     *
@@ -1062,6 +1239,9 @@ public boolean deleteResult(UUID reportId, UUID jobId)
       if (file.exists())
          success = file.delete() && success;
 
+      success = deleteRenderedResults(reportId, jobId) && success;
+      resultCatalogue.remove(reportId, jobId);
+
       return success;
    }
 
@@ -1107,7 +1287,7 @@ public boolean accept(File dir, String name)
    }
 
    /**
-    * Render report result
+    * Render report execution result to file. Rendered file is kept in cache and should not be deleted by caller.
     *
     * @param reportId report ID
     * @param jobId job ID
@@ -1116,78 +1296,178 @@ public boolean accept(File dir, String name)
     * @return file with rendered results on success and null on failure
     */
    public File renderResult(UUID reportId, UUID jobId, int userId, ReportRenderFormat format)
+   {
+      return renderResult(reportId, jobId, userId, format, null) ? getRenderedResultFile(reportId, jobId, format) : null;
+   }
+
+   /**
+    * Render report execution result and write it to given output stream as it is produced. Rendered document is cached, so
+    * repeated requests for same job and format are served from cache without export.
+    *
+    * @param reportId report ID
+    * @param jobId job ID
+    * @param userId user ID
+    * @param format rendering format
+    * @param out output stream for rendered document (can be null if only cached copy is needed)
+    * @return true on success
+    */
+   public boolean renderResult(UUID reportId, UUID jobId, int userId, ReportRenderFormat format, OutputStream out)
    {
       final File outputDirectory = getOutputDirectory(reportId);
 
       if (userId != 0)
       {
-         try
+         ReportResult result = resultCatalogue.get(reportId, jobId);
+         if (result == null)
          {
-            ReportResult result = ReportResult.loadFromFile(new File(outputDirectory, jobId.toString() + FILE_SUFFIX_METADATA));
-            if (result.getUserId() != userId)
-            {
-               logger.warn("Forbidden rendering of report {} job {} by user {} (not an owner)", reportId, jobId, userId);
-               return null;
-            }
+            logger.warn("Cannot find metadata for report " + reportId + " job " + jobId);
+            return false;
          }
-         catch(Exception e)
+         if (result.getUserId() != userId)
          {
-            logger.warn("Error loading metadata for report " + reportId + " job " + jobId, e);
-            return null;
+            logger.warn("Forbidden rendering of report {} job {} by user {} (not an owner)", reportId, jobId, userId);
+            return false;
          }
       }
 
+      if ((format != ReportRenderFormat.PDF) && (format != ReportRenderFormat.XLSX))
+      {
+         logger.error("Unsupported rendering format " + format);
+         return false;
+      }
+
       final File dataFile = new File(outputDirectory, jobId.toString() + FILE_SUFFIX_FILLED);
-      final File outputFile = new File(outputDirectory, jobId.toString() + "." + System.currentTimeMillis() + ".render");
+      final File cacheFile = getRenderedResultFile(reportId, jobId, format);
+      if (cacheFile.exists() && (cacheFile.lastModified() >= dataFile.lastModified()))
+      {
+         logger.debug("Using cached {} rendering of report {} job {}", format, reportId, jobId);
+         if (out == null)
+            return true;
+         try
+         {
+            FileUtils.copyFile(cacheFile, out);
+            return true;
+         }
+         catch(IOException e)
+         {
+            logger.error("Failed to send cached report rendering", e);
+            return false;
+         }
+      }
 
+      final File tempFile = new File(outputDirectory, jobId.toString() + "." + Thread.currentThread().getId() + "." + System.currentTimeMillis() + ".render");
+      final JRVirtualizer virtualizer = createVirtualizer();
       try
       {
-         switch(format)
+         JasperPrint print = loadFilledReport(dataFile, virtualizer);
+         try (OutputStream cacheStream = new BufferedOutputStream(new FileOutputStream(tempFile)))
          {
-            case PDF:
-               renderPDF(dataFile, outputFile);
-               break;
-            case XLSX:
-               renderXLSX(dataFile, outputFile, loadReport(reportId));
-               break;
-            default:
-               logger.error("Unsupported rendering format " + format);
-               return null;
+            OutputStream target = (out != null) ? new TeeOutputStream(cacheStream, out) : cacheStream;
+            if (format == ReportRenderFormat.PDF)
+               renderPDF(print, target);
+            else
+               renderXLSX(print, target, loadReport(reportId));
+            target.flush();
          }
-         return outputFile;
+         Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+         return true;
       }
       catch(Throwable e)
       {
          logger.error("Failed to render report", e);
-         outputFile.delete();
-         return null;
+         tempFile.delete();
+         return false;
+      }
+      finally
+      {
+         if (virtualizer != null)
+            virtualizer.cleanup();
+      }
+   }
+
+   /**
+    * Get file for cached rendering of report execution result.
+    *
+    * @param reportId report ID
+    * @param jobId job ID
+    * @param format rendering format
+    * @return file for cached rendering (may not exist)
+    */
+   private File getRenderedResultFile(UUID reportId, UUID jobId, ReportRenderFormat format)
+   {
+      return new File(getOutputDirectory(reportId), jobId.toString() + "." + format.name().toLowerCase() + FILE_SUFFIX_RENDERED);
+   }
+
+   /**
+    * Delete cached renderings of report execution result.
+    *
+    * @param reportId report ID
+    * @param jobId job ID
+    * @return true on success
+    */
+   private boolean deleteRenderedResults(UUID reportId, UUID jobId)
+   {
+      boolean success = true;
+      for(ReportRenderFormat format : ReportRenderFormat.values())
+      {
+         File file = getRenderedResultFile(reportId, jobId, format);
+         if (file.exists())
+            success = file.delete() && success;
+      }
+      return success;
+   }
+
+   /**
+    * Load filled report. If virtualizer is provided, report pages are loaded into virtualizer instead of being kept in heap.
+    *
+    * @param file file with filled report
+    * @param virtualizer virtualizer to use (can be null)
+    * @return loaded report
+    * @throws JRException on error
+    */
+   private static JasperPrint loadFilledReport(File file, JRVirtualizer virtualizer) throws JRException
+   {
+      if (virtualizer == null)
+         return (JasperPrint)JRLoader.loadObject(file);
+
+      JRVirtualizationHelper.setThreadVirtualizer(virtualizer);
+      try
+      {
+         JasperPrint print = (JasperPrint)JRLoader.loadObject(file);
+         virtualizer.setReadOnly(true);
+         return print;
+      }
+      finally
+      {
+         JRVirtualizationHelper.clearThreadVirtualizer();
       }
    }
 
    /**
     * Render report to PDF format.
     *
-    * @param inputFile input file
-    * @param outputFile output file
+    * @param print filled report
+    * @param out output stream
     * @throws Exception on error
     */
-   private static void renderPDF(File inputFile, File outputFile) throws Exception
+   private static void renderPDF(JasperPrint print, OutputStream out) throws Exception
    {
       JRPdfExporter exporter = new JRPdfExporter();
-      exporter.setExporterInput(new SimpleExporterInput(inputFile));
-      exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(new FileOutputStream(outputFile)));
+      exporter.setExporterInput(new SimpleExporterInput(print));
+      exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
       exporter.exportReport();
    }
 
    /**
-    * Render report to XLSX format.
+    * Render report to XLSX format. Sheet data is buffered in temporary files once it grows beyond configured memory threshold,
+    * and long reports are split into multiple sheets to stay within Excel row limit.
     *
-    * @param inputFile input file
-    * @param outputFile output file
+    * @param print filled report
+    * @param out output stream
     * @param report report object
     * @throws Exception on error
     */
-   private static void renderXLSX(File inputFile, File outputFile, JasperReport report) throws Exception
+   private void renderXLSX(JasperPrint print, OutputStream out, JasperReport report) throws Exception
    {
       SimpleXlsxReportConfiguration configuration = new SimpleXlsxReportConfiguration();
       if (report != null)
@@ -1199,16 +1479,21 @@ private static void renderXLSX(File inputFile, File outputFile, JasperReport rep
       configuration.setRemoveEmptySpaceBetweenColumns(true);
       configuration.setCollapseRowSpan(true);
       configuration.setOnePagePerSheet(false);
+      configuration.setMaxRowsPerSheet(XLSX_MAX_ROWS_PER_SHEET);
       configuration.setDetectCellType(true);
       // Arrange graphics
       configuration.setImageBorderFixEnabled(true);
       configuration.setFontSizeFixEnabled(true);
       configuration.setIgnoreGraphics(false);
 
-      JRXlsxExporter exporter = new JRXlsxExporter();
+      SimpleJasperReportsContext context = new SimpleJasperReportsContext(DefaultJasperReportsContext.getInstance());
+      if (exportMemoryThreshold > 0)
+         context.setProperty(FileBufferedOutputStream.PROPERTY_MEMORY_THRESHOLD, Integer.toString(exportMemoryThreshold));
+
+      JRXlsxExporter exporter = new JRXlsxExporter(context);
       exporter.setConfiguration(configuration);
-      exporter.setExporterInput(new SimpleExporterInput(inputFile));
-      exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(new FileOutputStream(outputFile)));
+      exporter.setExporterInput(new SimpleExporterInput(print));
+      exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
       exporter.exportReport();
    }
 
@@ -1314,8 +1599,6 @@ private void sendMailNotifications(UUID reportId, String reportName, UUID jobId,
 
       for(String r : recipients)
          server.getSmtpSender().sendMail(r, "New report is available", text, fileName, renderResult);
-      if (renderResult != null)
-         renderResult.delete();
    }
 
    /**
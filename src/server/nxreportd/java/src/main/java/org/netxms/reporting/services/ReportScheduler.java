@@ -0,0 +1,478 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import org.netxms.reporting.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scheduler for report execution jobs. Limits number of concurrently executed jobs (globally and per report) and selects next
+ * job by priority, and within same priority - in favor of users with less running jobs, so single user submitting many jobs
+ * cannot block others.
+ */
+public class ReportScheduler implements ReportSchedulerMBean
+{
+   private static final Logger logger = LoggerFactory.getLogger(ReportScheduler.class);
+
+   private final int maxConcurrentJobs;
+   private final int maxJobsPerReport;
+   private final int maxQueueSize;
+   private final List<Job> queue = new ArrayList<Job>();
+   private final Map<UUID, Integer> runningJobsByReport = new HashMap<UUID, Integer>();
+   private final Map<Integer, UserState> users = new HashMap<Integer, UserState>();
+   private final Thread[] workers;
+   private boolean running = false;
+   private int runningJobs = 0;
+   private long submitSequence = 0;
+   private long dispatchSequence = 0;
+   private long completedJobs = 0;
+   private long failedJobs = 0;
+   private long rejectedJobs = 0;
+   private long dispatchedJobs = 0;
+   private long totalQueueTime = 0;
+   private long maxQueueTime = 0;
+   private long fillCount = 0;
+   private long totalFillTime = 0;
+   private long maxFillTime = 0;
+
+   /**
+    * Create scheduler. Scheduler parameters are read from server configuration.
+    *
+    * @param server server instance
+    */
+   public ReportScheduler(Server server)
+   {
+      maxConcurrentJobs = Math.max(server.getConfigurationPropertyAsInt("nxreportd.scheduler.maxConcurrentJobs", 4), 1);
+      maxJobsPerReport = Math.max(server.getConfigurationPropertyAsInt("nxreportd.scheduler.maxJobsPerReport", 2), 1);
+      maxQueueSize = Math.max(server.getConfigurationPropertyAsInt("nxreportd.scheduler.maxQueueSize", 1024), 1);
+      workers = new Thread[maxConcurrentJobs];
+   }
+
+   /**
+    * Start worker threads.
+    */
+   public void start()
+   {
+      synchronized(queue)
+      {
+         running = true;
+      }
+      for(int i = 0; i < workers.length; i++)
+      {
+         workers[i] = new Thread(new Runnable() {
+            @Override
+            public void run()
+            {
+               workerLoop();
+            }
+         }, "Report Executor #" + (i + 1));
+         workers[i].setDaemon(true);
+         workers[i].start();
+      }
+      logger.info("Report scheduler started (maxConcurrentJobs=" + maxConcurrentJobs + ", maxJobsPerReport=" + maxJobsPerReport + ", maxQueueSize=" + maxQueueSize + ")");
+   }
+
+   /**
+    * Stop worker threads. Jobs still waiting in queue are discarded.
+    */
+   public void shutdown()
+   {
+      synchronized(queue)
+      {
+         running = false;
+         if (!queue.isEmpty())
+            logger.warn(queue.size() + " queued report jobs discarded on shutdown");
+         queue.clear();
+         queue.notifyAll();
+      }
+      for(Thread t : workers)
+      {
+         if (t != null)
+            t.interrupt();
+      }
+   }
+
+   /**
+    * Submit job for execution.
+    *
+    * @param reportId report ID
+    * @param userId ID of user that requested execution
+    * @param priority job priority (jobs with higher priority are executed first)
+    * @param task task to execute (should return true on success)
+    * @return true if job was queued and false if queue is full
+    */
+   public boolean submit(UUID reportId, int userId, int priority, Callable<Boolean> task)
+   {
+      synchronized(queue)
+      {
+         if (!running || (queue.size() >= maxQueueSize))
+         {
+            rejectedJobs++;
+            logger.warn("Report job rejected (reportId=" + reportId + ", userId=" + userId + ", queueSize=" + queue.size() + ")");
+            return false;
+         }
+         queue.add(new Job(reportId, userId, priority, submitSequence++, task));
+         queue.notify();
+         logger.debug("Report job queued (reportId=" + reportId + ", userId=" + userId + ", priority=" + priority + ", queueSize=" + queue.size() + ")");
+      }
+      return true;
+   }
+
+   /**
+    * Record report fill time.
+    *
+    * @param elapsedTime fill time in milliseconds
+    */
+   public void recordFillTime(long elapsedTime)
+   {
+      synchronized(queue)
+      {
+         fillCount++;
+         totalFillTime += elapsedTime;
+         if (elapsedTime > maxFillTime)
+            maxFillTime = elapsedTime;
+      }
+   }
+
+   /**
+    * Worker thread main loop
+    */
+   private void workerLoop()
+   {
+      while(true)
+      {
+         Job job = null;
+         synchronized(queue)
+         {
+            while(running && ((job = selectNextJob()) == null))
+            {
+               try
+               {
+                  queue.wait();
+               }
+               catch(InterruptedException e)
+               {
+                  return;
+               }
+            }
+            if (!running)
+               return;
+            dispatch(job);
+         }
+
+         boolean success = false;
+         try
+         {
+            success = job.task.call();
+         }
+         catch(Throwable e)
+         {
+            logger.error("Unhandled exception in report job (reportId=" + job.reportId + ")", e);
+         }
+         finally
+         {
+            synchronized(queue)
+            {
+               complete(job, success);
+               queue.notifyAll();
+            }
+         }
+      }
+   }
+
+   /**
+    * Select next job for execution. Must be called with queue lock held.
+    *
+    * @return selected job or null if there are no jobs that can be executed now
+    */
+   private Job selectNextJob()
+   {
+      Job selected = null;
+      UserState selectedUser = null;
+      for(Job job : queue)
+      {
+         Integer count = runningJobsByReport.get(job.reportId);
+         if ((count != null) && (count >= maxJobsPerReport))
+            continue;
+
+         UserState user = users.get(job.userId);
+         if ((selected == null) || isPreferred(job, user, selected, selectedUser))
+         {
+            selected = job;
+            selectedUser = user;
+         }
+      }
+      return selected;
+   }
+
+   /**
+    * Check if one job should be executed before another.
+    *
+    * @return true if job should be executed before other job
+    */
+   private static boolean isPreferred(Job job, UserState user, Job other, UserState otherUser)
+   {
+      if (job.priority != other.priority)
+         return job.priority > other.priority;
+      if (job.userId != other.userId)
+      {
+         int jobsRunning = (user != null) ? user.runningJobs : 0;
+         int otherJobsRunning = (otherUser != null) ? otherUser.runningJobs : 0;
+         if (jobsRunning != otherJobsRunning)
+            return jobsRunning < otherJobsRunning;
+         long lastDispatch = (user != null) ? user.lastDispatch : -1;
+         long otherLastDispatch = (otherUser != null) ? otherUser.lastDispatch : -1;
+         if (lastDispatch != otherLastDispatch)
+            return lastDispatch < otherLastDispatch;
+      }
+      return job.sequence < other.sequence;
+   }
+
+   /**
+    * Mark job as running. Must be called with queue lock held.
+    *
+    * @param job job to dispatch
+    */
+   private void dispatch(Job job)
+   {
+      queue.remove(job);
+      runningJobs++;
+      Integer count = runningJobsByReport.get(job.reportId);
+      runningJobsByReport.put(job.reportId, (count != null) ? count + 1 : 1);
+      UserState user = users.get(job.userId);
+      if (user == null)
+      {
+         user = new UserState();
+         users.put(job.userId, user);
+      }
+      user.runningJobs++;
+      user.lastDispatch = dispatchSequence++;
+
+      long queueTime = System.currentTimeMillis() - job.submitTime;
+      dispatchedJobs++;
+      totalQueueTime += queueTime;
+      if (queueTime > maxQueueTime)
+         maxQueueTime = queueTime;
+      logger.debug("Starting report job (reportId=" + job.reportId + ", userId=" + job.userId + ", queueTime=" + queueTime + "ms)");
+   }
+
+   /**
+    * Mark job as completed. Must be called with queue lock held.
+    *
+    * @param job completed job
+    * @param success true if job completed successfully
+    */
+   private void complete(Job job, boolean success)
+   {
+      runningJobs--;
+      int count = runningJobsByReport.get(job.reportId);
+      if (count > 1)
+         runningJobsByReport.put(job.reportId, count - 1);
+      else
+         runningJobsByReport.remove(job.reportId);
+      UserState user = users.get(job.userId);
+      if ((--user.runningJobs == 0) && !hasQueuedJobs(job.userId))
+         users.remove(job.userId);
+      if (success)
+         completedJobs++;
+      else
+         failedJobs++;
+   }
+
+   /**
+    * Check if given user has jobs waiting in queue. Must be called with queue lock held.
+    *
+    * @param userId user ID
+    * @return true if user has queued jobs
+    */
+   private boolean hasQueuedJobs(int userId)
+   {
+      for(Job job : queue)
+      {
+         if (job.userId == userId)
+            return true;
+      }
+      return false;
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getQueueDepth()
+    */
+   @Override
+   public int getQueueDepth()
+   {
+      synchronized(queue)
+      {
+         return queue.size();
+      }
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getRunningJobs()
+    */
+   @Override
+   public int getRunningJobs()
+   {
+      synchronized(queue)
+      {
+         return runningJobs;
+      }
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getMaxConcurrentJobs()
+    */
+   @Override
+   public int getMaxConcurrentJobs()
+   {
+      return maxConcurrentJobs;
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getMaxJobsPerReport()
+    */
+   @Override
+   public int getMaxJobsPerReport()
+   {
+      return maxJobsPerReport;
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getCompletedJobs()
+    */
+   @Override
+   public long getCompletedJobs()
+   {
+      synchronized(queue)
+      {
+         return completedJobs;
+      }
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getFailedJobs()
+    */
+   @Override
+   public long getFailedJobs()
+   {
+      synchronized(queue)
+      {
+         return failedJobs;
+      }
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getRejectedJobs()
+    */
+   @Override
+   public long getRejectedJobs()
+   {
+      synchronized(queue)
+      {
+         return rejectedJobs;
+      }
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getAverageQueueTime()
+    */
+   @Override
+   public double getAverageQueueTime()
+   {
+      synchronized(queue)
+      {
+         return (dispatchedJobs > 0) ? (double)totalQueueTime / (double)dispatchedJobs : 0;
+      }
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getMaxQueueTime()
+    */
+   @Override
+   public long getMaxQueueTime()
+   {
+      synchronized(queue)
+      {
+         return maxQueueTime;
+      }
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getAverageFillTime()
+    */
+   @Override
+   public double getAverageFillTime()
+   {
+      synchronized(queue)
+      {
+         return (fillCount > 0) ? (double)totalFillTime / (double)fillCount : 0;
+      }
+   }
+
+   /**
+    * @see org.netxms.reporting.services.ReportSchedulerMBean#getMaxFillTime()
+    */
+   @Override
+   public long getMaxFillTime()
+   {
+      synchronized(queue)
+      {
+         return maxFillTime;
+      }
+   }
+
+   /**
+    * Queued job
+    */
+   private static final class Job
+   {
+      final UUID reportId;
+      final int userId;
+      final int priority;
+      final long sequence;
+      final long submitTime;
+      final Callable<Boolean> task;
+
+      Job(UUID reportId, int userId, int priority, long sequence, Callable<Boolean> task)
+      {
+         this.reportId = reportId;
+         this.userId = userId;
+         this.priority = priority;
+         this.sequence = sequence;
+         this.submitTime = System.currentTimeMillis();
+         this.task = task;
+      }
+   }
+
+   /**
+    * Per-user scheduling state
+    */
+   private static final class UserState
+   {
+      int runningJobs = 0;
+      long lastDispatch = -1;
+   }
+}
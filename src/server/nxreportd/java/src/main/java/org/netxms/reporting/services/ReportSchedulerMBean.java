@@ -0,0 +1,80 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.services;
+
+/**
+ * Management interface for report execution scheduler
+ */
+public interface ReportSchedulerMBean
+{
+   /**
+    * @return number of jobs waiting for execution
+    */
+   public int getQueueDepth();
+
+   /**
+    * @return number of jobs being executed
+    */
+   public int getRunningJobs();
+
+   /**
+    * @return maximum number of concurrently executed jobs
+    */
+   public int getMaxConcurrentJobs();
+
+   /**
+    * @return maximum number of concurrently executed jobs for single report
+    */
+   public int getMaxJobsPerReport();
+
+   /**
+    * @return number of successfully completed jobs since startup
+    */
+   public long getCompletedJobs();
+
+   /**
+    * @return number of failed jobs since startup
+    */
+   public long getFailedJobs();
+
+   /**
+    * @return number of jobs rejected because queue was full
+    */
+   public long getRejectedJobs();
+
+   /**
+    * @return average time (in milliseconds) job spent in queue
+    */
+   public double getAverageQueueTime();
+
+   /**
+    * @return maximum time (in milliseconds) job spent in queue
+    */
+   public long getMaxQueueTime();
+
+   /**
+    * @return average report fill time (in milliseconds)
+    */
+   public double getAverageFillTime();
+
+   /**
+    * @return maximum report fill time (in milliseconds)
+    */
+   public long getMaxFillTime();
+}
@@ -0,0 +1,436 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2025 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.netxms.client.reporting.ReportResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory catalogue of report execution results. Catalogue is loaded from compact index file at startup and reconciled with
+ * metadata files in output directory, so only metadata files created or changed outside of reporting server have to be parsed.
+ * Index file is rewritten in background shortly after changes.
+ */
+public class ResultCatalogue
+{
+   private static final Logger logger = LoggerFactory.getLogger(ResultCatalogue.class);
+
+   private static final String INDEX_FILE = "results.idx";
+   private static final int INDEX_MAGIC = 0x4E585249; // NXRI
+   private static final int INDEX_VERSION = 1;
+   private static final long SAVE_DELAY = 5;
+
+   /**
+    * Results ordered by execution time (newest first)
+    */
+   private static final Comparator<ReportResult> RESULT_ORDER = new Comparator<ReportResult>() {
+      @Override
+      public int compare(ReportResult r1, ReportResult r2)
+      {
+         int rc = Long.compare(getTime(r2), getTime(r1));
+         return (rc != 0) ? rc : r1.getJobId().compareTo(r2.getJobId());
+      }
+   };
+
+   private final File outputDirectory;
+   private final String metadataSuffix;
+   private final Map<UUID, ReportResults> reports = new HashMap<UUID, ReportResults>();
+   private final ScheduledThreadPoolExecutor saveExecutor;
+   private boolean saveScheduled = false;
+
+   /**
+    * Create catalogue for given output directory.
+    *
+    * @param outputDirectory output directory (each report has its own subdirectory named by report ID)
+    * @param metadataSuffix suffix of result metadata files
+    */
+   public ResultCatalogue(File outputDirectory, String metadataSuffix)
+   {
+      this.outputDirectory = outputDirectory;
+      this.metadataSuffix = metadataSuffix;
+      saveExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r)
+         {
+            Thread t = new Thread(r, "Result Catalogue Writer");
+            t.setDaemon(true);
+            return t;
+         }
+      });
+   }
+
+   /**
+    * Load catalogue from index file and reconcile it with metadata files in output directory.
+    */
+   public void load()
+   {
+      long startTime = System.currentTimeMillis();
+      Map<UUID, ReportResult> indexed = loadIndex();
+
+      int added = 0, removed = 0, total = 0;
+      File[] directories = outputDirectory.listFiles();
+      synchronized(reports)
+      {
+         reports.clear();
+         if (directories != null)
+         {
+            for(File d : directories)
+            {
+               if (!d.isDirectory())
+                  continue;
+
+               UUID reportId;
+               try
+               {
+                  reportId = UUID.fromString(d.getName());
+               }
+               catch(IllegalArgumentException e)
+               {
+                  continue;
+               }
+
+               String[] names = d.list(new FilenameFilter() {
+                  @Override
+                  public boolean accept(File dir, String name)
+                  {
+                     return name.toLowerCase().endsWith(metadataSuffix);
+                  }
+               });
+               if (names == null)
+                  continue;
+
+               for(String name : names)
+               {
+                  File f = new File(d, name);
+                  ReportResult result;
+                  try
+                  {
+                     result = indexed.remove(UUID.fromString(name.substring(0, name.length() - metadataSuffix.length())));
+                  }
+                  catch(IllegalArgumentException e)
+                  {
+                     result = null;
+                  }
+                  if ((result == null) || !reportId.equals(result.getReportId()))
+                  {
+                     try
+                     {
+                        result = ReportResult.loadFromFile(f);
+                        added++;
+                     }
+                     catch(Exception e)
+                     {
+                        logger.error("Error reading report execution metadata from file " + f, e);
+                        continue;
+                     }
+                  }
+                  getReportResults(reportId, true).add(result);
+                  total++;
+               }
+            }
+         }
+      }
+      removed = indexed.size();
+
+      logger.info("Result catalogue loaded in " + (System.currentTimeMillis() - startTime) + " ms (" + total + " results, " + added + " added from metadata files, " + removed + " stale index entries removed)");
+      if ((added > 0) || (removed > 0))
+         scheduleSave();
+   }
+
+   /**
+    * Load index file.
+    *
+    * @return results from index file (empty map if index file is missing or invalid)
+    */
+   private Map<UUID, ReportResult> loadIndex()
+   {
+      Map<UUID, ReportResult> results = new HashMap<UUID, ReportResult>();
+      File file = new File(outputDirectory, INDEX_FILE);
+      if (!file.exists())
+         return results;
+
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+      {
+         if ((in.readInt() != INDEX_MAGIC) || (in.readInt() != INDEX_VERSION))
+         {
+            logger.warn("Result index file " + file + " has unsupported format and will be rebuilt");
+            return results;
+         }
+         int count = in.readInt();
+         for(int i = 0; i < count; i++)
+         {
+            UUID reportId = new UUID(in.readLong(), in.readLong());
+            UUID jobId = new UUID(in.readLong(), in.readLong());
+            long time = in.readLong();
+            int userId = in.readInt();
+            boolean success = in.readBoolean();
+            results.put(jobId, new ReportResult(jobId, reportId, (time != 0) ? new Date(time) : null, userId, success));
+         }
+      }
+      catch(IOException e)
+      {
+         logger.warn("Error reading result index file " + file + " (index will be rebuilt)", e);
+         results.clear();
+      }
+      return results;
+   }
+
+   /**
+    * Save index file.
+    */
+   private void saveIndex()
+   {
+      List<ReportResult> results = new ArrayList<ReportResult>();
+      synchronized(reports)
+      {
+         saveScheduled = false;
+         for(ReportResults r : reports.values())
+            results.addAll(r.ordered);
+      }
+
+      File file = new File(outputDirectory, INDEX_FILE);
+      File tempFile = new File(outputDirectory, INDEX_FILE + ".tmp");
+      try
+      {
+         try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+         {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(results.size());
+            for(ReportResult r : results)
+            {
+               out.writeLong(r.getReportId().getMostSignificantBits());
+               out.writeLong(r.getReportId().getLeastSignificantBits());
+               out.writeLong(r.getJobId().getMostSignificantBits());
+               out.writeLong(r.getJobId().getLeastSignificantBits());
+               out.writeLong(getTime(r));
+               out.writeInt(r.getUserId());
+               out.writeBoolean(r.isSuccess());
+            }
+         }
+         Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+         logger.debug("Result index saved ({} entries)", results.size());
+      }
+      catch(IOException e)
+      {
+         logger.error("Error writing result index file " + file, e);
+         tempFile.delete();
+      }
+   }
+
+   /**
+    * Schedule index save. Changes made within short time are saved together.
+    */
+   private void scheduleSave()
+   {
+      synchronized(reports)
+      {
+         if (saveScheduled)
+            return;
+         saveScheduled = true;
+      }
+      saveExecutor.schedule(new Runnable() {
+         @Override
+         public void run()
+         {
+            saveIndex();
+         }
+      }, SAVE_DELAY, TimeUnit.SECONDS);
+   }
+
+   /**
+    * Save pending changes and stop background writer.
+    */
+   public void close()
+   {
+      saveExecutor.shutdownNow();
+      boolean pending;
+      synchronized(reports)
+      {
+         pending = saveScheduled;
+      }
+      if (pending)
+         saveIndex();
+   }
+
+   /**
+    * Get results for given report. Must be called with catalogue lock held.
+    *
+    * @param reportId report ID
+    * @param create true to create empty result set if missing
+    * @return results for given report or null
+    */
+   private ReportResults getReportResults(UUID reportId, boolean create)
+   {
+      ReportResults r = reports.get(reportId);
+      if ((r == null) && create)
+      {
+         r = new ReportResults();
+         reports.put(reportId, r);
+      }
+      return r;
+   }
+
+   /**
+    * Add or replace result.
+    *
+    * @param result report execution result
+    */
+   public void put(ReportResult result)
+   {
+      synchronized(reports)
+      {
+         getReportResults(result.getReportId(), true).add(result);
+      }
+      scheduleSave();
+   }
+
+   /**
+    * Remove result.
+    *
+    * @param reportId report ID
+    * @param jobId job ID
+    */
+   public void remove(UUID reportId, UUID jobId)
+   {
+      synchronized(reports)
+      {
+         ReportResults r = getReportResults(reportId, false);
+         if ((r == null) || !r.remove(jobId))
+            return;
+         if (r.byJobId.isEmpty())
+            reports.remove(reportId);
+      }
+      scheduleSave();
+   }
+
+   /**
+    * Get single result.
+    *
+    * @param reportId report ID
+    * @param jobId job ID
+    * @return result or null if not found
+    */
+   public ReportResult get(UUID reportId, UUID jobId)
+   {
+      synchronized(reports)
+      {
+         ReportResults r = getReportResults(reportId, false);
+         return (r != null) ? r.byJobId.get(jobId) : null;
+      }
+   }
+
+   /**
+    * Query results for given report, newest first.
+    *
+    * @param reportId report ID
+    * @param userId user ID (0 to get results for all users)
+    * @param offset number of matching results to skip
+    * @param limit maximum number of results to return (0 for unlimited)
+    * @param results list to add results to
+    * @return total number of matching results
+    */
+   public int query(UUID reportId, int userId, int offset, int limit, List<ReportResult> results)
+   {
+      int count = 0;
+      synchronized(reports)
+      {
+         ReportResults r = getReportResults(reportId, false);
+         if (r == null)
+            return 0;
+         for(ReportResult result : r.ordered)
+         {
+            if ((userId != 0) && (result.getUserId() != userId))
+               continue;
+            if ((count >= offset) && ((limit <= 0) || (results.size() < limit)))
+               results.add(result);
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Get execution time of result as milliseconds since epoch.
+    *
+    * @param r result
+    * @return execution time or 0 if not set
+    */
+   private static long getTime(ReportResult r)
+   {
+      Date d = r.getExecutionTime();
+      return (d != null) ? d.getTime() : 0;
+   }
+
+   /**
+    * Results for single report
+    */
+   private static final class ReportResults
+   {
+      final Map<UUID, ReportResult> byJobId = new HashMap<UUID, ReportResult>();
+      final TreeSet<ReportResult> ordered = new TreeSet<ReportResult>(RESULT_ORDER);
+
+      /**
+       * Add or replace result.
+       */
+      void add(ReportResult result)
+      {
+         ReportResult prev = byJobId.put(result.getJobId(), result);
+         if (prev != null)
+            ordered.remove(prev);
+         ordered.add(result);
+      }
+
+      /**
+       * Remove result.
+       *
+       * @return true if result was removed
+       */
+      boolean remove(UUID jobId)
+      {
+         ReportResult r = byJobId.remove(jobId);
+         if (r == null)
+            return false;
+         ordered.remove(r);
+         return true;
+      }
+   }
+}
@@ -19,6 +19,7 @@
 package org.netxms.reporting.tools;
 
 import org.netxms.reporting.Server;
+import org.netxms.reporting.nxcl.NXCLJobContext;
 
 /**
  * Thread-local information for currently running report
@@ -27,6 +28,7 @@
 {
    private static final ThreadLocal<String> location = new ThreadLocal<String>();
    private static final ThreadLocal<Server> server = new ThreadLocal<Server>();
+   private static final ThreadLocal<NXCLJobContext> nxclContext = new ThreadLocal<NXCLJobContext>();
 
    public static String getReportLocation()
    {
@@ -47,4 +49,14 @@ public static void setServer(Server server)
    {
       ThreadLocalReportInfo.server.set(server);
    }
+
+   public static NXCLJobContext getNXCLContext()
+   {
+      return nxclContext.get();
+   }
+
+   public static void setNXCLContext(NXCLJobContext context)
+   {
+      ThreadLocalReportInfo.nxclContext.set(context);
+   }
 }